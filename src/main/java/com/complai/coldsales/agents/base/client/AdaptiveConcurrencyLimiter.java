@@ -0,0 +1,293 @@
+package com.complai.coldsales.agents.base.client;
+
+import lombok.Value;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * AIMD (additive increase, multiplicative decrease) concurrency limiter, one limit per key
+ * (model + endpoint).
+ *
+ * Like TCP congestion control, the in-flight limit grows by roughly one per round trip while
+ * latency stays near its smoothed baseline, and is cut multiplicatively on overload signals
+ * (429/5xx) or latency spikes. Callers over the limit wait for a slot; callers that wait
+ * longer than the max wait are rejected.
+ *
+ * Latency baselines are kept per call shape (e.g. the agent) within a key: a short guardrail
+ * check and a long research generation on the same model share the slots but not the
+ * baseline, so mixing them is not mistaken for a spike.
+ */
+public final class AdaptiveConcurrencyLimiter {
+
+    public static final int DEFAULT_INITIAL_LIMIT = 8;
+    public static final int DEFAULT_MAX_LIMIT = 64;
+    private static final int MIN_LIMIT = 1;
+    private static final double BACKOFF_RATIO = 0.5;
+    private static final double LATENCY_TOLERANCE = 2.0; // Spike = latency above 2x the smoothed baseline
+    private static final double SMOOTHING = 0.1;
+    private static final int WARMUP_SAMPLES = 5;
+    private static final String DEFAULT_CALL_SHAPE = "";
+
+    private final int initialLimit;
+    private final int maxLimit;
+    private final long maxWaitNanos;
+    private final LongSupplier clock;
+    private final Map<String, Limit> limits = new ConcurrentHashMap<>();
+
+    private final AtomicLong rejections = new AtomicLong();
+    private final AtomicLong decreases = new AtomicLong();
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int maxLimit, long maxWait, TimeUnit unit) {
+        this(initialLimit, maxLimit, unit.toNanos(maxWait), System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int maxLimit, long maxWaitNanos, LongSupplier clock) {
+        if (maxLimit < MIN_LIMIT) {
+            throw new IllegalArgumentException("Max concurrency must be at least 1. Received: " + maxLimit);
+        }
+        this.maxLimit = maxLimit;
+        this.initialLimit = Math.max(MIN_LIMIT, Math.min(initialLimit, maxLimit));
+        this.maxWaitNanos = maxWaitNanos;
+        this.clock = clock;
+    }
+
+    /**
+     * Wait for an in-flight slot for the key, with all of its calls sharing one latency baseline.
+     *
+     * @throws LimitExceededException if no slot frees up within the max wait
+     */
+    public Permit acquire(String key) throws InterruptedException {
+        return acquire(key, DEFAULT_CALL_SHAPE);
+    }
+
+    /**
+     * Wait for an in-flight slot for the key. The call's latency is compared only with earlier
+     * calls of the same shape.
+     *
+     * @param callShape Calls expected to take similar time, e.g. the agent making them
+     * @throws LimitExceededException if no slot frees up within the max wait
+     */
+    public Permit acquire(String key, String callShape) throws InterruptedException {
+        Limit limit = limits.computeIfAbsent(key, k -> new Limit());
+        limit.acquire();
+        return new Permit(limit, callShape, clock.getAsLong());
+    }
+
+    /**
+     * Current in-flight limit for the key (the initial limit if the key has not been used).
+     */
+    public int getLimit(String key) {
+        Limit limit = limits.get(key);
+        return limit != null ? limit.currentLimit() : initialLimit;
+    }
+
+    public long getRejections() {
+        return rejections.get();
+    }
+
+    /**
+     * Per-key snapshot of limits and in-flight calls, sorted by key.
+     */
+    public Map<String, Snapshot> getSnapshots() {
+        Map<String, Snapshot> snapshots = new TreeMap<>();
+        limits.forEach((key, limit) -> snapshots.put(key, limit.snapshot()));
+        return snapshots;
+    }
+
+    public Stats getStats() {
+        return new Stats(rejections.get(), decreases.get(), getSnapshots());
+    }
+
+    /**
+     * One in-flight slot. Report exactly one outcome when the call finishes.
+     */
+    public final class Permit {
+        private final Limit limit;
+        private final String callShape;
+        private final long startNanos;
+        private boolean released;
+
+        private Permit(Limit limit, String callShape, long startNanos) {
+            this.limit = limit;
+            this.callShape = callShape;
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * The call succeeded; its latency feeds the limit.
+         */
+        public void success() {
+            release(Outcome.SUCCESS);
+        }
+
+        /**
+         * The call was throttled or failed server-side; cut the limit.
+         */
+        public void dropped() {
+            release(Outcome.DROPPED);
+        }
+
+        /**
+         * The call failed for a reason unrelated to capacity; leave the limit alone.
+         */
+        public void ignore() {
+            release(Outcome.IGNORED);
+        }
+
+        private synchronized void release(Outcome outcome) {
+            if (released) {
+                return;
+            }
+            released = true;
+            limit.release(outcome, callShape, clock.getAsLong() - startNanos);
+        }
+    }
+
+    private enum Outcome { SUCCESS, DROPPED, IGNORED }
+
+    private final class Limit {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition slotFreed = lock.newCondition();
+        private double limit = initialLimit;
+        private int inFlight;
+        private int waiting;
+        private final Map<String, Baseline> baselines = new HashMap<>();
+        private long lastDecreaseNanos = Long.MIN_VALUE;
+
+        void acquire() throws InterruptedException {
+            lock.lock();
+            try {
+                long remaining = maxWaitNanos;
+                waiting++;
+                try {
+                    while (inFlight >= (int) limit) {
+                        if (remaining <= 0) {
+                            rejections.incrementAndGet();
+                            throw new LimitExceededException(
+                                    "No LLM concurrency slot within " + TimeUnit.NANOSECONDS.toMillis(maxWaitNanos)
+                                            + " ms (limit " + (int) limit + ")");
+                        }
+                        remaining = slotFreed.awaitNanos(remaining);
+                    }
+                } finally {
+                    waiting--;
+                }
+                inFlight++;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void release(Outcome outcome, String callShape, long latencyNanos) {
+            lock.lock();
+            try {
+                boolean saturated = inFlight >= (int) limit / 2; // Only grow while the limit is actually used
+                inFlight--;
+                Baseline baseline = baselines.computeIfAbsent(callShape, shape -> new Baseline());
+                switch (outcome) {
+                    case SUCCESS -> onSample(baseline, latencyNanos, saturated);
+                    case DROPPED -> decrease(baseline);
+                    case IGNORED -> { }
+                }
+                slotFreed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void onSample(Baseline baseline, long latencyNanos, boolean saturated) {
+            baseline.samples++;
+            if (baseline.samples == 1) {
+                baseline.nanos = latencyNanos;
+                return;
+            }
+            boolean spike = baseline.samples > WARMUP_SAMPLES && latencyNanos > baseline.nanos * LATENCY_TOLERANCE;
+            if (spike) {
+                decrease(baseline);
+                return; // Keep spikes out of the baseline
+            }
+            baseline.nanos += SMOOTHING * (latencyNanos - baseline.nanos);
+            if (saturated) {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+        }
+
+        /**
+         * Multiplicative decrease, at most once per round trip of the failing call shape so one
+         * burst of failures from the same window only counts once.
+         */
+        private void decrease(Baseline baseline) {
+            long now = clock.getAsLong();
+            if (lastDecreaseNanos != Long.MIN_VALUE && now - lastDecreaseNanos < (long) baseline.nanos) {
+                return;
+            }
+            lastDecreaseNanos = now;
+            limit = Math.max(MIN_LIMIT, limit * BACKOFF_RATIO);
+            decreases.incrementAndGet();
+        }
+
+        int currentLimit() {
+            lock.lock();
+            try {
+                return (int) limit;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        Snapshot snapshot() {
+            lock.lock();
+            try {
+                Map<String, Long> baselineLatencyMs = new TreeMap<>();
+                baselines.forEach((shape, baseline) ->
+                        baselineLatencyMs.put(shape, TimeUnit.NANOSECONDS.toMillis((long) baseline.nanos)));
+                return new Snapshot((int) limit, inFlight, waiting, baselineLatencyMs);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Smoothed latency of one call shape, guarded by its Limit's lock.
+     */
+    private static final class Baseline {
+        private double nanos;
+        private long samples;
+    }
+
+    /**
+     * Thrown when a caller waits longer than the max wait for a slot.
+     */
+    public static class LimitExceededException extends RuntimeException {
+        public LimitExceededException(String message) {
+            super(message);
+        }
+    }
+
+    @Value
+    public static class Snapshot {
+        int limit;
+        int inFlight;
+        int waiting;
+        Map<String, Long> baselineLatencyMs; // Per call shape
+    }
+
+    /**
+     * Snapshot of limiter metrics.
+     */
+    @Value
+    public static class Stats {
+        long rejections;
+        long decreases;
+        Map<String, Snapshot> limits;
+    }
+}
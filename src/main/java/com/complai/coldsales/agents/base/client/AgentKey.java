@@ -0,0 +1,19 @@
+package com.complai.coldsales.agents.base.client;
+
+import com.complai.coldsales.agents.base.core.Agent;
+
+/**
+ * Identity-based map key for agents, for per-agent caches that must not pay for (or be
+ * confused by) Agent's deep @Data equals/hashCode.
+ */
+record AgentKey(Agent agent) {
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof AgentKey key && key.agent == agent;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(agent);
+    }
+}
@@ -0,0 +1,317 @@
+package com.complai.coldsales.agents.base.client;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gathers chat completion requests into OpenAI Batch API jobs.
+ *
+ * Requests are queued and written as one JSONL input file when the queue is full or the flush
+ * interval since the first queued request has passed. Each submitted batch is then polled until
+ * it finishes, and every request's future is completed from its line in the output file (or
+ * failed from the error file). Requests the batch never processed (failed, expired or cancelled
+ * batches) fail with a BatchException; batch results are not retried.
+ */
+public final class BatchQueue implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchQueue.class);
+
+    static final String ENDPOINT = "/v1/chat/completions";
+    static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofSeconds(30);
+    static final Duration DEFAULT_POLL_INTERVAL = Duration.ofSeconds(60);
+    private static final String COMPLETION_WINDOW = "24h";
+    private static final int MAX_REQUESTS_PER_BATCH = 50_000; // Batch API input file limit
+
+    private final BatchTransport transport;
+    private final Duration flushInterval;
+    private final Duration pollInterval;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ScheduledExecutorService scheduler;
+    private final AtomicLong requestIds = new AtomicLong();
+    private final AtomicLong batchesSubmitted = new AtomicLong();
+    private final AtomicLong requestsCompleted = new AtomicLong();
+    private final AtomicLong requestsFailed = new AtomicLong();
+    private final Map<String, Map<String, PendingRequest>> inFlight = new LinkedHashMap<>(); // By batch id
+    private List<PendingRequest> queue = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+    private boolean closed;
+
+    /**
+     * @param transport Batch API HTTP layer
+     * @param flushInterval Max time a request waits before its batch is submitted; null or 0 means 30 seconds
+     * @param pollInterval Time between status checks of a submitted batch; null or 0 means 60 seconds
+     */
+    BatchQueue(BatchTransport transport, Duration flushInterval, Duration pollInterval) {
+        this.transport = transport;
+        this.flushInterval = isPositive(flushInterval) ? flushInterval : DEFAULT_FLUSH_INTERVAL;
+        this.pollInterval = isPositive(pollInterval) ? pollInterval : DEFAULT_POLL_INTERVAL;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "llm-batch");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queue one chat completion request body (as the JSON object the endpoint expects).
+     */
+    CompletableFuture<Completion> submit(Map<String, Object> body) {
+        PendingRequest request = new PendingRequest("request-" + requestIds.incrementAndGet(), body);
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Batch queue is closed");
+            }
+            queue.add(request);
+            if (queue.size() >= MAX_REQUESTS_PER_BATCH) {
+                cancelScheduledFlush();
+                scheduler.execute(this::flush);
+            } else if (scheduledFlush == null) {
+                scheduledFlush = scheduler.schedule(this::flush, flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+        return request.future;
+    }
+
+    /**
+     * Submit whatever is queued right away.
+     */
+    void flushNow() {
+        synchronized (this) {
+            cancelScheduledFlush();
+        }
+        scheduler.execute(this::flush);
+    }
+
+    Stats getStats() {
+        int queued;
+        int inFlightRequests = 0;
+        synchronized (this) {
+            queued = queue.size();
+            for (Map<String, PendingRequest> batch : inFlight.values()) {
+                inFlightRequests += batch.size();
+            }
+        }
+        return new Stats(queued, inFlightRequests, batchesSubmitted.get(), requestsCompleted.get(), requestsFailed.get());
+    }
+
+    /**
+     * Stop submitting and polling; requests not completed yet fail.
+     */
+    @Override
+    public void close() {
+        List<PendingRequest> abandoned = new ArrayList<>();
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            abandoned.addAll(queue);
+            inFlight.values().forEach(batch -> abandoned.addAll(batch.values()));
+            queue = new ArrayList<>();
+            inFlight.clear();
+        }
+        scheduler.shutdownNow();
+        abandoned.forEach(request -> fail(request, new BatchException("Batch queue closed before the request completed")));
+    }
+
+    private void flush() {
+        List<PendingRequest> requests;
+        synchronized (this) {
+            scheduledFlush = null;
+            requests = queue;
+            queue = new ArrayList<>();
+        }
+        while (!requests.isEmpty()) {
+            int size = Math.min(requests.size(), MAX_REQUESTS_PER_BATCH);
+            submitBatch(new ArrayList<>(requests.subList(0, size)));
+            requests = requests.subList(size, requests.size());
+        }
+    }
+
+    private void submitBatch(List<PendingRequest> requests) {
+        Map<String, PendingRequest> byId = new LinkedHashMap<>();
+        StringBuilder jsonl = new StringBuilder();
+        try {
+            for (PendingRequest request : requests) {
+                Map<String, Object> line = new LinkedHashMap<>();
+                line.put("custom_id", request.customId);
+                line.put("method", "POST");
+                line.put("url", ENDPOINT);
+                line.put("body", request.body);
+                jsonl.append(mapper.writeValueAsString(line)).append('\n');
+                byId.put(request.customId, request);
+            }
+            String fileId = transport.uploadFile("batch-" + System.currentTimeMillis() + ".jsonl",
+                    jsonl.toString().getBytes(StandardCharsets.UTF_8));
+            BatchTransport.Batch batch = transport.createBatch(fileId, ENDPOINT, COMPLETION_WINDOW);
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                inFlight.put(batch.id(), byId);
+            }
+            batchesSubmitted.incrementAndGet();
+            log.info("📦 Submitted batch {} with {} request(s)", batch.id(), requests.size());
+            schedulePoll(batch.id());
+        } catch (IOException | RuntimeException e) {
+            log.error("❌ Could not submit batch of {} request(s): {}", requests.size(), e.getMessage());
+            requests.forEach(request -> fail(request, new BatchException("Batch submission failed: " + e.getMessage(), e)));
+        }
+    }
+
+    private void schedulePoll(String batchId) {
+        try {
+            scheduler.schedule(() -> poll(batchId), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (java.util.concurrent.RejectedExecutionException e) {
+            // Closed; close() already failed the batch's requests
+        }
+    }
+
+    private void poll(String batchId) {
+        BatchTransport.Batch batch;
+        try {
+            batch = transport.getBatch(batchId);
+        } catch (IOException | RuntimeException e) {
+            log.warn("⚠️  Polling batch {} failed, will retry: {}", batchId, e.getMessage());
+            schedulePoll(batchId);
+            return;
+        }
+        if (!batch.isFinished()) {
+            log.debug("⏳ Batch {} is {}", batchId, batch.status());
+            schedulePoll(batchId);
+            return;
+        }
+        Map<String, PendingRequest> requests;
+        synchronized (this) {
+            requests = inFlight.remove(batchId);
+        }
+        if (requests == null) {
+            return;
+        }
+        try {
+            if (batch.outputFileId() != null) {
+                readResults(transport.downloadFile(batch.outputFileId()), requests);
+            }
+            if (batch.errorFileId() != null) {
+                readResults(transport.downloadFile(batch.errorFileId()), requests);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("❌ Could not read results of batch {}: {}", batchId, e.getMessage());
+        }
+        if (requests.isEmpty()) {
+            log.info("📦 Batch {} {}", batchId, batch.status());
+            return;
+        }
+        log.warn("📦 Batch {} {}: {} request(s) without a result", batchId, batch.status(), requests.size());
+        requests.values().forEach(request -> fail(request,
+                new BatchException("Batch " + batchId + " " + batch.status() + " without a result for this request")));
+    }
+
+    /**
+     * Complete requests from an output or error file; completed entries are removed from the map.
+     */
+    private void readResults(String content, Map<String, PendingRequest> requests) throws JsonProcessingException {
+        for (String line : content.split("\n")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            JsonNode result = mapper.readTree(line);
+            PendingRequest request = requests.remove(result.path("custom_id").asText());
+            if (request == null) {
+                continue;
+            }
+            JsonNode response = result.path("response");
+            JsonNode body = response.path("body");
+            JsonNode error = result.path("error");
+            int statusCode = response.path("status_code").asInt();
+            if (statusCode != 200 || !(error.isMissingNode() || error.isNull())) {
+                String message = body.path("error").path("message").asText(error.path("message").asText("unknown error"));
+                fail(request, new BatchException("Batch request failed (HTTP " + statusCode + "): " + message));
+                continue;
+            }
+            JsonNode message = body.path("choices").path(0).path("message").path("content");
+            if (message.isMissingNode() || message.isNull()) {
+                fail(request, new BatchException("Batch request returned empty response"));
+                continue;
+            }
+            requestsCompleted.incrementAndGet();
+            request.future.complete(new Completion(message.asText(), body.path("model").asText(),
+                    body.path("usage").path("total_tokens").asInt(),
+                    body.path("usage").path("prompt_tokens_details").path("cached_tokens").asInt()));
+        }
+    }
+
+    private void fail(PendingRequest request, BatchException error) {
+        if (!request.future.isDone()) {
+            requestsFailed.incrementAndGet(); // Counted first, so stats are current when callers see the failure
+            request.future.completeExceptionally(error);
+        }
+    }
+
+    private static boolean isPositive(Duration duration) {
+        return duration != null && !duration.isNegative() && !duration.isZero();
+    }
+
+    private void cancelScheduledFlush() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+    }
+
+    /**
+     * Result of one batched request.
+     */
+    record Completion(String content, String model, int totalTokens, int cachedTokens) {}
+
+    private static final class PendingRequest {
+        final String customId;
+        final Map<String, Object> body;
+        final CompletableFuture<Completion> future = new CompletableFuture<>();
+
+        PendingRequest(String customId, Map<String, Object> body) {
+            this.customId = customId;
+            this.body = body;
+        }
+    }
+
+    /**
+     * A batched request could not be completed.
+     */
+    public static class BatchException extends RuntimeException {
+        public BatchException(String message) {
+            super(message);
+        }
+
+        public BatchException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    @Value
+    public static class Stats {
+        int queued; // Waiting for the next batch file
+        int inFlight; // In submitted batches that have not finished
+        long batchesSubmitted;
+        long requestsCompleted;
+        long requestsFailed;
+    }
+}
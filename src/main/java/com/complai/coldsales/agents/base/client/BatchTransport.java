@@ -0,0 +1,47 @@
+package com.complai.coldsales.agents.base.client;
+
+import java.io.IOException;
+
+/**
+ * HTTP layer of the OpenAI Batch API, kept behind an interface so a local fake
+ * batch server (or an in-memory stand-in) can replace the real endpoint in tests.
+ */
+public interface BatchTransport {
+
+    /**
+     * Upload a JSONL input file for batch processing.
+     *
+     * @return File id
+     */
+    String uploadFile(String fileName, byte[] jsonl) throws IOException;
+
+    /**
+     * Create a batch over an uploaded input file.
+     *
+     * @return The new batch
+     */
+    Batch createBatch(String inputFileId, String endpoint, String completionWindow) throws IOException;
+
+    Batch getBatch(String batchId) throws IOException;
+
+    /**
+     * Content of an output or error file.
+     */
+    String downloadFile(String fileId) throws IOException;
+
+    /**
+     * Batch status as reported by the API; file ids are null until the batch has produced them.
+     */
+    record Batch(String id, String status, String outputFileId, String errorFileId) {
+
+        /**
+         * Whether the batch has stopped processing (completed, failed, expired or cancelled).
+         */
+        public boolean isFinished() {
+            return switch (status) {
+                case "completed", "failed", "expired", "cancelled" -> true;
+                default -> false;
+            };
+        }
+    }
+}
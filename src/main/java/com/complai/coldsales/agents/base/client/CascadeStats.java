@@ -0,0 +1,75 @@
+package com.complai.coldsales.agents.base.client;
+
+import lombok.Value;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-agent model cascade outcomes: how often each agent escalated and which model's
+ * output was finally accepted.
+ */
+public final class CascadeStats {
+
+    private final Map<String, Counters> byAgent = new ConcurrentHashMap<>();
+
+    /**
+     * Record one finished cascade.
+     *
+     * @param agentName Agent that ran
+     * @param acceptedModel Model whose output was returned
+     * @param escalations Number of times the cascade moved to a bigger model
+     * @param valid Whether the returned output passed validation
+     */
+    void record(String agentName, String acceptedModel, int escalations, boolean valid) {
+        byAgent.computeIfAbsent(agentName, name -> new Counters()).record(acceptedModel, escalations, valid);
+    }
+
+    /**
+     * Snapshot per agent, sorted by agent name.
+     */
+    Map<String, AgentStats> snapshot() {
+        Map<String, AgentStats> snapshot = new TreeMap<>();
+        byAgent.forEach((agent, counters) -> snapshot.put(agent, counters.snapshot()));
+        return snapshot;
+    }
+
+    private static final class Counters {
+        private long runs;
+        private long escalatedRuns;
+        private long escalations;
+        private long invalidOutputs;
+        private final Map<String, Long> acceptedByModel = new LinkedHashMap<>();
+
+        synchronized void record(String model, int escalationCount, boolean valid) {
+            runs++;
+            escalations += escalationCount;
+            if (escalationCount > 0) {
+                escalatedRuns++;
+            }
+            if (!valid) {
+                invalidOutputs++;
+            }
+            acceptedByModel.merge(model, 1L, Long::sum);
+        }
+
+        synchronized AgentStats snapshot() {
+            return new AgentStats(runs, escalatedRuns, escalations, invalidOutputs, Map.copyOf(acceptedByModel));
+        }
+    }
+
+    @Value
+    public static class AgentStats {
+        long runs;
+        long escalatedRuns;
+        long escalations;
+        long invalidOutputs; // Runs where even the last model's output failed validation
+        Map<String, Long> acceptedByModel;
+
+        public double getEscalationRate() {
+            return runs == 0 ? 0.0 : (double) escalatedRuns / runs;
+        }
+    }
+}
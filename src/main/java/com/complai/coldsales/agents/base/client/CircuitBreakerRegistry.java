@@ -0,0 +1,216 @@
+package com.complai.coldsales.agents.base.client;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breakers for LLM endpoints, one per key (base URL + model).
+ *
+ * A breaker is CLOSED while its recent calls are healthy. It OPENs when, over a sliding window
+ * of recent calls, the error rate or the slow-call rate crosses its threshold; while open every
+ * call fails fast. After a cool-down it goes HALF_OPEN and lets a few trial calls through:
+ * if they all succeed it closes again, if any fails it re-opens.
+ * Only capacity/availability failures (5xx, 429, timeouts, connection errors) count as errors;
+ * a bad request says nothing about the endpoint's health.
+ */
+public final class CircuitBreakerRegistry {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final int DEFAULT_WINDOW_SIZE = 20;
+    private static final int DEFAULT_MINIMUM_CALLS = 10;
+    private static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+    private static final double DEFAULT_SLOW_CALL_RATE_THRESHOLD = 0.8;
+    private static final Duration DEFAULT_SLOW_CALL_DURATION = Duration.ofSeconds(45);
+    private static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(30);
+    private static final int DEFAULT_HALF_OPEN_CALLS = 3;
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier clock;
+    private final Map<String, Breaker> breakers = new ConcurrentHashMap<>();
+
+    public CircuitBreakerRegistry() {
+        this(DEFAULT_WINDOW_SIZE, DEFAULT_MINIMUM_CALLS, DEFAULT_FAILURE_RATE_THRESHOLD,
+                DEFAULT_SLOW_CALL_RATE_THRESHOLD, DEFAULT_SLOW_CALL_DURATION, DEFAULT_OPEN_DURATION,
+                DEFAULT_HALF_OPEN_CALLS, System::nanoTime);
+    }
+
+    CircuitBreakerRegistry(int windowSize, int minimumCalls, double failureRateThreshold,
+                           double slowCallRateThreshold, Duration slowCallDuration, Duration openDuration,
+                           int halfOpenCalls, LongSupplier clock) {
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = slowCallDuration.toNanos();
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+        this.clock = clock;
+    }
+
+    /**
+     * Take permission for one call.
+     *
+     * @throws CircuitOpenException if the key's breaker is open (or half-open with all trial calls taken)
+     */
+    public void acquirePermission(String key) {
+        if (!breaker(key).tryAcquire()) {
+            throw new CircuitOpenException(key);
+        }
+    }
+
+    /**
+     * Whether a call for the key would currently be let through, without taking permission.
+     */
+    public boolean isCallPermitted(String key) {
+        Breaker breaker = breakers.get(key);
+        return breaker == null || breaker.isCallPermitted();
+    }
+
+    public void onSuccess(String key, long latencyNanos) {
+        breaker(key).record(false, latencyNanos >= slowCallNanos);
+    }
+
+    public void onError(String key, long latencyNanos) {
+        breaker(key).record(true, latencyNanos >= slowCallNanos);
+    }
+
+    /**
+     * The call ended for a reason that says nothing about the endpoint's health (bad request,
+     * cancellation); releases a half-open trial slot without a verdict.
+     */
+    public void onIgnored(String key) {
+        breaker(key).releaseTrial();
+    }
+
+    public State getState(String key) {
+        Breaker breaker = breakers.get(key);
+        return breaker != null ? breaker.currentState() : State.CLOSED;
+    }
+
+    /**
+     * Current state of every breaker, sorted by key.
+     */
+    public Map<String, State> getStates() {
+        Map<String, State> states = new TreeMap<>();
+        breakers.forEach((key, breaker) -> states.put(key, breaker.currentState()));
+        return states;
+    }
+
+    private Breaker breaker(String key) {
+        return breakers.computeIfAbsent(key, k -> new Breaker());
+    }
+
+    private final class Breaker {
+        private final boolean[] errors = new boolean[windowSize];
+        private final boolean[] slow = new boolean[windowSize];
+        private int count;
+        private int next;
+        private State state = State.CLOSED;
+        private long openedAt;
+        private int trialsInFlight;
+        private int trialSuccesses;
+
+        synchronized boolean tryAcquire() {
+            switch (currentState()) {
+                case CLOSED:
+                    return true;
+                case HALF_OPEN:
+                    if (trialsInFlight + trialSuccesses >= halfOpenCalls) {
+                        return false;
+                    }
+                    trialsInFlight++;
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        synchronized boolean isCallPermitted() {
+            State current = currentState();
+            return current == State.CLOSED
+                    || (current == State.HALF_OPEN && trialsInFlight + trialSuccesses < halfOpenCalls);
+        }
+
+        synchronized void record(boolean error, boolean slowCall) {
+            State current = currentState();
+            if (current == State.HALF_OPEN) {
+                trialsInFlight = Math.max(0, trialsInFlight - 1);
+                if (error || slowCall) {
+                    open();
+                } else if (++trialSuccesses >= halfOpenCalls) {
+                    close();
+                }
+                return;
+            }
+            if (current == State.OPEN) {
+                return; // Late result of a call admitted before the breaker opened
+            }
+            errors[next] = error;
+            slow[next] = slowCall;
+            next = (next + 1) % windowSize;
+            count = Math.min(count + 1, windowSize);
+            if (count >= minimumCalls
+                    && (rate(errors) >= failureRateThreshold || rate(slow) >= slowCallRateThreshold)) {
+                open();
+            }
+        }
+
+        synchronized void releaseTrial() {
+            if (state == State.HALF_OPEN) {
+                trialsInFlight = Math.max(0, trialsInFlight - 1);
+            }
+        }
+
+        /**
+         * State with the OPEN -> HALF_OPEN transition applied once the cool-down has passed.
+         */
+        synchronized State currentState() {
+            if (state == State.OPEN && clock.getAsLong() - openedAt >= openNanos) {
+                state = State.HALF_OPEN;
+                trialsInFlight = 0;
+                trialSuccesses = 0;
+            }
+            return state;
+        }
+
+        private void open() {
+            state = State.OPEN;
+            openedAt = clock.getAsLong();
+        }
+
+        private void close() {
+            state = State.CLOSED;
+            count = 0;
+            next = 0;
+        }
+
+        private double rate(boolean[] flags) {
+            int hits = 0;
+            for (int i = 0; i < count; i++) {
+                if (flags[i]) {
+                    hits++;
+                }
+            }
+            return (double) hits / count;
+        }
+    }
+
+    /**
+     * Thrown when a call is rejected because its endpoint's circuit is open.
+     */
+    public static class CircuitOpenException extends RuntimeException {
+        public CircuitOpenException(String key) {
+            super("Circuit open for " + key + ", failing fast");
+        }
+    }
+}
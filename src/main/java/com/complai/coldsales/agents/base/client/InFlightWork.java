@@ -0,0 +1,54 @@
+package com.complai.coldsales.agents.base.client;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the LLM tasks started for one caller (a tool call) until each has really finished.
+ *
+ * A cancelled task's future completes at once, but its thread keeps going until the interrupted
+ * call returns. This count only drops when the task itself ends, so the caller can tell when its
+ * work has actually stopped. Work tracked inside tracked work (a tool's own tool loop) also
+ * counts towards the outer caller.
+ */
+final class InFlightWork {
+
+    private final InFlightWork parent; // Work this is part of, or null
+    private final AtomicInteger tasks = new AtomicInteger();
+    private final CompletableFuture<Void> settled = new CompletableFuture<>();
+    private volatile boolean resultDone;
+
+    InFlightWork(InFlightWork parent) {
+        this.parent = parent;
+    }
+
+    void taskStarted() {
+        tasks.incrementAndGet();
+        if (parent != null) {
+            parent.taskStarted();
+        }
+    }
+
+    void taskEnded() {
+        if (tasks.decrementAndGet() == 0 && resultDone) {
+            settled.complete(null);
+        }
+        if (parent != null) {
+            parent.taskEnded();
+        }
+    }
+
+    /**
+     * @param result The caller's result; no new tasks are expected once it is done
+     * @return Completes when the result is done and every task counted so far has ended
+     */
+    CompletableFuture<Void> settledAfter(CompletableFuture<?> result) {
+        result.whenComplete((value, throwable) -> {
+            resultDone = true;
+            if (tasks.get() == 0) {
+                settled.complete(null);
+            }
+        });
+        return settled;
+    }
+}
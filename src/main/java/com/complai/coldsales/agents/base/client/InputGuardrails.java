@@ -0,0 +1,128 @@
+package com.complai.coldsales.agents.base.client;
+
+import com.complai.coldsales.agents.base.core.Agent;
+import com.complai.coldsales.agents.base.guardrails.GuardrailFunction;
+import com.complai.coldsales.agents.base.guardrails.GuardrailResult;
+import com.complai.coldsales.agents.base.guardrails.InputGuardrailTripwireException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs an agent's input guardrails alongside its generation.
+ *
+ * Every guardrail and the generation start at once. The first tripwire fails the run with
+ * {@link InputGuardrailTripwireException} and cancels the generation and the remaining checks;
+ * otherwise the generation's result is released as soon as both it and the last check are done,
+ * so guardrails add no latency beyond max(guardrails, generation). A guardrail that fails
+ * (rather than trips) is logged and does not block the run.
+ *
+ * Cancellation reaches the underlying LLM calls only if the futures passed in forward it:
+ * LLMClient's runs do, and guardrail functions must cancel their own calls when their future is
+ * cancelled (see {@link GuardrailFunction}).
+ */
+final class InputGuardrails {
+
+    private static final Logger log = LoggerFactory.getLogger(InputGuardrails.class);
+
+    private InputGuardrails() {
+    }
+
+    /**
+     * @param agent Agent whose input guardrails check the message
+     * @param message Input sent to the agent
+     * @param generation Starts the agent's generation
+     */
+    static <T> CompletableFuture<T> guard(Agent agent, String message, Supplier<CompletableFuture<T>> generation) {
+        if (!hasGuardrails(agent)) {
+            return generation.get();
+        }
+        CompletableFuture<Void> checks = check(agent, message);
+        CompletableFuture<T> answer = generation.get();
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        checks.whenComplete((v, throwable) -> {
+            if (throwable != null) {
+                result.completeExceptionally(throwable); // Tripwire: don't wait for the generation
+            }
+        });
+        checks.thenCombine(answer, (v, value) -> value).whenComplete((value, throwable) -> {
+            if (throwable == null) {
+                result.complete(value);
+            } else {
+                result.completeExceptionally(LLMClient.unwrapCompletion(throwable));
+            }
+        });
+        // Tripped, failed or given up by the caller: stop whatever is still running
+        result.whenComplete((value, throwable) -> {
+            if (!answer.isDone()) {
+                answer.cancel(true);
+            }
+            if (!checks.isDone()) {
+                checks.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    static boolean hasGuardrails(Agent agent) {
+        return agent.getInputGuardrails() != null && !agent.getInputGuardrails().isEmpty();
+    }
+
+    /**
+     * Start all of the agent's input guardrails on the message. The future completes when every
+     * check has passed (or failed without tripping), and fails with InputGuardrailTripwireException
+     * on the first tripwire. Once it is done, by a tripwire or by cancellation, the checks still
+     * running are cancelled.
+     */
+    static CompletableFuture<Void> check(Agent agent, String message) {
+        List<GuardrailFunction> guardrails = hasGuardrails(agent) ? agent.getInputGuardrails() : List.of();
+        CompletableFuture<Void> passed = new CompletableFuture<>();
+        if (guardrails.isEmpty()) {
+            passed.complete(null);
+            return passed;
+        }
+
+        List<CompletableFuture<GuardrailResult>> checks = new ArrayList<>();
+        for (GuardrailFunction guardrail : guardrails) {
+            checks.add(start(guardrail, agent, message));
+        }
+        AtomicInteger remaining = new AtomicInteger(checks.size());
+        for (CompletableFuture<GuardrailResult> check : checks) {
+            check.whenComplete((outcome, throwable) -> {
+                if (throwable != null) {
+                    if (!passed.isDone()) {
+                        log.warn("⚠️  Input guardrail for agent '{}' failed, not blocking: {}",
+                                agent.getName(), throwable.getMessage());
+                    }
+                } else if (outcome != null && outcome.isTripwireTriggered()
+                        && passed.completeExceptionally(new InputGuardrailTripwireException(agent.getName(), outcome))) {
+                    log.warn("🚫 Input guardrail tripped for agent '{}': {}", agent.getName(), outcome.getOutputInfo());
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    passed.complete(null);
+                }
+            });
+        }
+        passed.whenComplete((v, throwable) -> checks.forEach(check -> {
+            if (!check.isDone()) {
+                check.cancel(true);
+            }
+        }));
+        return passed;
+    }
+
+    private static CompletableFuture<GuardrailResult> start(GuardrailFunction guardrail, Agent agent, String message) {
+        try {
+            CompletableFuture<GuardrailResult> check = guardrail.execute(null, agent, message); // No run context here
+            return check != null ? check : CompletableFuture.completedFuture(GuardrailResult.pass());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
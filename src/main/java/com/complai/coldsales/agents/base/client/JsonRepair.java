@@ -0,0 +1,209 @@
+package com.complai.coldsales.agents.base.client;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Tolerant single-pass repair of truncated or slightly malformed JSON objects.
+ *
+ * Model answers cut off by the completion token cap end mid-value. The repairer copies the
+ * input up to the last point where every value seen so far is complete, closes an open string
+ * value, drops a trailing key or unfinished number/literal, and closes the open arrays and
+ * objects, so every complete field survives. Along the way it skips text around the object
+ * (markdown fences, prose), trailing commas, and escapes raw control characters in strings.
+ */
+final class JsonRepair {
+
+    private JsonRepair() {
+    }
+
+    /**
+     * Repaired JSON object text, or null if the input contains no object.
+     */
+    static String repair(String raw) {
+        int start = raw != null ? raw.indexOf('{') : -1;
+        return start < 0 ? null : new Scanner(raw, start).scan();
+    }
+
+    private static final class Scanner {
+        private final String in;
+        private int pos;
+        private final StringBuilder out = new StringBuilder();
+        private final Deque<Character> open = new ArrayDeque<>(); // '{' or '['
+        // Last cut point: out length and open containers at that point, valid once closed
+        private int safeLength;
+        private Deque<Character> safeOpen = new ArrayDeque<>();
+
+        Scanner(String in, int start) {
+            this.in = in;
+            this.pos = start;
+        }
+
+        String scan() {
+            while (pos < in.length()) {
+                char c = in.charAt(pos);
+                if (Character.isWhitespace(c)) {
+                    pos++;
+                } else if (c == '{' || c == '[') {
+                    if (!beforeValue()) {
+                        break;
+                    }
+                    out.append(c);
+                    open.push(c);
+                    pos++;
+                    markSafe();
+                } else if (c == '}' || c == ']') {
+                    if (open.isEmpty() || open.peek() != (c == '}' ? '{' : '[')) {
+                        break; // Mismatched closer: keep what was complete
+                    }
+                    dropTrailingComma();
+                    if (open.peek() == '{' && lastSignificant() == ':') {
+                        break; // Key without a value
+                    }
+                    out.append(c);
+                    open.pop();
+                    pos++;
+                    markSafe();
+                    if (open.isEmpty()) {
+                        break; // Top-level object done; ignore trailing text
+                    }
+                } else if (c == ',') {
+                    char last = lastSignificant();
+                    if (last != ',' && last != '{' && last != '[') {
+                        out.append(c);
+                    }
+                    pos++;
+                } else if (c == ':') {
+                    out.append(c);
+                    pos++;
+                } else if (c == '"') {
+                    boolean key = expectingKey();
+                    if (!key && !beforeValue()) {
+                        break;
+                    }
+                    if (!string(key)) {
+                        break;
+                    }
+                    if (!key) {
+                        markSafe();
+                    }
+                } else {
+                    if (!beforeValue() || !literal()) {
+                        break;
+                    }
+                    markSafe();
+                }
+            }
+            return close();
+        }
+
+        // Inside an object, a string after '{' or ',' is a key
+        private boolean expectingKey() {
+            char last = lastSignificant();
+            return !open.isEmpty() && open.peek() == '{' && (last == '{' || last == ',');
+        }
+
+        // Values may only follow ':' in objects, or '[' / ',' in arrays; top level only once
+        private boolean beforeValue() {
+            if (open.isEmpty()) {
+                return out.length() == 0;
+            }
+            char last = lastSignificant();
+            return open.peek() == '{' ? last == ':' : last == '[' || last == ',';
+        }
+
+        /**
+         * Copy a string; returns false when the input ends inside it. An unfinished value is
+         * closed (its text so far is kept); an unfinished key is dropped.
+         */
+        private boolean string(boolean key) {
+            int begin = out.length();
+            out.append('"');
+            pos++;
+            while (pos < in.length()) {
+                char c = in.charAt(pos);
+                if (c == '"') {
+                    out.append(c);
+                    pos++;
+                    return true;
+                }
+                if (c == '\\') {
+                    if (pos + 1 >= in.length()) {
+                        break; // Dangling escape
+                    }
+                    char next = in.charAt(pos + 1);
+                    if (next == 'u') {
+                        if (pos + 6 > in.length()) {
+                            break; // Partial unicode escape
+                        }
+                        out.append(in, pos, pos + 6);
+                        pos += 6;
+                    } else {
+                        out.append(c).append(next);
+                        pos += 2;
+                    }
+                    continue;
+                }
+                if (c < 0x20) {
+                    out.append(String.format("\\u%04x", (int) c));
+                } else {
+                    out.append(c);
+                }
+                pos++;
+            }
+            if (key) {
+                out.setLength(begin);
+                return false;
+            }
+            out.append('"');
+            markSafe();
+            return false;
+        }
+
+        /**
+         * Copy a number or true/false/null; returns false if it is cut off or not a JSON literal.
+         */
+        private boolean literal() {
+            int begin = pos;
+            while (pos < in.length() && ",}] \t\r\n".indexOf(in.charAt(pos)) < 0) {
+                pos++;
+            }
+            if (pos >= in.length()) {
+                return false; // "12" may have been "125", "tru" may have been "true"
+            }
+            String token = in.substring(begin, pos);
+            if (!token.equals("true") && !token.equals("false") && !token.equals("null")
+                    && !token.matches("-?(0|[1-9]\\d*)(\\.\\d+)?([eE][+-]?\\d+)?")) {
+                return false;
+            }
+            out.append(token);
+            return true;
+        }
+
+        private void markSafe() {
+            safeLength = out.length();
+            safeOpen = new ArrayDeque<>(open);
+        }
+
+        private char lastSignificant() {
+            return out.length() == 0 ? 0 : out.charAt(out.length() - 1);
+        }
+
+        private void dropTrailingComma() {
+            if (lastSignificant() == ',') {
+                out.setLength(out.length() - 1);
+            }
+        }
+
+        private String close() {
+            StringBuilder repaired = new StringBuilder(out.substring(0, safeLength));
+            if (repaired.length() > 0 && repaired.charAt(repaired.length() - 1) == ',') {
+                repaired.setLength(repaired.length() - 1);
+            }
+            for (char container : safeOpen) { // Innermost first
+                repaired.append(container == '{' ? '}' : ']');
+            }
+            return repaired.toString();
+        }
+    }
+}
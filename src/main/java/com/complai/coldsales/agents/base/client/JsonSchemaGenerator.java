@@ -0,0 +1,248 @@
+package com.complai.coldsales.agents.base.client;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openai.core.JsonValue;
+import com.openai.models.ChatCompletionCreateParams;
+import com.openai.models.ResponseFormatJsonSchema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Generates strict JSON schemas for structured output classes.
+ *
+ * Schemas are derived from the class's fields and their @JsonProperty names, so they describe
+ * exactly what the client later deserializes. Strict mode requires every property to be required
+ * and additionalProperties to be false; boxed fields are therefore emitted as nullable instead of
+ * optional. Each class is reflected over once and its schema reused for every later request.
+ */
+final class JsonSchemaGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(JsonSchemaGenerator.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // Completion allowances per JSON value, used to size max_tokens from a schema
+    private static final int STRING_TOKENS = 200;
+    private static final int SCALAR_TOKENS = 4;
+    private static final int ARRAY_ITEMS = 5;
+    private static final int ARRAY_STRING_TOKENS = 40; // List entries are short phrases, not paragraphs
+    private static final int PROPERTY_OVERHEAD_TOKENS = 6; // Quoted key, colon, separator
+    private static final double HEADROOM = 1.25;
+    private static final int MIN_OUTPUT_TOKENS = 256;
+    private static final int MAX_OUTPUT_TOKENS = 4096;
+
+    private final Map<Class<?>, Map<String, Object>> schemas = new ConcurrentHashMap<>();
+    private final Map<Class<?>, String> schemaJson = new ConcurrentHashMap<>();
+    private final Map<Class<?>, ChatCompletionCreateParams.ResponseFormat> responseFormats = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Integer> outputTokens = new ConcurrentHashMap<>();
+
+    /**
+     * Strict JSON schema for an output class, as plain maps and lists.
+     *
+     * @throws IllegalArgumentException if the class has a field strict schemas can't describe
+     */
+    Map<String, Object> schemaFor(Class<?> type) {
+        return schemas.computeIfAbsent(type, t -> {
+            Map<String, Object> schema = objectSchema(t, new ArrayList<>());
+            log.debug("📊 Generated JSON schema for {}", t.getSimpleName());
+            return schema;
+        });
+    }
+
+    /**
+     * The schema serialized to JSON, for providers that only support JSON mode and need it in the prompt.
+     */
+    String schemaJsonFor(Class<?> type) {
+        return schemaJson.computeIfAbsent(type, t -> {
+            try {
+                return MAPPER.writeValueAsString(schemaFor(t));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Could not serialize JSON schema for " + t.getSimpleName(), e);
+            }
+        });
+    }
+
+    /**
+     * Strict json_schema response format for an output class.
+     */
+    ChatCompletionCreateParams.ResponseFormat responseFormatFor(Class<?> type) {
+        return responseFormats.computeIfAbsent(type, t -> {
+            ResponseFormatJsonSchema.JsonSchema.Schema.Builder schema = ResponseFormatJsonSchema.JsonSchema.Schema.builder();
+            schemaFor(t).forEach((key, value) -> schema.putAdditionalProperty(key, JsonValue.from(value)));
+            return ChatCompletionCreateParams.ResponseFormat.ofResponseFormatJsonSchema(
+                    ResponseFormatJsonSchema.builder()
+                            .type(ResponseFormatJsonSchema.Type.JSON_SCHEMA)
+                            .jsonSchema(ResponseFormatJsonSchema.JsonSchema.builder()
+                                    .name(t.getSimpleName())
+                                    .schema(schema.build())
+                                    .strict(true)
+                                    .build())
+                            .build());
+        });
+    }
+
+    /**
+     * Strict json_schema response format as a plain JSON object, for request bodies built
+     * without the SDK (Batch API input files).
+     */
+    Map<String, Object> responseFormatJsonFor(Class<?> type) {
+        Map<String, Object> jsonSchema = new LinkedHashMap<>();
+        jsonSchema.put("name", type.getSimpleName());
+        jsonSchema.put("schema", schemaFor(type));
+        jsonSchema.put("strict", true);
+        return Map.of("type", "json_schema", "json_schema", jsonSchema);
+    }
+
+    /**
+     * Completion token cap for a complete answer of this type: an allowance per property by
+     * JSON type, plus headroom, bounded to [256, 4096].
+     */
+    int maxOutputTokens(Class<?> type) {
+        return outputTokens.computeIfAbsent(type, t -> {
+            long estimate = Math.round(valueTokens(schemaFor(t)) * HEADROOM);
+            return (int) Math.max(MIN_OUTPUT_TOKENS, Math.min(MAX_OUTPUT_TOKENS, estimate));
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long valueTokens(Map<String, Object> schema) {
+        Object type = schema.get("type");
+        String primary = type instanceof List<?> types ? String.valueOf(types.get(0)) : String.valueOf(type);
+        switch (primary) {
+            case "object": {
+                long tokens = 2;
+                Map<String, Object> properties = (Map<String, Object>) schema.get("properties");
+                for (Map.Entry<String, Object> property : properties.entrySet()) {
+                    tokens += PROPERTY_OVERHEAD_TOKENS + property.getKey().length() / 4
+                            + valueTokens((Map<String, Object>) property.getValue());
+                }
+                return tokens;
+            }
+            case "array": {
+                Map<String, Object> items = (Map<String, Object>) schema.get("items");
+                long itemTokens = "string".equals(items.get("type")) ? ARRAY_STRING_TOKENS : valueTokens(items);
+                return 2 + ARRAY_ITEMS * itemTokens;
+            }
+            case "string":
+                return schema.containsKey("enum") ? SCALAR_TOKENS : STRING_TOKENS;
+            default:
+                return SCALAR_TOKENS;
+        }
+    }
+
+    private Map<String, Object> objectSchema(Class<?> type, List<Class<?>> path) {
+        if (path.contains(type)) {
+            throw new IllegalArgumentException("Recursive output type " + type.getSimpleName()
+                    + " can't be described by a strict JSON schema");
+        }
+        path.add(type);
+        Map<String, Object> properties = new LinkedHashMap<>();
+        for (Field field : fieldsOf(type)) {
+            properties.put(propertyName(field), fieldSchema(field.getGenericType(), path));
+        }
+        path.remove(path.size() - 1);
+
+        Map<String, Object> schema = new LinkedHashMap<>();
+        schema.put("type", "object");
+        schema.put("properties", Collections.unmodifiableMap(properties));
+        schema.put("required", List.copyOf(properties.keySet()));
+        schema.put("additionalProperties", false);
+        return Collections.unmodifiableMap(schema);
+    }
+
+    private Map<String, Object> fieldSchema(Type genericType, List<Class<?>> path) {
+        Class<?> raw = rawClass(genericType);
+        if (raw.isPrimitive()) {
+            return Map.of("type", primitiveType(raw));
+        }
+        if (raw == String.class || raw == Character.class) {
+            return Map.of("type", "string");
+        }
+        if (raw.isEnum()) {
+            List<String> values = Arrays.stream(raw.getEnumConstants()).map(Object::toString).toList();
+            return Map.of("type", "string", "enum", values);
+        }
+        if (raw == Boolean.class) {
+            return Map.of("type", List.of("boolean", "null"));
+        }
+        if (raw == Integer.class || raw == Long.class || raw == Short.class || raw == Byte.class
+                || raw == BigInteger.class) {
+            return Map.of("type", List.of("integer", "null"));
+        }
+        if (raw == Double.class || raw == Float.class || raw == BigDecimal.class) {
+            return Map.of("type", List.of("number", "null"));
+        }
+        if (raw.isArray()) {
+            return Map.of("type", "array", "items", fieldSchema(raw.getComponentType(), path));
+        }
+        if (Collection.class.isAssignableFrom(raw)) {
+            Type element = genericType instanceof ParameterizedType parameterized
+                    ? parameterized.getActualTypeArguments()[0] : String.class;
+            return Map.of("type", "array", "items", fieldSchema(element, path));
+        }
+        if (Map.class.isAssignableFrom(raw) || raw == Object.class) {
+            throw new IllegalArgumentException("Free-form field type " + raw.getSimpleName()
+                    + " can't be described by a strict JSON schema");
+        }
+        return objectSchema(raw, path);
+    }
+
+    private static String primitiveType(Class<?> primitive) {
+        if (primitive == boolean.class) {
+            return "boolean";
+        }
+        if (primitive == double.class || primitive == float.class) {
+            return "number";
+        }
+        return primitive == char.class ? "string" : "integer";
+    }
+
+    private static Class<?> rawClass(Type type) {
+        if (type instanceof Class<?> cls) {
+            return cls;
+        }
+        if (type instanceof ParameterizedType parameterized) {
+            return (Class<?>) parameterized.getRawType();
+        }
+        return Object.class; // Wildcards and type variables
+    }
+
+    private static List<Field> fieldsOf(Class<?> type) {
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            List<Field> declared = new ArrayList<>();
+            for (Field field : c.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()
+                        || field.isAnnotationPresent(JsonIgnore.class)) {
+                    continue;
+                }
+                declared.add(field);
+            }
+            fields.addAll(0, declared); // Superclass fields first, as Jackson serializes them
+        }
+        return fields;
+    }
+
+    private static String propertyName(Field field) {
+        JsonProperty property = field.getAnnotation(JsonProperty.class);
+        return property != null && !property.value().isEmpty() ? property.value() : field.getName();
+    }
+}
@@ -1,27 +1,45 @@
 package com.complai.coldsales.agents.base.client;
 
 import com.complai.coldsales.agents.base.core.Agent;
+import com.complai.coldsales.agents.base.core.AgentOptions;
 import com.complai.coldsales.agents.base.result.LLMResult;
 import com.complai.coldsales.agents.base.tools.AgentTool;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
 import com.openai.client.OpenAIClient;
 import com.openai.client.okhttp.OpenAIOkHttpClient;
+import com.openai.core.http.StreamResponse;
+import com.openai.errors.OpenAIServiceException;
+import com.openai.errors.PermissionDeniedException;
+import com.openai.errors.UnauthorizedException;
 import com.openai.models.*;
 import com.complai.coldsales.utils.ServiceError;
+import com.complai.coldsales.utils.tokenizer.Tokenizer;
+import com.complai.coldsales.utils.tokenizer.Tokenizers;
 import io.github.cdimascio.dotenv.Dotenv;
 import lombok.Builder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Stream;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 /**
  * LLMClient for executing agents using real OpenAI API calls.
  * 
  * Instance-based design for better performance, testability, and resource management.
  * The OpenAI client is cached and reused across all agent executions.
+ * Calls are routed across one or more OpenAI-compatible providers (see {@link ProviderRouter}).
  */
 public class LLMClient implements AutoCloseable {
 
@@ -29,23 +47,187 @@ public class LLMClient implements AutoCloseable {
     
     private final String apiKey;
     private final String defaultModel;
-    private final OpenAIClient client; // Cached client instance
+    private final Map<String, OpenAIClient> clients; // Cached client instance per provider
+    private final ProviderRouter router; // Picks a provider + model per call
     private final ObjectMapper objectMapper;
+    private final StructuredOutputDecoders decoders; // Per-output-class readers and emptiness checks
+    private final LLMExecutor executor; // Dedicated engine for blocking OpenAI calls
+    private final ToolDefinitionCompiler toolDefinitions; // Compiled once per agent
+    private final JsonSchemaGenerator schemaGenerator; // Strict response schemas, built once per output class
+    private final RequestTemplateCompiler requestTemplates; // Per-agent, per-route request skeletons
     private volatile boolean closed = false;
+    private final int maxParallelToolCalls; // Per-turn cap on concurrently running tools
+    private final int toolContextTokens;
+    private final Duration toolTimeout;
+    private final LLMResponseCache responseCache; // null when caching is disabled
+    private final boolean cacheByDefault; // Applies to agents that don't set AgentOptions.cacheResponses
+    private final SingleFlight<String, RawCompletion> singleFlight; // Coalesces identical in-flight requests
+    private final TokenBucketRateLimiter rateLimiter; // Per-model RPM/TPM admission control
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter; // Per-model/endpoint AIMD in-flight limit
+    private final RetryPolicy retryPolicy;
+    private final RequestHedger hedger; // Duplicates slow calls of agents that opt in
+    private final CircuitBreakerRegistry circuitBreakers; // Per base URL + model health
+    private final String fallbackModel; // Used while the requested model's circuit is open; may be null
+    private final RetryBudget retryBudget; // Unlimited unless scoped via withRetryBudget()
+    private final List<String> modelCascade; // Cheapest model first; empty = no cascade
+    private final OutputValidator outputValidator; // Range/enum checks for structured outputs
+    private final CascadeStats cascadeStats;
+    private final StreamingStats streamingStats; // Time to first token and tokens/sec per agent
+    private final AtomicLong retries; // Shared with scoped views
+    private final BatchQueue batchQueue; // null unless batch mode is on
+    private final LLMProvider batchProvider; // Provider whose Batch API receives batched calls
+    private final boolean scopedView; // Views share the parent's resources and never close them
     private static final int MAX_TOOL_ITERATIONS = 10;
+    private static final long DEFAULT_MAX_TOKENS = 1500L; // Completion cap for free-text agents
+    private static final int PER_MESSAGE_OVERHEAD_TOKENS = 4; // Role and framing tokens per chat message
+    private static final int DEFAULT_MAX_PARALLEL_TOOL_CALLS = 4;
+    private static final Duration DEFAULT_TOOL_TIMEOUT = Duration.ofSeconds(90);
+    private static final Duration CONCURRENCY_MAX_WAIT = Duration.ofMinutes(2);
+    private static final String CHAT_COMPLETIONS_ENDPOINT = "chat.completions";
     
     /**
      * Create a LLMClient instance with API key and default model.
      * 
      * @param apiKey OpenAI API key
      * @param defaultModel Default model to use if agent doesn't specify one
+     * @param executor Engine that runs the blocking OpenAI calls (defaults to virtual threads)
+     * @param maxParallelToolCalls Max tools run at once for a single assistant turn (defaults to 4)
+     * @param toolTimeout Timeout applied to each tool call (defaults to 90 seconds)
+     * @param responseCacheSize Max cached responses; null or 0 disables the response cache
+     * @param responseCacheTtl Time-to-live of cached responses (defaults to no expiry)
+     * @param cacheByDefault Whether agents without an explicit cache preference share responses,
+     *                       through the cache and in-flight coalescing (defaults to true)
+     * @param requestsPerMinute Per-model request budget; null or 0 means unlimited
+     * @param tokensPerMinute Per-model token budget; null or 0 means unlimited
+     * @param maxConcurrency Upper bound for the adaptive per-model in-flight limit (defaults to 64)
+     * @param maxAttempts Attempts per LLM call, including the first, for retryable failures (defaults to 4)
+     * @param hedgeBudgetPercent Max hedged (duplicate) requests as a percentage of hedge-eligible
+     *                           requests; null or 0 disables hedging
+     * @param fallbackModel Model to divert to while a model's circuit is open; null fails fast instead
+     * @param baseUrl OpenAI-compatible base URL for the default provider (defaults to api.openai.com);
+     *                ignored when providers are given
+     * @param providers Providers to route across (defaults to a single OpenAI provider using apiKey)
+     * @param providerOrder Default provider preference for agents without their own
+     *                      (defaults to the order of providers)
+     * @param modelCascade Models to try in order for structured agents, cheapest first
+     *                     (null or fewer than two models disables the cascade)
+     * @param toolContextTokens Token budget for tool results kept in a tool-calling conversation;
+     *                          older results are compacted beyond it (defaults to 8000)
+     * @param batchMode Send calls of agents without tools through the OpenAI Batch API instead of
+     *                  calling the endpoint directly (defaults to false)
+     * @param batchTransport HTTP layer for batch mode (defaults to OkHttp against the OpenAI provider);
+     *                       setting it turns batch mode on
+     * @param batchFlushInterval How long requests are gathered before a batch is submitted (defaults to 30 seconds)
+     * @param batchPollInterval How often submitted batches are polled (defaults to 60 seconds)
      */
     @Builder
-    public LLMClient(String apiKey, String defaultModel) {
+    public LLMClient(String apiKey, String defaultModel, LLMExecutor executor,
+                     Integer maxParallelToolCalls, Duration toolTimeout,
+                     Integer responseCacheSize, Duration responseCacheTtl, Boolean cacheByDefault,
+                     Long requestsPerMinute, Long tokensPerMinute, Integer maxConcurrency,
+                     Integer maxAttempts, Double hedgeBudgetPercent, String fallbackModel,
+                     String baseUrl, List<LLMProvider> providers, List<String> providerOrder,
+                     List<String> modelCascade, Integer toolContextTokens,
+                     Boolean batchMode, BatchTransport batchTransport,
+                     Duration batchFlushInterval, Duration batchPollInterval) {
         this.apiKey = apiKey;
         this.defaultModel = defaultModel;
-        this.client = OpenAIOkHttpClient.builder().apiKey(this.apiKey).build();
-        this.objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.router = new ProviderRouter(
+                providers != null && !providers.isEmpty() ? providers : List.of(LLMProvider.openAI(apiKey, baseUrl)),
+                providerOrder);
+        this.clients = new HashMap<>();
+        for (LLMProvider provider : router.getProviders()) {
+            this.clients.put(provider.getName(), OpenAIOkHttpClient.builder()
+                    .apiKey(provider.getApiKey())
+                    .baseUrl(provider.getBaseUrl())
+                    .maxRetries(0) // Retries are owned by RetryPolicy so they count against the run's budget
+                    .build());
+        }
+        this.objectMapper = new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                .registerModule(new BlackbirdModule()); // Generated accessors instead of reflection
+        this.decoders = new StructuredOutputDecoders(objectMapper);
+        this.executor = executor != null ? executor : LLMExecutor.virtualThreads();
+        this.toolDefinitions = new ToolDefinitionCompiler();
+        this.schemaGenerator = new JsonSchemaGenerator();
+        this.requestTemplates = new RequestTemplateCompiler(schemaGenerator, toolDefinitions, this::maxTokensFor);
+        this.singleFlight = new SingleFlight<>();
+        this.maxParallelToolCalls = maxParallelToolCalls != null && maxParallelToolCalls > 0
+                ? maxParallelToolCalls : DEFAULT_MAX_PARALLEL_TOOL_CALLS;
+        this.toolContextTokens = toolContextTokens != null && toolContextTokens > 0
+                ? toolContextTokens : ToolContextCompactor.DEFAULT_BUDGET_TOKENS;
+        this.toolTimeout = toolTimeout != null ? toolTimeout : DEFAULT_TOOL_TIMEOUT;
+        this.responseCache = responseCacheSize != null && responseCacheSize > 0
+                ? new LLMResponseCache(responseCacheSize, responseCacheTtl) : null;
+        this.cacheByDefault = cacheByDefault == null || cacheByDefault;
+        this.rateLimiter = new TokenBucketRateLimiter(
+                requestsPerMinute != null ? requestsPerMinute : 0,
+                tokensPerMinute != null ? tokensPerMinute : 0);
+        int concurrencyCeiling = maxConcurrency != null && maxConcurrency > 0
+                ? maxConcurrency : AdaptiveConcurrencyLimiter.DEFAULT_MAX_LIMIT;
+        this.concurrencyLimiter = new AdaptiveConcurrencyLimiter(
+                AdaptiveConcurrencyLimiter.DEFAULT_INITIAL_LIMIT, concurrencyCeiling,
+                CONCURRENCY_MAX_WAIT.toMillis(), TimeUnit.MILLISECONDS);
+        this.retryPolicy = maxAttempts != null && maxAttempts > 0
+                ? RetryPolicy.withMaxAttempts(maxAttempts) : RetryPolicy.defaults();
+        this.retryBudget = RetryBudget.unlimited();
+        this.retries = new AtomicLong();
+        this.hedger = new RequestHedger(hedgeBudgetPercent != null ? hedgeBudgetPercent : 0,
+                RequestHedger.DEFAULT_PERCENTILE, this.executor.asExecutor());
+        this.circuitBreakers = new CircuitBreakerRegistry();
+        this.fallbackModel = fallbackModel != null && !fallbackModel.isBlank() ? fallbackModel : null;
+        this.modelCascade = modelCascade != null ? List.copyOf(modelCascade) : List.of();
+        this.outputValidator = OutputValidator.defaults();
+        this.cascadeStats = new CascadeStats();
+        this.streamingStats = new StreamingStats();
+        this.batchProvider = router.getProviders().stream()
+                .filter(provider -> LLMProvider.OPENAI.equals(provider.getName()))
+                .findFirst()
+                .orElse(router.getProviders().get(0));
+        this.batchQueue = batchTransport != null || Boolean.TRUE.equals(batchMode)
+                ? new BatchQueue(batchTransport != null ? batchTransport
+                        : new OkHttpBatchTransport(batchProvider.getBaseUrl(), batchProvider.getApiKey()),
+                        batchFlushInterval, batchPollInterval)
+                : null;
+        this.scopedView = false;
+    }
+
+    /**
+     * Scoped view sharing every resource of the source client but drawing retries from its own budget
+     * and running its calls on the given engine (the source's, or its nested-work view).
+     */
+    private LLMClient(LLMClient source, RetryBudget retryBudget, LLMExecutor executor) {
+        this.apiKey = source.apiKey;
+        this.defaultModel = source.defaultModel;
+        this.clients = source.clients;
+        this.router = source.router;
+        this.objectMapper = source.objectMapper;
+        this.decoders = source.decoders;
+        this.executor = executor;
+        this.toolDefinitions = source.toolDefinitions;
+        this.schemaGenerator = source.schemaGenerator;
+        this.requestTemplates = source.requestTemplates;
+        this.maxParallelToolCalls = source.maxParallelToolCalls;
+        this.toolContextTokens = source.toolContextTokens;
+        this.toolTimeout = source.toolTimeout;
+        this.responseCache = source.responseCache;
+        this.cacheByDefault = source.cacheByDefault;
+        this.singleFlight = source.singleFlight;
+        this.rateLimiter = source.rateLimiter;
+        this.concurrencyLimiter = source.concurrencyLimiter;
+        this.retryPolicy = source.retryPolicy;
+        this.hedger = source.hedger;
+        this.circuitBreakers = source.circuitBreakers;
+        this.fallbackModel = source.fallbackModel;
+        this.modelCascade = source.modelCascade;
+        this.outputValidator = source.outputValidator;
+        this.cascadeStats = source.cascadeStats;
+        this.streamingStats = source.streamingStats;
+        this.batchQueue = source.batchQueue;
+        this.batchProvider = source.batchProvider;
+        this.retryBudget = retryBudget;
+        this.retries = source.retries;
+        this.scopedView = true;
     }
     
     /**
@@ -55,32 +237,295 @@ public class LLMClient implements AutoCloseable {
         return LLMClient.builder()
                 .apiKey(settings.getOpenaiApiKey())
                 .defaultModel(settings.getModel())
+                .executor(LLMExecutor.of(LLMExecutor.Mode.fromString(settings.getLlmExecutor()), settings.getLlmPoolSize()))
+                .responseCacheSize(settings.getLlmCacheSize())
+                .responseCacheTtl(settings.getLlmCacheTtlSeconds() > 0 ? Duration.ofSeconds(settings.getLlmCacheTtlSeconds()) : null)
+                .requestsPerMinute(settings.getLlmRequestsPerMinute())
+                .tokensPerMinute(settings.getLlmTokensPerMinute())
+                .maxConcurrency(settings.getLlmMaxConcurrency())
+                .maxAttempts(settings.getLlmMaxAttempts())
+                .hedgeBudgetPercent(settings.getLlmHedgeBudgetPercent())
+                .fallbackModel(settings.getLlmFallbackModel())
+                .providers(providersFrom(settings))
+                .providerOrder(parseList(settings.getLlmProviderOrder()))
+                .modelCascade(parseList(settings.getLlmModelCascade()))
+                .toolContextTokens(settings.getLlmToolContextTokens())
+                .batchMode(settings.isLlmBatchMode())
+                .batchFlushInterval(Duration.ofSeconds(settings.getLlmBatchFlushSeconds()))
+                .batchPollInterval(Duration.ofSeconds(settings.getLlmBatchPollSeconds()))
                 .build();
     }
 
+    /**
+     * Providers for every API key present in Settings.
+     */
+    private static List<LLMProvider> providersFrom(com.complai.coldsales.config.Settings settings) {
+        List<LLMProvider> providers = new ArrayList<>();
+        providers.add(LLMProvider.openAI(settings.getOpenaiApiKey(), blankToNull(settings.getOpenaiBaseUrl())));
+        if (!isBlank(settings.getGoogleApiKey())) {
+            providers.add(LLMProvider.google(settings.getGoogleApiKey(), blankToNull(settings.getGoogleModel())));
+        }
+        if (!isBlank(settings.getDeepseekApiKey())) {
+            providers.add(LLMProvider.deepseek(settings.getDeepseekApiKey(), blankToNull(settings.getDeepseekModel())));
+        }
+        if (!isBlank(settings.getGroqApiKey())) {
+            providers.add(LLMProvider.groq(settings.getGroqApiKey(), blankToNull(settings.getGroqModel())));
+        }
+        return providers;
+    }
+
+    private static List<String> parseList(String commaSeparated) {
+        if (isBlank(commaSeparated)) {
+            return null;
+        }
+        return Arrays.stream(commaSeparated.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .toList();
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static String blankToNull(String value) {
+        return isBlank(value) ? null : value;
+    }
+
+    /**
+     * A client for one pipeline run: shares this client's connections, caches and limiters,
+     * but every retry made through it (including by tools it runs) is drawn from the given budget.
+     * Closing the returned client is a no-op.
+     */
+    public LLMClient withRetryBudget(RetryBudget budget) {
+        return new LLMClient(this, Objects.requireNonNull(budget, "budget"), executor);
+    }
+
     @Override
     public void close() {
-        if (closed) return;
+        if (closed || scopedView) return;
         closed = true; // OpenAI client doesn't have close() method in this version. Resource cleanup is handled by the HTTP client internally
+        if (batchQueue != null) {
+            batchQueue.close();
+        }
+        executor.close();
+    }
+
+    /**
+     * Executor backing LLM calls, for pipeline continuations that should not run on the common pool.
+     */
+    public java.util.concurrent.Executor getExecutor() {
+        return executor.asExecutor();
+    }
+
+    /**
+     * Gauge: LLM calls currently in flight.
+     */
+    public int getActiveCalls() {
+        return executor.getActiveCalls();
+    }
+
+    /**
+     * Gauge: LLM calls waiting for an execution slot.
+     */
+    public int getQueuedCalls() {
+        return executor.getQueueDepth();
+    }
+
+    /**
+     * Response cache hit/miss/eviction metrics (all zero when caching is disabled).
+     */
+    public LLMResponseCache.Stats getCacheStats() {
+        return responseCache != null ? responseCache.getStats() : LLMResponseCache.Stats.empty();
+    }
+
+    /**
+     * Number of requests served by attaching to an identical in-flight request.
+     */
+    public long getCoalescedRequests() {
+        return singleFlight.getCoalescedCount();
+    }
+
+    /**
+     * Rate limiter admission and wait-time metrics.
+     */
+    public TokenBucketRateLimiter.Stats getRateLimiterStats() {
+        return rateLimiter.getStats();
+    }
+
+    /**
+     * Current adaptive in-flight limit for a model's chat completions on its preferred provider.
+     */
+    public int getConcurrencyLimit(String model) {
+        return concurrencyLimiter.getLimit(concurrencyKey(router.candidates(model, null).get(0)));
+    }
+
+    /**
+     * Adaptive concurrency limits, in-flight counts and rejections per model/endpoint.
+     */
+    public AdaptiveConcurrencyLimiter.Stats getConcurrencyStats() {
+        return concurrencyLimiter.getStats();
+    }
+
+    /**
+     * Total retries made across this client and its scoped views.
+     */
+    public long getRetryCount() {
+        return retries.get();
+    }
+
+    /**
+     * Hedged request counts for agents that opt into hedging.
+     */
+    public RequestHedger.Stats getHedgeStats() {
+        return hedger.getStats();
+    }
+
+    /**
+     * Circuit breaker state per endpoint (base URL + model).
+     */
+    public Map<String, CircuitBreakerRegistry.State> getCircuitStates() {
+        return circuitBreakers.getStates();
+    }
+
+    /**
+     * Circuit state of a model on its preferred provider.
+     */
+    public CircuitBreakerRegistry.State getCircuitState(String model) {
+        return circuitBreakers.getState(circuitKey(router.candidates(model, null).get(0)));
+    }
+
+    /**
+     * Per-agent model cascade outcomes: runs, escalations and which model's output was accepted.
+     */
+    public Map<String, CascadeStats.AgentStats> getCascadeStats() {
+        return cascadeStats.snapshot();
+    }
+
+    /**
+     * Per-agent streaming latency: time to first token, tokens/sec and aborted streams.
+     */
+    public Map<String, StreamingStats.AgentStats> getStreamingStats() {
+        return streamingStats.snapshot();
+    }
+
+    /**
+     * Batch mode progress: queued and in-flight requests, submitted batches (all zero when off).
+     */
+    public BatchQueue.Stats getBatchStats() {
+        return batchQueue != null ? batchQueue.getStats() : new BatchQueue.Stats(0, 0, 0, 0, 0);
+    }
+
+    /**
+     * In batch mode, submit the gathered requests now instead of waiting for the flush interval
+     * (e.g. once a campaign has launched all of its pipelines). No-op otherwise.
+     */
+    public void flushBatch() {
+        if (batchQueue != null) {
+            batchQueue.flushNow();
+        }
+    }
+
+    /**
+     * Live latency and error rate per provider route.
+     */
+    public Map<String, ProviderRouter.Health> getProviderHealth() {
+        return router.getHealth();
+    }
+
+    /**
+     * Whether new work would currently reach a healthy endpoint: some provider serving the
+     * default model has a closed circuit, or a fallback model is configured and reachable.
+     * Callers should stop launching pipelines while this is false.
+     */
+    public boolean isAcceptingWork() {
+        return healthyRoute(defaultModel, null) != null
+                || (fallbackModel != null && healthyRoute(fallbackModel, null) != null);
     }
     
     /**
      * Run an agent with a prompt using OpenAI API calls.
      *
+     * The agent's input guardrails check the prompt in parallel with generation; if one trips,
+     * the generation is cancelled and the future fails with InputGuardrailTripwireException.
+     *
      * @param agent The agent to run
      * @param prompt The input prompt
      * @return A future containing the result
      */
     public CompletableFuture<LLMResult> run(Agent agent, String prompt) {
         validateInputs(agent, prompt);
+        return InputGuardrails.guard(agent, prompt, () -> generate(agent, prompt));
+    }
 
+    private CompletableFuture<LLMResult> generate(Agent agent, String prompt) {
         if (agent.hasTools()) {
             log.info("🔧 Agent '{}' has {} tool(s) available for agent-of-agents execution", 
                     agent.getName(), agent.getTools().size());
-            return runWithTools(agent, prompt);
-        } else {
-            return runSimple(agent, prompt);
         }
+        List<String> cascade = cascadeFor(agent);
+        if (cascade.size() > 1) {
+            return runCascade(agent, prompt, cascade, 0, 0);
+        }
+        return runOnce(agent, prompt, resolveModelName(agent));
+    }
+
+    private CompletableFuture<LLMResult> runOnce(Agent agent, String prompt, String requestedModel) {
+        return agent.hasTools() ? runWithTools(agent, prompt, requestedModel) : runSimple(agent, prompt, requestedModel);
+    }
+
+    /**
+     * Models to try in order for this agent: its own cascade, else the client default.
+     * Only structured agents cascade, since escalation is decided by validating their output.
+     */
+    private List<String> cascadeFor(Agent agent) {
+        if (!agent.hasStructuredOutput()) {
+            return List.of();
+        }
+        List<String> cascade = agent.getOptions().getModelCascade();
+        return cascade != null ? cascade : modelCascade;
+    }
+
+    /**
+     * Model cascade: run the cheapest model first and escalate to the next one only when the
+     * output fails validation (does not parse into the output type, is all nulls, or has
+     * out-of-range fields). The last model's output is returned as-is.
+     */
+    private CompletableFuture<LLMResult> runCascade(Agent agent, String prompt, List<String> models,
+                                                    int index, int tokensSoFar) {
+        String model = models.get(index);
+        boolean lastModel = index == models.size() - 1;
+        CompletableFuture<LLMResult> attempt = runOnce(agent, prompt, model);
+        AtomicReference<CompletableFuture<LLMResult>> escalation = new AtomicReference<>();
+        CompletableFuture<LLMResult> cascade = attempt.thenCompose(result -> {
+            List<String> violations = validateOutput(agent, result.getFinalOutput());
+            result.setTokensUsed(result.getTokensUsed() + tokensSoFar);
+            if (violations.isEmpty() || lastModel) {
+                cascadeStats.record(agent.getName(), model, index, violations.isEmpty());
+                return CompletableFuture.completedFuture(result);
+            }
+            log.info("⤴️  Escalating agent '{}' from '{}' to '{}': {}",
+                    agent.getName(), model, models.get(index + 1), violations);
+            escalation.set(runCascade(agent, prompt, models, index + 1, result.getTokensUsed()));
+            return escalation.get();
+        });
+        // A tripped input guardrail cancels whichever model is running
+        propagateCancellation(cascade, attempt);
+        propagateCancellation(cascade, escalation::get);
+        return cascade;
+    }
+
+    /**
+     * Problems with an agent's output; empty when it is usable.
+     */
+    private List<String> validateOutput(Agent agent, Object output) {
+        if (!agent.hasStructuredOutput()) {
+            return List.of();
+        }
+        if (!agent.getOutputType().isInstance(output)) {
+            return List.of("output did not parse into " + agent.getOutputTypeName());
+        }
+        return outputValidator.violations(output);
     }
     
     private void validateInputs(Agent agent, String prompt) {
@@ -95,30 +540,680 @@ public class LLMClient implements AutoCloseable {
     /**
      * Run a simple agent without tools (standard execution).
      */
-    private CompletableFuture<LLMResult> runSimple(Agent agent, String prompt) {
-        return CompletableFuture.supplyAsync(() -> {
+    private CompletableFuture<LLMResult> runSimple(Agent agent, String prompt, String requestedModel) {
+        String requestKey = requestKeyFor(agent, prompt, requestedModel);
+        CompletableFuture<RawCompletion> completion = fetchCompletion(agent, prompt, requestedModel, requestKey);
+        CompletableFuture<LLMResult> result = completion
+                .thenCompose(raw -> completeSimpleResult(agent, prompt, requestedModel, raw, requestKey))
+                .exceptionally(throwable -> {
+                    Throwable cause = unwrapCompletion(throwable);
+                    log.error("❌ Error calling OpenAI API for agent {}", agent.getName(), cause);
+                    return createErrorResult(agent.getName(), cause);
+                });
+        propagateCancellation(result, completion);
+        return result;
+    }
+
+    /**
+     * Run an agent with its completion streamed as it is generated.
+     *
+     * Text deltas, and for structured agents each top-level JSON field, reach the returned
+     * stream's listeners as they arrive, and callers can abort the generation early (e.g. when an
+     * inline check fails) so the remaining tokens are never generated. Streams bypass the response
+     * cache, coalescing, hedging and the model cascade; a failed attempt is retried only while
+     * nothing has been emitted yet. Tool-using agents run normally and emit their final answer at once.
+     *
+     * @param agent The agent to run
+     * @param prompt The input prompt
+     * @return The stream; its result() future completes with the parsed result
+     */
+    public LLMStream runStreaming(Agent agent, String prompt) {
+        validateInputs(agent, prompt);
+        LLMStream stream = new LLMStream(agent.getName(), agent.hasStructuredOutput());
+        if (agent.hasTools()) {
+            run(agent, prompt).whenComplete((result, throwable) -> { // run() applies the input guardrails
+                if (throwable != null) {
+                    stream.fail(unwrapCompletion(throwable));
+                    return;
+                }
+                stream.emit(serializeOutput(result.getFinalOutput()));
+                stream.complete(result);
+            });
+            return stream;
+        }
+        // Input guardrails check the prompt while tokens stream; the stream only ends once they
+        // pass, so a consumer reading to EOF (e.g. an email send) never acts on blocked input
+        CompletableFuture<Void> guardrails = InputGuardrails.check(agent, prompt);
+        stream.holdCompletionUntil(guardrails);
+        CompletableFuture<Void> call = executor.supply(() -> {
+            streamCompletion(agent, prompt, stream);
+            return null;
+        });
+        call.whenComplete((ignored, throwable) -> {
+            if (throwable != null) {
+                stream.fail(unwrapCompletion(throwable));
+            }
+        });
+        guardrails.whenComplete((ignored, throwable) -> {
+            if (throwable != null) {
+                stream.fail(unwrapCompletion(throwable));
+                call.cancel(true); // Closes the HTTP stream even while it waits for the next chunk
+            }
+        });
+        stream.result().whenComplete((result, throwable) -> {
+            if (!guardrails.isDone()) {
+                guardrails.cancel(true);
+            }
+        });
+        return stream;
+    }
+
+    /**
+     * Blocking retry loop for a stream. Each attempt re-selects a route; once text has been
+     * emitted a failure is final, since listeners can't take it back.
+     */
+    private void streamCompletion(Agent agent, String prompt, LLMStream stream) {
+        String requestedModel = resolveModelName(agent);
+        Duration previousDelay = null;
+        for (int attempt = 1; !stream.result().isDone(); attempt++) {
+            ProviderRouter.Route route = getRoute(agent, requestedModel);
+            StreamedCompletion completion;
             try {
-                String modelName = getModel(agent);
-                List<ChatCompletionMessageParam> messages = buildMessages(agent, prompt);
-                ChatCompletionCreateParams request = buildRequest(agent, modelName, messages);
-                ChatCompletion response = client.chat().completions().create(request);
-
-                String rawOutput = extractRawOutput(response);
-                Object output = parseOutput(agent, rawOutput);
-                int tokensUsed = extractTokenUsage(response);
-                
-                log.info("✅ OpenAI API call successful ({} chars, {} tokens)", 
-                        output.toString().length(), tokensUsed);
+                completion = streamOnce(agent, route, prompt, stream);
+            } catch (CancellationException e) {
+                stream.fail(e);
+                return;
+            } catch (RuntimeException e) {
+                Optional<Duration> delay = stream.hasOutput() || stream.result().isDone()
+                        ? Optional.empty()
+                        : retryPolicy.nextDelay(e, attempt, previousDelay, retryBudget);
+                if (delay.isEmpty()) {
+                    if (!stream.result().isDone()) { // Not just the call being cut off by an abort or tripwire
+                        log.error("❌ Error streaming from OpenAI API for agent {}", agent.getName(), e);
+                    }
+                    stream.fail(e);
+                    return;
+                }
+                logRetry(agent.getName(), attempt, delay.get(), e);
+                try {
+                    Thread.sleep(delay.get());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    stream.fail(new CancellationException("Interrupted while backing off before retry"));
+                    return;
+                }
+                previousDelay = delay.get();
+                continue;
+            }
+            recordStream(agent, stream, completion);
+            if (stream.result().isCompletedExceptionally()) { // Aborted, or failed by a tripped input guardrail
+                log.info("✋ Stream of agent '{}' aborted after {} tokens", agent.getName(), completion.completionTokens());
+                return;
+            }
+            Object output = parseOutput(agent, stream.getText());
+            log.info("✅ OpenAI streaming call successful ({} chars, {} tokens, {} cached)",
+                    stream.getText().length(), completion.totalTokens(), completion.cachedTokens());
+            stream.complete(buildSimpleResult(agent, route.model(), output, completion.totalTokens(),
+                    completion.cachedTokens()));
+            return;
+        }
+    }
 
-                return buildSimpleResult(agent, modelName, output, tokensUsed);
+    /**
+     * One streamed call: forwards deltas to the stream until the model finishes or the stream
+     * is aborted, in which case the HTTP response is closed right away.
+     */
+    private StreamedCompletion streamOnce(Agent agent, ProviderRouter.Route route, String prompt, LLMStream stream) {
+        ChatCompletionCreateParams request = newRequest(agent, route, prompt)
+                .streamOptions(ChatCompletionStreamOptions.builder().includeUsage(true).build())
+                .build();
+        long promptTokens = countPromptTokens(route.model(), agent, prompt);
+        long startNanos = System.nanoTime();
+        return callAdmitted(agent, route, promptTokens + maxTokensFor(agent), client -> {
+            CompletionUsage usage = null;
+            try (StreamResponse<ChatCompletionChunk> response = client.chat().completions().createStreaming(request)) {
+                Iterator<ChatCompletionChunk> chunks = response.stream().iterator();
+                while (!stream.result().isDone() && chunks.hasNext()) {
+                    ChatCompletionChunk chunk = chunks.next();
+                    usage = chunk.usage().orElse(usage);
+                    for (ChatCompletionChunk.Choice choice : chunk.choices()) {
+                        choice.delta().content().ifPresent(stream::emit);
+                    }
+                }
+            }
+            if (!stream.hasOutput() && !stream.result().isDone()) {
+                throw new IllegalStateException("OpenAI returned empty response");
+            }
+            long endNanos = System.nanoTime();
+            // Aborted streams end before the usage chunk, so count what was generated locally
+            long completionTokens = usage != null ? usage.completionTokens()
+                    : Tokenizers.forModel(route.model()).count(stream.getText());
+            long totalTokens = usage != null ? usage.totalTokens() : promptTokens + completionTokens;
+            int cachedTokens = usage != null ? cachedTokensOf(usage) : 0;
+            return new StreamedCompletion(startNanos, endNanos, (int) totalTokens, (int) completionTokens, cachedTokens);
+        }, StreamedCompletion::totalTokens, RequestHedger.AttemptTiming.NONE);
+    }
 
-            } catch (Exception e) {
-                log.error("❌ Error calling OpenAI API for agent {}", agent.getName(), e);
-                return createErrorResult(agent.getName(), e);
+    private void recordStream(Agent agent, LLMStream stream, StreamedCompletion completion) {
+        long firstTokenNanos = stream.getFirstTokenNanos();
+        long timeToFirstToken = firstTokenNanos > 0 ? firstTokenNanos - completion.startNanos() : 0;
+        long generationNanos = firstTokenNanos > 0 ? completion.endNanos() - firstTokenNanos : 0;
+        streamingStats.record(agent.getName(), timeToFirstToken, generationNanos,
+                completion.completionTokens(), stream.isAborted());
+        log.debug("⏱️  Agent '{}' streamed {} tokens, first token after {} ms",
+                agent.getName(), completion.completionTokens(), TimeUnit.NANOSECONDS.toMillis(timeToFirstToken));
+    }
+
+    private String serializeOutput(Object output) {
+        if (output == null || output instanceof String) {
+            return output == null ? "" : (String) output;
+        }
+        try {
+            return objectMapper.writeValueAsString(output);
+        } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
+            return output.toString();
+        }
+    }
+
+    /**
+     * Run a structured or free-text agent for several candidate answers at once.
+     *
+     * The candidates are requested as n choices of one chat completion, so the prompt is sent
+     * (and its input tokens paid) once. Providers that reject n > 1 get one request per candidate,
+     * also when a request fails over to one of them. Every choice is parsed like a normal output; all of them are returned in
+     * LLMResult.candidateOutputs, with the first as finalOutput. Candidates are never cached or
+     * coalesced, since identical requests are expected to give different samples.
+     * Tool-using agents, and candidates <= 1, run normally. Input guardrails apply as in run().
+     *
+     * @param agent The agent to run
+     * @param prompt The input prompt
+     * @param candidates Number of candidate answers wanted
+     * @return A future containing the result
+     */
+    public CompletableFuture<LLMResult> runCandidates(Agent agent, String prompt, int candidates) {
+        validateInputs(agent, prompt);
+        if (candidates <= 1 || agent.hasTools()) {
+            CompletableFuture<LLMResult> single = run(agent, prompt);
+            CompletableFuture<LLMResult> result = single.thenApply(singleResult -> {
+                singleResult.setCandidateOutputs(List.of(singleResult.getFinalOutput()));
+                return singleResult;
+            });
+            propagateCancellation(result, single);
+            return result;
+        }
+        return InputGuardrails.guard(agent, prompt, () -> generateCandidates(agent, prompt, candidates));
+    }
+
+    private CompletableFuture<LLMResult> generateCandidates(Agent agent, String prompt, int candidates) {
+        String requestedModel = resolveModelName(agent);
+        boolean multipleChoices = preferredRoute(agent, requestedModel).provider().isMultipleChoicesSupported();
+        int perRequest = multipleChoices ? candidates : 1;
+        List<CompletableFuture<CandidateResponses>> requests = new ArrayList<>();
+        for (int i = 0; i < candidates / perRequest; i++) {
+            requests.add(executor.supply(() -> requestCandidates(agent, requestedModel, prompt, perRequest)));
+        }
+        CompletableFuture<LLMResult> result = CompletableFuture.allOf(requests.toArray(new CompletableFuture[0]))
+                .thenApply(v -> {
+                    List<Object> outputs = new ArrayList<>();
+                    int tokens = 0;
+                    int cachedTokens = 0;
+                    for (CompletableFuture<CandidateResponses> request : requests) {
+                        for (ChatCompletion response : request.join().responses()) {
+                            tokens += extractTokenUsage(response);
+                            cachedTokens += extractCachedTokens(response);
+                            for (ChatCompletion.Choice choice : response.choices()) {
+                                choice.message().content().ifPresent(raw -> outputs.add(parseOutput(agent, raw)));
+                            }
+                        }
+                    }
+                    if (outputs.isEmpty()) {
+                        throw new IllegalStateException("OpenAI returned empty response");
+                    }
+                    if (outputs.size() < candidates) {
+                        log.warn("⚠️  Agent '{}' got {} of {} candidates", agent.getName(), outputs.size(), candidates);
+                    }
+                    log.info("✅ OpenAI API call successful ({} of {} candidates, {} tokens, {} cached)",
+                            outputs.size(), candidates, tokens, cachedTokens);
+                    LLMResult candidatesResult = buildSimpleResult(agent, requests.get(0).join().model(), outputs.get(0),
+                            tokens, cachedTokens);
+                    candidatesResult.setCandidateOutputs(outputs);
+                    return candidatesResult;
+                })
+                .exceptionally(throwable -> {
+                    Throwable cause = unwrapCompletion(throwable);
+                    log.error("❌ Error calling OpenAI API for agent {}", agent.getName(), cause);
+                    return createErrorResult(agent.getName(), cause);
+                });
+        requests.forEach(request -> propagateCancellation(result, request));
+        return result;
+    }
+
+    /**
+     * One request for up to perRequest candidates. Runs on an LLM executor thread. If it failed
+     * over to a route that only returns one choice per request, the missing candidates are
+     * requested one at a time from that route, so the caller still gets as many as it asked for.
+     */
+    private CandidateResponses requestCandidates(Agent agent, String requestedModel, String prompt, int perRequest) {
+        ProviderRouter.Route firstRoute = getRoute(agent, requestedModel);
+        AtomicReference<ProviderRouter.Route> usedRoute = new AtomicReference<>(firstRoute);
+        long estimatedTokens = countPromptTokens(firstRoute.model(), agent, prompt) + maxTokensFor(agent) * perRequest;
+        List<ChatCompletion> responses = new ArrayList<>();
+        responses.add(createCompletionWithRetries(agent, requestedModel, firstRoute, route -> {
+            usedRoute.set(route);
+            return newRequest(agent, route, prompt)
+                    .n(route.provider().isMultipleChoicesSupported() ? perRequest : 1)
+                    .build();
+        }, estimatedTokens));
+
+        ProviderRouter.Route route = usedRoute.get();
+        int missing = perRequest - responses.get(0).choices().size();
+        if (missing > 0 && !route.provider().isMultipleChoicesSupported()) {
+            log.info("🔀 '{}' returns one choice per request, requesting {} more candidates separately",
+                    route.key(), missing);
+            long singleEstimate = countPromptTokens(route.model(), agent, prompt) + maxTokensFor(agent);
+            for (int i = 0; i < missing; i++) {
+                responses.add(createCompletionWithRetries(agent, requestedModel, route,
+                        r -> newRequest(agent, r, prompt).n(1).build(),
+                        singleEstimate));
+            }
+        }
+        return new CandidateResponses(route.model(), responses);
+    }
+
+    /**
+     * Resolve the raw completion for a request: from the response cache, by attaching to an
+     * identical in-flight request, or by issuing a new call.
+     */
+    private CompletableFuture<RawCompletion> fetchCompletion(Agent agent, String prompt, String requestedModel,
+                                                             String requestKey) {
+        if (requestKey == null) {
+            return callCompletion(agent, prompt, requestedModel);
+        }
+        if (responseCache != null) {
+            Optional<LLMResponseCache.CachedResponse> cached = responseCache.get(requestKey);
+            if (cached.isPresent()) {
+                log.info("💾 Cache hit for agent '{}'", agent.getName());
+                return CompletableFuture.completedFuture(
+                        new RawCompletion(cached.get().getRawOutput(), cached.get().getModel(), 0, 0, true));
             }
+        }
+        return singleFlight.execute(requestKey, () -> callCompletion(agent, prompt, requestedModel));
+    }
+
+    private CompletableFuture<RawCompletion> callCompletion(Agent agent, String prompt, String requestedModel) {
+        if (batchQueue != null) {
+            return callBatched(agent, prompt, requestedModel);
+        }
+        CompletableFuture<RawCompletion> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<RawCompletion>> currentAttempt = new AtomicReference<>();
+        propagateCancellation(result, () -> currentAttempt.get());
+        attemptCompletion(agent, prompt, requestedModel, 1, null, currentAttempt, result);
+        return result;
+    }
+
+    /**
+     * Batch mode: queue the request for the next Batch API job instead of calling the endpoint.
+     * The cache, coalescing and parsing around it are unchanged, so pipelines run as-is.
+     */
+    private CompletableFuture<RawCompletion> callBatched(Agent agent, String prompt, String requestedModel) {
+        String model = batchProvider.modelFor(requestedModel);
+        return batchQueue.submit(batchRequestBody(agent, prompt, model))
+                .thenApply(completion -> new RawCompletion(completion.content(), model, completion.totalTokens(),
+                        completion.cachedTokens(), false));
+    }
+
+    /**
+     * Chat completion request body as JSON, mirroring the request templates for Batch API input files.
+     */
+    private Map<String, Object> batchRequestBody(Agent agent, String prompt, String model) {
+        validateMessageInputs(agent, prompt);
+        List<Map<String, Object>> messages = new ArrayList<>();
+        String sharedContext = agent.getOptions().getSharedContext();
+        if (sharedContext != null) {
+            messages.add(Map.of("role", "system", "content", sharedContext));
+        }
+        messages.add(Map.of("role", "system", "content", agent.getInstructions()));
+        messages.add(Map.of("role", "user", "content", prompt));
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("model", model);
+        body.put("max_tokens", maxTokensFor(agent));
+        body.put("temperature", agent.getOptions().getTemperature());
+        body.put("messages", messages);
+        if (agent.hasStructuredOutput()) {
+            if (batchProvider.isJsonSchemaSupported()) {
+                try {
+                    body.put("response_format", schemaGenerator.responseFormatJsonFor(agent.getOutputType()));
+                    return body;
+                } catch (IllegalArgumentException e) {
+                    log.warn("⚠️  No strict schema for {}, using JSON mode: {}", agent.getOutputTypeName(), e.getMessage());
+                }
+            }
+            int schemaPosition = agent.getOptions().getSharedContext() != null ? 1 : 0; // Right after the shared context
+            messages.add(schemaPosition, Map.of("role", "system", "content",
+                    requestTemplates.structuredOutputInstruction(agent)));
+            body.put("response_format", Map.of("type", "json_object"));
+        }
+        return body;
+    }
+
+    /**
+     * Run one attempt and, on a retryable failure, schedule the next one after the policy's
+     * backoff without parking a thread in between.
+     */
+    private void attemptCompletion(Agent agent, String prompt, String requestedModel, int attempt, Duration previousDelay,
+                                   AtomicReference<CompletableFuture<RawCompletion>> currentAttempt,
+                                   CompletableFuture<RawCompletion> result) {
+        if (result.isDone()) {
+            return;
+        }
+        CompletableFuture<RawCompletion> call = agent.getOptions().isHedgeRequests() && hedger.isEnabled()
+                ? hedger.execute(agent.getName() + "@" + requestedModel,
+                        timing -> callCompletionOnce(agent, prompt, requestedModel, timing))
+                : callCompletionOnce(agent, prompt, requestedModel, RequestHedger.AttemptTiming.NONE);
+        currentAttempt.set(call);
+        if (result.isCancelled()) {
+            call.cancel(true);
+        }
+        call.whenComplete((raw, throwable) -> {
+            if (throwable == null) {
+                result.complete(raw);
+                return;
+            }
+            Throwable cause = unwrapCompletion(throwable);
+            Optional<Duration> delay = result.isDone() || cause instanceof CancellationException
+                    ? Optional.empty()
+                    : retryPolicy.nextDelay(cause, attempt, previousDelay, retryBudget);
+            if (delay.isEmpty()) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            logRetry(agent.getName(), attempt, delay.get(), cause);
+            CompletableFuture.delayedExecutor(delay.get().toMillis(), TimeUnit.MILLISECONDS, executor.asExecutor())
+                    .execute(() -> attemptCompletion(agent, prompt, requestedModel, attempt + 1, delay.get(), currentAttempt, result));
+        });
+    }
+
+    /**
+     * @param timing Told when the call is admitted and, once it succeeds, the provider's own latency
+     */
+    private CompletableFuture<RawCompletion> callCompletionOnce(Agent agent, String prompt, String requestedModel,
+                                                                RequestHedger.AttemptTiming timing) {
+        return executor.supply(() -> {
+            ProviderRouter.Route route = getRoute(agent, requestedModel);
+            ChatCompletionCreateParams request = newRequest(agent, route, prompt).build();
+            long estimatedTokens = countPromptTokens(route.model(), agent, prompt) + maxTokensFor(agent);
+            ChatCompletion response = createCompletion(agent, route, request, estimatedTokens, timing);
+            return new RawCompletion(extractRawOutput(response), route.model(), extractTokenUsage(response),
+                    extractCachedTokens(response), false);
         });
     }
 
+    /**
+     * Blocking variant of the retry loop, for callers already running on an LLM executor thread.
+     * Each attempt re-selects a route, so retries fail over to another provider when one degrades.
+     */
+    private ChatCompletion createCompletionWithRetries(Agent agent, String requestedModel, ProviderRouter.Route firstRoute,
+                                                       Function<ProviderRouter.Route, ChatCompletionCreateParams> requestForRoute,
+                                                       long estimatedTokens) {
+        Duration previousDelay = null;
+        ProviderRouter.Route route = firstRoute;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                if (attempt > 1) {
+                    route = getRoute(agent, requestedModel);
+                }
+                return createCompletion(agent, route, requestForRoute.apply(route), estimatedTokens, RequestHedger.AttemptTiming.NONE);
+            } catch (CancellationException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                Optional<Duration> delay = retryPolicy.nextDelay(e, attempt, previousDelay, retryBudget);
+                if (delay.isEmpty()) {
+                    throw e;
+                }
+                logRetry(agent.getName(), attempt, delay.get(), e);
+                try {
+                    Thread.sleep(delay.get());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("Interrupted while backing off before retry");
+                }
+                previousDelay = delay.get();
+            }
+        }
+    }
+
+    private void logRetry(String agentName, int attempt, Duration delay, Throwable cause) {
+        retries.incrementAndGet();
+        log.warn("🔁 Attempt {} for agent '{}' failed ({}), retrying in {} ms",
+                attempt, agentName, cause.getMessage(), delay.toMillis());
+    }
+
+    /**
+     * Single choke point for blocking chat completion calls.
+     * Waits for rate limiter admission and an adaptive concurrency slot, then sends the request,
+     * feeds the outcome back to the concurrency limit and corrects the token reservation with
+     * the reported usage, or gives it back when the call ends without a response.
+     */
+    private ChatCompletion createCompletion(Agent agent, ProviderRouter.Route route, ChatCompletionCreateParams request,
+                                            long estimatedTokens, RequestHedger.AttemptTiming timing) {
+        return callAdmitted(agent, route, estimatedTokens,
+                client -> client.chat().completions().create(request), this::extractTokenUsage, timing);
+    }
+
+    /**
+     * Admission, health accounting and token reconciliation around one call to a route.
+     * Streaming calls hold their slot until the stream is fully consumed, since the
+     * connection stays in flight until then. Calls share the route's concurrency limit, but
+     * their latency is judged against the calling agent's own baseline. timing is told when the
+     * call is admitted, and the latency it receives is measured from that moment.
+     */
+    private <T> T callAdmitted(Agent agent, ProviderRouter.Route route, long estimatedTokens,
+                               Function<OpenAIClient, T> call, java.util.function.ToLongFunction<T> actualTokens,
+                               RequestHedger.AttemptTiming timing) {
+        String circuitKey = circuitKey(route);
+        circuitBreakers.acquirePermission(circuitKey); // Fails fast while the circuit is open
+        AdaptiveConcurrencyLimiter.Permit permit;
+        boolean reserved = false; // The rate limiter gives back its own reservation if interrupted while waiting
+        try {
+            long waitedNanos = rateLimiter.acquire(route.key(), estimatedTokens);
+            reserved = true;
+            if (waitedNanos > 0) {
+                log.debug("⏳ Rate limiter delayed '{}' call by {} ms", route.key(), TimeUnit.NANOSECONDS.toMillis(waitedNanos));
+            }
+            permit = concurrencyLimiter.acquire(concurrencyKey(route), agent.getName());
+        } catch (InterruptedException e) {
+            circuitBreakers.onIgnored(circuitKey);
+            if (reserved) {
+                rateLimiter.refund(route.key(), estimatedTokens);
+            }
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for LLM call admission");
+        } catch (RuntimeException e) {
+            circuitBreakers.onIgnored(circuitKey);
+            if (reserved) {
+                rateLimiter.refund(route.key(), estimatedTokens);
+            }
+            throw e;
+        }
+
+        T response;
+        timing.admitted();
+        long startNanos = System.nanoTime();
+        try {
+            response = call.apply(clients.get(route.provider().getName()));
+        } catch (RuntimeException e) {
+            if (Thread.currentThread().isInterrupted()) {
+                circuitBreakers.onIgnored(circuitKey); // Cancelled (e.g. a losing hedge), not an endpoint failure
+            } else if (RetryPolicy.classify(e) == RetryPolicy.FailureKind.RETRYABLE) {
+                circuitBreakers.onError(circuitKey, System.nanoTime() - startNanos);
+                router.recordError(route, System.nanoTime() - startNanos);
+            } else {
+                circuitBreakers.onIgnored(circuitKey);
+            }
+            if (isOverloadSignal(e)) {
+                permit.dropped();
+                log.warn("📉 '{}' overloaded, concurrency limit now {}",
+                        route.key(), concurrencyLimiter.getLimit(concurrencyKey(route)));
+            } else {
+                permit.ignore();
+            }
+            rateLimiter.refund(route.key(), estimatedTokens); // Failed or cancelled: no usage to reconcile against
+            throw e;
+        }
+        long latencyNanos = System.nanoTime() - startNanos;
+        permit.success();
+        circuitBreakers.onSuccess(circuitKey, latencyNanos);
+        router.recordSuccess(route, latencyNanos);
+        timing.providerLatency(latencyNanos);
+        rateLimiter.reconcile(route.key(), estimatedTokens, actualTokens.applyAsLong(response));
+        return response;
+    }
+
+    private static String circuitKey(ProviderRouter.Route route) {
+        return route.provider().getBaseUrl() + "#" + route.model();
+    }
+
+    private static String concurrencyKey(ProviderRouter.Route route) {
+        return route.key() + "/" + CHAT_COMPLETIONS_ENDPOINT;
+    }
+
+    /**
+     * Throttling (429) and server errors (5xx) mean the endpoint is over capacity.
+     */
+    private static boolean isOverloadSignal(Throwable throwable) {
+        return throwable instanceof OpenAIServiceException serviceError
+                && (serviceError.statusCode() == 429 || serviceError.statusCode() >= 500);
+    }
+
+    /**
+     * Prompt tokens of a request, counted locally for rate limiter reservations.
+     */
+    private static long countPromptTokens(String model, Agent agent, String prompt) {
+        Tokenizer tokenizer = Tokenizers.forModel(model);
+        String sharedContext = agent.getOptions().getSharedContext();
+        long sharedTokens = sharedContext != null ? tokenizer.count(sharedContext) + PER_MESSAGE_OVERHEAD_TOKENS : 0;
+        return sharedTokens + tokenizer.count(agent.getInstructions()) + tokenizer.count(prompt)
+                + PER_MESSAGE_OVERHEAD_TOKENS * 2L;
+    }
+
+    /**
+     * Completion token cap for an agent: its explicit maxTokens, else sized from the output schema,
+     * so short structured answers don't reserve (and wait for) a full default allowance.
+     */
+    private long maxTokensFor(Agent agent) {
+        Long configured = agent.getOptions().getMaxTokens();
+        if (configured != null) {
+            return configured;
+        }
+        if (agent.hasStructuredOutput()) {
+            try {
+                return schemaGenerator.maxOutputTokens(agent.getOutputType());
+            } catch (IllegalArgumentException e) {
+                return DEFAULT_MAX_TOKENS;
+            }
+        }
+        return DEFAULT_MAX_TOKENS;
+    }
+
+    /**
+     * Parse a raw completion for one caller. Parsing happens per caller, so coalesced and
+     * cached responses never share (mutable) structured output objects. A truncated structured
+     * answer is repaired, and only the fields that are still missing or fail validation are re-asked.
+     */
+    private CompletableFuture<LLMResult> completeSimpleResult(Agent agent, String prompt, String requestedModel,
+                                                              RawCompletion completion, String requestKey) {
+        ParsedOutput parsed = decodeOutput(agent, completion.rawOutput());
+        Map<String, String> fieldsToFix = fieldsToReask(agent, parsed);
+        if (fieldsToFix.isEmpty()) {
+            return CompletableFuture.completedFuture(toSimpleResult(agent, requestedModel, completion, requestKey, parsed));
+        }
+        List<ChatCompletionMessageParam> conversation = List.of(
+                RequestTemplate.userMessage(prompt), assistantMessage(completion.rawOutput()));
+        return executor.supply(() -> {
+            ProviderRouter.Route route = getRoute(agent, requestedModel);
+            long estimatedTokens = countPromptTokens(route.model(), agent, prompt)
+                    + Tokenizers.forModel(route.model()).count(completion.rawOutput()) + maxTokensFor(agent);
+            Reasked reasked = reaskFields(agent, requestedModel, route, conversation, parsed, fieldsToFix, estimatedTokens);
+            LLMResult result = toSimpleResult(agent, requestedModel, completion, requestKey, reasked.parsed());
+            result.setTokensUsed(result.getTokensUsed() + reasked.tokensUsed());
+            return result;
+        });
+    }
+
+    private LLMResult toSimpleResult(Agent agent, String requestedModel, RawCompletion completion, String requestKey,
+                                     ParsedOutput parsed) {
+        Object output = parsed.output();
+
+        if (!completion.cached()) {
+            // Repaired answers are not cached: the stored raw text would need repairing on every hit
+            if (requestKey != null && responseCache != null && !parsed.isRepaired() && isUsableOutput(agent, output)
+                    && completion.model().equals(preferredRoute(agent, requestedModel).model())) { // Never cache failover/fallback answers
+                responseCache.put(requestKey, completion.rawOutput(), completion.model());
+            }
+            log.info("✅ OpenAI API call successful ({} chars, {} tokens, {} cached)", 
+                    output.toString().length(), completion.tokensUsed(), completion.cachedTokens());
+        }
+
+        return buildSimpleResult(agent, completion.model(), output, completion.tokensUsed(), completion.cachedTokens());
+    }
+
+    /**
+     * Request identity shared by the response cache and single-flight coalescing, or null
+     * when this agent's responses must not be shared between callers.
+     * Tool-using agents are never shared since their answers depend on live tool data.
+     */
+    private String requestKeyFor(Agent agent, String prompt, String requestedModel) {
+        if (agent.hasTools()) {
+            return null;
+        }
+        Boolean preference = agent.getOptions().getCacheResponses();
+        if (preference != null ? !preference : !cacheByDefault) {
+            return null;
+        }
+        AgentOptions options = agent.getOptions();
+        String sharedContext = options.getSharedContext();
+        return LLMResponseCache.keyOf(
+                requestedModel,
+                sharedContext != null ? sharedContext + "\n\n" + agent.getInstructions() : agent.getInstructions(),
+                agent.getOutputType(),
+                "temperature=" + options.getTemperature() + ";maxTokens=" + maxTokensFor(agent),
+                prompt);
+    }
+
+    /**
+     * Structured agents only cache outputs that parsed into their output type and pass
+     * validation, so a malformed response is not replayed on every later run.
+     */
+    private boolean isUsableOutput(Agent agent, Object output) {
+        return validateOutput(agent, output).isEmpty();
+    }
+
+    /**
+     * Cancelling a derived future does not cancel its source, so forward it explicitly.
+     */
+    private static void propagateCancellation(CompletableFuture<?> downstream, CompletableFuture<?> upstream) {
+        propagateCancellation(downstream, () -> upstream);
+    }
+
+    private static void propagateCancellation(CompletableFuture<?> downstream,
+                                              java.util.function.Supplier<? extends CompletableFuture<?>> upstream) {
+        downstream.whenComplete((value, throwable) -> {
+            CompletableFuture<?> source = upstream.get();
+            if (downstream.isCancelled() && source != null) {
+                source.cancel(true);
+            }
+        });
+    }
+
+    static Throwable unwrapCompletion(Throwable throwable) {
+        Throwable current = throwable;
+        while ((current instanceof CompletionException || current instanceof java.util.concurrent.ExecutionException)
+                && current.getCause() != null) {
+            current = current.getCause();
+        }
+        return current;
+    }
+
     private String extractRawOutput(ChatCompletion response) {
         return response.choices().get(0).message().content()
                 .orElseThrow(() -> new IllegalStateException("OpenAI returned empty response"));
@@ -130,110 +1225,202 @@ public class LLMClient implements AutoCloseable {
                 .orElse(0L).intValue();
     }
 
-    private LLMResult buildSimpleResult(Agent agent, String modelName, Object output, int tokensUsed) {
+    private static int extractCachedTokens(ChatCompletion response) {
+        return response.usage().map(LLMClient::cachedTokensOf).orElse(0);
+    }
+
+    // Providers without prompt caching leave the details out
+    private static int cachedTokensOf(CompletionUsage usage) {
+        return usage.promptTokensDetails()
+                .flatMap(CompletionUsage.PromptTokensDetails::cachedTokens)
+                .orElse(0L).intValue();
+    }
+
+    // -1 when the provider didn't report usage
+    private static int extractPromptTokens(ChatCompletion response) {
+        return response.usage()
+                .map(CompletionUsage::promptTokens)
+                .orElse(-1L).intValue();
+    }
+
+    private LLMResult buildSimpleResult(Agent agent, String modelName, Object output, int tokensUsed,
+                                        int cachedTokens) {
         return LLMResult.builder()
                         .finalOutput(output)
                         .model(modelName)
                         .tokensUsed(tokensUsed)
+                        .cachedTokens(cachedTokens)
                         .isStructured(agent.hasStructuredOutput())
                         .toolCallsMade(0)
                         .toolsUsed(Collections.emptyList())
                         .build();
     }
 
-    private LLMResult createErrorResult(String agentName, Exception e) {
-        String errorOutput = "Error calling OpenAI API for " + agentName + ": " + e.getMessage() + 
-                "\n\nPlease check your OPENAI_API_KEY in .env file";
+    private LLMResult createErrorResult(String agentName, Throwable e) {
+        String errorOutput = "Error calling OpenAI API for " + agentName + ": " + e.getMessage();
+        if (e instanceof UnauthorizedException || e instanceof PermissionDeniedException) {
+            errorOutput += "\n\nPlease check your OPENAI_API_KEY in .env file";
+        }
         return new LLMResult(errorOutput);
     }
 
     private Object parseOutput(Agent agent, String rawOutput) {
+        return decodeOutput(agent, rawOutput).output();
+    }
+
+    private ParsedOutput decodeOutput(Agent agent, String rawOutput) {
         if (!agent.hasStructuredOutput()) {
-            return rawOutput;
+            return ParsedOutput.of(rawOutput);
         }
         
+        StructuredOutputDecoders.Decoder decoder = decoders.decoderFor(agent.getOutputType());
         try {
-            log.debug("🔍 Raw LLM output (first 200 chars): {}{}",
-                    rawOutput.substring(0, Math.min(rawOutput.length(), 200)),
-                    rawOutput.length() > 200 ? "..." : "");
+            if (log.isDebugEnabled()) {
+                log.debug("🔍 Raw LLM output (first 200 chars): {}", preview(rawOutput));
+            }
             
-            Object parsed = objectMapper.readValue(rawOutput, agent.getOutputType());
+            Object parsed = decoder.read(rawOutput);
             
-            if (isAllNulls(parsed)) {
+            if (decoder.isEmpty(parsed)) {
                 log.warn("⚠️  Structured output parsed but all fields are null. " +
                         "Possible empty JSON/null values or tools not executed. Falling back to raw output.");
-                return rawOutput;
+                return ParsedOutput.of(rawOutput);
             }
             
-            log.info("✅ Structured output parsed successfully for {}", agent.getOutputTypeName());
-            return parsed;
+            log.debug("✅ Structured output parsed successfully for {}", agent.getOutputTypeName());
+            return ParsedOutput.of(parsed);
         } catch (Exception e) {
+            ParsedOutput repaired = repairOutput(agent, decoder, rawOutput);
+            if (repaired != null) {
+                return repaired;
+            }
             log.warn("⚠️ Failed to parse structured output for {}. Falling back to raw text. Error: {}", 
                     agent.getName(), e.getMessage());
-            log.debug("Raw output (first 200 chars): {}{}", 
-                    rawOutput.substring(0, Math.min(rawOutput.length(), 200)),
-                    rawOutput.length() > 200 ? "..." : "");
-            return rawOutput;
+            if (log.isDebugEnabled()) {
+                log.debug("Raw output (first 200 chars): {}", preview(rawOutput));
+            }
+            return ParsedOutput.of(rawOutput);
         }
     }
-    
-    private boolean isAllNulls(Object obj) {
-        if (obj == null) return true;
+
+    /**
+     * Recover every complete field of a truncated or malformed answer, or null if nothing usable is left.
+     */
+    private ParsedOutput repairOutput(Agent agent, StructuredOutputDecoders.Decoder decoder, String rawOutput) {
+        String repairedJson = JsonRepair.repair(rawOutput);
+        if (repairedJson == null) {
+            return null;
+        }
         try {
-            java.lang.reflect.Field[] fields = obj.getClass().getDeclaredFields();
-            for (java.lang.reflect.Field field : fields) {
-                field.setAccessible(true);
-                Object value = field.get(obj);
-                if (value != null) {
-                    if (value instanceof java.util.List) {
-                        if (!((java.util.List<?>) value).isEmpty()) {
-                            return false;
-                        }
-                    } else {
-                        return false;
-                    }
-                }
+            if (!(objectMapper.readTree(repairedJson) instanceof ObjectNode repaired)) {
+                return null;
             }
-            return true;
+            Object parsed = decoder.read(repaired);
+            if (decoder.isEmpty(parsed)) {
+                return null;
+            }
+            List<String> missing = missingFields(agent, repaired);
+            log.warn("🩹 Repaired malformed structured output for {} ({} field(s) recovered, missing: {})",
+                    agent.getName(), repaired.size(), missing);
+            return new ParsedOutput(parsed, repaired, missing);
         } catch (Exception e) {
-            return false; // If we can't check, assume not all nulls
+            log.debug("Structured output of {} could not be repaired: {}", agent.getName(), e.getMessage());
+            return null;
         }
     }
 
-    private ChatCompletionCreateParams buildRequest(Agent agent, String modelName, 
-                                                     List<ChatCompletionMessageParam> messages) {
-        ChatCompletionCreateParams.Builder requestBuilder = ChatCompletionCreateParams.builder()
-                .model(ChatModel.of(modelName))
-                .messages(messages)
-                .maxTokens(1500L)
-                .temperature(0.7)
-                .topP(1.0)
-                .frequencyPenalty(0.0)
-                .presencePenalty(0.0);
+    // Strict schemas require every property, so any property absent from the answer is missing
+    @SuppressWarnings("unchecked")
+    private List<String> missingFields(Agent agent, ObjectNode answer) {
+        try {
+            Map<String, Object> properties = (Map<String, Object>) schemaGenerator.schemaFor(agent.getOutputType())
+                    .get("properties");
+            return properties.keySet().stream().filter(field -> !answer.has(field)).toList();
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
 
-        if (agent.hasStructuredOutput()) {
-            requestBuilder.responseFormat(
-                    ChatCompletionCreateParams.ResponseFormat.ofResponseFormatJsonObject(
-                            ResponseFormatJsonObject.builder()
-                                    .type(ResponseFormatJsonObject.Type.JSON_OBJECT)
-                                    .build()));
+    /**
+     * Fields worth a targeted re-ask: strict-schema properties a repair could not recover, and
+     * fields failing the output validator's rules, each with what is wrong with it.
+     */
+    private Map<String, String> fieldsToReask(Agent agent, ParsedOutput parsed) {
+        if (!agent.hasStructuredOutput() || !agent.getOutputType().isInstance(parsed.output())) {
+            return Map.of();
         }
-        return requestBuilder.build();
+        Map<String, String> fields = new LinkedHashMap<>();
+        parsed.missingFields().forEach(field -> fields.put(field, "missing"));
+        outputValidator.invalidFields(parsed.output()).forEach(fields::putIfAbsent);
+        return fields;
     }
 
-    private List<ChatCompletionMessageParam> buildMessages(Agent agent, String prompt) {
-        validateMessageInputs(agent, prompt);
+    /**
+     * Ask for just the fields of an answer that are missing or invalid and merge them in, instead
+     * of rerunning the agent. Runs on an LLM executor thread; on failure the answer is kept as it is.
+     *
+     * @param conversation Conversation so far, ending with the assistant's answer
+     * @param fields JSON field name to what is wrong with it
+     */
+    @SuppressWarnings("unchecked")
+    private Reasked reaskFields(Agent agent, String requestedModel, ProviderRouter.Route route,
+                                List<ChatCompletionMessageParam> conversation, ParsedOutput partial,
+                                Map<String, String> fields, long estimatedTokens) {
+        try {
+            Map<String, Object> properties = (Map<String, Object>) schemaGenerator.schemaFor(agent.getOutputType())
+                    .get("properties");
+            Map<String, Object> fieldSchemas = new LinkedHashMap<>();
+            fields.keySet().forEach(field -> fieldSchemas.put(field, properties.get(field)));
+            String problems = fields.entrySet().stream()
+                    .map(field -> field.getKey() + " (" + field.getValue() + ")")
+                    .collect(java.util.stream.Collectors.joining(", "));
+            List<ChatCompletionMessageParam> messages = new ArrayList<>(conversation);
+            messages.add(RequestTemplate.userMessage("Some fields of your previous answer are missing or invalid: "
+                    + problems + ". Return a JSON object with only these fields, corrected. Field schemas: "
+                    + objectMapper.writeValueAsString(fieldSchemas)));
+            ChatCompletion response = createCompletionWithRetries(agent, requestedModel, route,
+                    r -> requestTemplates.templateFor(agent, r).newRequest(messages)
+                            .responseFormat(RequestTemplateCompiler.JSON_OBJECT)
+                            .build(),
+                    estimatedTokens);
+            JsonNode answer = objectMapper.readTree(extractRawOutput(response));
+            ObjectNode merged = partial.isRepaired()
+                    ? partial.repaired().deepCopy() : objectMapper.valueToTree(partial.output());
+            for (String field : fields.keySet()) {
+                if (answer.has(field)) {
+                    merged.set(field, answer.get(field));
+                }
+            }
+            Object output = decoders.decoderFor(agent.getOutputType()).read(merged);
+            List<String> stillMissing = missingFields(agent, merged);
+            log.info("🩹 Re-asked {} field(s) of {}: {} ({} still invalid)", fields.size(), agent.getName(),
+                    fields.keySet(), stillMissing.size() + outputValidator.invalidFields(output).size());
+            return new Reasked(new ParsedOutput(output, merged, stillMissing), extractTokenUsage(response));
+        } catch (Exception e) {
+            log.warn("⚠️  Re-ask for fields {} of {} failed, keeping the answer: {}",
+                    fields.keySet(), agent.getName(), e.getMessage());
+            return new Reasked(partial, 0);
+        }
+    }
 
-        ChatCompletionSystemMessageParam instructionMessage = createInstructionMessage(agent);
-        Optional<ChatCompletionSystemMessageParam> structuredOutputMessage = 
-                createStructuredOutputMessage(agent);
-        ChatCompletionUserMessageParam promptMessage = createPromptMessage(prompt);
+    private static ChatCompletionMessageParam assistantMessage(String content) {
+        return ChatCompletionMessageParam.ofChatCompletionAssistantMessageParam(
+                ChatCompletionAssistantMessageParam.builder()
+                        .role(ChatCompletionAssistantMessageParam.Role.ASSISTANT)
+                        .content(ChatCompletionAssistantMessageParam.Content.ofTextContent(content))
+                        .build());
+    }
 
-        return Stream.concat(
-                        Stream.of(instructionMessage, promptMessage),
-                        structuredOutputMessage.stream())
-                .map(this::convertToMessageParam)
-                .toList();
+    private static String preview(String rawOutput) {
+        return rawOutput.length() > 200 ? rawOutput.substring(0, 200) + "..." : rawOutput;
+    }
+
+    /**
+     * Request for one call with a single user prompt, from the agent's compiled template.
+     */
+    private ChatCompletionCreateParams.Builder newRequest(Agent agent, ProviderRouter.Route route, String prompt) {
+        validateMessageInputs(agent, prompt);
+        return requestTemplates.templateFor(agent, route).newRequest(prompt);
     }
 
     private void validateMessageInputs(Agent agent, String prompt) {
@@ -248,95 +1435,41 @@ public class LLMClient implements AutoCloseable {
         }
     }
 
-    private ChatCompletionSystemMessageParam createInstructionMessage(Agent agent) {
-        return ChatCompletionSystemMessageParam.builder()
-                .role(ChatCompletionSystemMessageParam.Role.SYSTEM)
-                .content(ChatCompletionSystemMessageParam.Content.ofTextContent(agent.getInstructions()))
-                .build();
+    private String resolveModelName(Agent agent) {
+        return agent.getModel() != null ? agent.getModel() : defaultModel;
     }
 
-    private Optional<ChatCompletionSystemMessageParam> createStructuredOutputMessage(Agent agent) {
-        if (!agent.hasStructuredOutput()) {
-            return Optional.empty();
+    /**
+     * Provider and model for the next call: the best healthy route for the agent's model, or for
+     * the fallback model when every route for the agent's model has an open circuit.
+     * If nothing is healthy, the preferred route is returned and the call fails fast.
+     */
+    private ProviderRouter.Route getRoute(Agent agent, String modelName) {
+        List<String> preference = agent.getOptions().getProviders();
+        ProviderRouter.Route route = healthyRoute(modelName, preference);
+        if (route == null && fallbackModel != null && !fallbackModel.equals(modelName)) {
+            route = healthyRoute(fallbackModel, preference);
+            if (route != null) {
+                log.warn("🔌 Circuit open for model '{}', diverting agent '{}' to fallback model '{}'",
+                        modelName, agent.getName(), fallbackModel);
+            }
         }
-        
-        log.debug("📊 Using structured output schema: {}", agent.getOutputTypeName());
-        String structuredOutputInstruction = "Return your response as valid JSON matching this schema: " + 
-                agent.getOutputTypeName();
-        
-        return Optional.of(ChatCompletionSystemMessageParam.builder()
-                .role(ChatCompletionSystemMessageParam.Role.SYSTEM)
-                .content(ChatCompletionSystemMessageParam.Content.ofTextContent(structuredOutputInstruction))
-                .build());
-    }
-
-    private ChatCompletionUserMessageParam createPromptMessage(String prompt) {
-        return ChatCompletionUserMessageParam.builder()
-                .role(ChatCompletionUserMessageParam.Role.USER)
-                .content(ChatCompletionUserMessageParam.Content.ofTextContent(prompt))
-                .build();
+        if (route == null) {
+            route = preferredRoute(agent, modelName);
+        }
+        log.debug("🔄 Calling {} with model '{}' for agent '{}'", route.provider().getName(), route.model(), agent.getName());
+        return route;
     }
 
-    private ChatCompletionMessageParam convertToMessageParam(Object message) {
-        return switch (message) {
-            case ChatCompletionSystemMessageParam system -> 
-                    ChatCompletionMessageParam.ofChatCompletionSystemMessageParam(system);
-            case ChatCompletionUserMessageParam user -> 
-                    ChatCompletionMessageParam.ofChatCompletionUserMessageParam(user);
-            default -> throw new IllegalArgumentException(
-                    "Unsupported message param type: " + message.getClass().getSimpleName());
-        };
+    private ProviderRouter.Route healthyRoute(String modelName, List<String> preference) {
+        return router.select(router.candidates(modelName, preference),
+                candidate -> circuitBreakers.isCallPermitted(circuitKey(candidate)));
     }
 
-    private String getModel(Agent agent) {
-        String modelName = agent.getModel() != null ? agent.getModel() : defaultModel;
-        log.info("🔄 Calling OpenAI API with model '{}' for agent '{}'", modelName, agent.getName());
-        return modelName;
+    private ProviderRouter.Route preferredRoute(Agent agent, String modelName) {
+        return router.candidates(modelName, agent.getOptions().getProviders()).get(0);
     }
      
-    /**
-     * Convert agent tools to OpenAI function definitions.
-     * 
-     * TODO: This needs to be implemented based on your OpenAI Java client (0.8.1) API.
-     * The class name and structure may differ. Check the OpenAI Java client documentation
-     * for the correct way to create function definitions and tools.
-     */
-    private List<ChatCompletionTool> convertToolsToOpenAIFunctions(List<AgentTool> tools) {
-        List<ChatCompletionTool> openAITools = new ArrayList<>();
-        
-        for (AgentTool tool : tools) {
-            try {
-                Map<String, Object> parametersSchema = buildToolParametersSchema();
-                String parametersJson = objectMapper.writeValueAsString(parametersSchema);
-                
-                log.warn("⚠️  Function definition creation needs implementation. " +
-                        "Check OpenAI Java client docs for function/tool creation. " +
-                        "Tool: {}, Parameters: {}", tool.getName(), parametersJson);
-                
-            } catch (Exception e) {
-                log.error("Failed to convert tool {} to OpenAI function: {}", 
-                        tool.getName(), e.getMessage(), e);
-            }
-        }
-        
-        log.warn("⚠️  Returning empty tools list - function conversion not yet implemented");
-        return openAITools;
-    }
-
-    private Map<String, Object> buildToolParametersSchema() {
-        Map<String, Object> parametersSchema = new HashMap<>();
-        parametersSchema.put("type", "object");
-        parametersSchema.put("properties", Map.of(
-                "prompt", Map.of(
-                        "type", "string",
-                        "description", "The prompt to execute with this tool"
-                )
-        ));
-        parametersSchema.put("required", List.of("prompt"));
-        parametersSchema.put("additionalProperties", false);
-        return parametersSchema;
-    }
-    
     /**
      * Run an agent with tools (agent-of-agents pattern).
      * 
@@ -348,39 +1481,51 @@ public class LLMClient implements AutoCloseable {
      * 
      * Uses OpenAI's function calling API for real dynamic tool selection.
      */
-    private CompletableFuture<LLMResult> runWithTools(Agent agent, String prompt) {
-        List<ChatCompletionTool> openAITools = convertToolsToOpenAIFunctions(agent.getTools());
+    private CompletableFuture<LLMResult> runWithTools(Agent agent, String prompt, String requestedModel) {
+        List<ChatCompletionTool> openAITools = toolDefinitions.toolsFor(agent);
         
         if (openAITools.isEmpty()) {
-            log.warn("⚠️  No tools available - function definition conversion not implemented. " +
-                    "Falling back to simple execution without tool calling.");
-            return runSimple(agent, prompt).thenApply(this::convertToToolResult);
+            log.warn("⚠️  No tool definitions could be built for '{}'. " +
+                    "Falling back to simple execution without tool calling.", agent.getName());
+            CompletableFuture<LLMResult> simple = runSimple(agent, prompt, requestedModel);
+            CompletableFuture<LLMResult> result = simple.thenApply(this::convertToToolResult);
+            propagateCancellation(result, simple);
+            return result;
         }
         
-        return CompletableFuture.supplyAsync(() -> {
+        return executor.supply(() -> {
             log.info("🤖 Running agent-of-agents for '{}'", agent.getName());
             logAvailableTools(agent);
             
             try {
-                String modelName = getModel(agent);
-                List<ChatCompletionMessageParam> messages = createInitialToolMessages(agent, prompt);
-                ToolExecutionState state = new ToolExecutionState();
+                ProviderRouter.Route route = getRoute(agent, requestedModel);
+                String modelName = route.model();
+                // Conversation after the template's leading system messages
+                List<ChatCompletionMessageParam> messages = new ArrayList<>(List.of(RequestTemplate.userMessage(prompt)));
+                ToolExecutionState state = new ToolExecutionState(Tokenizers.forModel(modelName), toolContextTokens);
+                state.addPromptText(agent.getOptions().getSharedContext());
+                state.addPromptText(agent.getInstructions());
+                state.addPromptText(prompt);
                 
                 for (int iteration = 0; iteration < MAX_TOOL_ITERATIONS; iteration++) {
-                    ChatCompletion response = executeToolCallIteration(agent, modelName, messages, openAITools);
+                    int compacted = state.compact(messages, iteration);
+                    ChatCompletion response = executeToolCallIteration(agent, requestedModel, route, messages, state);
                     ChatCompletionMessage message = response.choices().get(0).message();
                     
-                    state.addTokens(extractTokenUsage(response));
+                    state.addTokens(extractTokenUsage(response), extractCachedTokens(response));
+                    state.recordIterationPrompt(agent.getName(), iteration, extractPromptTokens(response), compacted);
                     messages.add(createAssistantMessage(message));
+                    state.recordAssistant(messages.size() - 1, iteration, message,
+                            content -> createAssistantMessage(message, content));
                     
                     List<ChatCompletionMessageToolCall> toolCalls = message.toolCalls()
                             .orElse(Collections.emptyList());
                     
                     if (toolCalls.isEmpty()) {
-                        return buildFinalResult(agent, modelName, message, state);
+                        return buildFinalResult(agent, requestedModel, route, message, messages, state);
                     }
                     
-                    processToolCalls(agent, prompt, toolCalls, messages, state);
+                    processToolCalls(agent, prompt, toolCalls, messages, state, iteration);
                 }
                 
                 return createMaxIterationsResult(agent.getName());
@@ -410,44 +1555,25 @@ public class LLMClient implements AutoCloseable {
         log.info("   Available tools: {}", availableTools);
     }
 
-    private List<ChatCompletionMessageParam> createInitialToolMessages(Agent agent, String prompt) {
-        List<ChatCompletionMessageParam> messages = new ArrayList<>();
-        messages.add(ChatCompletionMessageParam.ofChatCompletionSystemMessageParam(
-                ChatCompletionSystemMessageParam.builder()
-                        .role(ChatCompletionSystemMessageParam.Role.SYSTEM)
-                        .content(ChatCompletionSystemMessageParam.Content.ofTextContent(agent.getInstructions()))
-                        .build()));
-        messages.add(ChatCompletionMessageParam.ofChatCompletionUserMessageParam(
-                ChatCompletionUserMessageParam.builder()
-                        .role(ChatCompletionUserMessageParam.Role.USER)
-                        .content(ChatCompletionUserMessageParam.Content.ofTextContent(prompt))
-                        .build()));
-        return messages;
-    }
-
-    private ChatCompletion executeToolCallIteration(Agent agent, String modelName,
+    private ChatCompletion executeToolCallIteration(Agent agent, String requestedModel, ProviderRouter.Route route,
                                                      List<ChatCompletionMessageParam> messages,
-                                                     List<ChatCompletionTool> openAITools) {
-        ChatCompletionCreateParams request = ChatCompletionCreateParams.builder()
-                .model(ChatModel.of(modelName))
-                .messages(messages)
-                .tools(openAITools)
-                .maxTokens(1500L)
-                .temperature(0.7)
-                .topP(1.0)
-                .frequencyPenalty(0.0)
-                .presencePenalty(0.0)
-                .build();
-        
-        return client.chat().completions().create(request);
+                                                     ToolExecutionState state) {
+        long estimatedTokens = state.getPromptTokens() + maxTokensFor(agent);
+        return createCompletionWithRetries(agent, requestedModel, route,
+                attemptRoute -> requestTemplates.templateFor(agent, attemptRoute).newRequest(messages).build(),
+                estimatedTokens);
     }
 
     private ChatCompletionMessageParam createAssistantMessage(ChatCompletionMessage message) {
+        return createAssistantMessage(message, message.content().orElse(""));
+    }
+
+    // Same assistant turn (and tool calls) with different text, used when compacting earlier turns
+    private ChatCompletionMessageParam createAssistantMessage(ChatCompletionMessage message, String content) {
         ChatCompletionAssistantMessageParam.Builder assistantBuilder = 
                 ChatCompletionAssistantMessageParam.builder()
                         .role(ChatCompletionAssistantMessageParam.Role.ASSISTANT)
-                        .content(ChatCompletionAssistantMessageParam.Content.ofTextContent(
-                                message.content().orElse("")));
+                        .content(ChatCompletionAssistantMessageParam.Content.ofTextContent(content));
         
         message.toolCalls().ifPresent(assistantBuilder::toolCalls);
         
@@ -455,25 +1581,67 @@ public class LLMClient implements AutoCloseable {
                 assistantBuilder.build());
     }
 
+    /**
+     * Dispatch every tool call from one assistant turn at the same time, bounded by
+     * maxParallelToolCalls, and append the results in the original toolCallId order.
+     * Each tool gets toolTimeout, so the slowest tool sets the latency of the iteration;
+     * a tool that runs out of time is cancelled.
+     */
     private void processToolCalls(Agent agent, String originalPrompt,
                                    List<ChatCompletionMessageToolCall> toolCalls,
                                    List<ChatCompletionMessageParam> messages,
-                                   ToolExecutionState state) {
-        for (ChatCompletionMessageToolCall toolCall : toolCalls) {
-            String toolName = toolCall.function().name();
-            log.info("   → Calling tool '{}'", toolName);
-            
-            String toolPrompt = extractToolPrompt(toolCall, originalPrompt);
-            Optional<AgentTool> toolOpt = findTool(agent, toolName);
-            
-            if (toolOpt.isPresent()) {
-                executeToolAndAddResult(toolOpt.get(), toolCall, toolPrompt, messages, state);
-            } else {
-                addToolNotFoundError(toolCall, toolName, messages);
+                                   ToolExecutionState state, int iteration) {
+        List<ToolCallOutcome> outcomes = new ParallelToolCalls(maxParallelToolCalls, toolTimeout,
+                executor.forNestedWork().asExecutor()).run(toolCalls,
+                toolCall -> startToolCall(agent, originalPrompt, toolCall),
+                (toolCall, toolResult, failure) -> toToolOutcome(toolCall, toolResult, failure));
+
+        for (int i = 0; i < outcomes.size(); i++) {
+            ChatCompletionMessageToolCall toolCall = toolCalls.get(i);
+            ToolCallOutcome outcome = outcomes.get(i);
+            messages.add(outcome.message());
+            // Compaction rewrites keep the toolCallId, so the assistant's tool call stays answered
+            state.recordToolResult(messages.size() - 1, iteration, outcome.toolName(), outcome.content(),
+                    content -> createToolSuccessMessage(toolCall, content));
+            if (outcome.success()) {
+                state.incrementToolCalls();
+                state.addToolUsed(outcome.toolName());
             }
         }
     }
 
+    private ParallelToolCalls.Started<com.complai.coldsales.utils.Result<String, ServiceError>> startToolCall(
+            Agent agent, String originalPrompt, ChatCompletionMessageToolCall toolCall) {
+        String toolName = toolCall.function().name();
+        log.info("   → Calling tool '{}'", toolName);
+        AgentTool tool = findTool(agent, toolName).orElseThrow(() -> new ToolNotFoundException(toolName));
+        // The iteration's task blocks on the tool, so every call the tool makes (from whatever thread)
+        // runs as nested work, counted so its slot is held until that work has really stopped
+        LLMExecutor toolExecutor = executor.forTrackedWork();
+        CompletableFuture<com.complai.coldsales.utils.Result<String, ServiceError>> result =
+                tool.execute(new LLMClient(this, retryBudget, toolExecutor), extractToolPrompt(toolCall, originalPrompt));
+        return new ParallelToolCalls.Started<>(result, toolExecutor.getWork().settledAfter(result));
+    }
+
+    private ToolCallOutcome toToolOutcome(ChatCompletionMessageToolCall toolCall,
+                                          com.complai.coldsales.utils.Result<String, ServiceError> toolResult,
+                                          Throwable failure) {
+        String toolName = toolCall.function().name();
+        if (failure instanceof ToolNotFoundException) {
+            return toolNotFoundOutcome(toolCall, toolName);
+        }
+        if (failure instanceof TimeoutException) {
+            log.warn("      ⏱️  Tool '{}' timed out after {} ms, cancelled", toolName, toolTimeout.toMillis());
+            return toolErrorOutcome(toolCall, "Error: Tool " + toolName +
+                    " timed out after " + toolTimeout.toSeconds() + "s");
+        }
+        if (failure != null) {
+            log.error("      ❌ Tool '{}' execution failed: {}", toolName, failure.getMessage(), failure);
+            return toolExceptionOutcome(toolCall, failure);
+        }
+        return toToolOutcome(toolName, toolCall, toolResult);
+    }
+
     private String extractToolPrompt(ChatCompletionMessageToolCall toolCall, String defaultPrompt) {
         try {
             Map<String, Object> args = objectMapper.readValue(
@@ -495,57 +1663,38 @@ public class LLMClient implements AutoCloseable {
                 .findFirst();
     }
 
-    private void executeToolAndAddResult(AgentTool tool, ChatCompletionMessageToolCall toolCall,
-                                         String toolPrompt, List<ChatCompletionMessageParam> messages,
-                                         ToolExecutionState state) {
-        try {
-            com.complai.coldsales.utils.Result<String, ServiceError> toolResult = 
-                    tool.execute(this, toolPrompt).join();
-            
-            if (toolResult.isErr()) {
-                addToolErrorResult(toolCall, toolResult.unwrapErr(), messages);
-                return;
-            }
-            
-            String toolOutput = toolResult.unwrap();
-            if (toolOutput == null || toolOutput.trim().isEmpty()) {
-                toolOutput = "No result returned";
-                log.warn("      ⚠️  Tool '{}' returned null or empty result", tool.getName());
-            }
-            
-            addToolSuccessResult(toolCall, toolOutput, messages, state);
-            log.info("      ✅ Tool '{}' executed successfully", tool.getName());
-            
-        } catch (Exception e) {
-            log.error("      ❌ Tool '{}' execution failed: {}", tool.getName(), e.getMessage(), e);
-            addToolExceptionResult(toolCall, e, messages);
+    private ToolCallOutcome toToolOutcome(String toolName, ChatCompletionMessageToolCall toolCall,
+                                          com.complai.coldsales.utils.Result<String, ServiceError> toolResult) {
+        if (toolResult.isErr()) {
+            ServiceError error = toolResult.unwrapErr();
+            log.warn("      ❌ Tool '{}' execution failed: {}", 
+                    toolCall.function().name(), error.format());
+            return toolErrorOutcome(toolCall, "Error: " + error.format());
         }
-    }
 
-    private void addToolErrorResult(ChatCompletionMessageToolCall toolCall, ServiceError error,
-                                     List<ChatCompletionMessageParam> messages) {
-        log.warn("      ❌ Tool '{}' execution failed: {}", 
-                toolCall.function().name(), error.format());
-        messages.add(createToolErrorMessage(toolCall, "Error: " + error.format()));
+        String toolOutput = toolResult.unwrap();
+        if (toolOutput == null || toolOutput.trim().isEmpty()) {
+            toolOutput = "No result returned";
+            log.warn("      ⚠️  Tool '{}' returned null or empty result", toolName);
+        }
+
+        log.info("      ✅ Tool '{}' executed successfully", toolName);
+        return new ToolCallOutcome(toolCall.function().name(), createToolSuccessMessage(toolCall, toolOutput),
+                toolOutput, true);
     }
 
-    private void addToolSuccessResult(ChatCompletionMessageToolCall toolCall, String toolOutput,
-                                       List<ChatCompletionMessageParam> messages,
-                                       ToolExecutionState state) {
-        messages.add(createToolSuccessMessage(toolCall, toolOutput));
-        state.incrementToolCalls();
-        state.addToolUsed(toolCall.function().name());
+    private ToolCallOutcome toolErrorOutcome(ChatCompletionMessageToolCall toolCall, String errorMessage) {
+        return new ToolCallOutcome(toolCall.function().name(), createToolErrorMessage(toolCall, errorMessage),
+                errorMessage, false);
     }
 
-    private void addToolExceptionResult(ChatCompletionMessageToolCall toolCall, Exception e,
-                                         List<ChatCompletionMessageParam> messages) {
-        messages.add(createToolErrorMessage(toolCall, "Error: " + e.getMessage()));
+    private ToolCallOutcome toolExceptionOutcome(ChatCompletionMessageToolCall toolCall, Throwable e) {
+        return toolErrorOutcome(toolCall, "Error: " + e.getMessage());
     }
 
-    private void addToolNotFoundError(ChatCompletionMessageToolCall toolCall, String toolName,
-                                       List<ChatCompletionMessageParam> messages) {
+    private ToolCallOutcome toolNotFoundOutcome(ChatCompletionMessageToolCall toolCall, String toolName) {
         log.warn("      ⚠️  Tool not found: {}", toolName);
-        messages.add(createToolErrorMessage(toolCall, "Error: Tool " + toolName + " not found"));
+        return toolErrorOutcome(toolCall, "Error: Tool " + toolName + " not found");
     }
 
     private ChatCompletionMessageParam createToolSuccessMessage(ChatCompletionMessageToolCall toolCall,
@@ -568,37 +1717,55 @@ public class LLMClient implements AutoCloseable {
                         .build());
     }
 
-    private LLMResult buildFinalResult(Agent agent, String modelName, ChatCompletionMessage message,
-                                     ToolExecutionState state) {
+    private LLMResult buildFinalResult(Agent agent, String requestedModel, ProviderRouter.Route route,
+                                       ChatCompletionMessage message, List<ChatCompletionMessageParam> messages,
+                                       ToolExecutionState state) {
         String finalContent = message.content().orElse("");
-        Object output = extractFinalOutput(agent, finalContent);
+        ParsedOutput parsed = extractFinalOutput(agent, finalContent);
+        Map<String, String> fieldsToFix = fieldsToReask(agent, parsed);
+        if (!fieldsToFix.isEmpty()) {
+            // The conversation already ends with the answer; tool results stay in context
+            Reasked reasked = reaskFields(agent, requestedModel, route, messages, parsed, fieldsToFix,
+                    state.getPromptTokens() + maxTokensFor(agent));
+            state.addTokens(reasked.tokensUsed(), 0);
+            parsed = reasked.parsed();
+        }
+        Object output = parsed.output();
         
         log.info("✅ Agent-of-agents execution complete");
         log.info("   Tools used: {}", state.getToolCallsMade());
         
         return LLMResult.builder()
                 .finalOutput(output)
-                .model(modelName)
+                .model(route.model())
                 .tokensUsed(state.getTotalTokens())
+                .cachedTokens(state.getCachedTokens())
                 .isStructured(agent.hasStructuredOutput() && 
                         output.getClass().equals(agent.getOutputType()))
                 .toolCallsMade(state.getToolCallsMade())
                 .toolsUsed(state.getToolsUsed())
+                .promptTokensPerIteration(state.getPromptTokensPerIteration())
+                .compactedTokens(state.getCompactedTokens())
                 .build();
     }
 
-    private Object extractFinalOutput(Agent agent, String finalContent) {
+    private ParsedOutput extractFinalOutput(Agent agent, String finalContent) {
         if (agent.hasStructuredOutput() && !finalContent.isEmpty()) {
+            StructuredOutputDecoders.Decoder decoder = decoders.decoderFor(agent.getOutputType());
             try {
-                Object output = objectMapper.readValue(finalContent, agent.getOutputType());
+                Object output = decoder.read(finalContent);
                 log.info("✅ Structured output parsed successfully for {}", agent.getOutputTypeName());
-                return output;
+                return ParsedOutput.of(output);
             } catch (Exception e) {
+                ParsedOutput repaired = repairOutput(agent, decoder, finalContent);
+                if (repaired != null) {
+                    return repaired;
+                }
                 log.warn("⚠️  Failed to parse structured output, using raw text: {}", e.getMessage());
-                return finalContent;
+                return ParsedOutput.of(finalContent);
             }
         }
-        return finalContent;
+        return ParsedOutput.of(finalContent);
     }
 
     private LLMResult createMaxIterationsResult(String agentName) {
@@ -611,16 +1778,108 @@ public class LLMClient implements AutoCloseable {
                 ": " + e.getMessage());
     }
 
+    /**
+     * Responses gathered for one candidates request, and the model of the route that answered it.
+     */
+    private record CandidateResponses(String model, List<ChatCompletion> responses) {}
+
+    /**
+     * Timing and usage of one streamed call.
+     */
+    private record StreamedCompletion(long startNanos, long endNanos, int totalTokens, int completionTokens,
+                                      int cachedTokens) {}
+
+    /**
+     * Raw text of one completion, shared by coalesced callers and cache hits before per-caller parsing.
+     */
+    private record RawCompletion(String rawOutput, String model, int tokensUsed, int cachedTokens, boolean cached) {}
+
+    /**
+     * Output decoded for one caller; repaired answers keep their recovered JSON and list the
+     * schema fields that were not recovered.
+     */
+    private record ParsedOutput(Object output, ObjectNode repaired, List<String> missingFields) {
+        static ParsedOutput of(Object output) {
+            return new ParsedOutput(output, null, List.of());
+        }
+
+        boolean isRepaired() {
+            return repaired != null;
+        }
+    }
+
+    /**
+     * Result of re-asking missing fields, with the tokens the extra call used.
+     */
+    private record Reasked(ParsedOutput parsed, int tokensUsed) {}
+
+    /**
+     * Tool message produced by one tool call, applied to the conversation in toolCallId order.
+     */
+    private record ToolCallOutcome(String toolName, ChatCompletionMessageParam message, String content, boolean success) {}
+
+    private static final class ToolNotFoundException extends RuntimeException {
+        ToolNotFoundException(String toolName) {
+            super("Tool " + toolName + " not found");
+        }
+    }
+
     /**
      * Helper class to track tool execution state during agent-of-agents pattern.
      */
     private static class ToolExecutionState {
         private int totalTokens = 0;
+        private int cachedTokens = 0;
         private int toolCallsMade = 0;
+        private int promptTokens = 0; // Size of the conversation so far, for rate limiter estimates
+        private int compactedTokens = 0;
         private final List<String> toolsUsed = new ArrayList<>();
+        private final List<Integer> promptTokensPerIteration = new ArrayList<>();
+        private final Tokenizer tokenizer;
+        private final ToolContextCompactor<ChatCompletionMessageParam> compactor;
+
+        ToolExecutionState(Tokenizer tokenizer, int toolContextTokens) {
+            this.tokenizer = tokenizer;
+            this.compactor = new ToolContextCompactor<>(tokenizer, toolContextTokens);
+        }
+
+        void recordAssistant(int index, int iteration, ChatCompletionMessage message,
+                             Function<String, ChatCompletionMessageParam> rebuild) {
+            String content = message.content().orElse("");
+            addPromptText(content);
+            compactor.recordAssistant(index, iteration, content, rebuild);
+        }
+
+        void recordToolResult(int index, int iteration, String toolName, String content,
+                              Function<String, ChatCompletionMessageParam> rebuild) {
+            addPromptText(content);
+            compactor.recordToolResult(index, iteration, toolName, content, rebuild);
+        }
 
-        void addTokens(int tokens) {
+        /**
+         * Compact what the model has already seen before the next call; returns the tokens removed.
+         */
+        int compact(List<ChatCompletionMessageParam> messages, int iteration) {
+            int saved = compactor.compact(messages, iteration);
+            promptTokens -= saved;
+            compactedTokens += saved;
+            return saved;
+        }
+
+        void recordIterationPrompt(String agentName, int iteration, int reportedPromptTokens, int compacted) {
+            int sent = reportedPromptTokens >= 0 ? reportedPromptTokens : promptTokens;
+            promptTokensPerIteration.add(sent);
+            log.info("   📏 Iteration {} of '{}': {} prompt tokens ({} compacted this turn)",
+                    iteration + 1, agentName, sent, compacted);
+        }
+
+        void addTokens(int tokens, int cached) {
             this.totalTokens += tokens;
+            this.cachedTokens += cached;
+        }
+
+        void addPromptText(String text) {
+            this.promptTokens += tokenizer.count(text);
         }
 
         void incrementToolCalls() {
@@ -637,6 +1896,22 @@ public class LLMClient implements AutoCloseable {
             return totalTokens;
         }
 
+        int getCachedTokens() {
+            return cachedTokens;
+        }
+
+        int getPromptTokens() {
+            return promptTokens;
+        }
+
+        int getCompactedTokens() {
+            return compactedTokens;
+        }
+
+        List<Integer> getPromptTokensPerIteration() {
+            return promptTokensPerIteration;
+        }
+
         int getToolCallsMade() {
             return toolCallsMade;
         }
@@ -0,0 +1,252 @@
+package com.complai.coldsales.agents.base.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Dedicated execution engine for blocking LLM calls.
+ *
+ * OpenAI calls block a thread for the whole HTTP round trip, so they must not run on
+ * ForkJoinPool.commonPool() where they would starve Jsoup parsing and every other async task.
+ * Two modes are supported:
+ * - VIRTUAL: one virtual thread per call, concurrency bounded only by I/O (default)
+ * - POOL: a fixed-size platform thread pool with a FIFO queue
+ *
+ * Some tasks block on work started for them (a tool-loop iteration waits on its tool calls).
+ * That work is submitted through {@link #forNestedWork()}, which in POOL mode runs it on virtual
+ * threads instead of the pool's queue: the parent already holds a pool thread and is only waiting,
+ * and queueing its children behind other parents could park every pool thread. The marking travels
+ * with the view rather than the submitting thread, since tools often reach the LLM from a service
+ * executor's continuation. The pool bounds top-level calls. A tracked view ({@link #forTrackedWork()})
+ * additionally counts its tasks until they really end, which after a cancellation is later than
+ * their futures.
+ *
+ * Queue depth and active-call gauges are tracked for both modes, nested calls included.
+ */
+public final class LLMExecutor implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(LLMExecutor.class);
+
+    public static final int DEFAULT_POOL_SIZE = 32;
+
+    public enum Mode {
+        VIRTUAL,
+        POOL;
+
+        /**
+         * Parse a mode from configuration, defaulting to VIRTUAL.
+         */
+        public static Mode fromString(String value) {
+            if (value == null || value.isBlank()) {
+                return VIRTUAL;
+            }
+            return switch (value.trim().toLowerCase()) {
+                case "pool", "fixed", "platform" -> POOL;
+                default -> VIRTUAL;
+            };
+        }
+    }
+
+    private final Mode mode;
+    private final ExecutorService executor;
+    private final ExecutorService nestedExecutor; // POOL mode: work a running task blocks on
+    private final AtomicInteger queued;
+    private final AtomicInteger active;
+    private final LLMExecutor nestedView; // this, unless nested work needs its own executor
+    private final boolean view; // Views share the engine's executors and gauges and never close them
+    private final InFlightWork work; // Counts this view's tasks for a caller; null when untracked
+
+    private LLMExecutor(Mode mode, ExecutorService executor, ExecutorService nestedExecutor) {
+        this.mode = mode;
+        this.executor = executor;
+        this.nestedExecutor = nestedExecutor;
+        this.queued = new AtomicInteger();
+        this.active = new AtomicInteger();
+        this.view = false;
+        this.work = null;
+        this.nestedView = nestedExecutor != null ? new LLMExecutor(this, null) : this;
+    }
+
+    private LLMExecutor(LLMExecutor engine, InFlightWork work) {
+        this.mode = engine.mode;
+        this.executor = engine.nestedExecutor != null ? engine.nestedExecutor : engine.executor;
+        this.nestedExecutor = engine.nestedExecutor;
+        this.queued = engine.queued;
+        this.active = engine.active;
+        this.view = true;
+        this.work = work;
+        this.nestedView = this;
+    }
+
+    /**
+     * One virtual thread per LLM call.
+     */
+    public static LLMExecutor virtualThreads() {
+        ThreadFactory factory = Thread.ofVirtual().name("llm-call-vt-", 1).factory();
+        return new LLMExecutor(Mode.VIRTUAL, Executors.newThreadPerTaskExecutor(factory), null);
+    }
+
+    /**
+     * Fixed-size pool of daemon platform threads.
+     */
+    public static LLMExecutor fixedPool(int threads) {
+        int size = threads > 0 ? threads : DEFAULT_POOL_SIZE;
+        AtomicInteger counter = new AtomicInteger(1);
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setName(String.format("llm-call-%d", counter.getAndIncrement()));
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadFactory nestedFactory = Thread.ofVirtual().name("llm-nested-vt-", 1).factory();
+        return new LLMExecutor(Mode.POOL, Executors.newFixedThreadPool(size, factory),
+                Executors.newThreadPerTaskExecutor(nestedFactory));
+    }
+
+    public static LLMExecutor of(Mode mode, int poolSize) {
+        return mode == Mode.POOL ? fixedPool(poolSize) : virtualThreads();
+    }
+
+    /**
+     * Run a blocking task on this engine.
+     * Cancelling the returned future interrupts the task if it is already running,
+     * or removes it from the queue gauges if it has not started yet.
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        AtomicBoolean started = new AtomicBoolean(false);
+        queued.incrementAndGet();
+        if (work != null) {
+            work.taskStarted();
+        }
+
+        Future<?> handle;
+        try {
+            handle = executor.submit(() -> {
+                if (!started.compareAndSet(false, true)) {
+                    return; // Cancelled while queued
+                }
+                queued.decrementAndGet();
+                active.incrementAndGet();
+                T value = null;
+                Throwable failure = null;
+                try {
+                    value = task.get();
+                } catch (Throwable t) {
+                    failure = t;
+                } finally {
+                    active.decrementAndGet(); // Before completing, so callers never see a finished call as active
+                    if (work != null) {
+                        work.taskEnded();
+                    }
+                }
+                if (failure == null) {
+                    future.complete(value);
+                } else {
+                    future.completeExceptionally(failure);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            if (work != null) {
+                work.taskEnded();
+            }
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        future.whenComplete((result, throwable) -> {
+            if (future.isCancelled()) {
+                if (started.compareAndSet(false, true)) {
+                    queued.decrementAndGet();
+                    if (work != null) {
+                        work.taskEnded(); // Never started, so it ends here
+                    }
+                }
+                handle.cancel(true);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Engine for work a running task blocks on, such as the tool calls of a tool-loop iteration.
+     * In POOL mode it submits to virtual threads and shares this engine's gauges; in VIRTUAL mode
+     * it is this engine. Closing it is a no-op.
+     */
+    public LLMExecutor forNestedWork() {
+        return nestedView;
+    }
+
+    /**
+     * Nested-work view that also counts its tasks in a new {@link InFlightWork} (see {@link #getWork()}),
+     * nested in this view's own work if it has any.
+     */
+    LLMExecutor forTrackedWork() {
+        return new LLMExecutor(this, new InFlightWork(work));
+    }
+
+    /**
+     * Work counting this view's tasks; null unless the view came from {@link #forTrackedWork()}.
+     */
+    InFlightWork getWork() {
+        return work;
+    }
+
+    /**
+     * Executor view for async continuations that must not land on the common pool.
+     */
+    public Executor asExecutor() {
+        return executor;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Number of LLM calls currently executing.
+     */
+    public int getActiveCalls() {
+        return active.get();
+    }
+
+    /**
+     * Number of LLM calls submitted but not yet started.
+     */
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    @Override
+    public void close() {
+        if (view) {
+            return;
+        }
+        if (nestedExecutor != null) {
+            nestedExecutor.shutdown();
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(2, TimeUnit.SECONDS)) {
+                log.warn("LLM executor did not terminate within 2 seconds, forcing shutdown");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.complai.coldsales.agents.base.client;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * An OpenAI-compatible chat completions backend.
+ *
+ * Any server speaking the OpenAI chat completions protocol works (OpenAI, Gemini's and Groq's
+ * OpenAI-compatible endpoints, DeepSeek, or a local stand-in in tests).
+ * A provider either serves the requested model name as-is ({@code model == null}, e.g. OpenAI)
+ * or maps every request onto its own model.
+ * Providers without strict json_schema response formats get JSON mode plus the schema in the prompt;
+ * providers that reject n > 1 get one request per candidate.
+ */
+@Value
+@Builder
+public class LLMProvider {
+
+    public static final String OPENAI = "openai";
+    public static final String GOOGLE = "google";
+    public static final String DEEPSEEK = "deepseek";
+    public static final String GROQ = "groq";
+
+    String name;
+    String baseUrl;
+    String apiKey;
+    String model; // null = use the model the agent asked for
+    @Builder.Default
+    boolean jsonSchemaSupported = true;
+    @Builder.Default
+    boolean multipleChoicesSupported = true; // Accepts n > 1 (several choices per request)
+
+    public String modelFor(String requestedModel) {
+        return model != null ? model : requestedModel;
+    }
+
+    public static LLMProvider openAI(String apiKey, String baseUrl) {
+        return new LLMProvider(OPENAI, baseUrl != null ? baseUrl : "https://api.openai.com/v1", apiKey, null, true, true);
+    }
+
+    public static LLMProvider google(String apiKey, String model) {
+        return new LLMProvider(GOOGLE, "https://generativelanguage.googleapis.com/v1beta/openai",
+                apiKey, model != null ? model : "gemini-2.0-flash", true, true);
+    }
+
+    public static LLMProvider deepseek(String apiKey, String model) {
+        return new LLMProvider(DEEPSEEK, "https://api.deepseek.com/v1",
+                apiKey, model != null ? model : "deepseek-chat", false, false);
+    }
+
+    public static LLMProvider groq(String apiKey, String model) {
+        return new LLMProvider(GROQ, "https://api.groq.com/openai/v1",
+                apiKey, model != null ? model : "llama-3.1-8b-instant", false, false);
+    }
+}
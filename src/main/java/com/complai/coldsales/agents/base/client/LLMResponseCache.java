@@ -0,0 +1,154 @@
+package com.complai.coldsales.agents.base.client;
+
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Content-addressed cache of raw LLM responses with LRU + TTL eviction.
+ *
+ * Keys are SHA-256 digests of everything that determines a completion
+ * (model, instructions, output type, generation params, prompt), so identical requests
+ * from different agents or pipelines share entries.
+ * Only the raw response text is stored; callers re-parse it on a hit so cached
+ * structured objects are never shared (and mutated) between pipelines.
+ */
+public final class LLMResponseCache {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final LinkedHashMap<String, CachedResponse> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    public LLMResponseCache(int maxEntries, Duration ttl) {
+        this(maxEntries, ttl, System::nanoTime);
+    }
+
+    LLMResponseCache(int maxEntries, Duration ttl, LongSupplier clock) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive. Received: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl != null ? ttl.toNanos() : Long.MAX_VALUE;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true); // Access order = LRU
+    }
+
+    /**
+     * Build a content-addressed key for a request.
+     */
+    public static String keyOf(String model, String instructions, Class<?> outputType,
+                               String generationParams, String prompt) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : new String[]{
+                    model,
+                    instructions,
+                    outputType != null ? outputType.getName() : "String",
+                    generationParams,
+                    prompt}) {
+                digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0); // Separator so ("ab","c") != ("a","bc")
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public synchronized Optional<CachedResponse> get(String key) {
+        CachedResponse cached = entries.get(key);
+        if (cached == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        if (isExpired(cached)) {
+            entries.remove(key);
+            expirations.incrementAndGet();
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        hits.incrementAndGet();
+        return Optional.of(cached);
+    }
+
+    public synchronized void put(String key, String rawOutput, String model) {
+        entries.put(key, new CachedResponse(rawOutput, model, clock.getAsLong()));
+        evictExpiredAndOverflow();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public Stats getStats() {
+        return new Stats(hits.get(), misses.get(), evictions.get(), expirations.get(), size());
+    }
+
+    private void evictExpiredAndOverflow() {
+        Iterator<Map.Entry<String, CachedResponse>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, CachedResponse> eldest = it.next();
+            if (isExpired(eldest.getValue())) {
+                it.remove();
+                expirations.incrementAndGet();
+            } else if (entries.size() > maxEntries) {
+                it.remove();
+                evictions.incrementAndGet();
+            } else {
+                break;
+            }
+        }
+    }
+
+    private boolean isExpired(CachedResponse cached) {
+        return clock.getAsLong() - cached.getStoredAtNanos() > ttlNanos;
+    }
+
+    @Value
+    public static class CachedResponse {
+        String rawOutput;
+        String model;
+        long storedAtNanos;
+    }
+
+    /**
+     * Snapshot of cache metrics.
+     */
+    @Value
+    public static class Stats {
+        long hits;
+        long misses;
+        long evictions;
+        long expirations;
+        int size;
+
+        public double getHitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+
+        public static Stats empty() {
+            return new Stats(0, 0, 0, 0, 0);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.complai.coldsales.agents.base.client;
+
+import com.complai.coldsales.agents.base.result.LLMResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * A completion being streamed by LLMClient.runStreaming.
+ *
+ * Text arrives as the model generates it and can be consumed three ways: token callbacks,
+ * field callbacks for structured agents (each top-level JSON field as soon as its value is
+ * complete), or as an InputStream that blocks until more text arrives. Listeners registered
+ * after generation started are first replayed what already arrived, so none miss output.
+ *
+ * A generation can be stopped early with {@link #abort(String)} or an inline check
+ * ({@link #abortIf(Predicate, String)}); the HTTP stream is closed, no further tokens are paid for,
+ * and {@link #result()} fails with {@link StreamAbortedException}.
+ */
+public final class LLMStream {
+
+    private final String agentName;
+    private final StringBuilder text = new StringBuilder();
+    private byte[] bytes = new byte[1024]; // UTF-8 of text, read in place by the input streams
+    private int byteCount;
+    private final List<Map.Entry<String, String>> fields = new ArrayList<>();
+    private final List<Consumer<String>> tokenListeners = new ArrayList<>();
+    private final List<BiConsumer<String, String>> fieldListeners = new ArrayList<>();
+    private final List<InlineCheck> checks = new ArrayList<>();
+    private final PartialJsonFields fieldParser; // null for text agents
+    private final CompletableFuture<LLMResult> result = new CompletableFuture<>();
+    private long firstTokenNanos;
+    private boolean finished;
+    private Throwable failure; // Set with finished, so readers never take a failed stream for a complete one
+    private CompletableFuture<?> completionGate; // Generation done: finish only once this completes normally
+    private volatile String abortReason;
+
+    LLMStream(String agentName, boolean structured) {
+        this.agentName = agentName;
+        this.fieldParser = structured ? new PartialJsonFields(this::emitField) : null;
+    }
+
+    public String getAgentName() {
+        return agentName;
+    }
+
+    /**
+     * Call the listener with every text delta (starting with a replay of the text so far).
+     */
+    public synchronized LLMStream onToken(Consumer<String> listener) {
+        if (!text.isEmpty()) {
+            listener.accept(text.toString());
+        }
+        tokenListeners.add(listener);
+        return this;
+    }
+
+    /**
+     * Call the listener with each top-level field of a structured output as soon as it is complete.
+     * Array fields are reported once per element.
+     */
+    public synchronized LLMStream onField(BiConsumer<String, String> listener) {
+        fields.forEach(entry -> listener.accept(entry.getKey(), entry.getValue()));
+        fieldListeners.add(listener);
+        return this;
+    }
+
+    /**
+     * Abort the generation as soon as the text so far fails the check.
+     *
+     * @param failed Predicate over the text generated so far; true means abort
+     * @param reason Reported in the StreamAbortedException
+     */
+    public synchronized LLMStream abortIf(Predicate<String> failed, String reason) {
+        InlineCheck check = new InlineCheck(failed, reason);
+        checks.add(check);
+        if (!text.isEmpty()) {
+            check.apply(this);
+        }
+        return this;
+    }
+
+    /**
+     * Stop the generation; ignored once the stream has finished.
+     */
+    public void abort(String reason) {
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            abortReason = reason;
+            failure = new StreamAbortedException(agentName, reason);
+            finished = true;
+            notifyAll();
+        }
+        result.completeExceptionally(failure);
+    }
+
+    public boolean isAborted() {
+        return abortReason != null;
+    }
+
+    /**
+     * The generated text as UTF-8 bytes, readable while it is still being generated.
+     * Reads block for more text, return end-of-stream when generation completes,
+     * and fail with an IOException if it is aborted or fails.
+     */
+    public InputStream asInputStream() {
+        return new InputStream() {
+            private int position;
+
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                if (length == 0) {
+                    return 0;
+                }
+                synchronized (LLMStream.this) {
+                    while (position >= byteCount && !finished) {
+                        try {
+                            LLMStream.this.wait();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new IOException("Interrupted while waiting for streamed text", e);
+                        }
+                    }
+                    if (failure != null) {
+                        throw new IOException("Stream of '" + agentName + "' did not complete"
+                                + (abortReason != null ? ": " + abortReason : ""), failure);
+                    }
+                    if (position >= byteCount) {
+                        return -1;
+                    }
+                    int count = Math.min(length, byteCount - position);
+                    System.arraycopy(bytes, position, buffer, offset, count);
+                    position += count;
+                    return count;
+                }
+            }
+        };
+    }
+
+    /**
+     * Completes with the parsed result when generation ends; fails if it is aborted or the call fails.
+     */
+    public CompletableFuture<LLMResult> result() {
+        return result;
+    }
+
+    synchronized String getText() {
+        return text.toString();
+    }
+
+    synchronized boolean hasOutput() {
+        return !text.isEmpty();
+    }
+
+    synchronized long getFirstTokenNanos() {
+        return firstTokenNanos;
+    }
+
+    /**
+     * Append a delta from the model and run listeners and inline checks on it.
+     */
+    synchronized void emit(String delta) {
+        if (finished || delta == null || delta.isEmpty()) {
+            return;
+        }
+        if (text.isEmpty()) {
+            firstTokenNanos = System.nanoTime();
+        }
+        text.append(delta);
+        appendBytes(delta.getBytes(StandardCharsets.UTF_8));
+        notifyAll();
+        tokenListeners.forEach(listener -> listener.accept(delta));
+        if (fieldParser != null) {
+            fieldParser.feed(delta);
+        }
+        for (InlineCheck check : checks) {
+            if (check.apply(this)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Hold the end of the stream until the gate completes; tokens still reach listeners meanwhile.
+     * If the gate fails, the stream is expected to be failed by whoever owns the gate.
+     */
+    synchronized void holdCompletionUntil(CompletableFuture<?> gate) {
+        completionGate = gate;
+    }
+
+    void complete(LLMResult completed) {
+        CompletableFuture<?> gate;
+        synchronized (this) {
+            gate = completionGate;
+        }
+        if (gate != null && !gate.isDone()) {
+            gate.thenRun(() -> finish(completed));
+            return;
+        }
+        if (gate != null && gate.isCompletedExceptionally()) {
+            return;
+        }
+        finish(completed);
+    }
+
+    private void finish(LLMResult completed) {
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            notifyAll();
+        }
+        result.complete(completed);
+    }
+
+    void fail(Throwable error) {
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            failure = error;
+            finished = true;
+            notifyAll();
+        }
+        result.completeExceptionally(error);
+    }
+
+    private void appendBytes(byte[] delta) {
+        if (byteCount + delta.length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, byteCount + delta.length));
+        }
+        System.arraycopy(delta, 0, bytes, byteCount, delta.length);
+        byteCount += delta.length;
+    }
+
+    private void emitField(String field, String value) {
+        fields.add(new AbstractMap.SimpleImmutableEntry<>(field, value));
+        fieldListeners.forEach(listener -> listener.accept(field, value));
+    }
+
+    private record InlineCheck(Predicate<String> failed, String reason) {
+        boolean apply(LLMStream stream) {
+            if (failed.test(stream.text.toString())) {
+                stream.abort(reason);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The stream was stopped before the model finished, by an explicit abort or an inline check.
+     */
+    public static class StreamAbortedException extends RuntimeException {
+        public StreamAbortedException(String agentName, String reason) {
+            super("Generation of '" + agentName + "' aborted: " + reason);
+        }
+    }
+}
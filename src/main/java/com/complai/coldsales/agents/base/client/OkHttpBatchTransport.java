@@ -0,0 +1,109 @@
+package com.complai.coldsales.agents.base.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * BatchTransport over OkHttp against an OpenAI-compatible base URL (e.g. https://api.openai.com/v1,
+ * or a local fake batch server).
+ */
+public final class OkHttpBatchTransport implements BatchTransport {
+
+    private static final MediaType JSON = MediaType.get("application/json");
+    private static final MediaType JSONL = MediaType.get("application/jsonl");
+
+    private final HttpUrl baseUrl;
+    private final String apiKey;
+    private final OkHttpClient httpClient;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public OkHttpBatchTransport(String baseUrl, String apiKey) {
+        this(baseUrl, apiKey, new OkHttpClient());
+    }
+
+    public OkHttpBatchTransport(String baseUrl, String apiKey, OkHttpClient httpClient) {
+        this.baseUrl = Objects.requireNonNull(HttpUrl.parse(baseUrl), "Invalid batch base URL: " + baseUrl);
+        this.apiKey = apiKey;
+        this.httpClient = httpClient != null ? httpClient : new OkHttpClient();
+    }
+
+    @Override
+    public String uploadFile(String fileName, byte[] jsonl) throws IOException {
+        RequestBody body = new MultipartBody.Builder()
+                .setType(MultipartBody.FORM)
+                .addFormDataPart("purpose", "batch")
+                .addFormDataPart("file", fileName, RequestBody.create(jsonl, JSONL))
+                .build();
+        return execute(request("files").post(body)).path("id").asText();
+    }
+
+    @Override
+    public Batch createBatch(String inputFileId, String endpoint, String completionWindow) throws IOException {
+        byte[] json = mapper.writeValueAsBytes(Map.of(
+                "input_file_id", inputFileId,
+                "endpoint", endpoint,
+                "completion_window", completionWindow));
+        return toBatch(execute(request("batches").post(RequestBody.create(json, JSON))));
+    }
+
+    @Override
+    public Batch getBatch(String batchId) throws IOException {
+        return toBatch(execute(request("batches", batchId).get()));
+    }
+
+    @Override
+    public String downloadFile(String fileId) throws IOException {
+        try (Response response = httpClient.newCall(request("files", fileId, "content").get().build()).execute()) {
+            return bodyOf(response);
+        }
+    }
+
+    private Request.Builder request(String... segments) {
+        HttpUrl.Builder url = baseUrl.newBuilder();
+        for (String segment : segments) {
+            url.addPathSegment(segment);
+        }
+        Request.Builder request = new Request.Builder().url(url.build());
+        if (apiKey != null) {
+            request.header("Authorization", "Bearer " + apiKey);
+        }
+        return request;
+    }
+
+    private JsonNode execute(Request.Builder request) throws IOException {
+        try (Response response = httpClient.newCall(request.build()).execute()) {
+            return mapper.readTree(bodyOf(response));
+        }
+    }
+
+    private static String bodyOf(Response response) throws IOException {
+        ResponseBody body = response.body();
+        String content = body != null ? body.string() : "";
+        if (!response.isSuccessful()) {
+            throw new IOException("Batch API returned HTTP " + response.code() + ": " + content);
+        }
+        return content;
+    }
+
+    private static Batch toBatch(JsonNode json) {
+        return new Batch(json.path("id").asText(), json.path("status").asText(),
+                textOrNull(json, "output_file_id"), textOrNull(json, "error_file_id"));
+    }
+
+    private static String textOrNull(JsonNode json, String field) {
+        JsonNode value = json.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+}
@@ -0,0 +1,144 @@
+package com.complai.coldsales.agents.base.client;
+
+import com.complai.coldsales.models.guardrails.BusinessContextCheck;
+import com.complai.coldsales.models.guardrails.CompositeGuardrailCheck;
+import com.complai.coldsales.models.guardrails.ContentSafetyCheck;
+import com.complai.coldsales.models.guardrails.PersonalDataCheck;
+import com.complai.coldsales.models.structured.EmailAnalysis;
+import com.complai.coldsales.models.structured.EmailSubject;
+import com.complai.coldsales.models.structured.ProspectResearch;
+import com.complai.coldsales.models.structured.SalesEmail;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+
+/**
+ * Field-level validation rules for structured LLM outputs.
+ *
+ * Rules are registered per output class and name the JSON field they check, so a violation
+ * can be reported (and later re-asked) in the terms the model produced.
+ * Parsing and the all-nulls check happen before this; these rules catch outputs that parsed
+ * but are not usable (blank required text, scores out of range, unknown enum values).
+ */
+public final class OutputValidator {
+
+    private final Map<Class<?>, List<FieldRule<?>>> rules = new ConcurrentHashMap<>();
+
+    /**
+     * Register a rule for one field of an output type.
+     *
+     * @param type Output class
+     * @param field JSON field name the rule checks
+     * @param valid Predicate over the parsed output
+     * @param expectation Human-readable expectation, used in violation messages
+     */
+    public <T> OutputValidator rule(Class<T> type, String field, Predicate<T> valid, String expectation) {
+        rules.computeIfAbsent(type, t -> new CopyOnWriteArrayList<>())
+                .add(new FieldRule<>(type, field, valid, expectation));
+        return this;
+    }
+
+    /**
+     * Violations for a parsed output, as "field: expectation"; empty when valid or unknown type.
+     */
+    public List<String> violations(Object output) {
+        List<FieldRule<?>> typeRules = output != null ? rules.get(output.getClass()) : null;
+        if (typeRules == null) {
+            return List.of();
+        }
+        List<String> violations = new ArrayList<>();
+        for (FieldRule<?> rule : typeRules) {
+            if (!rule.test(output)) {
+                violations.add(rule.field() + ": " + rule.expectation());
+            }
+        }
+        return violations;
+    }
+
+    /**
+     * Invalid fields of a parsed output, JSON field name to expectation (the first failed rule
+     * per field); empty when valid or unknown type. Used to re-ask just these fields.
+     */
+    public Map<String, String> invalidFields(Object output) {
+        List<FieldRule<?>> typeRules = output != null ? rules.get(output.getClass()) : null;
+        if (typeRules == null) {
+            return Map.of();
+        }
+        Map<String, String> invalid = new LinkedHashMap<>();
+        for (FieldRule<?> rule : typeRules) {
+            if (!rule.test(output)) {
+                invalid.putIfAbsent(rule.field(), rule.expectation());
+            }
+        }
+        return invalid;
+    }
+
+    /**
+     * Rules for this project's structured outputs.
+     */
+    public static OutputValidator defaults() {
+        Set<String> levels = Set.of("low", "medium", "high");
+        Set<String> subjectTypes = Set.of("question", "benefit", "urgency", "curiosity", "personal");
+        return new OutputValidator()
+                .rule(SalesEmail.class, "body", e -> notBlank(e.getBody()), "non-empty email body")
+                .rule(SalesEmail.class, "subject", e -> notBlank(e.getSubject()), "non-empty subject")
+                .rule(SalesEmail.class, "expected_response_rate",
+                        e -> inRange(e.getExpectedResponseRate(), 0, 100), "percentage between 0 and 100")
+                .rule(EmailAnalysis.class, "effectiveness_score",
+                        a -> inRange(a.getEffectivenessScore(), 1, 10), "integer between 1 and 10")
+                .rule(EmailAnalysis.class, "personalization_level",
+                        a -> oneOf(a.getPersonalizationLevel(), levels), "one of low, medium, high")
+                .rule(EmailAnalysis.class, "word_count", a -> a.getWordCount() >= 0, "non-negative integer")
+                .rule(EmailSubject.class, "primary_subject", s -> notBlank(s.getPrimarySubject()), "non-empty subject")
+                .rule(EmailSubject.class, "alternative_subjects",
+                        s -> s.getAlternativeSubjects() != null && !s.getAlternativeSubjects().isEmpty(),
+                        "non-empty list of subject lines")
+                .rule(EmailSubject.class, "subject_type",
+                        s -> oneOf(s.getSubjectType(), subjectTypes), "one of question, benefit, urgency, curiosity, personal")
+                .rule(EmailSubject.class, "predicted_open_rate",
+                        s -> inRange(s.getPredictedOpenRate(), 0, 100), "percentage between 0 and 100")
+                .rule(ProspectResearch.class, "company_overview",
+                        r -> notBlank(r.getCompanyOverview()), "non-empty overview")
+                .rule(ProspectResearch.class, "confidence_level",
+                        r -> r.getConfidenceLevel() == null || oneOf(r.getConfidenceLevel(), levels), "one of low, medium, high")
+                .rule(ContentSafetyCheck.class, "confidence",
+                        c -> inRange(c.getConfidence(), 0.0, 1.0), "number between 0 and 1")
+                .rule(BusinessContextCheck.class, "confidence",
+                        c -> inRange(c.getConfidence(), 0.0, 1.0), "number between 0 and 1")
+                .rule(PersonalDataCheck.class, "confidence",
+                        c -> inRange(c.getConfidence(), 0.0, 1.0), "number between 0 and 1")
+                .rule(CompositeGuardrailCheck.class, "content_safety",
+                        c -> c.getContentSafety() != null && inRange(c.getContentSafety().getConfidence(), 0.0, 1.0),
+                        "content safety verdict with confidence between 0 and 1")
+                .rule(CompositeGuardrailCheck.class, "business_context",
+                        c -> c.getBusinessContext() != null && inRange(c.getBusinessContext().getConfidence(), 0.0, 1.0),
+                        "business context verdict with confidence between 0 and 1")
+                .rule(CompositeGuardrailCheck.class, "personal_data",
+                        c -> c.getPersonalData() != null && inRange(c.getPersonalData().getConfidence(), 0.0, 1.0),
+                        "personal data verdict with confidence between 0 and 1");
+    }
+
+    private static boolean notBlank(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    private static boolean inRange(double value, double min, double max) {
+        return value >= min && value <= max;
+    }
+
+    private static boolean oneOf(String value, Set<String> allowed) {
+        return value != null && allowed.contains(value.trim().toLowerCase());
+    }
+
+    private record FieldRule<T>(Class<T> type, String field, Predicate<T> valid, String expectation) {
+        boolean test(Object output) {
+            return valid.test(type.cast(output));
+        }
+    }
+}
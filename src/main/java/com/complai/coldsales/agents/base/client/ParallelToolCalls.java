@@ -0,0 +1,124 @@
+package com.complai.coldsales.agents.base.client;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Runs the tool calls of one assistant turn at the same time and returns their outcomes in
+ * the order of the calls, so each result lines up with its toolCallId.
+ *
+ * At most maxParallel tools run at once. A slot is held until the tool's work has settled,
+ * not just until its outcome is reported: a tool that times out is cancelled and reported at
+ * once, but its slot is only freed when the work behind it has really stopped. Cancelling a
+ * future completes it immediately, so that moment comes from the tool (see {@link Started}).
+ */
+final class ParallelToolCalls {
+
+    private final int maxParallel;
+    private final Duration timeout;
+    private final Executor timeoutExecutor;
+
+    /**
+     * @param maxParallel Max tools running at once
+     * @param timeout Time each tool gets before it is cancelled
+     * @param timeoutExecutor Runs the cancellation of timed-out tools (kept off the common pool)
+     */
+    ParallelToolCalls(int maxParallel, Duration timeout, Executor timeoutExecutor) {
+        this.maxParallel = Math.max(1, maxParallel);
+        this.timeout = timeout;
+        this.timeoutExecutor = timeoutExecutor;
+    }
+
+    /**
+     * A started call.
+     *
+     * @param result The call's result; cancelled on timeout
+     * @param settled Completes once the work behind the result has stopped, which after a
+     *                cancellation can be later than the result
+     */
+    record Started<T>(CompletableFuture<T> result, CompletableFuture<?> settled) {
+
+        /**
+         * A call whose result settles together with its work.
+         */
+        static <T> Started<T> of(CompletableFuture<T> result) {
+            return new Started<>(result, result);
+        }
+    }
+
+    /**
+     * Maps a finished call to its outcome.
+     */
+    @FunctionalInterface
+    interface Completion<C, T, R> {
+        /**
+         * @param failure Null on success; TimeoutException when the tool ran out of time
+         */
+        R outcome(C call, T value, Throwable failure);
+    }
+
+    /**
+     * @param calls Calls of one assistant turn
+     * @param start Starts one call
+     * @param completion Maps each call's result or failure to its outcome
+     * @return Outcomes in the order of the calls
+     */
+    <C, T, R> List<R> run(List<C> calls, Function<C, Started<T>> start, Completion<C, T, R> completion) {
+        Semaphore slots = new Semaphore(maxParallel);
+        List<CompletableFuture<R>> pending = new ArrayList<>(calls.size());
+        for (C call : calls) {
+            pending.add(dispatch(call, slots, start, completion));
+        }
+        List<R> outcomes = new ArrayList<>(pending.size());
+        for (CompletableFuture<R> outcome : pending) {
+            outcomes.add(outcome.join());
+        }
+        return outcomes;
+    }
+
+    private <C, T, R> CompletableFuture<R> dispatch(C call, Semaphore slots, Function<C, Started<T>> start,
+                                                    Completion<C, T, R> completion) {
+        try {
+            slots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.completedFuture(completion.outcome(call, null, e));
+        }
+
+        Started<T> started;
+        try {
+            started = start.apply(call);
+        } catch (RuntimeException e) {
+            slots.release();
+            return CompletableFuture.completedFuture(completion.outcome(call, null, e));
+        }
+        started.settled().whenComplete((value, throwable) -> slots.release());
+        CompletableFuture<T> execution = started.result();
+
+        // Cancel the tool itself on timeout, then report the cancellation as the timeout it was
+        AtomicBoolean timedOut = new AtomicBoolean();
+        CompletableFuture.delayedExecutor(timeout.toMillis(), TimeUnit.MILLISECONDS, timeoutExecutor).execute(() -> {
+            if (!execution.isDone()) {
+                timedOut.set(true);
+                execution.cancel(true);
+            }
+        });
+        return execution.handle((value, throwable) -> {
+            if (throwable == null) {
+                return completion.outcome(call, value, null);
+            }
+            Throwable failure = timedOut.get()
+                    ? new TimeoutException("Tool timed out after " + timeout.toMillis() + " ms")
+                    : LLMClient.unwrapCompletion(throwable);
+            return completion.outcome(call, null, failure);
+        });
+    }
+}
@@ -0,0 +1,79 @@
+package com.complai.coldsales.agents.base.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BiConsumer;
+
+/**
+ * Incremental parser that reports top-level JSON fields as soon as their values are complete.
+ *
+ * Streamed structured output is fed in chunk by chunk; each scalar field of the top-level object
+ * (and each element of a top-level array of scalars) is reported once its closing token arrives,
+ * long before the full object is. Malformed input stops reporting silently; the final parse
+ * of the complete text is what decides validity.
+ */
+final class PartialJsonFields {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private final BiConsumer<String, String> onField;
+    private final JsonParser parser;
+    private int depth;
+    private String field;
+    private boolean failed;
+
+    PartialJsonFields(BiConsumer<String, String> onField) {
+        this.onField = onField;
+        JsonParser created;
+        try {
+            created = FACTORY.createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            created = null;
+            failed = true;
+        }
+        this.parser = created;
+    }
+
+    /**
+     * Feed the next chunk of text.
+     */
+    void feed(String chunk) {
+        if (failed || chunk.isEmpty()) {
+            return;
+        }
+        byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+        try {
+            ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).feedInput(bytes, 0, bytes.length);
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                handle(token);
+            }
+        } catch (IOException e) {
+            failed = true;
+        }
+    }
+
+    private void handle(JsonToken token) throws IOException {
+        switch (token) {
+            case START_OBJECT, START_ARRAY -> depth++;
+            case END_OBJECT, END_ARRAY -> depth--;
+            case FIELD_NAME -> {
+                if (depth == 1) {
+                    field = parser.currentName();
+                }
+            }
+            default -> {
+                // Scalars directly in the top-level object, or in one of its arrays
+                boolean topLevelArray = depth == 2 && parser.getParsingContext().inArray();
+                if (field != null && token.isScalarValue() && (depth == 1 || topLevelArray)) {
+                    onField.accept(field, token == JsonToken.VALUE_NULL ? null : parser.getText());
+                }
+            }
+        }
+    }
+}
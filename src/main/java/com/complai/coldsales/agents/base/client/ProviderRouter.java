@@ -0,0 +1,165 @@
+package com.complai.coldsales.agents.base.client;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Routes calls across LLM providers.
+ *
+ * Candidates come from a preference order (the agent's, or the client default); among the
+ * healthy ones the router picks the lowest score, where the score combines the provider's rank
+ * in that order with its live latency and error rate. A preferred provider therefore keeps its
+ * traffic unless it gets markedly slower or starts failing, and degraded providers fail over
+ * to the next candidate automatically.
+ */
+public final class ProviderRouter {
+
+    private static final double SMOOTHING = 0.2;
+    private static final double PRIOR_LATENCY_MS = 2000; // Assumed latency for routes not measured yet
+    private static final double ERROR_WEIGHT = 4.0;
+    private static final double RANK_WEIGHT = 0.5;
+
+    private final Map<String, LLMProvider> providers = new LinkedHashMap<>();
+    private final List<String> defaultOrder;
+    private final Map<String, RouteHealth> health = new ConcurrentHashMap<>();
+
+    /**
+     * @param providers Configured providers (names must be unique)
+     * @param defaultOrder Preference order for agents that don't set one; null or empty means
+     *                     the order providers were given in
+     */
+    public ProviderRouter(List<LLMProvider> providers, List<String> defaultOrder) {
+        if (providers == null || providers.isEmpty()) {
+            throw new IllegalArgumentException("At least one LLM provider is required");
+        }
+        for (LLMProvider provider : providers) {
+            this.providers.put(provider.getName(), provider);
+        }
+        this.defaultOrder = defaultOrder != null && !defaultOrder.isEmpty()
+                ? List.copyOf(defaultOrder) : List.copyOf(this.providers.keySet());
+    }
+
+    /**
+     * Routes able to serve the requested model, in preference order.
+     * Unknown provider names are skipped; if none of the preferred providers is configured,
+     * the client default order is used instead.
+     */
+    public List<Route> candidates(String requestedModel, List<String> preference) {
+        List<Route> routes = routesFor(requestedModel, preference != null ? preference : defaultOrder);
+        return routes.isEmpty() ? routesFor(requestedModel, defaultOrder) : routes;
+    }
+
+    /**
+     * Best healthy route among the candidates, or null if none is healthy.
+     */
+    public Route select(List<Route> candidates, Predicate<Route> healthy) {
+        Route best = null;
+        double bestScore = Double.MAX_VALUE;
+        for (int rank = 0; rank < candidates.size(); rank++) {
+            Route route = candidates.get(rank);
+            if (!healthy.test(route)) {
+                continue;
+            }
+            double score = score(route, rank);
+            if (score < bestScore) {
+                best = route;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    public void recordSuccess(Route route, long latencyNanos) {
+        health(route).record(TimeUnit.NANOSECONDS.toMillis(latencyNanos), false);
+    }
+
+    public void recordError(Route route, long latencyNanos) {
+        health(route).record(TimeUnit.NANOSECONDS.toMillis(latencyNanos), true);
+    }
+
+    /**
+     * Live latency and error measurements per route, sorted by route key.
+     */
+    public Map<String, Health> getHealth() {
+        Map<String, Health> snapshot = new TreeMap<>();
+        health.forEach((key, routeHealth) -> snapshot.put(key, routeHealth.snapshot()));
+        return snapshot;
+    }
+
+    public List<LLMProvider> getProviders() {
+        return Collections.unmodifiableList(new ArrayList<>(providers.values()));
+    }
+
+    private List<Route> routesFor(String requestedModel, List<String> order) {
+        List<Route> routes = new ArrayList<>();
+        for (String name : order) {
+            LLMProvider provider = providers.get(name);
+            if (provider != null) {
+                routes.add(new Route(provider, provider.modelFor(requestedModel)));
+            }
+        }
+        return routes;
+    }
+
+    private double score(Route route, int rank) {
+        RouteHealth routeHealth = health.get(route.key());
+        double latency = routeHealth != null ? routeHealth.latencyMs() : PRIOR_LATENCY_MS;
+        double errorRate = routeHealth != null ? routeHealth.errorRate() : 0.0;
+        return latency * (1 + ERROR_WEIGHT * errorRate) * (1 + RANK_WEIGHT * rank);
+    }
+
+    private RouteHealth health(Route route) {
+        return health.computeIfAbsent(route.key(), k -> new RouteHealth());
+    }
+
+    /**
+     * A provider plus the model name to send to it.
+     */
+    public record Route(LLMProvider provider, String model) {
+        public String key() {
+            return provider.getName() + ":" + model;
+        }
+    }
+
+    private static final class RouteHealth {
+        private double latencyMs = -1;
+        private double errorRate;
+        private long calls;
+
+        synchronized void record(long latencyMillis, boolean error) {
+            calls++;
+            errorRate += SMOOTHING * ((error ? 1.0 : 0.0) - errorRate);
+            if (!error) { // Failures often return fast and would make a broken route look quick
+                latencyMs = latencyMs < 0 ? latencyMillis : latencyMs + SMOOTHING * (latencyMillis - latencyMs);
+            }
+        }
+
+        synchronized double latencyMs() {
+            return latencyMs < 0 ? PRIOR_LATENCY_MS : latencyMs;
+        }
+
+        synchronized double errorRate() {
+            return errorRate;
+        }
+
+        synchronized Health snapshot() {
+            return new Health(calls, Math.round(latencyMs()), errorRate);
+        }
+    }
+
+    @Value
+    public static class Health {
+        long calls;
+        long latencyMs;
+        double errorRate;
+    }
+}
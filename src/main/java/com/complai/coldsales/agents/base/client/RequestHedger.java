@@ -0,0 +1,254 @@
+package com.complai.coldsales.agents.base.client;
+
+import lombok.Value;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Hedged requests for tail-latency reduction.
+ *
+ * If a call has not answered within its key's observed latency percentile (p90 by default),
+ * a duplicate is sent and whichever succeeds first wins; the other is cancelled.
+ * Hedges are capped at a percentage of all hedge-eligible requests so extra cost stays bounded,
+ * and no hedging happens until a key has enough latency samples to trust its percentile.
+ * Samples should be the provider's own latency: time spent queued for admission says nothing
+ * about how long the provider takes, and would push the percentile up whenever calls queue.
+ * For the same reason the hedge timer starts when the primary is admitted, not when it is
+ * submitted, so a primary still waiting for admission is never raced by a duplicate.
+ */
+public final class RequestHedger {
+
+    static final double DEFAULT_PERCENTILE = 0.9;
+    private static final int WINDOW_SIZE = 200;
+    private static final int MIN_SAMPLES = 20;
+
+    private final double budgetRatio;
+    private final double percentile;
+    private final Executor executor;
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+
+    /**
+     * @param budgetPercent Max extra requests, as a percentage of hedge-eligible requests
+     * @param percentile Latency percentile after which a hedge is sent
+     * @param executor Executor that starts hedges once the threshold passes
+     */
+    RequestHedger(double budgetPercent, double percentile, Executor executor) {
+        this.budgetRatio = Math.max(0, budgetPercent) / 100.0;
+        this.percentile = percentile;
+        this.executor = executor;
+    }
+
+    boolean isEnabled() {
+        return budgetRatio > 0;
+    }
+
+    /**
+     * What one attempt reports back. Both exclude any wait for admission, so the hedge timer
+     * and the latency samples it is set from measure the same interval.
+     */
+    interface AttemptTiming {
+
+        AttemptTiming NONE = new AttemptTiming() {
+            @Override
+            public void admitted() {
+            }
+
+            @Override
+            public void providerLatency(long latencyNanos) {
+            }
+        };
+
+        /**
+         * The attempt was admitted and is about to call the provider.
+         */
+        void admitted();
+
+        /**
+         * The attempt succeeded, the provider having taken this long since admission.
+         */
+        void providerLatency(long latencyNanos);
+    }
+
+    /**
+     * Hedge a call that is admitted as soon as it starts, sampling the wall-clock time of each attempt.
+     */
+    <T> CompletableFuture<T> execute(String key, Supplier<CompletableFuture<T>> call) {
+        return execute(key, timing -> {
+            timing.admitted();
+            long start = System.nanoTime();
+            CompletableFuture<T> future = call.get();
+            future.thenRun(() -> timing.providerLatency(System.nanoTime() - start));
+            return future;
+        });
+    }
+
+    /**
+     * Hedge a call that reports its own admission and latency.
+     *
+     * @param call Starts one attempt, which reports to the given timing when it is admitted and,
+     *             if it succeeds, how long the provider took
+     */
+    <T> CompletableFuture<T> execute(String key, Function<AttemptTiming, CompletableFuture<T>> call) {
+        requests.incrementAndGet();
+        LatencyWindow window = latencies.computeIfAbsent(key, k -> new LatencyWindow());
+        long thresholdNanos = window.percentileNanos(percentile);
+        CompletableFuture<Void> primaryAdmitted = new CompletableFuture<>();
+        CompletableFuture<T> primary = call.apply(timing(window, () -> primaryAdmitted.complete(null)));
+        if (!isEnabled() || thresholdNanos < 0) {
+            return primary;
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<T>> hedge = new AtomicReference<>();
+        AtomicBoolean won = new AtomicBoolean(); // Claimed by the first success, which cancels the loser before publishing
+
+        primary.whenComplete((value, throwable) -> {
+            CompletableFuture<T> duplicate = hedge.get();
+            if (throwable == null) {
+                if (won.compareAndSet(false, true)) {
+                    if (duplicate != null) {
+                        duplicate.cancel(true);
+                    }
+                    result.complete(value);
+                }
+            } else if (duplicate == null || duplicate.isCompletedExceptionally()) {
+                result.completeExceptionally(throwable); // No hedge left that could still succeed
+            }
+        });
+
+        Runnable startHedge = () -> {
+            if (primary.isDone() || result.isDone() || !tryTakeBudget()) {
+                return;
+            }
+            CompletableFuture<T> duplicate = call.apply(timing(window, () -> { }));
+            hedge.set(duplicate);
+            if (won.get() || result.isDone()) {
+                duplicate.cancel(true); // Primary settled while the hedge was starting
+                return;
+            }
+            duplicate.whenComplete((value, throwable) -> {
+                if (throwable == null) {
+                    if (won.compareAndSet(false, true)) {
+                        primary.cancel(true);
+                        if (!result.isDone()) {
+                            hedgeWins.incrementAndGet();
+                        }
+                        result.complete(value);
+                    }
+                } else if (primary.isCompletedExceptionally()) {
+                    result.completeExceptionally(throwable);
+                }
+            });
+        };
+        // The timer starts once the primary is admitted: until then it is waiting, not slow
+        primaryAdmitted.thenRun(() ->
+                CompletableFuture.delayedExecutor(thresholdNanos, TimeUnit.NANOSECONDS, executor).execute(startHedge));
+
+        result.whenComplete((value, throwable) -> {
+            if (result.isCancelled()) {
+                primary.cancel(true);
+                CompletableFuture<T> duplicate = hedge.get();
+                if (duplicate != null) {
+                    duplicate.cancel(true);
+                }
+            }
+        });
+        return result;
+    }
+
+    private static AttemptTiming timing(LatencyWindow window, Runnable onAdmitted) {
+        return new AttemptTiming() {
+            @Override
+            public void admitted() {
+                onAdmitted.run();
+            }
+
+            @Override
+            public void providerLatency(long latencyNanos) {
+                window.record(latencyNanos);
+            }
+        };
+    }
+
+    /**
+     * Current hedge threshold for a key in milliseconds, or -1 while it has too few samples.
+     */
+    long getThresholdMillis(String key) {
+        LatencyWindow window = latencies.get(key);
+        long nanos = window != null ? window.percentileNanos(percentile) : -1;
+        return nanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    void recordLatency(String key, long latencyNanos) {
+        latencies.computeIfAbsent(key, k -> new LatencyWindow()).record(latencyNanos);
+    }
+
+    Stats getStats() {
+        return new Stats(requests.get(), hedges.get(), hedgeWins.get());
+    }
+
+    private boolean tryTakeBudget() {
+        while (true) {
+            long current = hedges.get();
+            if (current + 1 > budgetRatio * requests.get()) {
+                return false;
+            }
+            if (hedges.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Ring buffer of the most recent successful latencies for one key.
+     */
+    private static final class LatencyWindow {
+        private final long[] samples = new long[WINDOW_SIZE];
+        private int count;
+        private int next;
+
+        synchronized void record(long latencyNanos) {
+            samples[next] = latencyNanos;
+            next = (next + 1) % WINDOW_SIZE;
+            count = Math.min(count + 1, WINDOW_SIZE);
+        }
+
+        synchronized long percentileNanos(double percentile) {
+            if (count < MIN_SAMPLES) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile * count) - 1;
+            return sorted[Math.max(0, Math.min(count - 1, index))];
+        }
+    }
+
+    /**
+     * Snapshot of hedging metrics.
+     */
+    @Value
+    public static class Stats {
+        long requests;
+        long hedges;
+        long hedgeWins;
+
+        public double getHedgeRate() {
+            return requests == 0 ? 0.0 : (double) hedges / requests;
+        }
+    }
+}
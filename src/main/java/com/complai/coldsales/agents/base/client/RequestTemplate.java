@@ -0,0 +1,105 @@
+package com.complai.coldsales.agents.base.client;
+
+import com.complai.coldsales.agents.base.core.Agent;
+import com.complai.coldsales.agents.base.core.AgentOptions;
+import com.complai.coldsales.agents.base.tools.AgentTool;
+import com.openai.models.ChatCompletionCreateParams;
+import com.openai.models.ChatCompletionMessageParam;
+import com.openai.models.ChatCompletionTool;
+import com.openai.models.ChatCompletionUserMessageParam;
+import com.openai.models.ChatModel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Everything about an agent's chat completion request that does not change between calls on
+ * one route: model, generation parameters, response format, tool definitions and the leading
+ * system messages (shared context, JSON-mode schema, instructions), all built once.
+ * A call only adds its conversation, usually the single user message.
+ */
+final class RequestTemplate {
+
+    private final Source source;
+    private final ChatModel model;
+    private final long maxTokens;
+    private final double temperature;
+    private final List<ChatCompletionMessageParam> leadingMessages;
+    private final ChatCompletionCreateParams.ResponseFormat responseFormat; // null for free-text agents
+    private final List<ChatCompletionTool> tools; // Empty unless the agent calls tools
+
+    RequestTemplate(Agent agent, ChatModel model, long maxTokens,
+                    List<ChatCompletionMessageParam> leadingMessages,
+                    ChatCompletionCreateParams.ResponseFormat responseFormat,
+                    List<ChatCompletionTool> tools) {
+        this.source = Source.of(agent);
+        this.model = model;
+        this.maxTokens = maxTokens;
+        this.temperature = agent.getOptions().getTemperature();
+        this.leadingMessages = List.copyOf(leadingMessages);
+        this.responseFormat = responseFormat;
+        this.tools = List.copyOf(tools);
+    }
+
+    /**
+     * A request builder for one call: the template's settings and leading messages followed by
+     * the conversation. Callers may still set per-call options (n, stream options) on it.
+     */
+    ChatCompletionCreateParams.Builder newRequest(List<ChatCompletionMessageParam> conversation) {
+        List<ChatCompletionMessageParam> messages = new ArrayList<>(leadingMessages.size() + conversation.size());
+        messages.addAll(leadingMessages);
+        messages.addAll(conversation);
+        ChatCompletionCreateParams.Builder builder = ChatCompletionCreateParams.builder()
+                .model(model)
+                .maxTokens(maxTokens)
+                .temperature(temperature)
+                .topP(1.0)
+                .frequencyPenalty(0.0)
+                .presencePenalty(0.0)
+                .messages(messages);
+        if (responseFormat != null) {
+            builder.responseFormat(responseFormat);
+        }
+        if (!tools.isEmpty()) {
+            // Response formats still allow tool calls; they only constrain the final assistant answer
+            builder.tools(tools);
+        }
+        return builder;
+    }
+
+    ChatCompletionCreateParams.Builder newRequest(String prompt) {
+        return newRequest(List.of(userMessage(prompt)));
+    }
+
+    static ChatCompletionMessageParam userMessage(String prompt) {
+        return ChatCompletionMessageParam.ofChatCompletionUserMessageParam(
+                ChatCompletionUserMessageParam.builder()
+                        .role(ChatCompletionUserMessageParam.Role.USER)
+                        .content(ChatCompletionUserMessageParam.Content.ofTextContent(prompt))
+                        .build());
+    }
+
+    /**
+     * Whether the agent still has the instructions, options, output type and tools this template
+     * was compiled from. Agent is mutable, so a replaced value means the template is stale.
+     */
+    boolean isCompiledFrom(Agent agent) {
+        return source.matches(agent);
+    }
+
+    List<ChatCompletionMessageParam> getLeadingMessages() {
+        return leadingMessages;
+    }
+
+    private record Source(String instructions, AgentOptions options, Class<?> outputType, List<AgentTool> tools) {
+        static Source of(Agent agent) {
+            return new Source(agent.getInstructions(), agent.getOptions(), agent.getOutputType(), agent.getTools());
+        }
+
+        // Reference checks only: setters replace these values, and the check runs on every call
+        boolean matches(Agent agent) {
+            return agent.getInstructions() == instructions && agent.getOptions() == options
+                    && agent.getOutputType() == outputType && agent.getTools() == tools;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.complai.coldsales.agents.base.client;
+
+import com.complai.coldsales.agents.base.core.Agent;
+import com.openai.models.ChatCompletionCreateParams;
+import com.openai.models.ChatCompletionMessageParam;
+import com.openai.models.ChatCompletionSystemMessageParam;
+import com.openai.models.ChatCompletionTool;
+import com.openai.models.ChatModel;
+import com.openai.models.ResponseFormatJsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * Compiles agents into request templates, once per agent and route.
+ *
+ * Leading messages are laid out in prompt-cache order: the agent's shared context (identical
+ * across the agents that use it), the JSON-mode schema when the route needs one, then the
+ * agent's instructions, so the stable parts of every request form a common prefix.
+ * A template is recompiled when the agent's instructions, options, output type or tools are
+ * replaced. Agents are tracked by identity, as in {@link ToolDefinitionCompiler}.
+ */
+final class RequestTemplateCompiler {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestTemplateCompiler.class);
+
+    static final ChatCompletionCreateParams.ResponseFormat JSON_OBJECT =
+            ChatCompletionCreateParams.ResponseFormat.ofResponseFormatJsonObject(
+                    ResponseFormatJsonObject.builder()
+                            .type(ResponseFormatJsonObject.Type.JSON_OBJECT)
+                            .build());
+
+    private final JsonSchemaGenerator schemaGenerator;
+    private final ToolDefinitionCompiler toolDefinitions;
+    private final ToLongFunction<Agent> maxTokens;
+    private final Map<AgentKey, Map<String, RequestTemplate>> templates = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxTokens Completion token cap per agent
+     */
+    RequestTemplateCompiler(JsonSchemaGenerator schemaGenerator, ToolDefinitionCompiler toolDefinitions,
+                            ToLongFunction<Agent> maxTokens) {
+        this.schemaGenerator = schemaGenerator;
+        this.toolDefinitions = toolDefinitions;
+        this.maxTokens = maxTokens;
+    }
+
+    /**
+     * Template for an agent on a route, compiling it on first use or when it went stale.
+     */
+    RequestTemplate templateFor(Agent agent, ProviderRouter.Route route) {
+        Map<String, RequestTemplate> byRoute = templates.computeIfAbsent(new AgentKey(agent), k -> new ConcurrentHashMap<>());
+        RequestTemplate template = byRoute.get(route.key());
+        if (template != null && template.isCompiledFrom(agent)) {
+            return template;
+        }
+        RequestTemplate fresh = compile(agent, route);
+        byRoute.put(route.key(), fresh);
+        log.debug("🧩 Compiled request template for agent '{}' on {}", agent.getName(), route.key());
+        return fresh;
+    }
+
+    /**
+     * Instruction for routes without strict json_schema support, carrying the schema in the prompt.
+     */
+    String structuredOutputInstruction(Agent agent) {
+        String schema;
+        try {
+            schema = schemaGenerator.schemaJsonFor(agent.getOutputType());
+        } catch (IllegalArgumentException e) {
+            schema = agent.getOutputTypeName();
+        }
+        return "Return your response as valid JSON matching this schema: " + schema;
+    }
+
+    private RequestTemplate compile(Agent agent, ProviderRouter.Route route) {
+        List<ChatCompletionMessageParam> leadingMessages = new ArrayList<>();
+        String sharedContext = agent.getOptions().getSharedContext();
+        if (sharedContext != null) {
+            leadingMessages.add(systemMessage(sharedContext));
+        }
+        ChatCompletionCreateParams.ResponseFormat responseFormat = null;
+        if (agent.hasStructuredOutput()) {
+            responseFormat = strictResponseFormat(agent, route);
+            if (responseFormat == null) {
+                // JSON mode: the model only sees the schema in the prompt
+                leadingMessages.add(systemMessage(structuredOutputInstruction(agent)));
+                responseFormat = JSON_OBJECT;
+            }
+        }
+        leadingMessages.add(systemMessage(agent.getInstructions()));
+        List<ChatCompletionTool> tools = agent.hasTools() ? toolDefinitions.toolsFor(agent) : List.of();
+        return new RequestTemplate(agent, ChatModel.of(route.model()), maxTokens.applyAsLong(agent),
+                leadingMessages, responseFormat, tools);
+    }
+
+    // Strict json_schema format when the route supports it, so the model cannot return missing or extra fields
+    private ChatCompletionCreateParams.ResponseFormat strictResponseFormat(Agent agent, ProviderRouter.Route route) {
+        if (!route.provider().isJsonSchemaSupported()) {
+            return null;
+        }
+        try {
+            return schemaGenerator.responseFormatFor(agent.getOutputType());
+        } catch (IllegalArgumentException e) {
+            log.warn("⚠️  No strict schema for {}, using JSON mode: {}", agent.getOutputTypeName(), e.getMessage());
+            return null;
+        }
+    }
+
+    private static ChatCompletionMessageParam systemMessage(String content) {
+        return ChatCompletionMessageParam.ofChatCompletionSystemMessageParam(
+                ChatCompletionSystemMessageParam.builder()
+                        .role(ChatCompletionSystemMessageParam.Role.SYSTEM)
+                        .content(ChatCompletionSystemMessageParam.Content.ofTextContent(content))
+                        .build());
+    }
+}
@@ -0,0 +1,54 @@
+package com.complai.coldsales.agents.base.client;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caps the total number of retries across all LLM calls of one pipeline run, so a
+ * degraded API fails the run quickly instead of multiplying its latency and cost.
+ * Shared by every call made through a client obtained from {@link LLMClient#withRetryBudget}.
+ */
+public final class RetryBudget {
+
+    private final int maxRetries;
+    private final AtomicInteger used = new AtomicInteger();
+
+    private RetryBudget(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public static RetryBudget of(int maxRetries) {
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("Retry budget cannot be negative. Received: " + maxRetries);
+        }
+        return new RetryBudget(maxRetries);
+    }
+
+    public static RetryBudget unlimited() {
+        return new RetryBudget(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Take one retry from the budget.
+     *
+     * @return false if the budget is exhausted
+     */
+    public boolean tryConsume() {
+        while (true) {
+            int current = used.get();
+            if (current >= maxRetries) {
+                return false;
+            }
+            if (used.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public int getRetriesUsed() {
+        return used.get();
+    }
+
+    public int getRemaining() {
+        return maxRetries - used.get();
+    }
+}
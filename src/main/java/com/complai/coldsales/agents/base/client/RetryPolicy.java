@@ -0,0 +1,170 @@
+package com.complai.coldsales.agents.base.client;
+
+import com.openai.errors.OpenAIIoException;
+import com.openai.errors.OpenAIServiceException;
+
+import java.io.InterruptedIOException;
+import java.net.SocketException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Retry policy for LLM calls.
+ *
+ * Failures are classified as retryable (429, 5xx, timeouts, connection resets) or terminal
+ * (auth, bad request and other 4xx). Retryable failures back off with decorrelated jitter
+ * ({@code sleep = min(cap, random(base, previous * 3))}); a server-provided Retry-After
+ * takes precedence when it asks for a longer wait.
+ */
+public final class RetryPolicy {
+
+    public enum FailureKind { RETRYABLE, TERMINAL }
+
+    private static final int DEFAULT_MAX_ATTEMPTS = 4;
+    private static final Duration DEFAULT_BASE_DELAY = Duration.ofMillis(500);
+    private static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(20);
+    private static final Duration MAX_RETRY_AFTER = Duration.ofSeconds(60); // Longer waits fail instead
+
+    private final int maxAttempts;
+    private final Duration baseDelay;
+    private final Duration maxDelay;
+
+    public RetryPolicy(int maxAttempts, Duration baseDelay, Duration maxDelay) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Max attempts must be at least 1. Received: " + maxAttempts);
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+    }
+
+    public static RetryPolicy defaults() {
+        return new RetryPolicy(DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_DELAY, DEFAULT_MAX_DELAY);
+    }
+
+    public static RetryPolicy withMaxAttempts(int maxAttempts) {
+        return new RetryPolicy(maxAttempts, DEFAULT_BASE_DELAY, DEFAULT_MAX_DELAY);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Decide whether a failed attempt is retried.
+     *
+     * @param failure The failure of the last attempt
+     * @param attemptsMade Attempts made so far, including the failed one
+     * @param previousDelay Delay before the failed attempt (null for the first attempt)
+     * @param budget Run-wide retry budget; one retry is consumed when this returns a delay
+     * @return The delay before the next attempt, or empty to give up
+     */
+    public Optional<Duration> nextDelay(Throwable failure, int attemptsMade, Duration previousDelay, RetryBudget budget) {
+        if (attemptsMade >= maxAttempts || classify(failure) == FailureKind.TERMINAL) {
+            return Optional.empty();
+        }
+        Duration delay = decorrelatedJitter(previousDelay);
+        Optional<Duration> retryAfter = retryAfter(failure);
+        if (retryAfter.isPresent()) {
+            if (retryAfter.get().compareTo(MAX_RETRY_AFTER) > 0) {
+                return Optional.empty();
+            }
+            if (retryAfter.get().compareTo(delay) > 0) {
+                delay = retryAfter.get();
+            }
+        }
+        if (!budget.tryConsume()) {
+            return Optional.empty();
+        }
+        return Optional.of(delay);
+    }
+
+    Duration decorrelatedJitter(Duration previousDelay) {
+        long base = baseDelay.toMillis();
+        long previous = previousDelay != null ? previousDelay.toMillis() : base;
+        long upper = Math.max(base + 1, previous * 3);
+        long next = ThreadLocalRandom.current().nextLong(base, upper);
+        return Duration.ofMillis(Math.min(maxDelay.toMillis(), next));
+    }
+
+    /**
+     * Classify a failure by walking its cause chain.
+     */
+    public static FailureKind classify(Throwable failure) {
+        for (Throwable current = failure; current != null; current = current.getCause()) {
+            if (current instanceof OpenAIServiceException serviceError) {
+                return classifyStatus(serviceError.statusCode());
+            }
+            if (current instanceof InterruptedIOException // Includes SocketTimeoutException
+                    || current instanceof SocketException // Connection reset / refused
+                    || current instanceof TimeoutException
+                    || current instanceof OpenAIIoException) {
+                return FailureKind.RETRYABLE;
+            }
+            if (current.getCause() == current) {
+                break;
+            }
+        }
+        return FailureKind.TERMINAL;
+    }
+
+    static FailureKind classifyStatus(int statusCode) {
+        if (statusCode == 408 || statusCode == 409 || statusCode == 429 || statusCode >= 500) {
+            return FailureKind.RETRYABLE;
+        }
+        return FailureKind.TERMINAL;
+    }
+
+    /**
+     * Wait requested by the server via Retry-After (seconds or HTTP date) or retry-after-ms.
+     */
+    static Optional<Duration> retryAfter(Throwable failure) {
+        for (Throwable current = failure; current != null; current = current.getCause()) {
+            if (current instanceof OpenAIServiceException serviceError && serviceError.headers() != null) {
+                Optional<Duration> millis = firstHeader(serviceError, "retry-after-ms")
+                        .flatMap(value -> parseLong(value).map(Duration::ofMillis));
+                if (millis.isPresent()) {
+                    return millis;
+                }
+                return firstHeader(serviceError, "retry-after").flatMap(RetryPolicy::parseRetryAfter);
+            }
+            if (current.getCause() == current) {
+                break;
+            }
+        }
+        return Optional.empty();
+    }
+
+    static Optional<Duration> parseRetryAfter(String value) {
+        Optional<Long> seconds = parseLong(value);
+        if (seconds.isPresent()) {
+            return Optional.of(Duration.ofSeconds(Math.max(0, seconds.get())));
+        }
+        try {
+            ZonedDateTime at = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+            Duration wait = Duration.between(ZonedDateTime.now(at.getZone()), at);
+            return Optional.of(wait.isNegative() ? Duration.ZERO : wait);
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static Optional<String> firstHeader(OpenAIServiceException error, String name) {
+        List<String> values = error.headers().values(name);
+        return values == null || values.isEmpty() ? Optional.empty() : Optional.of(values.get(0));
+    }
+
+    private static Optional<Long> parseLong(String value) {
+        try {
+            return Optional.of(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.complai.coldsales.agents.base.client;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical requests into one outstanding call.
+ *
+ * The first caller for a key starts the call; callers arriving while it is in flight
+ * attach to it instead of issuing their own. Every caller gets its own future, and
+ * cancellation is reference-counted: the shared call is only cancelled once every
+ * attached caller has cancelled, so one caller giving up never kills it for the others.
+ */
+final class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, Flight<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> call) {
+        while (true) {
+            Flight<V> existing = inFlight.get(key);
+            if (existing != null) {
+                if (existing.attach()) {
+                    coalesced.incrementAndGet();
+                    return existing.subscribe();
+                }
+                inFlight.remove(key, existing); // Abandoned by all callers, start a fresh one
+                continue;
+            }
+
+            Flight<V> flight = new Flight<>();
+            flight.attach();
+            if (inFlight.putIfAbsent(key, flight) != null) {
+                continue; // Lost the race, attach to the winner
+            }
+            flight.result.whenComplete((value, throwable) -> inFlight.remove(key, flight));
+            CompletableFuture<V> subscription = flight.subscribe();
+            flight.start(call);
+            return subscription;
+        }
+    }
+
+    /**
+     * Number of requests that attached to an in-flight call instead of issuing their own.
+     */
+    long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private static final class Flight<V> {
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+        private CompletableFuture<V> underlying;
+        private int subscribers;
+        private boolean abandoned;
+
+        synchronized boolean attach() {
+            if (abandoned) {
+                return false;
+            }
+            subscribers++;
+            return true;
+        }
+
+        void start(Supplier<CompletableFuture<V>> call) {
+            CompletableFuture<V> started;
+            try {
+                started = call.get();
+            } catch (Throwable t) {
+                started = CompletableFuture.failedFuture(t);
+            }
+            synchronized (this) {
+                underlying = started;
+                if (abandoned) {
+                    started.cancel(true);
+                }
+            }
+            started.whenComplete((value, throwable) -> {
+                if (throwable != null) {
+                    result.completeExceptionally(throwable);
+                } else {
+                    result.complete(value);
+                }
+            });
+        }
+
+        CompletableFuture<V> subscribe() {
+            CompletableFuture<V> mine = new CompletableFuture<>();
+            result.whenComplete((value, throwable) -> {
+                if (throwable != null) {
+                    mine.completeExceptionally(throwable);
+                } else {
+                    mine.complete(value);
+                }
+            });
+            mine.whenComplete((value, throwable) -> {
+                if (mine.isCancelled()) {
+                    detach();
+                }
+            });
+            return mine;
+        }
+
+        private void detach() {
+            CompletableFuture<V> toCancel;
+            synchronized (this) {
+                subscribers--;
+                if (subscribers > 0 || result.isDone()) {
+                    return;
+                }
+                abandoned = true;
+                toCancel = underlying;
+            }
+            if (toCancel != null) {
+                toCancel.cancel(true);
+            }
+            result.completeExceptionally(new CancellationException("All callers cancelled the shared request"));
+        }
+    }
+}
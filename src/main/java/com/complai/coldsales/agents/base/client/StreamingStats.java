@@ -0,0 +1,80 @@
+package com.complai.coldsales.agents.base.client;
+
+import lombok.Value;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-agent streaming latency: time to first token and generation speed.
+ */
+public final class StreamingStats {
+
+    private final Map<String, Counters> byAgent = new ConcurrentHashMap<>();
+
+    /**
+     * Record one finished stream.
+     *
+     * @param agentName Agent that ran
+     * @param timeToFirstTokenNanos From sending the request to the first text delta (0 if none arrived)
+     * @param generationNanos From the first delta to the end of the stream
+     * @param tokens Tokens generated
+     * @param aborted Whether the stream was stopped early
+     */
+    void record(String agentName, long timeToFirstTokenNanos, long generationNanos, long tokens, boolean aborted) {
+        byAgent.computeIfAbsent(agentName, name -> new Counters())
+                .record(timeToFirstTokenNanos, generationNanos, tokens, aborted);
+    }
+
+    /**
+     * Snapshot per agent, sorted by agent name.
+     */
+    Map<String, AgentStats> snapshot() {
+        Map<String, AgentStats> snapshot = new TreeMap<>();
+        byAgent.forEach((agent, counters) -> snapshot.put(agent, counters.snapshot()));
+        return snapshot;
+    }
+
+    private static final class Counters {
+        private long streams;
+        private long aborted;
+        private long firstTokens; // Streams that produced at least one token
+        private long totalTtftNanos;
+        private long maxTtftNanos;
+        private long tokens;
+        private long generationNanos;
+
+        synchronized void record(long ttftNanos, long generationTime, long tokenCount, boolean wasAborted) {
+            streams++;
+            if (wasAborted) {
+                aborted++;
+            }
+            if (ttftNanos > 0) {
+                firstTokens++;
+                totalTtftNanos += ttftNanos;
+                maxTtftNanos = Math.max(maxTtftNanos, ttftNanos);
+            }
+            tokens += tokenCount;
+            generationNanos += generationTime;
+        }
+
+        synchronized AgentStats snapshot() {
+            long avgTtftMs = firstTokens == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalTtftNanos / firstTokens);
+            double tokensPerSecond = generationNanos == 0 ? 0.0 : tokens / (generationNanos / 1e9);
+            return new AgentStats(streams, aborted, avgTtftMs, TimeUnit.NANOSECONDS.toMillis(maxTtftNanos),
+                    tokens, tokensPerSecond);
+        }
+    }
+
+    @Value
+    public static class AgentStats {
+        long streams;
+        long aborted;
+        long avgTimeToFirstTokenMs;
+        long maxTimeToFirstTokenMs;
+        long tokens;
+        double tokensPerSecond;
+    }
+}
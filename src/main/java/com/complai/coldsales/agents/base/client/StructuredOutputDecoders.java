@@ -0,0 +1,116 @@
+package com.complai.coldsales.agents.base.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decoders for structured output classes, built once per class.
+ *
+ * Each decoder holds a Jackson ObjectReader bound to the class, so per-call parsing skips the
+ * type lookup of ObjectMapper.readValue, and an emptiness check compiled from MethodHandle
+ * getters, so detecting an all-null answer no longer reflects over the class on every call.
+ * An output is empty when every instance field is null or an empty collection; classes with
+ * a primitive field can never be empty, since those always hold a value.
+ */
+final class StructuredOutputDecoders {
+
+    private static final Logger log = LoggerFactory.getLogger(StructuredOutputDecoders.class);
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private final ObjectMapper objectMapper;
+    private final Map<Class<?>, Decoder> decoders = new ConcurrentHashMap<>();
+
+    StructuredOutputDecoders(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Decoder for an output class, built on first use.
+     */
+    Decoder decoderFor(Class<?> type) {
+        return decoders.computeIfAbsent(type, t -> {
+            Decoder decoder = new Decoder(objectMapper.readerFor(t), compileGetters(t));
+            log.debug("🧩 Compiled structured output decoder for {}", t.getSimpleName());
+            return decoder;
+        });
+    }
+
+    /**
+     * Getters for the class's instance fields, or null when a primitive field makes it never empty.
+     */
+    private static MethodHandle[] compileGetters(Class<?> type) {
+        List<MethodHandle> getters = new ArrayList<>();
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                if (field.getType().isPrimitive()) {
+                    return null;
+                }
+                getters.add(lookup.unreflectGetter(field).asType(GETTER_TYPE));
+            }
+        } catch (IllegalAccessException e) {
+            log.debug("No private access to {}, its outputs are never treated as empty", type.getSimpleName());
+            return null;
+        }
+        return getters.toArray(new MethodHandle[0]);
+    }
+
+    static final class Decoder {
+        private final ObjectReader reader;
+        private final MethodHandle[] getters; // null = never empty
+
+        private Decoder(ObjectReader reader, MethodHandle[] getters) {
+            this.reader = reader;
+            this.getters = getters;
+        }
+
+        Object read(String json) throws IOException {
+            return reader.readValue(json);
+        }
+
+        Object read(JsonNode tree) throws IOException {
+            return reader.readValue(tree);
+        }
+
+        /**
+         * Whether a decoded output carries no data: null, or every field null or an empty collection.
+         */
+        boolean isEmpty(Object output) {
+            if (output == null) {
+                return true;
+            }
+            if (getters == null) {
+                return false;
+            }
+            try {
+                for (MethodHandle getter : getters) {
+                    Object value = getter.invokeExact(output);
+                    if (value != null && !(value instanceof Collection<?> collection && collection.isEmpty())) {
+                        return false;
+                    }
+                }
+                return true;
+            } catch (Throwable e) {
+                return false; // If we can't check, assume not empty
+            }
+        }
+    }
+}
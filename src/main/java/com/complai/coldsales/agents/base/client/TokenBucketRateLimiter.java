@@ -0,0 +1,192 @@
+package com.complai.coldsales.agents.base.client;
+
+import lombok.Value;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-model admission control with separate requests-per-minute and tokens-per-minute buckets.
+ *
+ * Callers reserve capacity up front and wait until their reservation is covered, so bursts
+ * queue in arrival order instead of failing with 429s. Token reservations are estimates
+ * (prompt + max completion tokens) and are corrected with the real usage once the response
+ * arrives via {@link #reconcile}; calls that end without a response (failed, cancelled, or
+ * turned away after admission) give their tokens back via {@link #refund}.
+ * A limit of 0 disables that bucket.
+ */
+public final class TokenBucketRateLimiter {
+
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final long requestsPerMinute;
+    private final long tokensPerMinute;
+    private final LongSupplier clock;
+    private final Map<String, ModelBuckets> buckets = new ConcurrentHashMap<>();
+
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public TokenBucketRateLimiter(long requestsPerMinute, long tokensPerMinute) {
+        this(requestsPerMinute, tokensPerMinute, System::nanoTime);
+    }
+
+    TokenBucketRateLimiter(long requestsPerMinute, long tokensPerMinute, LongSupplier clock) {
+        this.requestsPerMinute = Math.max(0, requestsPerMinute);
+        this.tokensPerMinute = Math.max(0, tokensPerMinute);
+        this.clock = clock;
+    }
+
+    public boolean isEnabled() {
+        return requestsPerMinute > 0 || tokensPerMinute > 0;
+    }
+
+    /**
+     * Block until one request and the estimated tokens are available for the model.
+     * If interrupted while waiting, the tokens are given back before the exception is thrown.
+     *
+     * @return time spent waiting, in nanoseconds
+     */
+    public long acquire(String model, long estimatedTokens) throws InterruptedException {
+        if (!isEnabled()) {
+            return 0;
+        }
+        long waitNanos = reserve(model, estimatedTokens);
+        admitted.incrementAndGet();
+        if (waitNanos > 0) {
+            throttled.incrementAndGet();
+            totalWaitNanos.addAndGet(waitNanos);
+            maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                refund(model, estimatedTokens);
+                throw e;
+            }
+        }
+        return waitNanos;
+    }
+
+    /**
+     * Reserve capacity and return how long the caller must wait before sending.
+     */
+    long reserve(String model, long estimatedTokens) {
+        return buckets.computeIfAbsent(model, m -> new ModelBuckets(clock.getAsLong()))
+                .reserve(estimatedTokens, clock.getAsLong());
+    }
+
+    /**
+     * Correct the token bucket once the real usage is known (refunds over-estimates,
+     * charges under-estimates).
+     *
+     * @param estimatedTokens The estimate the call was admitted with
+     */
+    public void reconcile(String model, long estimatedTokens, long actualTokens) {
+        if (tokensPerMinute <= 0 || actualTokens <= 0) {
+            return;
+        }
+        ModelBuckets modelBuckets = buckets.get(model);
+        if (modelBuckets != null) {
+            modelBuckets.adjustTokens(reservedTokens(estimatedTokens) - actualTokens);
+        }
+    }
+
+    /**
+     * Give back the tokens reserved for a call that produced no usage.
+     *
+     * @param estimatedTokens The estimate the call was admitted with
+     */
+    public void refund(String model, long estimatedTokens) {
+        if (tokensPerMinute <= 0) {
+            return;
+        }
+        ModelBuckets modelBuckets = buckets.get(model);
+        if (modelBuckets != null) {
+            modelBuckets.adjustTokens(reservedTokens(estimatedTokens));
+        }
+    }
+
+    /**
+     * Tokens actually taken from the bucket for an estimate: a single call can never need more
+     * than a full bucket.
+     */
+    private long reservedTokens(long estimatedTokens) {
+        return Math.min(estimatedTokens, tokensPerMinute);
+    }
+
+    public Stats getStats() {
+        return new Stats(
+                admitted.get(),
+                throttled.get(),
+                TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get()),
+                TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()));
+    }
+
+    private final class ModelBuckets {
+        private double requestBalance;
+        private double tokenBalance;
+        private long lastRefillNanos;
+
+        ModelBuckets(long now) {
+            this.requestBalance = requestsPerMinute;
+            this.tokenBalance = tokensPerMinute;
+            this.lastRefillNanos = now;
+        }
+
+        synchronized long reserve(long tokens, long now) {
+            refill(now);
+            long waitNanos = 0;
+            if (requestsPerMinute > 0) {
+                requestBalance -= 1;
+                waitNanos = Math.max(waitNanos, nanosUntilCovered(requestBalance, requestsPerMinute));
+            }
+            if (tokensPerMinute > 0) {
+                tokenBalance -= reservedTokens(tokens);
+                waitNanos = Math.max(waitNanos, nanosUntilCovered(tokenBalance, tokensPerMinute));
+            }
+            return waitNanos;
+        }
+
+        synchronized void adjustTokens(long delta) {
+            tokenBalance = Math.min(tokensPerMinute, tokenBalance + delta);
+        }
+
+        private void refill(long now) {
+            long elapsed = now - lastRefillNanos;
+            if (elapsed <= 0) {
+                return;
+            }
+            lastRefillNanos = now;
+            double minutes = (double) elapsed / NANOS_PER_MINUTE;
+            requestBalance = Math.min(requestsPerMinute, requestBalance + minutes * requestsPerMinute);
+            tokenBalance = Math.min(tokensPerMinute, tokenBalance + minutes * tokensPerMinute);
+        }
+
+        private long nanosUntilCovered(double balance, long perMinute) {
+            if (balance >= 0) {
+                return 0;
+            }
+            return (long) Math.ceil(-balance / perMinute * NANOS_PER_MINUTE);
+        }
+    }
+
+    /**
+     * Snapshot of rate limiter metrics.
+     */
+    @Value
+    public static class Stats {
+        long admitted;
+        long throttled;
+        long totalWaitMs;
+        long maxWaitMs;
+
+        public double getAverageWaitMs() {
+            return throttled == 0 ? 0.0 : (double) totalWaitMs / throttled;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.complai.coldsales.agents.base.client;
+
+import com.complai.coldsales.utils.tokenizer.Tokenizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keeps the tool-calling conversation from growing without bound.
+ *
+ * Every message the loop appends is recorded here with its position in the message list.
+ * Before each model call, content the model has already seen is compacted in place:
+ * assistant text from earlier turns is dropped, older tool results repeated by a later call
+ * are replaced by a reference, and if tool results still exceed the token budget the oldest
+ * are cut to a short head, then omitted. Messages are rewritten, never removed, so every
+ * tool_call in an assistant message keeps its matching tool message (toolCallId pairing).
+ * The latest turn's tool results are always sent in full.
+ *
+ * @param <M> Message type of the conversation
+ */
+final class ToolContextCompactor<M> {
+
+    static final int DEFAULT_BUDGET_TOKENS = 8000;
+    private static final int HEAD_TOKENS = 150; // Kept from an older tool result when it is cut
+
+    private final Tokenizer tokenizer;
+    private final int budgetTokens;
+    private final List<Entry<M>> entries = new ArrayList<>();
+
+    /**
+     * @param tokenizer Tokenizer of the model the conversation is sent to
+     * @param budgetTokens Max tokens of tool results kept in the conversation
+     */
+    ToolContextCompactor(Tokenizer tokenizer, int budgetTokens) {
+        this.tokenizer = tokenizer;
+        this.budgetTokens = budgetTokens > 0 ? budgetTokens : DEFAULT_BUDGET_TOKENS;
+    }
+
+    /**
+     * Record an assistant message; rebuild must recreate it (with its tool calls) around new text.
+     */
+    void recordAssistant(int index, int iteration, String content, Function<String, M> rebuild) {
+        entries.add(new Entry<>(index, iteration, null, content, tokenizer.count(content), rebuild));
+    }
+
+    /**
+     * Record a tool result; rebuild must recreate it (same toolCallId) around new content.
+     */
+    void recordToolResult(int index, int iteration, String toolName, String content, Function<String, M> rebuild) {
+        entries.add(new Entry<>(index, iteration, toolName, content, tokenizer.count(content), rebuild));
+    }
+
+    /**
+     * Compact messages from iterations before the current one.
+     *
+     * @return Tokens removed by this pass
+     */
+    int compact(List<M> messages, int currentIteration) {
+        int saved = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            Entry<M> entry = entries.get(i);
+            if (entry.iteration >= currentIteration) {
+                continue;
+            }
+            if (!entry.isToolResult() && !entry.content.isEmpty()) {
+                saved += rewrite(messages, entry, "", false);
+            } else if (entry.isToolResult() && !entry.compacted && !entry.omitted && repeatedLater(i)) {
+                saved += rewrite(messages, entry, "[Same result as a later " + entry.toolName + " call]", true);
+            }
+        }
+        int toolTokens = toolResultTokens();
+        for (Entry<M> entry : entries) {
+            if (toolTokens <= budgetTokens) {
+                return saved;
+            }
+            if (entry.isToolResult() && !entry.compacted && !entry.omitted && entry.iteration < currentIteration
+                    && entry.tokens > HEAD_TOKENS) {
+                int before = entry.tokens;
+                String head = tokenizer.truncate(entry.content, HEAD_TOKENS);
+                saved += rewrite(messages, entry, head + "\n...[compacted: " + (before - tokenizer.count(head))
+                        + " of " + before + " tokens omitted]", false);
+                toolTokens -= before - entry.tokens;
+            }
+        }
+        for (Entry<M> entry : entries) {
+            if (toolTokens <= budgetTokens) {
+                break;
+            }
+            if (entry.isToolResult() && !entry.omitted && entry.iteration < currentIteration) {
+                int before = entry.tokens;
+                saved += rewrite(messages, entry, "[" + entry.toolName + " result omitted to fit context]", true);
+                toolTokens -= before - entry.tokens;
+            }
+        }
+        return saved;
+    }
+
+    int toolResultTokens() {
+        int tokens = 0;
+        for (Entry<M> entry : entries) {
+            if (entry.isToolResult()) {
+                tokens += entry.tokens;
+            }
+        }
+        return tokens;
+    }
+
+    private boolean repeatedLater(int position) {
+        Entry<M> entry = entries.get(position);
+        for (int j = position + 1; j < entries.size(); j++) {
+            Entry<M> later = entries.get(j);
+            if (later.isToolResult() && later.toolName.equals(entry.toolName) && later.content.equals(entry.content)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int rewrite(List<M> messages, Entry<M> entry, String content, boolean omitted) {
+        int before = entry.tokens;
+        messages.set(entry.index, entry.rebuild.apply(content));
+        entry.content = content;
+        entry.tokens = tokenizer.count(content);
+        entry.compacted = true;
+        entry.omitted = omitted;
+        return before - entry.tokens;
+    }
+
+    private static final class Entry<M> {
+        final int index;
+        final int iteration;
+        final String toolName; // null for assistant messages
+        final Function<String, M> rebuild;
+        String content;
+        int tokens;
+        boolean compacted;
+        boolean omitted; // Replaced by a placeholder; nothing left to shrink
+
+        Entry(int index, int iteration, String toolName, String content, int tokens, Function<String, M> rebuild) {
+            this.index = index;
+            this.iteration = iteration;
+            this.toolName = toolName;
+            this.content = content != null ? content : "";
+            this.tokens = tokens;
+            this.rebuild = rebuild;
+        }
+
+        boolean isToolResult() {
+            return toolName != null;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.complai.coldsales.agents.base.client;
+
+import com.complai.coldsales.agents.base.core.Agent;
+import com.complai.coldsales.agents.base.tools.AgentTool;
+import com.openai.core.JsonValue;
+import com.openai.models.ChatCompletionTool;
+import com.openai.models.FunctionDefinition;
+import com.openai.models.FunctionParameters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiles an agent's AgentTools into OpenAI function-calling definitions.
+ *
+ * Definitions are built the first time an agent runs and reused for every later run,
+ * so the tool-calling loop never rebuilds JSON schemas on the hot path.
+ * Agents are tracked by identity (Agent is a @Data class with deep equals/hashCode).
+ */
+final class ToolDefinitionCompiler {
+
+    private static final Logger log = LoggerFactory.getLogger(ToolDefinitionCompiler.class);
+
+    // Every AgentTool takes a single "prompt" argument, so one parameters object is shared by all tools
+    private static final FunctionParameters PROMPT_PARAMETERS = FunctionParameters.builder()
+            .putAdditionalProperty("type", JsonValue.from("object"))
+            .putAdditionalProperty("properties", JsonValue.from(Map.of(
+                    "prompt", Map.of(
+                            "type", "string",
+                            "description", "The prompt to execute with this tool"
+                    )
+            )))
+            .putAdditionalProperty("required", JsonValue.from(List.of("prompt")))
+            .putAdditionalProperty("additionalProperties", JsonValue.from(false))
+            .build();
+
+    private final Map<AgentKey, CompiledTools> compiled = new ConcurrentHashMap<>();
+
+    /**
+     * Get the function definitions for an agent's tools, compiling them on first use.
+     * If the agent's tool list has been replaced since compilation, it is recompiled.
+     */
+    List<ChatCompletionTool> toolsFor(Agent agent) {
+        List<AgentTool> tools = agent.getTools();
+        CompiledTools cached = compiled.get(new AgentKey(agent));
+        if (cached != null && cached.source() == tools) {
+            return cached.definitions();
+        }
+        CompiledTools fresh = new CompiledTools(tools, compile(tools));
+        compiled.put(new AgentKey(agent), fresh);
+        log.debug("🔧 Compiled {} tool definition(s) for agent '{}'", fresh.definitions().size(), agent.getName());
+        return fresh.definitions();
+    }
+
+    private List<ChatCompletionTool> compile(List<AgentTool> tools) {
+        if (tools == null || tools.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<ChatCompletionTool> definitions = new ArrayList<>(tools.size());
+        for (AgentTool tool : tools) {
+            try {
+                definitions.add(toChatCompletionTool(tool));
+            } catch (Exception e) {
+                log.error("Failed to convert tool {} to OpenAI function: {}", tool.getName(), e.getMessage(), e);
+            }
+        }
+        return Collections.unmodifiableList(definitions);
+    }
+
+    static ChatCompletionTool toChatCompletionTool(AgentTool tool) {
+        return ChatCompletionTool.builder()
+                .type(ChatCompletionTool.Type.FUNCTION)
+                .function(FunctionDefinition.builder()
+                        .name(tool.getName())
+                        .description(tool.getDescription())
+                        .parameters(PROMPT_PARAMETERS)
+                        .build())
+                .build();
+    }
+
+    private record CompiledTools(List<AgentTool> source, List<ChatCompletionTool> definitions) {}
+}
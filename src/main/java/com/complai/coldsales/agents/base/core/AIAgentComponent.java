@@ -15,7 +15,7 @@ import java.util.List;
  * - Agent name
  * - Model
  * - Prompt ID (for instructions)
- * - Optional: output type, guardrails, tools
+ * - Optional: output type, guardrails, tools, execution options
  * 
  * This eliminates duplication of Agent.builder() calls across subclasses.
  */
@@ -30,6 +30,18 @@ public abstract class AIAgentComponent {
      * @param model The LLM model to use (e.g., "gpt-4o-mini")
      */
     protected AIAgentComponent(String model) {
+        this(model, null);
+    }
+
+    /**
+     * Constructs an agent with input guardrails passed in by the caller.
+     * Subclass fields are not yet assigned while this runs, so guardrails handed to a subclass
+     * constructor must come through here rather than through an overridden getGuardrails().
+     *
+     * @param model The LLM model to use (e.g., "gpt-4o-mini")
+     * @param guardrails Input guardrails; null to use getGuardrails()
+     */
+    protected AIAgentComponent(String model, List<GuardrailFunction> guardrails) {
         Agent.AgentBuilder builder = Agent.builder()
                 .name(getAgentName())
                 .instructions(getInstruction())
@@ -41,9 +53,9 @@ public abstract class AIAgentComponent {
             builder.outputType(outputType);
         }
 
-        List<GuardrailFunction> guardrails = getGuardrails();
-        if (guardrails != null && !guardrails.isEmpty()) {
-            builder.inputGuardrails(guardrails);
+        List<GuardrailFunction> inputGuardrails = guardrails != null ? guardrails : getGuardrails();
+        if (inputGuardrails != null && !inputGuardrails.isEmpty()) {
+            builder.inputGuardrails(inputGuardrails);
         }
 
         List<AgentTool> tools = getTools();
@@ -51,6 +63,11 @@ public abstract class AIAgentComponent {
             builder.tools(tools);
         }
 
+        AgentOptions options = getOptions();
+        if (options != null) {
+            builder.options(options);
+        }
+
         this.agent = builder.build();
     }
 
@@ -96,6 +113,14 @@ public abstract class AIAgentComponent {
         return Collections.emptyList();
     }
 
+    /**
+     * Optional: Return generation parameters and execution preferences (e.g., response caching).
+     * Return null to use the defaults.
+     */
+    protected AgentOptions getOptions() {
+        return null;
+    }
+
     /**
      * Optional: Create a service-backed agent tool.
      * Override in subclasses that wrap services (e.g., CompanyWebsiteAnalyzerAgent).
@@ -21,20 +21,23 @@ public class Agent {
     private Class<?> outputType;
     private List<GuardrailFunction> inputGuardrails;
     private List<AgentTool> tools;  // For agent-of-agents pattern
+    private AgentOptions options;   // Generation parameters and execution preferences
 
     public Agent() {
         this.inputGuardrails = new ArrayList<>();
         this.tools = new ArrayList<>();
+        this.options = AgentOptions.defaults();
     }
 
     public Agent(String name, String instructions, String model, Class<?> outputType,
-                 List<GuardrailFunction> inputGuardrails, List<AgentTool> tools) {
+                 List<GuardrailFunction> inputGuardrails, List<AgentTool> tools, AgentOptions options) {
         this.name = name;
         this.instructions = instructions;
         this.model = model;
         this.outputType = outputType;
         this.inputGuardrails = inputGuardrails != null ? inputGuardrails : new ArrayList<>();
         this.tools = tools != null ? tools : new ArrayList<>();
+        this.options = options != null ? options : AgentOptions.defaults();
     }
 
     /**
@@ -0,0 +1,46 @@
+package com.complai.coldsales.agents.base.core;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Per-agent generation parameters and execution preferences used by LLMClient.
+ * Unset preferences (null) fall back to the LLMClient defaults.
+ */
+@Value
+@Builder(toBuilder = true)
+public class AgentOptions {
+
+    @Builder.Default
+    double temperature = 0.7;
+
+    // Completion token cap (null = sized from the output schema, or the client default for text agents)
+    Long maxTokens;
+
+    // Token budget for the assembled user prompt; service data and research context are trimmed to fit
+    @Builder.Default
+    int promptTokenBudget = 6000;
+
+    // Response cache opt-in/opt-out (null = client default)
+    Boolean cacheResponses;
+
+    // Send a duplicate request when a call runs past this agent's p90 latency (off by default)
+    boolean hedgeRequests;
+
+    // Provider preference order, e.g. ["groq", "openai"] (null = client default)
+    List<String> providers;
+
+    // Stable context shared with other agents (product, campaign requirements), sent before the
+    // instructions so every request of those agents starts with the same cacheable prefix (null = none)
+    String sharedContext;
+
+    // Models to try cheapest first, escalating when the output fails validation
+    // (null = client default, empty = always use the agent's model)
+    List<String> modelCascade;
+
+    public static AgentOptions defaults() {
+        return AgentOptions.builder().build();
+    }
+}
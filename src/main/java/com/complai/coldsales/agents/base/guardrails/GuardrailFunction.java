@@ -15,7 +15,8 @@ public interface GuardrailFunction {
      * @param context The execution context
      * @param agent The agent being validated
      * @param message The message to validate
-     * @return A future containing the guardrail result
+     * @return A future containing the guardrail result. Cancelling it (when another guardrail
+     *         trips first) should cancel the check's own LLM call.
      */
     CompletableFuture<GuardrailResult> execute(Object context, Agent agent, String message);
 }
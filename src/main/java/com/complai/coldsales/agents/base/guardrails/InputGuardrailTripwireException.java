@@ -0,0 +1,20 @@
+package com.complai.coldsales.agents.base.guardrails;
+
+import lombok.Getter;
+
+/**
+ * Thrown (as the cause of a failed run) when one of an agent's input guardrails trips.
+ * The generation that was running alongside the guardrails has been cancelled.
+ */
+@Getter
+public class InputGuardrailTripwireException extends RuntimeException {
+
+    private final String agentName;
+    private final GuardrailResult result;
+
+    public InputGuardrailTripwireException(String agentName, GuardrailResult result) {
+        super("Input guardrail tripped for agent '" + agentName + "': " + result.getOutputInfo());
+        this.agentName = agentName;
+        this.result = result;
+    }
+}
@@ -19,9 +19,13 @@ public class LLMResult {
     private Object finalOutput;
     private String model;
     private int tokensUsed;
+    private int cachedTokens; // Prompt tokens the provider served from its prompt prefix cache
     private boolean isStructured;
     private int toolCallsMade;
     private List<String> toolsUsed;
+    private List<Integer> promptTokensPerIteration; // Tool-calling runs only
+    private int compactedTokens; // Tool-result tokens removed from the conversation by compaction
+    private List<Object> candidateOutputs; // Every parsed choice of a multi-candidate run, finalOutput first
 
     public LLMResult(Object output) {
         this.finalOutput = output;
@@ -30,6 +34,8 @@ public class LLMResult {
         this.isStructured = false;
         this.toolCallsMade = 0;
         this.toolsUsed = Collections.emptyList();
+        this.promptTokensPerIteration = Collections.emptyList();
+        this.candidateOutputs = Collections.emptyList();
     }
 }
 
@@ -2,8 +2,10 @@ package com.complai.coldsales.agents.base.tools;
 
 import com.complai.coldsales.agents.base.client.LLMClient;
 import com.complai.coldsales.agents.base.core.Agent;
+import com.complai.coldsales.agents.base.result.LLMResult;
 import com.complai.coldsales.utils.Result;
 import com.complai.coldsales.utils.ServiceError;
+import com.complai.coldsales.utils.Utils;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
@@ -25,7 +27,7 @@ public class AgentTool {
      * 
      * @param llmClient The LLMClient instance to use for executing the agent
      * @param prompt The prompt to execute
-     * @return A future containing the tool result as a string
+     * @return A future containing the tool result as a string; cancelling it cancels the agent's run
      */
     public CompletableFuture<Result<String, ServiceError>> execute(LLMClient llmClient, String prompt) {
         if (prompt == null || prompt.trim().isEmpty()) {
@@ -34,7 +36,8 @@ public class AgentTool {
         if (llmClient == null) {
             throw new IllegalArgumentException("LLMClient cannot be null");
         }
-        return llmClient.run(agent, prompt).thenApply(result -> {
+        CompletableFuture<LLMResult> run = llmClient.run(agent, prompt);
+        CompletableFuture<Result<String, ServiceError>> toolResult = run.thenApply(result -> {
             System.out.println(agent+ "--->"+ prompt);
             if (result == null || result.getFinalOutput() == null) {
                 return Result.<String, ServiceError>ok("");
@@ -52,6 +55,8 @@ public class AgentTool {
                     throwable
             ));
         });
+        Utils.propagateCancellation(toolResult, run);
+        return toolResult;
     }
 }
 
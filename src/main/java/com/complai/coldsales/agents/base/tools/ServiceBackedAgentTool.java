@@ -5,8 +5,11 @@ import com.complai.coldsales.agents.base.core.Agent;
 import com.complai.coldsales.services.ServiceTool;
 import com.complai.coldsales.utils.Result;
 import com.complai.coldsales.utils.ServiceError;
+import com.complai.coldsales.utils.ToolPromptBuilder;
+import com.complai.coldsales.utils.tokenizer.Tokenizers;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Helper base class for tools that need to invoke deterministic services
@@ -30,6 +33,15 @@ public abstract class ServiceBackedAgentTool extends AgentTool {
         return service;
     }
 
+    /**
+     * Prompt builder bounded by the underlying agent's prompt token budget.
+     */
+    protected ToolPromptBuilder promptBuilder(String originalPrompt) {
+        return ToolPromptBuilder.from(originalPrompt)
+                .withTokenBudget(Tokenizers.forModel(getAgent().getModel()),
+                        getAgent().getOptions().getPromptTokenBudget());
+    }
+
     /**
      * Fetch relevant deterministic context (web scraping, news, etc.)
      * before handing control to the LLM agent.
@@ -44,8 +56,14 @@ public abstract class ServiceBackedAgentTool extends AgentTool {
         if (llmClient == null) {
             throw new IllegalArgumentException("LLMClient cannot be null");
         }
-        return buildAugmentedPrompt(prompt)
-                .thenCompose(augmentedPrompt -> super.execute(llmClient, augmentedPrompt))
+        CompletableFuture<String> augmented = buildAugmentedPrompt(prompt);
+        AtomicReference<CompletableFuture<Result<String, ServiceError>>> agentRun = new AtomicReference<>();
+        CompletableFuture<Result<String, ServiceError>> toolResult = augmented
+                .thenCompose(augmentedPrompt -> {
+                    CompletableFuture<Result<String, ServiceError>> run = super.execute(llmClient, augmentedPrompt);
+                    agentRun.set(run);
+                    return run;
+                })
                 .exceptionally(throwable -> {
                     System.err.printf("⚠️  %s tool error: %s%n", service.getServiceName(), throwable.getMessage());
                     return Result.err(new ServiceError(
@@ -55,6 +73,17 @@ public abstract class ServiceBackedAgentTool extends AgentTool {
                             throwable
                     ));
                 });
+        // Cancelled (e.g. timed out): stop the service lookup or the agent run, whichever is going
+        toolResult.whenComplete((value, throwable) -> {
+            if (toolResult.isCancelled()) {
+                augmented.cancel(true);
+                CompletableFuture<?> run = agentRun.get();
+                if (run != null) {
+                    run.cancel(true);
+                }
+            }
+        });
+        return toolResult;
     }
 }
 
@@ -1,19 +1,15 @@
 package com.complai.coldsales.agents.email;
 
 import com.complai.coldsales.agents.base.core.AIAgentComponent;
+import com.complai.coldsales.agents.base.core.AgentOptions;
 import com.complai.coldsales.agents.base.guardrails.GuardrailFunction;
 import com.complai.coldsales.models.structured.EmailAnalysis;
-import lombok.Getter;
 import java.util.List;
 
 //Agent that analyzes and evaluates email effectiveness.
-@Getter
 public class StructuredEmailAnalyzerAgent extends AIAgentComponent {
-    private final List<GuardrailFunction> guardrails;
-
     public StructuredEmailAnalyzerAgent(String model, List<GuardrailFunction> guardrails) {
-        super(model);
-        this.guardrails = guardrails;
+        super(model, guardrails);
     }
 
     @Override
@@ -31,8 +27,9 @@ public class StructuredEmailAnalyzerAgent extends AIAgentComponent {
         return EmailAnalysis.class;
     }
 
+    // Stage 2 waits on all three analyses, so hedge stragglers
     @Override
-    protected List<GuardrailFunction> getGuardrails() {
-        return guardrails;
+    protected AgentOptions getOptions() {
+        return AgentOptions.builder().hedgeRequests(true).build();
     }
 }
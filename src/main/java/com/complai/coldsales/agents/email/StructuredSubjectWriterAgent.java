@@ -1,20 +1,16 @@
 package com.complai.coldsales.agents.email;
 
 import com.complai.coldsales.agents.base.core.AIAgentComponent;
+import com.complai.coldsales.agents.base.core.AgentOptions;
 import com.complai.coldsales.agents.base.guardrails.GuardrailFunction;
 import com.complai.coldsales.models.structured.EmailSubject;
-import lombok.Getter;
 
 import java.util.List;
 
 // Agent that generates structured email subjects with alternatives.
-@Getter
 public class StructuredSubjectWriterAgent extends AIAgentComponent {
-    private final List<GuardrailFunction> guardrails;
-
     public StructuredSubjectWriterAgent(String model, List<GuardrailFunction> guardrails) {
-        super(model);
-        this.guardrails = guardrails;
+        super(model, guardrails);
     }
 
     @Override
@@ -32,8 +28,9 @@ public class StructuredSubjectWriterAgent extends AIAgentComponent {
         return EmailSubject.class;
     }
 
+    // Runs alone in stage 4, so one slow call sets the whole stage's latency
     @Override
-    protected List<GuardrailFunction> getGuardrails() {
-        return guardrails;
+    protected AgentOptions getOptions() {
+        return AgentOptions.builder().hedgeRequests(true).build();
     }
 }
@@ -0,0 +1,25 @@
+package com.complai.coldsales.agents.sales;
+
+import com.complai.coldsales.agents.base.core.AgentOptions;
+import com.complai.coldsales.utils.PromptLoader;
+
+/**
+ * Campaign context shared by the three sales agents: product description, fixed requirements
+ * and output expectations. It is sent byte-identical ahead of each agent's own instructions,
+ * so the provider's prompt cache can serve it across agents and prospects.
+ */
+final class SalesCampaign {
+
+    static final String CONTEXT = PromptLoader.loadPrompt("sales/campaign-context");
+
+    private SalesCampaign() {
+    }
+
+    // Sampled at temperature 0.7, so a re-run should produce a fresh variant rather than a cached one
+    static AgentOptions options() {
+        return AgentOptions.builder()
+                .cacheResponses(false)
+                .sharedContext(CONTEXT)
+                .build();
+    }
+}
@@ -1,20 +1,16 @@
 package com.complai.coldsales.agents.sales;
 
 import com.complai.coldsales.agents.base.core.AIAgentComponent;
+import com.complai.coldsales.agents.base.core.AgentOptions;
 import com.complai.coldsales.agents.base.guardrails.GuardrailFunction;
 import com.complai.coldsales.models.structured.SalesEmail;
-import lombok.Getter;
 
 import java.util.List;
 
 // Busy executive sales agent with structured email output.
-@Getter
 public class StructuredBusySalesAgent extends AIAgentComponent {
-    private final List<GuardrailFunction> guardrails;
-
     public StructuredBusySalesAgent(String model, List<GuardrailFunction> guardrails) {
-        super(model);
-        this.guardrails = guardrails;
+        super(model, guardrails);
     }
 
     @Override
@@ -33,7 +29,7 @@ public class StructuredBusySalesAgent extends AIAgentComponent {
     }
 
     @Override
-    protected List<GuardrailFunction> getGuardrails() {
-        return guardrails;
+    protected AgentOptions getOptions() {
+        return SalesCampaign.options();
     }
 }
@@ -1,42 +1,81 @@
 package com.complai.coldsales.config;
 
 import com.complai.coldsales.agents.base.core.Agent;
+import com.complai.coldsales.agents.base.core.AgentOptions;
 import com.complai.coldsales.agents.base.guardrails.GuardrailFunction;
 import com.complai.coldsales.agents.base.guardrails.GuardrailResult;
 import com.complai.coldsales.agents.base.client.LLMClient;
+import com.complai.coldsales.agents.base.client.LLMProvider;
 import com.complai.coldsales.agents.base.result.LLMResult;
 import com.complai.coldsales.models.guardrails.BusinessContextCheck;
+import com.complai.coldsales.models.guardrails.CompositeGuardrailCheck;
 import com.complai.coldsales.models.guardrails.ContentSafetyCheck;
 import com.complai.coldsales.models.guardrails.PersonalDataCheck;
 import com.complai.coldsales.utils.PromptLoader;
+import com.complai.coldsales.utils.Utils;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 /**
  * Enhanced guardrail manager for sales content validation.
+ *
+ * In composite mode (the default) content safety, business context and personal data are
+ * checked by one agent in a single call with one structured verdict per check; separate mode
+ * runs the three checker agents as three calls, each with its own prompt and copy of the message.
  */
 public class EnhancedGuardrailManager {
-    
+
+    /**
+     * How the three checks are sent to the model.
+     */
+    public enum Mode {
+        COMPOSITE, // One call per message
+        SEPARATE;  // Three calls per message, kept for comparison
+
+        /**
+         * Mode from a setting value ("composite" or "separate"); composite when unset or unknown.
+         */
+        public static Mode fromSetting(String value) {
+            return value != null && value.trim().equalsIgnoreCase("separate") ? SEPARATE : COMPOSITE;
+        }
+    }
+
     private final LLMClient llmClient;
     private final String model;
+    private final Mode mode;
     private Agent contentSafetyAgent;
     private Agent businessContextAgent;
     private Agent personalDataAgent;
+    private Agent compositeAgent;
 
     public EnhancedGuardrailManager(LLMClient llmClient, String model) {
+        this(llmClient, model, Mode.COMPOSITE);
+    }
+
+    public EnhancedGuardrailManager(LLMClient llmClient, String model, Mode mode) {
         this.llmClient = llmClient;
         this.model = model != null ? model : "gpt-4o-mini";
+        this.mode = mode != null ? mode : Mode.COMPOSITE;
         initializeGuardrails();
     }
 
     private void initializeGuardrails() {
+        // Guardrail checks are short and gate generation, so slow ones are hedged.
+        // They are simple classifications, so prefer the fast low-cost providers when configured.
+        AgentOptions checkerOptions = AgentOptions.builder()
+                .hedgeRequests(true)
+                .providers(List.of(LLMProvider.GROQ, LLMProvider.GOOGLE, LLMProvider.DEEPSEEK, LLMProvider.OPENAI))
+                .build();
+
         // Content safety guardrail
         contentSafetyAgent = Agent.builder()
                 .name("Content Safety Checker")
                 .instructions(PromptLoader.loadPrompt("guardrails/content-safety-checker"))
                 .outputType(ContentSafetyCheck.class)
                 .model(model)
+                .options(checkerOptions)
                 .build();
 
         // Business context guardrail
@@ -45,6 +84,7 @@ public class EnhancedGuardrailManager {
                 .instructions(PromptLoader.loadPrompt("guardrails/business-context-checker"))
                 .outputType(BusinessContextCheck.class)
                 .model(model)
+                .options(checkerOptions)
                 .build();
 
         // Personal data guardrail
@@ -53,11 +93,28 @@ public class EnhancedGuardrailManager {
                 .instructions(PromptLoader.loadPrompt("guardrails/personal-data-checker"))
                 .outputType(PersonalDataCheck.class)
                 .model(model)
+                .options(checkerOptions)
+                .build();
+
+        // All three checks in one call
+        compositeAgent = Agent.builder()
+                .name("Guardrail Checker")
+                .instructions(PromptLoader.loadPrompt("guardrails/composite-checker"))
+                .outputType(CompositeGuardrailCheck.class)
+                .model(model)
+                .options(checkerOptions)
                 .build();
     }
 
+    public Mode getMode() {
+        return mode;
+    }
+
     // Get a standard set of guardrails for sales agents.
     public List<GuardrailFunction> getSalesGuardrails() {
+        if (mode == Mode.COMPOSITE) {
+            return List.of(createCompositeGuardrail());
+        }
         List<GuardrailFunction> guardrails = new ArrayList<>();
         guardrails.add(createContentSafetyGuardrail());
         guardrails.add(createBusinessContextGuardrail());
@@ -68,8 +125,7 @@ public class EnhancedGuardrailManager {
     // Create a guardrail for content safety validation.
     private GuardrailFunction createContentSafetyGuardrail() {
         return (context, agent, message) -> {
-            return llmClient.run(contentSafetyAgent, "Analyze this content for safety: " + message)
-                    .thenApply(result -> {
+            return check(contentSafetyAgent, "Analyze this content for safety: " + message, result -> {
                         Object output = result.getFinalOutput();
                         boolean isUnsafe = checkSafetyTrigger(output);
                         Map<String, Object> info =  Map.of("safety_check", output);
@@ -77,15 +133,14 @@ public class EnhancedGuardrailManager {
                                 .outputInfo(info)
                                 .tripwireTriggered(isUnsafe)
                                 .build();
-                    });
+            });
         };
     }
 
     // Create a guardrail for business context validation.
     private GuardrailFunction createBusinessContextGuardrail() {
         return (context, agent, message) -> {
-            return llmClient.run(businessContextAgent, "Analyze this content for business context: " + message)
-                    .thenApply(result -> {
+            return check(businessContextAgent, "Analyze this content for business context: " + message, result -> {
                         Object output = result.getFinalOutput();
                         boolean isInappropriate = checkContextTrigger(output);
                         Map<String, Object> info =  Map.of("context_check", output);
@@ -93,15 +148,14 @@ public class EnhancedGuardrailManager {
                                 .outputInfo(info)
                                 .tripwireTriggered(isInappropriate)
                                 .build();
-                    });
+            });
         };
     }
 
     // Create a guardrail for personal data protection.
     private GuardrailFunction createPersonalDataGuardrail() {
         return (context, agent, message) -> {
-            return llmClient.run(personalDataAgent, "Analyze this content for personal data: " + message)
-                    .thenApply(result -> {
+            return check(personalDataAgent, "Analyze this content for personal data: " + message, result -> {
                         Object output = result.getFinalOutput();
                         boolean hasPersonalData = checkDataTrigger(output);
                         Map<String, Object> info = Map.of("data_check", output);
@@ -109,12 +163,78 @@ public class EnhancedGuardrailManager {
                                 .outputInfo(info)
                                 .tripwireTriggered(hasPersonalData)
                                 .build();
-                    });
+            });
+        };
+    }
+
+    // Create a guardrail that runs all checks in one call, one verdict per check.
+    private GuardrailFunction createCompositeGuardrail() {
+        return (context, agent, message) -> {
+            return check(compositeAgent, "Analyze this content for safety, business context and personal data: " + message,
+                    result -> compositeResult(result.getFinalOutput()));
         };
     }
 
+    // Run one checker; cancelling the verdict (another guardrail tripped first) cancels its LLM call
+    private CompletableFuture<GuardrailResult> check(Agent checker, String prompt,
+                                                     Function<LLMResult, GuardrailResult> verdict) {
+        CompletableFuture<LLMResult> call = llmClient.run(checker, prompt);
+        CompletableFuture<GuardrailResult> result = call.thenApply(verdict);
+        Utils.propagateCancellation(result, call);
+        return result;
+    }
+
+    // Verdict of one composite answer. A verdict missing from a parsed answer blocks: the check it
+    // stands for did not run, so the content is unverified. Missing verdicts are not scanned as
+    // text, since the composite's own field names would match the keyword fallbacks.
+    GuardrailResult compositeResult(Object output) {
+        Map<String, Object> info = new HashMap<>();
+        if (!(output instanceof CompositeGuardrailCheck)) {
+            // An unparsed answer falls back to the keyword checks on its text, as in separate mode
+            info.put("safety_check", output);
+            info.put("context_check", output);
+            info.put("data_check", output);
+            boolean isTriggered = checkSafetyTrigger(output) || checkContextTrigger(output) || checkDataTrigger(output);
+            return GuardrailResult.builder().outputInfo(info).tripwireTriggered(isTriggered).build();
+        }
+
+        CompositeGuardrailCheck check = (CompositeGuardrailCheck) output;
+        List<String> missing = new ArrayList<>();
+        boolean isTriggered = false;
+        if (check.getContentSafety() != null) {
+            isTriggered |= checkSafetyTrigger(check.getContentSafety());
+            info.put("safety_check", check.getContentSafety());
+        } else {
+            missing.add("content_safety");
+        }
+        if (check.getBusinessContext() != null) {
+            isTriggered |= checkContextTrigger(check.getBusinessContext());
+            info.put("context_check", check.getBusinessContext());
+        } else {
+            missing.add("business_context");
+        }
+        if (check.getPersonalData() != null) {
+            isTriggered |= checkDataTrigger(check.getPersonalData());
+            info.put("data_check", check.getPersonalData());
+        } else {
+            missing.add("personal_data");
+        }
+        if (!missing.isEmpty()) {
+            System.err.println("⚠️  Guardrail answer has no verdict for " + missing + "; blocking unverified content");
+            info.put("missing_verdicts", missing);
+        }
+
+        return GuardrailResult.builder()
+                .outputInfo(info)
+                .tripwireTriggered(isTriggered || !missing.isEmpty())
+                .build();
+    }
+
     // Create a comprehensive guardrail that combines all checks.
     public GuardrailFunction createComprehensiveGuardrail() {
+        if (mode == Mode.COMPOSITE) {
+            return createCompositeGuardrail();
+        }
         return (context, agent, message) -> {
             // Run all checks in parallel
             CompletableFuture<LLMResult> safetyFuture = 
@@ -124,7 +244,7 @@ public class EnhancedGuardrailManager {
             CompletableFuture<LLMResult> dataFuture = 
                 llmClient.run(personalDataAgent, "Analyze this content for personal data: " + message);
 
-            return CompletableFuture.allOf(safetyFuture, contextFuture, dataFuture)
+            CompletableFuture<GuardrailResult> result = CompletableFuture.allOf(safetyFuture, contextFuture, dataFuture)
                     .thenApply(v -> {
                         Object safetyCheck = safetyFuture.join().getFinalOutput();
                         Object contextCheck = contextFuture.join().getFinalOutput();
@@ -147,6 +267,8 @@ public class EnhancedGuardrailManager {
                                 .tripwireTriggered(isTriggered)
                                 .build();
                     });
+            Utils.propagateCancellation(result, safetyFuture, contextFuture, dataFuture);
+            return result;
         };
     }
 
@@ -25,11 +25,44 @@ public class Settings {
     // Optional Configuration with defaults
     private String model;
     private String emailProvider;
+    private int emailVariantsPerTone; // Candidate emails generated per tone, requested as n choices
+    private String guardrailMode; // "composite" (one check call per message) or "separate" (three)
     
     // Multiple AI Model Support
     private String googleApiKey;
     private String deepseekApiKey;
     private String groqApiKey;
+    private String openaiBaseUrl; // Any OpenAI-compatible endpoint (optional)
+    private String googleModel;
+    private String deepseekModel;
+    private String groqModel;
+    private String llmProviderOrder; // Comma-separated provider preference, e.g. "openai,deepseek"
+    private String llmModelCascade; // Comma-separated models, cheapest first, e.g. "gpt-4o-mini,gpt-4o"
+    
+    // LLM Execution Engine ("virtual" thread-per-call or fixed "pool")
+    private String llmExecutor;
+    private int llmPoolSize;
+    
+    // LLM Response Cache (size 0 disables it)
+    private int llmCacheSize;
+    private long llmCacheTtlSeconds;
+    
+    // LLM Rate Limits per model (0 = unlimited)
+    private long llmRequestsPerMinute;
+    private long llmTokensPerMinute;
+    private int llmMaxConcurrency; // Ceiling for the adaptive per-model concurrency limit
+    private int llmToolContextTokens; // Tool-result tokens kept in a tool-calling conversation before compaction
+    
+    // LLM Retries
+    private int llmMaxAttempts; // Attempts per call, including the first
+    private int llmRetryBudget; // Max retries across all calls of one pipeline run
+    private double llmHedgeBudgetPercent; // Max duplicate requests, as % of hedge-eligible requests
+    private String llmFallbackModel; // Model used while the primary model's circuit is open (optional)
+    
+    // LLM Batch API mode for bulk campaigns (results arrive within 24h instead of seconds)
+    private boolean llmBatchMode;
+    private long llmBatchFlushSeconds; // How long calls are gathered before a batch is submitted
+    private long llmBatchPollSeconds;
     
     // SMTP Configuration
     private String smtpServer;
@@ -74,11 +107,36 @@ public class Settings {
         // Optional settings
         String model = dotenv.get("MODEL", "gpt-4o-mini");
         String sslCertFile = dotenv.get("SSL_CERT_FILE");
+        int emailVariantsPerTone = Integer.parseInt(dotenv.get("EMAIL_VARIANTS_PER_TONE", "1"));
+        String guardrailMode = dotenv.get("GUARDRAIL_MODE", "composite");
         
         // Optional AI model API keys
         String googleApiKey = dotenv.get("GOOGLE_API_KEY");
         String deepseekApiKey = dotenv.get("DEEPSEEK_API_KEY");
         String groqApiKey = dotenv.get("GROQ_API_KEY");
+        String openaiBaseUrl = dotenv.get("OPENAI_BASE_URL");
+        String googleModel = dotenv.get("GOOGLE_MODEL");
+        String deepseekModel = dotenv.get("DEEPSEEK_MODEL");
+        String groqModel = dotenv.get("GROQ_MODEL");
+        String llmProviderOrder = dotenv.get("LLM_PROVIDER_ORDER", "openai");
+        String llmModelCascade = dotenv.get("LLM_MODEL_CASCADE", "");
+        
+        // LLM execution engine
+        String llmExecutor = dotenv.get("LLM_EXECUTOR", "virtual");
+        int llmPoolSize = Integer.parseInt(dotenv.get("LLM_POOL_SIZE", "32"));
+        int llmCacheSize = Integer.parseInt(dotenv.get("LLM_CACHE_SIZE", "1000"));
+        long llmCacheTtlSeconds = Long.parseLong(dotenv.get("LLM_CACHE_TTL_SECONDS", "3600"));
+        long llmRequestsPerMinute = Long.parseLong(dotenv.get("LLM_RPM", "500"));
+        long llmTokensPerMinute = Long.parseLong(dotenv.get("LLM_TPM", "200000"));
+        int llmMaxConcurrency = Integer.parseInt(dotenv.get("LLM_MAX_CONCURRENCY", "64"));
+        int llmToolContextTokens = Integer.parseInt(dotenv.get("LLM_TOOL_CONTEXT_TOKENS", "8000"));
+        int llmMaxAttempts = Integer.parseInt(dotenv.get("LLM_MAX_ATTEMPTS", "4"));
+        int llmRetryBudget = Integer.parseInt(dotenv.get("LLM_RETRY_BUDGET", "10"));
+        double llmHedgeBudgetPercent = Double.parseDouble(dotenv.get("LLM_HEDGE_BUDGET_PERCENT", "10"));
+        String llmFallbackModel = dotenv.get("LLM_FALLBACK_MODEL", "");
+        boolean llmBatchMode = Boolean.parseBoolean(dotenv.get("LLM_BATCH_MODE", "false"));
+        long llmBatchFlushSeconds = Long.parseLong(dotenv.get("LLM_BATCH_FLUSH_SECONDS", "30"));
+        long llmBatchPollSeconds = Long.parseLong(dotenv.get("LLM_BATCH_POLL_SECONDS", "60"));
         
         String smtpServer = dotenv.get("SMTP_SERVER", "smtp.gmail.com");
         int smtpPort = Integer.parseInt(dotenv.get("SMTP_PORT", "587"));
@@ -88,9 +146,32 @@ public class Settings {
                 .openaiApiKey(openaiApiKey)
                 .model(model)
                 .emailProvider(emailProvider)
+                .emailVariantsPerTone(emailVariantsPerTone)
+                .guardrailMode(guardrailMode)
                 .googleApiKey(googleApiKey)
                 .deepseekApiKey(deepseekApiKey)
                 .groqApiKey(groqApiKey)
+                .openaiBaseUrl(openaiBaseUrl)
+                .googleModel(googleModel)
+                .deepseekModel(deepseekModel)
+                .groqModel(groqModel)
+                .llmProviderOrder(llmProviderOrder)
+                .llmModelCascade(llmModelCascade)
+                .llmExecutor(llmExecutor)
+                .llmPoolSize(llmPoolSize)
+                .llmCacheSize(llmCacheSize)
+                .llmCacheTtlSeconds(llmCacheTtlSeconds)
+                .llmRequestsPerMinute(llmRequestsPerMinute)
+                .llmTokensPerMinute(llmTokensPerMinute)
+                .llmMaxConcurrency(llmMaxConcurrency)
+                .llmToolContextTokens(llmToolContextTokens)
+                .llmMaxAttempts(llmMaxAttempts)
+                .llmRetryBudget(llmRetryBudget)
+                .llmHedgeBudgetPercent(llmHedgeBudgetPercent)
+                .llmFallbackModel(llmFallbackModel)
+                .llmBatchMode(llmBatchMode)
+                .llmBatchFlushSeconds(llmBatchFlushSeconds)
+                .llmBatchPollSeconds(llmBatchPollSeconds)
                 .smtpServer(smtpServer)
                 .smtpPort(smtpPort)
                 .smtpUsername(smtpUsername)
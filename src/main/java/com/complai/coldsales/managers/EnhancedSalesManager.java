@@ -3,6 +3,7 @@ package com.complai.coldsales.managers;
 import com.complai.coldsales.agents.base.core.Agent;
 import com.complai.coldsales.agents.base.guardrails.GuardrailFunction;
 import com.complai.coldsales.agents.base.client.LLMClient;
+import com.complai.coldsales.agents.base.client.RetryBudget;
 import com.complai.coldsales.agents.email.HTMLConverterAgent;
 import com.complai.coldsales.agents.email.StructuredEmailAnalyzerAgent;
 import com.complai.coldsales.agents.email.StructuredSubjectWriterAgent;
@@ -24,6 +25,8 @@ import com.complai.coldsales.models.result.PipelineResult;
 import com.complai.coldsales.pipelines.EmailPipeline;
 import com.complai.coldsales.pipelines.ResearchPipeline;
 import com.complai.coldsales.services.EmailService;
+import com.complai.coldsales.utils.tokenizer.Tokenizer;
+import com.complai.coldsales.utils.tokenizer.Tokenizers;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 
@@ -59,7 +62,8 @@ public class EnhancedSalesManager implements SalesManager{
         String model = settings.getModel();
 
         // Initialize guardrail manager
-        this.guardrailManager = new EnhancedGuardrailManager(llmClient, model);
+        this.guardrailManager = new EnhancedGuardrailManager(llmClient, model,
+                EnhancedGuardrailManager.Mode.fromSetting(settings.getGuardrailMode()));
         List<GuardrailFunction> salesGuardrails = guardrailManager.getSalesGuardrails();
         
         // Initialize structured sales agents with guardrails (only pass model, not entire Settings)
@@ -82,7 +86,10 @@ public class EnhancedSalesManager implements SalesManager{
     @Override
     public CompletableFuture<PipelineResult> sendStructuredColdEmail(String message) {
         System.out.println("🎯 Running MANUAL ORCHESTRATION...\n" + "   Fixed pipeline: generate → analyze → select → send\n");
-        EmailPipeline pipeline = new EmailPipeline(llmClient, professionalAgent, engagingAgent, busyAgent, emailAnalyzer, subjectWriter, htmlConverter, emailService);
+        if (!llmClient.isAcceptingWork()) {
+            return CompletableFuture.completedFuture(rejectWhileCircuitOpen());
+        }
+        EmailPipeline pipeline = new EmailPipeline(runScopedClient(), professionalAgent, engagingAgent, busyAgent, emailAnalyzer, subjectWriter, htmlConverter, emailService, settings.getEmailVariantsPerTone());
         return pipeline.run(message)
                 .thenApply(result -> (PipelineResult) new EmailResult(result))
                 .exceptionally(throwable -> (PipelineResult) handlePipelineError(throwable, "Error in sendStructuredColdEmail"));
@@ -91,46 +98,67 @@ public class EnhancedSalesManager implements SalesManager{
     @Override
     public CompletableFuture<PipelineResult> sendPersonalizedColdEmail(String companyName, String targetRole) {
         System.out.println("🎯 Running HYBRID WORKFLOW...\n" + "   Phase 1: Agent-of-Agents (Prospect Research)\n" + "   Phase 2: Manual Orchestration (Email Generation)\n");
-        return CompletableFuture.supplyAsync(() -> {
-            logStartForHybridFlow(targetRole,companyName);
-            try {
-                // PATTERN 1: AGENT-OF-AGENTS (Research Phase)
-                ResearchRunResult researchResult = new ResearchPipeline(llmClient, prospectResearcher).run(companyName, targetRole).join();
-                String researchSummary = researchResult.getSummary();
-
-                // PATTERN 2: MANUAL ORCHESTRATION (Email Phase)
-                logPhase2();
-                String enhancedPrompt = getEnhancedPrompt(targetRole, companyName, researchSummary);
-                EmailPipelineResult emailResult = new EmailPipeline(llmClient, professionalAgent, engagingAgent, busyAgent, emailAnalyzer, subjectWriter, htmlConverter, emailService)
-                        .run(enhancedPrompt).join(); // Run the EXISTING manual orchestration pipeline
-
-                EmailHybridResult hybrid = new EmailHybridResult(
-                        emailResult,
-                        new ResearchPhase(researchResult.getToolCallsMade(), researchResult.getToolNames(), researchSummary),
-                        new EmailPhase(
-                                "manual-orchestration",
-                                Arrays.asList("generate", "analyze", "select", "subject", "html", "send")
-                        )
-                );
-                logEndOfHybridFlow(hybrid);
-                return (PipelineResult) new HybridResult(hybrid);
-            } catch (Exception e) {
-                return (PipelineResult) handlePipelineError(e, "Error in hybrid workflow");
-            }
-        });
+        if (!llmClient.isAcceptingWork()) {
+            return CompletableFuture.completedFuture(rejectWhileCircuitOpen());
+        }
+        logStartForHybridFlow(targetRole, companyName);
+        LLMClient runClient = runScopedClient(); // Research and email phases share one retry budget
+        // Composed without blocking joins so no thread is parked while the LLM calls are in flight
+        // PATTERN 1: AGENT-OF-AGENTS (Research Phase)
+        return new ResearchPipeline(runClient, prospectResearcher).run(companyName, targetRole)
+                .thenCompose(researchResult -> {
+                    String researchSummary = researchResult.getSummary();
+
+                    // PATTERN 2: MANUAL ORCHESTRATION (Email Phase)
+                    logPhase2();
+                    String enhancedPrompt = getEnhancedPrompt(targetRole, companyName, researchSummary);
+                    return new EmailPipeline(runClient, professionalAgent, engagingAgent, busyAgent, emailAnalyzer, subjectWriter, htmlConverter, emailService, settings.getEmailVariantsPerTone())
+                            .run(enhancedPrompt) // Run the EXISTING manual orchestration pipeline
+                            .thenApply(emailResult -> {
+                                EmailHybridResult hybrid = new EmailHybridResult(
+                                        emailResult,
+                                        new ResearchPhase(researchResult.getToolCallsMade(), researchResult.getToolNames(), researchSummary),
+                                        new EmailPhase(
+                                                "manual-orchestration",
+                                                Arrays.asList("generate", "analyze", "select", "subject", "html", "send")
+                                        )
+                                );
+                                logEndOfHybridFlow(hybrid);
+                                return (PipelineResult) new HybridResult(hybrid);
+                            });
+                })
+                .exceptionally(throwable -> (PipelineResult) handlePipelineError(throwable, "Error in hybrid workflow"));
     }
 
+    // Each pipeline run gets its own retry budget so one degraded run can't retry indefinitely
+    private LLMClient runScopedClient() {
+        return llmClient.withRetryBudget(RetryBudget.of(settings.getLlmRetryBudget()));
+    }
+
+    // Research summaries can run long; they are trimmed so the email writers' prompt stays within budget
     private String getEnhancedPrompt(String targetRole, String companyName, String researchSummary){
-        return "Write a highly personalized cold sales email for ComplAI " +
-                "(SOC2 compliance automation platform).\n\n" +
-                "Target: " + targetRole + " at " + companyName + "\n\n" +
-                "RESEARCH INSIGHTS:\n" + researchSummary + "\n\n" +
-                "REQUIREMENTS:\n" +
-                "- Use the research insights to make the email feel personal and relevant\n" +
-                "- Reference specific pain points or opportunities identified in research\n" +
-                "- Mention recent news/events if available\n" +
-                "- Keep tone professional but approachable\n" +
-                "- Clear call to action for a 15-minute demo";
+        Tokenizer tokenizer = Tokenizers.forModel(professionalAgent.getModel());
+        String frame = enhancedPrompt(targetRole, companyName, "");
+        int summaryBudget = professionalAgent.getOptions().getPromptTokenBudget() - tokenizer.count(frame);
+        String insights = researchSummary != null ? researchSummary : "";
+        if (tokenizer.count(insights) > summaryBudget) {
+            insights = tokenizer.truncate(insights, Math.max(0, summaryBudget - 2)) + "...";
+        }
+        return enhancedPrompt(targetRole, companyName, insights);
+    }
+
+    // Only the per-prospect part; the product and campaign requirements are the sales agents'
+    // shared context (prompts/sales/campaign-context), sent ahead of this as a cacheable prefix
+    private static String enhancedPrompt(String targetRole, String companyName, String researchSummary) {
+        return "Target: " + targetRole + " at " + companyName + "\n\n" +
+                "RESEARCH INSIGHTS:\n" + researchSummary;
+    }
+
+    // Don't start a pipeline whose LLM calls would all fail fast against an open circuit
+    private PipelineResult rejectWhileCircuitOpen() {
+        String message = "LLM endpoint unavailable (circuit open): " + llmClient.getCircuitStates();
+        System.err.println("⛔ " + message);
+        return new ErrorResult(message);
     }
 
     // Error handler - Returns type-safe ErrorResult instead of Map
@@ -0,0 +1,36 @@
+package com.complai.coldsales.models.guardrails;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Composite guardrail output.
+ * Content safety, business context and personal data verdicts from a single check of the content.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompositeGuardrailCheck {
+
+    @JsonProperty("content_safety")
+    private ContentSafetyCheck contentSafety;
+
+    @JsonProperty("business_context")
+    private BusinessContextCheck businessContext;
+
+    @JsonProperty("personal_data")
+    private PersonalDataCheck personalData;
+
+    @Override
+    public String toString() {
+        return "CompositeGuardrailCheck{" +
+                "contentSafety=" + contentSafety +
+                ", businessContext=" + businessContext +
+                ", personalData=" + personalData +
+                '}';
+    }
+}
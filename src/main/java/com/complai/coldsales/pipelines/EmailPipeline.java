@@ -2,6 +2,7 @@ package com.complai.coldsales.pipelines;
 
 import com.complai.coldsales.agents.base.core.Agent;
 import com.complai.coldsales.agents.base.client.LLMClient;
+import com.complai.coldsales.agents.base.client.LLMStream;
 import com.complai.coldsales.agents.base.result.LLMResult;
 import com.complai.coldsales.utils.Utils;
 import com.complai.coldsales.managers.reporting.*;
@@ -17,7 +18,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import static com.complai.coldsales.utils.ExtractorUtils.extractSalesEmail;
+import static com.complai.coldsales.utils.ExtractorUtils.extractSalesEmails;
 import static com.complai.coldsales.utils.ExtractorUtils.extractSubjectData;
 
 /**
@@ -34,6 +35,15 @@ public class EmailPipeline {
     private final Agent subjectWriter;
     private final Agent htmlConverter;
     private final EmailService emailService;
+    private final int variantsPerTone; // Candidate emails per tone agent, requested as n choices
+
+    private static final int HTML_CHECK_CHARS = 200;
+
+    public EmailPipeline(LLMClient llmClient, Agent professionalAgent, Agent engagingAgent, Agent busyAgent,
+                         Agent emailAnalyzer, Agent subjectWriter, Agent htmlConverter, EmailService emailService) {
+        this(llmClient, professionalAgent, engagingAgent, busyAgent, emailAnalyzer, subjectWriter, htmlConverter,
+                emailService, 1);
+    }
     
     public CompletableFuture<EmailPipelineResult> run(String message) {
         return stage1GenerateEmails(message)
@@ -80,25 +90,38 @@ public class EmailPipeline {
                 .runAsync(() -> {
                     String body = ctx.getBestEmail().getBody();
                     if (body == null || body.isBlank()) body = "Email body not available";
-                    return llmClient.run(htmlConverter, body)
-                            .thenApply(r -> r.getFinalOutput().toString())
-                            .thenApply(html -> emailService.sendHtmlEmail(html, ctx.getSubject().getPrimarySubject()));
+                    // HTML is written into the outgoing message as it is generated
+                    LLMStream html = llmClient.runStreaming(htmlConverter, body)
+                            .abortIf(EmailPipeline::isNotHtml, "HTML converter did not return HTML");
+                    return CompletableFuture.supplyAsync(
+                            () -> emailService.sendHtmlEmail(html.asInputStream(), ctx.getSubject().getPrimarySubject()),
+                            llmClient.getExecutor())
+                            .whenComplete((sent, throwable) -> html.abort("email was not sent")); // No-op once complete
                 })
                 .thenApply(result -> new EmailPipelineContexts.SentCtx(ctx.getBestEmail(), ctx.getBestAnalysis(), ctx.getSubject(), result));
     }
 
     // Helper Methods
+
+    /**
+     * Inline check for the streamed HTML body: once enough has arrived, it must contain markup.
+     */
+    private static boolean isNotHtml(String htmlSoFar) {
+        return htmlSoFar.length() >= HTML_CHECK_CHARS && htmlSoFar.indexOf('<') < 0;
+    }
+
     private CompletableFuture<List<SalesEmail>> generateStructuredEmails(String message) {
         return Utils.trace("Structured email generation", () -> {
-            CompletableFuture<LLMResult> professionalFuture = llmClient.run(professionalAgent, message);
-            CompletableFuture<LLMResult> engagingFuture = llmClient.run(engagingAgent, message);
-            CompletableFuture<LLMResult> busyFuture = llmClient.run(busyAgent, message);
+            int variants = Math.max(1, variantsPerTone);
+            CompletableFuture<LLMResult> professionalFuture = llmClient.runCandidates(professionalAgent, message, variants);
+            CompletableFuture<LLMResult> engagingFuture = llmClient.runCandidates(engagingAgent, message, variants);
+            CompletableFuture<LLMResult> busyFuture = llmClient.runCandidates(busyAgent, message, variants);
             return CompletableFuture.allOf(professionalFuture, engagingFuture, busyFuture)
                     .thenApply(v -> {
                         List<SalesEmail> emails = new ArrayList<>();
-                        emails.add(extractSalesEmail(professionalFuture.join()));
-                        emails.add(extractSalesEmail(engagingFuture.join()));
-                        emails.add(extractSalesEmail(busyFuture.join()));
+                        emails.addAll(extractSalesEmails(professionalFuture.join()));
+                        emails.addAll(extractSalesEmails(engagingFuture.join()));
+                        emails.addAll(extractSalesEmails(busyFuture.join()));
                         return emails;
                     });
         });
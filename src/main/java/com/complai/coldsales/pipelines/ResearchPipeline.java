@@ -49,7 +49,7 @@ public class ResearchPipeline {
     private CompletableFuture<ResearchRunResult> stage2BuildSummary(String companyName, RunnerSnapshot snapshot) {
         ResearchPipelineStep2Reporter step2 = new ResearchPipelineStep2Reporter(companyName);
         return CompletableFuture.supplyAsync(() ->
-                step2.run(() -> ProspectResearch.buildProspectResearchSummary(companyName, snapshot.getFinalOutput())))
+                step2.run(() -> ProspectResearch.buildProspectResearchSummary(companyName, snapshot.getFinalOutput())), llmClient.getExecutor())
                 .thenApply(summary -> new ResearchRunResult(snapshot.getFinalOutput(), snapshot.getToolCallsMade(), snapshot.getToolNames(), summary));
     }
 }
@@ -2,9 +2,14 @@ package com.complai.coldsales.services;
 
 import com.complai.coldsales.config.Settings;
 
+import jakarta.activation.DataHandler;
+import jakarta.activation.DataSource;
 import jakarta.mail.*;
 import jakarta.mail.internet.InternetAddress;
 import jakarta.mail.internet.MimeMessage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
@@ -55,6 +60,26 @@ public class EmailService implements ServiceTool {
         }
     }
 
+    /**
+     * Send an HTML email whose body is read from a stream while the message is being sent,
+     * so the body can still be in the making (e.g. streamed from an LLM) when sending starts.
+     * If the stream fails before its end, the SMTP transaction is abandoned and nothing is sent.
+     */
+    public Map<String, String> sendHtmlEmail(InputStream htmlBody, String subject) {
+        if ("smtp".equals(provider)) {
+            return sendViaSmtp(subject, "Streamed HTML ", message -> {
+                message.setDataHandler(new DataHandler(streamingHtml(htmlBody)));
+                // Set explicitly, otherwise the body is read ahead of sending to pick an encoding
+                message.setHeader("Content-Transfer-Encoding", "quoted-printable");
+            });
+        } else {
+            Map<String, String> result = new HashMap<>();
+            result.put("status", "error");
+            result.put("message", "Unsupported email provider: " + provider);
+            return result;
+        }
+    }
+
     /**
      * Send a test email to verify configuration.
      */
@@ -69,6 +94,16 @@ public class EmailService implements ServiceTool {
      * Send email via SMTP (Gmail, etc.).
      */
     private Map<String, String> sendViaSmtp(String body, String subject, boolean isHtml) {
+        return sendViaSmtp(subject, isHtml ? "HTML " : "", message -> {
+            if (isHtml) {
+                message.setContent(body, "text/html; charset=utf-8");
+            } else {
+                message.setText(body);
+            }
+        });
+    }
+
+    private Map<String, String> sendViaSmtp(String subject, String kind, MessageContent content) {
         Map<String, String> result = new HashMap<>();
         
         try {
@@ -98,18 +133,13 @@ public class EmailService implements ServiceTool {
             message.setSubject(subject);
 
             // Set content
-            if (isHtml) {
-                message.setContent(body, "text/html; charset=utf-8");
-            } else {
-                message.setText(body);
-            }
+            content.applyTo(message);
 
             // Send message
             Transport.send(message);
 
             result.put("status", "success");
-            result.put("message", (isHtml ? "HTML " : "") + 
-                                 "Email sent successfully via SMTP");
+            result.put("message", kind + "Email sent successfully via SMTP");
             
         } catch (Exception e) {
             result.put("status", "error");
@@ -119,4 +149,36 @@ public class EmailService implements ServiceTool {
         
         return result;
     }
+
+    /**
+     * One-shot data source over a body stream; the stream is consumed as the message is written.
+     */
+    private static DataSource streamingHtml(InputStream html) {
+        return new DataSource() {
+            @Override
+            public InputStream getInputStream() {
+                return html;
+            }
+
+            @Override
+            public OutputStream getOutputStream() throws IOException {
+                throw new IOException("Streamed email body is read-only");
+            }
+
+            @Override
+            public String getContentType() {
+                return "text/html; charset=utf-8";
+            }
+
+            @Override
+            public String getName() {
+                return "body.html";
+            }
+        };
+    }
+
+    @FunctionalInterface
+    private interface MessageContent {
+        void applyTo(Message message) throws MessagingException;
+    }
 }
@@ -2,6 +2,8 @@ package com.complai.coldsales.services;
 
 import com.complai.coldsales.utils.Result;
 import com.complai.coldsales.utils.ServiceError;
+import com.complai.coldsales.utils.tokenizer.Tokenizer;
+import com.complai.coldsales.utils.tokenizer.Tokenizers;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import okhttp3.OkHttpClient;
@@ -211,7 +213,17 @@ public class WebScraperService implements ServiceTool {
         private final String companySize;
         private final String industry;
 
+        private static final int MAIN_TEXT_TOKENS = 500;
+
         public String toAnalysisPrompt() {
+            return toAnalysisPrompt(Tokenizers.defaultTokenizer(), MAIN_TEXT_TOKENS);
+        }
+
+        /**
+         * Analysis prompt with the page's main text cut to mainTextTokens (at a word boundary).
+         */
+        public String toAnalysisPrompt(Tokenizer tokenizer, int mainTextTokens) {
+            String mainContent = tokenizer.truncate(mainText, mainTextTokens);
             return Stream.of(
                     "WEBSITE: " + url,
                     "TITLE: " + title,
@@ -225,8 +237,8 @@ public class WebScraperService implements ServiceTool {
                             headings.stream()
                                     .map(h -> "- " + h)
                                     .collect(Collectors.joining("\n")),
-                    "MAIN CONTENT (first 2000 chars):\n" + 
-                            (mainText.length() > 2000 ? mainText.substring(0, 2000) + "..." : mainText)
+                    "MAIN CONTENT (first " + mainTextTokens + " tokens):\n" +
+                            (mainContent.length() < mainText.length() ? mainContent + "..." : mainText)
             ).filter(Objects::nonNull)
              .collect(Collectors.joining("\n\n"));
         }
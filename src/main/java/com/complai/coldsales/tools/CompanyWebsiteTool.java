@@ -27,7 +27,7 @@ public class CompanyWebsiteTool extends ServiceBackedAgentTool {
 
     @Override
     protected CompletableFuture<String> buildAugmentedPrompt(String prompt) {
-        ToolPromptBuilder builder = ToolPromptBuilder.from(prompt).withExtractedCompanyName();
+        ToolPromptBuilder builder = promptBuilder(prompt).withExtractedCompanyName();
         
         return webScraper.findCompanyWebsite(builder.getCompanyName())
                 .thenCompose(urlResult -> {
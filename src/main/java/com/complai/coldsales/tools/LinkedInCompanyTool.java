@@ -26,7 +26,7 @@ public class LinkedInCompanyTool extends ServiceBackedAgentTool {
 
     @Override
     protected CompletableFuture<String> buildAugmentedPrompt(String prompt) {
-        ToolPromptBuilder builder = ToolPromptBuilder.from(prompt).withExtractedCompanyName();
+        ToolPromptBuilder builder = promptBuilder(prompt).withExtractedCompanyName();
         return builder.wrapServiceDataResult(
                 linkedInScraper.scrapeCompanyPage(builder.getCompanyName()),
                 LinkedInScraperService.LinkedInCompanyData::toAnalysisPrompt,
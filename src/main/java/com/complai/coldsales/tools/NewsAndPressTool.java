@@ -26,7 +26,7 @@ public class NewsAndPressTool extends ServiceBackedAgentTool {
 
     @Override
     protected CompletableFuture<String> buildAugmentedPrompt(String prompt) {
-        ToolPromptBuilder builder = ToolPromptBuilder.from(prompt).withExtractedCompanyName();
+        ToolPromptBuilder builder = promptBuilder(prompt).withExtractedCompanyName();
         return builder.wrapServiceDataResultWithCustomInstruction(
                 newsSearch.searchRecentNews(builder.getCompanyName()),
                 newsSearch::formatArticlesForAnalysis,
@@ -7,11 +7,27 @@ import com.complai.coldsales.models.structured.EmailSubject;
 import com.complai.coldsales.models.structured.ProspectResearch;
 import com.complai.coldsales.models.structured.SalesEmail;
 
+import java.util.List;
+
 public class ExtractorUtils {
 
 
     public static SalesEmail extractSalesEmail(LLMResult result) {
-        Object output = result.getFinalOutput();
+        return toSalesEmail(result.getFinalOutput());
+    }
+
+    /**
+     * Every candidate email of a multi-candidate run (just the final output for a normal run).
+     */
+    public static List<SalesEmail> extractSalesEmails(LLMResult result) {
+        List<Object> candidates = result.getCandidateOutputs();
+        if (candidates == null || candidates.isEmpty()) {
+            return List.of(extractSalesEmail(result));
+        }
+        return candidates.stream().map(ExtractorUtils::toSalesEmail).toList();
+    }
+
+    private static SalesEmail toSalesEmail(Object output) {
         SalesEmail email = output instanceof SalesEmail ? (SalesEmail) output : SalesEmail.fallback(output);
         // Defensive: ensure body is never null
         if (email.getBody() == null || email.getBody().isBlank()) {
@@ -1,5 +1,7 @@
 package com.complai.coldsales.utils;
 
+import com.complai.coldsales.utils.tokenizer.Tokenizer;
+
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 import java.util.regex.Pattern;
@@ -9,6 +11,7 @@ import java.util.regex.Pattern;
  * 
  * Eliminates duplication across CompanyWebsiteTool, LinkedInCompanyTool, and NewsAndPressTool
  * by centralizing company name extraction and prompt formatting logic.
+ * With a token budget, service data is trimmed from the end so the whole prompt fits.
  */
 public final class ToolPromptBuilder {
     
@@ -16,8 +19,12 @@ public final class ToolPromptBuilder {
             "Research\\s+([A-Za-z0-9\\s&.-]+?)\\s+(?:for|to|at)", Pattern.CASE_INSENSITIVE
     );
     
+    private static final String TRUNCATION_MARKER = "\n...[truncated to fit token budget]";
+
     private final String originalPrompt;
     private String companyName;
+    private Tokenizer tokenizer;
+    private int maxTokens; // 0 = no budget
     
     private ToolPromptBuilder(String originalPrompt) {
         this.originalPrompt = originalPrompt;
@@ -47,6 +54,16 @@ public final class ToolPromptBuilder {
         return this;
     }
     
+    /**
+     * Limit the built prompt to maxTokens, as counted by the given tokenizer.
+     * Only the service data is trimmed; the instruction around it is always kept.
+     */
+    public ToolPromptBuilder withTokenBudget(Tokenizer tokenizer, int maxTokens) {
+        this.tokenizer = tokenizer;
+        this.maxTokens = Math.max(0, maxTokens);
+        return this;
+    }
+    
     /**
      * Build a prompt that wraps service data with a standard analysis instruction.
      * 
@@ -76,12 +93,7 @@ public final class ToolPromptBuilder {
             String instructionTemplate
     ) {
         return serviceDataFuture
-                .thenApply(data -> {
-                    String formattedData = dataFormatter.apply(data);
-                    return instructionTemplate
-                            .replace("{companyName}", getCompanyName())
-                            .replace("{data}", formattedData);
-                });
+                .thenApply(data -> fillTemplate(instructionTemplate, dataFormatter.apply(data)));
     }
     
     /**
@@ -139,16 +151,10 @@ public final class ToolPromptBuilder {
                     if (result.isErr()) {
                         ServiceError error = result.unwrapErr();
                         System.err.println(error.format());
-                        String fallbackData = "Data unavailable: " + error.getUserMessage();
-                        return instructionTemplate
-                                .replace("{companyName}", getCompanyName())
-                                .replace("{data}", fallbackData);
+                        return fillTemplate(instructionTemplate, "Data unavailable: " + error.getUserMessage());
                     }
                     T data = result.unwrap();
-                    String formattedData = dataFormatter.apply(data);
-                    return instructionTemplate
-                            .replace("{companyName}", getCompanyName())
-                            .replace("{data}", formattedData);
+                    return fillTemplate(instructionTemplate, dataFormatter.apply(data));
                 });
     }
     
@@ -163,7 +169,28 @@ public final class ToolPromptBuilder {
      * Build a standard analysis prompt with the given data and analysis type.
      */
     private String buildAnalysisPrompt(String data, String analysisType) {
-        return String.format("Analyze this %s:\n\n%s", analysisType, data);
+        String frame = String.format("Analyze this %s:\n\n", analysisType);
+        return frame + fitData(frame, data);
+    }
+    
+    private String fillTemplate(String instructionTemplate, String data) {
+        String template = instructionTemplate.replace("{companyName}", getCompanyName());
+        return template.replace("{data}", fitData(template.replace("{data}", ""), data));
+    }
+    
+    /**
+     * Trim data so that frame + data stays within the token budget (if one is set).
+     */
+    private String fitData(String frame, String data) {
+        if (tokenizer == null || maxTokens == 0 || data == null) {
+            return data;
+        }
+        int available = maxTokens - tokenizer.count(frame);
+        if (tokenizer.count(data) <= available) {
+            return data;
+        }
+        int markerTokens = tokenizer.count(TRUNCATION_MARKER);
+        return tokenizer.truncate(data, Math.max(0, available - markerTokens)) + TRUNCATION_MARKER;
     }
     
     /**
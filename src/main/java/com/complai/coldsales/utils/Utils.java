@@ -5,6 +5,24 @@ package com.complai.coldsales.utils;
  */
 public class Utils {
 
+    /**
+     * Cancel the upstream futures when the downstream one is cancelled. Futures derived with
+     * thenApply/allOf don't forward cancellation, so the calls they wait on would keep running.
+     *
+     * @param downstream Future handed to the caller
+     * @param upstream Futures doing the actual work
+     */
+    public static void propagateCancellation(java.util.concurrent.CompletableFuture<?> downstream,
+                                             java.util.concurrent.CompletableFuture<?>... upstream) {
+        downstream.whenComplete((value, throwable) -> {
+            if (downstream.isCancelled()) {
+                for (java.util.concurrent.CompletableFuture<?> source : upstream) {
+                    source.cancel(true);
+                }
+            }
+        });
+    }
+
     /**
      * Simple trace logging for agent execution.
      *
@@ -0,0 +1,161 @@
+package com.complai.coldsales.utils.tokenizer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Byte-pair-encoding tokenizer compatible with OpenAI's tiktoken encodings.
+ *
+ * Text is split into pieces by the encoding's pre-tokenization pattern, each piece's UTF-8 bytes
+ * are merged by rank exactly as tiktoken does, and special tokens are treated as plain text.
+ * Token counts per piece are cached, so recurring words and prompt boilerplate are only merged once.
+ */
+public final class BpeTokenizer implements Tokenizer {
+
+    private static final int MAX_CACHED_PIECES = 100_000;
+
+    private final String encoding;
+    private final Map<String, Integer> ranks; // Token bytes (one char per byte, ISO-8859-1) -> rank
+    private final Pattern pattern;
+    private final Map<String, Integer> pieceCounts = new ConcurrentHashMap<>();
+
+    public BpeTokenizer(String encoding, Map<String, Integer> ranks, Pattern pattern) {
+        this.encoding = encoding;
+        this.ranks = Map.copyOf(ranks);
+        this.pattern = pattern;
+    }
+
+    /**
+     * Load a tokenizer from a .tiktoken rank file (one "base64-token rank" pair per line).
+     */
+    public static BpeTokenizer load(String encoding, InputStream tiktoken, Pattern pattern) throws IOException {
+        Map<String, Integer> ranks = new HashMap<>();
+        Base64.Decoder decoder = Base64.getDecoder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(tiktoken, StandardCharsets.US_ASCII))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int space = line.indexOf(' ');
+                if (space <= 0) {
+                    continue;
+                }
+                byte[] token = decoder.decode(line.substring(0, space));
+                ranks.put(new String(token, StandardCharsets.ISO_8859_1),
+                        Integer.parseInt(line.substring(space + 1).trim()));
+            }
+        }
+        if (ranks.isEmpty()) {
+            throw new IOException("No token ranks found for " + encoding);
+        }
+        return new BpeTokenizer(encoding, ranks, pattern);
+    }
+
+    @Override
+    public String getEncoding() {
+        return encoding;
+    }
+
+    @Override
+    public int count(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int tokens = 0;
+        Matcher matcher = pattern.matcher(text);
+        while (matcher.find()) {
+            tokens += countPiece(matcher.group());
+        }
+        return tokens;
+    }
+
+    @Override
+    public String truncate(String text, int maxTokens) {
+        if (text == null || text.isEmpty()) {
+            return text;
+        }
+        int tokens = 0;
+        Matcher matcher = pattern.matcher(text);
+        while (matcher.find()) {
+            tokens += countPiece(matcher.group());
+            if (tokens > maxTokens) {
+                return text.substring(0, matcher.start());
+            }
+        }
+        return text;
+    }
+
+    /**
+     * Token ranks for the text, in order.
+     */
+    public List<Integer> encode(String text) {
+        List<Integer> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        Matcher matcher = pattern.matcher(text);
+        while (matcher.find()) {
+            tokens.addAll(mergePiece(toByteString(matcher.group())));
+        }
+        return tokens;
+    }
+
+    private int countPiece(String piece) {
+        Integer cached = pieceCounts.get(piece);
+        if (cached != null) {
+            return cached;
+        }
+        int count = mergePiece(toByteString(piece)).size();
+        if (pieceCounts.size() < MAX_CACHED_PIECES) {
+            pieceCounts.put(piece, count);
+        }
+        return count;
+    }
+
+    /**
+     * Merge a piece's bytes, lowest rank pair first, until no adjacent pair is a known token.
+     */
+    private List<Integer> mergePiece(String bytes) {
+        Integer whole = ranks.get(bytes);
+        if (whole != null) {
+            return List.of(whole);
+        }
+        List<Integer> bounds = new ArrayList<>(bytes.length() + 1);
+        for (int i = 0; i <= bytes.length(); i++) {
+            bounds.add(i);
+        }
+        while (bounds.size() > 2) {
+            int best = -1;
+            int bestRank = Integer.MAX_VALUE;
+            for (int i = 0; i + 2 < bounds.size(); i++) {
+                Integer rank = ranks.get(bytes.substring(bounds.get(i), bounds.get(i + 2)));
+                if (rank != null && rank < bestRank) {
+                    best = i;
+                    bestRank = rank;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            bounds.remove(best + 1);
+        }
+        List<Integer> tokens = new ArrayList<>(bounds.size() - 1);
+        for (int i = 0; i + 1 < bounds.size(); i++) {
+            tokens.add(ranks.getOrDefault(bytes.substring(bounds.get(i), bounds.get(i + 1)), -1));
+        }
+        return tokens;
+    }
+
+    private static String toByteString(String piece) {
+        return new String(piece.getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,36 @@
+package com.complai.coldsales.utils.tokenizer;
+
+/**
+ * Fallback used when an encoding's rank file is not on the classpath.
+ * Assumes ~4 characters per token, which is close for English prose in OpenAI encodings.
+ */
+public final class HeuristicTokenizer implements Tokenizer {
+
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private final String encoding;
+
+    public HeuristicTokenizer(String encoding) {
+        this.encoding = encoding;
+    }
+
+    @Override
+    public String getEncoding() {
+        return encoding;
+    }
+
+    @Override
+    public int count(String text) {
+        return text == null || text.isEmpty() ? 0 : (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    @Override
+    public String truncate(String text, int maxTokens) {
+        if (text == null || count(text) <= maxTokens) {
+            return text;
+        }
+        int cut = Math.max(0, maxTokens) * CHARS_PER_TOKEN;
+        int space = text.lastIndexOf(' ', cut);
+        return text.substring(0, space > cut / 2 ? space : cut);
+    }
+}
@@ -0,0 +1,23 @@
+package com.complai.coldsales.utils.tokenizer;
+
+/**
+ * Counts and trims text in model tokens, so prompts can be sized before they are sent.
+ */
+public interface Tokenizer {
+
+    /**
+     * Name of the encoding this tokenizer implements (e.g. "cl100k_base").
+     */
+    String getEncoding();
+
+    /**
+     * Number of tokens the text encodes to.
+     */
+    int count(String text);
+
+    /**
+     * Longest prefix of the text that fits in maxTokens, cut at a token-piece boundary
+     * (never inside a word); the text itself if it already fits.
+     */
+    String truncate(String text, int maxTokens);
+}
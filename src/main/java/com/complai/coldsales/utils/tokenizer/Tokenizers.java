@@ -0,0 +1,107 @@
+package com.complai.coldsales.utils.tokenizer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Tokenizers for OpenAI encodings, loaded once per encoding and shared.
+ *
+ * Rank files are read from the classpath (tokenizers/cl100k_base.tiktoken, tokenizers/o200k_base.tiktoken),
+ * so counting works offline. When a file is missing, counts fall back to a character heuristic.
+ */
+public final class Tokenizers {
+
+    public static final String CL100K_BASE = "cl100k_base";
+    public static final String O200K_BASE = "o200k_base";
+
+    private static final String RESOURCE_PATH = "tokenizers/";
+
+    private static final Pattern CL100K_PATTERN = Pattern.compile(
+            "(?i:'s|'t|'re|'ve|'m|'ll|'d)|[^\\r\\n\\p{L}\\p{N}]?\\p{L}+|\\p{N}{1,3}"
+                    + "| ?[^\\s\\p{L}\\p{N}]+[\\r\\n]*|\\s*[\\r\\n]+|\\s+(?!\\S)|\\s+",
+            Pattern.UNICODE_CHARACTER_CLASS);
+
+    private static final Pattern O200K_PATTERN = Pattern.compile(
+            "[^\\r\\n\\p{L}\\p{N}]?[\\p{Lu}\\p{Lt}\\p{Lm}\\p{Lo}\\p{M}]*[\\p{Ll}\\p{Lm}\\p{Lo}\\p{M}]+(?i:'s|'t|'re|'ve|'m|'ll|'d)?"
+                    + "|[^\\r\\n\\p{L}\\p{N}]?[\\p{Lu}\\p{Lt}\\p{Lm}\\p{Lo}\\p{M}]+[\\p{Ll}\\p{Lm}\\p{Lo}\\p{M}]*(?i:'s|'t|'re|'ve|'m|'ll|'d)?"
+                    + "|\\p{N}{1,3}| ?[^\\s\\p{L}\\p{N}]+[\\r\\n/]*|\\s*[\\r\\n]+|\\s+(?!\\S)|\\s+",
+            Pattern.UNICODE_CHARACTER_CLASS);
+
+    private static final Logger log = LoggerFactory.getLogger(Tokenizers.class);
+    private static final Map<String, Tokenizer> LOADED = new ConcurrentHashMap<>();
+
+    private Tokenizers() {
+    }
+
+    /**
+     * Tokenizer for a model name. Models outside the OpenAI families are approximated with cl100k.
+     */
+    public static Tokenizer forModel(String model) {
+        return forEncoding(encodingForModel(model));
+    }
+
+    /**
+     * Tokenizer for model-agnostic text such as scraped page content.
+     */
+    public static Tokenizer defaultTokenizer() {
+        return forEncoding(CL100K_BASE);
+    }
+
+    public static String encodingForModel(String model) {
+        if (model == null) {
+            return CL100K_BASE;
+        }
+        String name = model.toLowerCase(Locale.ROOT);
+        if (name.startsWith("gpt-4o") || name.startsWith("chatgpt-4o") || name.startsWith("gpt-4.1")
+                || name.startsWith("gpt-4.5") || name.startsWith("gpt-5")
+                || name.matches("^o\\d.*")) {
+            return O200K_BASE;
+        }
+        return CL100K_BASE;
+    }
+
+    public static Tokenizer forEncoding(String encoding) {
+        return LOADED.computeIfAbsent(encoding, Tokenizers::load);
+    }
+
+    private static Tokenizer load(String encoding) {
+        String resourcePath = RESOURCE_PATH + encoding + ".tiktoken";
+        try (InputStream rankFile = Tokenizers.class.getClassLoader().getResourceAsStream(resourcePath)) {
+            if (rankFile == null) {
+                log.warn("⚠️  {} not found on classpath, estimating {} tokens at ~4 characters each",
+                        resourcePath, encoding);
+                return new HeuristicTokenizer(encoding);
+            }
+            return load(encoding, rankFile);
+        } catch (IOException e) {
+            log.warn("⚠️  Failed to read {}, estimating tokens: {}", resourcePath, e.getMessage());
+            return new HeuristicTokenizer(encoding);
+        }
+    }
+
+    /**
+     * Tokenizer for an encoding from its rank file, or the heuristic if the file cannot be parsed.
+     */
+    static Tokenizer load(String encoding, InputStream rankFile) {
+        try {
+            return BpeTokenizer.load(encoding, rankFile, patternFor(encoding));
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("⚠️  Failed to load {} token ranks, estimating tokens: {}", encoding, e.getMessage());
+            return new HeuristicTokenizer(encoding);
+        }
+    }
+
+    /**
+     * Pre-tokenization pattern of an encoding (cl100k's for unknown encodings).
+     */
+    static Pattern patternFor(String encoding) {
+        return O200K_BASE.equals(encoding) ? O200K_PATTERN : CL100K_PATTERN;
+    }
+}
@@ -3,6 +3,7 @@ package com.complai.coldsales.agents.base;
 import com.complai.coldsales.utils.Utils;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -56,5 +57,28 @@ class UtilsTest {
             });
         });
     }
-}
 
+    @Test
+    void testPropagateCancellationReachesTheUnderlyingCalls() {
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CompletableFuture<String> second = new CompletableFuture<>();
+        CompletableFuture<String> derived = first.thenCombine(second, String::concat);
+
+        Utils.propagateCancellation(derived, first, second);
+        derived.cancel(true);
+
+        assertTrue(first.isCancelled());
+        assertTrue(second.isCancelled());
+    }
+
+    @Test
+    void testPropagateCancellationIgnoresNormalCompletion() {
+        CompletableFuture<String> call = new CompletableFuture<>();
+        CompletableFuture<String> derived = new CompletableFuture<>();
+
+        Utils.propagateCancellation(derived, call);
+        derived.complete("done");
+
+        assertFalse(call.isDone());
+    }
+}
@@ -0,0 +1,135 @@
+package com.complai.coldsales.agents.base.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the AIMD adaptive concurrency limiter.
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final String KEY = "gpt-4o-mini/chat.completions";
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void testLimitGrowsWhileLatencyIsStable() throws InterruptedException {
+        AtomicLong clock = new AtomicLong();
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 64, 0, clock::get);
+
+        for (int round = 0; round < 40; round++) {
+            runSaturatedRound(limiter, clock, 100);
+        }
+
+        assertTrue(limiter.getLimit(KEY) > 4, "limit should grow additively, was " + limiter.getLimit(KEY));
+    }
+
+    @Test
+    void testOverloadCutsLimitMultiplicatively() throws InterruptedException {
+        AtomicLong clock = new AtomicLong();
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(16, 64, 0, clock::get);
+
+        limiter.acquire(KEY).dropped();
+
+        assertEquals(8, limiter.getLimit(KEY));
+        assertEquals(1, limiter.getStats().getDecreases());
+    }
+
+    @Test
+    void testLatencySpikeCutsLimit() throws InterruptedException {
+        AtomicLong clock = new AtomicLong();
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(16, 64, 0, clock::get);
+        for (int i = 0; i < 10; i++) {
+            completeAfter(limiter, clock, 100);
+        }
+        int before = limiter.getLimit(KEY);
+
+        completeAfter(limiter, clock, 1000);
+
+        assertEquals(before / 2, limiter.getLimit(KEY));
+    }
+
+    @Test
+    void testMixedShortAndLongCallsDoNotCutTheLimit() throws InterruptedException {
+        AtomicLong clock = new AtomicLong();
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(16, 64, 0, clock::get);
+
+        // Guardrail checks (~0.5 s) interleaved with long generations (~12 s) on one model
+        for (int i = 0; i < 20; i++) {
+            completeAfter(limiter, clock, "GuardrailAgent", 500);
+            completeAfter(limiter, clock, "ResearchAgent", 12_000);
+        }
+
+        assertEquals(16, limiter.getLimit(KEY));
+        assertEquals(0, limiter.getStats().getDecreases());
+        assertEquals(500L, (long) limiter.getSnapshots().get(KEY).getBaselineLatencyMs().get("GuardrailAgent"));
+        assertEquals(12_000L, (long) limiter.getSnapshots().get(KEY).getBaselineLatencyMs().get("ResearchAgent"));
+    }
+
+    @Test
+    void testSpikeWithinOneCallShapeStillCutsSharedLimit() throws InterruptedException {
+        AtomicLong clock = new AtomicLong();
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(16, 64, 0, clock::get);
+        for (int i = 0; i < 10; i++) {
+            completeAfter(limiter, clock, "GuardrailAgent", 500);
+            completeAfter(limiter, clock, "ResearchAgent", 12_000);
+        }
+
+        completeAfter(limiter, clock, "GuardrailAgent", 5_000); // 10x its own baseline, still short of the long calls
+
+        assertEquals(8, limiter.getLimit(KEY));
+    }
+
+    @Test
+    void testCallersOverLimitAreRejectedAfterMaxWait() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 10, TimeUnit.MILLISECONDS);
+        AdaptiveConcurrencyLimiter.Permit held = limiter.acquire(KEY);
+
+        assertThrows(AdaptiveConcurrencyLimiter.LimitExceededException.class, () -> limiter.acquire(KEY));
+        assertEquals(1, limiter.getRejections());
+
+        held.success();
+        assertNotNull(limiter.acquire(KEY));
+    }
+
+    @Test
+    void testLimitsAreIndependentPerKey() throws InterruptedException {
+        AtomicLong clock = new AtomicLong();
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 64, 0, clock::get);
+
+        limiter.acquire(KEY).dropped();
+
+        assertEquals(4, limiter.getLimit(KEY));
+        assertEquals(8, limiter.getLimit("gpt-4o/chat.completions"));
+    }
+
+    private static void runSaturatedRound(AdaptiveConcurrencyLimiter limiter, AtomicLong clock, long latencyMs)
+            throws InterruptedException {
+        int limit = limiter.getLimit(KEY);
+        AdaptiveConcurrencyLimiter.Permit[] permits = new AdaptiveConcurrencyLimiter.Permit[limit];
+        for (int i = 0; i < limit; i++) {
+            permits[i] = limiter.acquire(KEY);
+        }
+        clock.addAndGet(latencyMs * MS);
+        for (AdaptiveConcurrencyLimiter.Permit permit : permits) {
+            permit.success();
+        }
+    }
+
+    private static void completeAfter(AdaptiveConcurrencyLimiter limiter, AtomicLong clock, long latencyMs)
+            throws InterruptedException {
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire(KEY);
+        clock.addAndGet(latencyMs * MS);
+        permit.success();
+    }
+
+    private static void completeAfter(AdaptiveConcurrencyLimiter limiter, AtomicLong clock, String callShape,
+                                      long latencyMs) throws InterruptedException {
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire(KEY, callShape);
+        clock.addAndGet(latencyMs * MS);
+        permit.success();
+    }
+}
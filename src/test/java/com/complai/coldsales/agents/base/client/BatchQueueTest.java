@@ -0,0 +1,169 @@
+package com.complai.coldsales.agents.base.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Batch mode against a local fake Batch API server, driven through OkHttpBatchTransport.
+ * The fake answers each request with "echo:" plus its user message; a message of "fail"
+ * produces a failed line, and a batch whose first message is "expire" expires unprocessed.
+ */
+class BatchQueueTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private HttpServer server;
+    private BatchQueue queue;
+    private final Map<String, String> files = new ConcurrentHashMap<>();
+    private final Map<String, String> batchInputs = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> polls = new ConcurrentHashMap<>();
+    private final AtomicInteger uploads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/files", this::handleFiles);
+        server.createContext("/v1/batches", this::handleBatches);
+        server.start();
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/v1";
+        queue = new BatchQueue(new OkHttpBatchTransport(baseUrl, "test-key"),
+                Duration.ofMillis(50), Duration.ofMillis(20));
+    }
+
+    @AfterEach
+    void tearDown() {
+        queue.close();
+        server.stop(0);
+    }
+
+    @Test
+    void testRequestsAreGatheredIntoOneBatch() throws Exception {
+        CompletableFuture<BatchQueue.Completion> first = queue.submit(body("hello"));
+        CompletableFuture<BatchQueue.Completion> second = queue.submit(body("world"));
+
+        assertEquals("echo:hello", first.get(5, TimeUnit.SECONDS).content());
+        assertEquals("echo:world", second.get(5, TimeUnit.SECONDS).content());
+        assertEquals(12, first.get().totalTokens());
+        assertEquals(1, uploads.get());
+        assertEquals(1, queue.getStats().getBatchesSubmitted());
+        assertEquals(2, queue.getStats().getRequestsCompleted());
+    }
+
+    @Test
+    void testFailedLinesFailOnlyTheirRequest() throws Exception {
+        CompletableFuture<BatchQueue.Completion> ok = queue.submit(body("fine"));
+        CompletableFuture<BatchQueue.Completion> failed = queue.submit(body("fail"));
+
+        assertEquals("echo:fine", ok.get(5, TimeUnit.SECONDS).content());
+        ExecutionException error = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertTrue(error.getCause() instanceof BatchQueue.BatchException);
+        assertTrue(error.getCause().getMessage().contains("HTTP 400"));
+    }
+
+    @Test
+    void testExpiredBatchFailsUnprocessedRequests() {
+        CompletableFuture<BatchQueue.Completion> expired = queue.submit(body("expire"));
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> expired.get(5, TimeUnit.SECONDS));
+        assertTrue(error.getCause().getMessage().contains("expired"));
+        assertEquals(1, queue.getStats().getRequestsFailed());
+    }
+
+    @Test
+    void testCloseFailsPendingRequests() {
+        CompletableFuture<BatchQueue.Completion> pending = queue.submit(body("late"));
+        queue.close();
+
+        assertTrue(pending.isCompletedExceptionally());
+        assertThrows(IllegalStateException.class, () -> queue.submit(body("after close")));
+    }
+
+    private static Map<String, Object> body(String userMessage) {
+        return Map.of("model", "gpt-4o-mini", "messages", List.of(
+                Map.of("role", "system", "content", "Be brief."),
+                Map.of("role", "user", "content", userMessage)));
+    }
+
+    private void handleFiles(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if ("POST".equals(exchange.getRequestMethod())) {
+            String multipart = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            StringBuilder jsonl = new StringBuilder();
+            for (String line : multipart.split("\r?\n")) {
+                if (line.startsWith("{\"custom_id\"")) {
+                    jsonl.append(line).append('\n');
+                }
+            }
+            String fileId = "file-" + uploads.incrementAndGet();
+            files.put(fileId, jsonl.toString());
+            respond(exchange, 200, "{\"id\":\"" + fileId + "\"}");
+        } else {
+            String fileId = path.split("/")[3];
+            respond(exchange, 200, files.getOrDefault(fileId, ""));
+        }
+    }
+
+    private void handleBatches(HttpExchange exchange) throws IOException {
+        if ("POST".equals(exchange.getRequestMethod())) {
+            JsonNode request = MAPPER.readTree(exchange.getRequestBody());
+            String batchId = "batch-" + batchInputs.size();
+            batchInputs.put(batchId, request.path("input_file_id").asText());
+            polls.put(batchId, new AtomicInteger());
+            respond(exchange, 200, "{\"id\":\"" + batchId + "\",\"status\":\"validating\"}");
+            return;
+        }
+        String batchId = exchange.getRequestURI().getPath().split("/")[3];
+        if (polls.get(batchId).incrementAndGet() < 2) {
+            respond(exchange, 200, "{\"id\":\"" + batchId + "\",\"status\":\"in_progress\"}");
+            return;
+        }
+        String input = files.get(batchInputs.get(batchId));
+        if (input.contains("\"content\":\"expire\"")) {
+            respond(exchange, 200, "{\"id\":\"" + batchId + "\",\"status\":\"expired\",\"output_file_id\":null}");
+            return;
+        }
+        StringBuilder output = new StringBuilder();
+        for (String line : input.split("\n")) {
+            JsonNode request = MAPPER.readTree(line);
+            String customId = request.path("custom_id").asText();
+            String message = request.path("body").path("messages").path(1).path("content").asText();
+            if ("fail".equals(message)) {
+                output.append("{\"custom_id\":\"").append(customId).append("\",\"response\":{\"status_code\":400,")
+                        .append("\"body\":{\"error\":{\"message\":\"bad request\"}}},\"error\":null}\n");
+            } else {
+                output.append("{\"custom_id\":\"").append(customId).append("\",\"response\":{\"status_code\":200,")
+                        .append("\"body\":{\"model\":\"gpt-4o-mini\",\"choices\":[{\"message\":{\"content\":\"echo:")
+                        .append(message).append("\"}}],\"usage\":{\"total_tokens\":12}}},\"error\":null}\n");
+            }
+        }
+        String outputId = "file-out-" + batchId;
+        files.put(outputId, output.toString());
+        respond(exchange, 200, "{\"id\":\"" + batchId + "\",\"status\":\"completed\",\"output_file_id\":\"" + outputId + "\"}");
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}
@@ -0,0 +1,97 @@
+package com.complai.coldsales.agents.base.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the per-endpoint circuit breakers.
+ */
+class CircuitBreakerRegistryTest {
+
+    private static final String KEY = "https://api.openai.com/v1#gpt-4o-mini";
+    private static final long FAST = TimeUnit.SECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(60);
+
+    private final AtomicLong clock = new AtomicLong();
+    private final CircuitBreakerRegistry breakers = new CircuitBreakerRegistry(
+            10, 4, 0.5, 0.8, Duration.ofSeconds(30), Duration.ofSeconds(10), 2, clock::get);
+
+    @Test
+    void testOpensOnErrorRateAndFailsFast() {
+        call(false, FAST);
+        call(false, FAST);
+        call(true, FAST);
+        assertEquals(CircuitBreakerRegistry.State.CLOSED, breakers.getState(KEY));
+
+        call(true, FAST);
+
+        assertEquals(CircuitBreakerRegistry.State.OPEN, breakers.getState(KEY));
+        assertFalse(breakers.isCallPermitted(KEY));
+        assertThrows(CircuitBreakerRegistry.CircuitOpenException.class, () -> breakers.acquirePermission(KEY));
+    }
+
+    @Test
+    void testOpensOnSlowCallRate() {
+        for (int i = 0; i < 4; i++) {
+            call(false, SLOW);
+        }
+
+        assertEquals(CircuitBreakerRegistry.State.OPEN, breakers.getState(KEY));
+    }
+
+    @Test
+    void testHalfOpenClosesAfterSuccessfulTrials() {
+        tripBreaker();
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+        assertEquals(CircuitBreakerRegistry.State.HALF_OPEN, breakers.getState(KEY));
+        breakers.acquirePermission(KEY);
+        breakers.acquirePermission(KEY);
+        assertThrows(CircuitBreakerRegistry.CircuitOpenException.class, () -> breakers.acquirePermission(KEY));
+
+        breakers.onSuccess(KEY, FAST);
+        breakers.onSuccess(KEY, FAST);
+
+        assertEquals(CircuitBreakerRegistry.State.CLOSED, breakers.getState(KEY));
+    }
+
+    @Test
+    void testHalfOpenReopensOnTrialFailure() {
+        tripBreaker();
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+        breakers.acquirePermission(KEY);
+        breakers.onError(KEY, FAST);
+
+        assertEquals(CircuitBreakerRegistry.State.OPEN, breakers.getState(KEY));
+    }
+
+    @Test
+    void testBreakersAreIndependentPerKey() {
+        tripBreaker();
+
+        assertTrue(breakers.isCallPermitted("https://api.openai.com/v1#gpt-4o"));
+        assertEquals(CircuitBreakerRegistry.State.OPEN, breakers.getStates().get(KEY));
+    }
+
+    private void tripBreaker() {
+        for (int i = 0; i < 4; i++) {
+            call(true, FAST);
+        }
+        assertEquals(CircuitBreakerRegistry.State.OPEN, breakers.getState(KEY));
+    }
+
+    private void call(boolean error, long latencyNanos) {
+        breakers.acquirePermission(KEY);
+        if (error) {
+            breakers.onError(KEY, latencyNanos);
+        } else {
+            breakers.onSuccess(KEY, latencyNanos);
+        }
+    }
+}
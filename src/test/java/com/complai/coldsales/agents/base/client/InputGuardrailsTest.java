@@ -0,0 +1,124 @@
+package com.complai.coldsales.agents.base.client;
+
+import com.complai.coldsales.agents.base.core.Agent;
+import com.complai.coldsales.agents.base.guardrails.GuardrailFunction;
+import com.complai.coldsales.agents.base.guardrails.GuardrailResult;
+import com.complai.coldsales.agents.base.guardrails.InputGuardrailTripwireException;
+import com.complai.coldsales.utils.Utils;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for input guardrails running alongside generation.
+ */
+class InputGuardrailsTest {
+
+    @Test
+    void testResultIsReleasedOnceGenerationAndAllGuardrailsPass() {
+        CompletableFuture<GuardrailResult> slowCheck = new CompletableFuture<>();
+        CompletableFuture<String> generation = new CompletableFuture<>();
+        AtomicInteger started = new AtomicInteger();
+        Agent agent = agentWith((context, a, message) -> slowCheck);
+
+        CompletableFuture<String> result = InputGuardrails.guard(agent, "Write an email", () -> {
+            started.incrementAndGet();
+            return generation;
+        });
+
+        assertEquals(1, started.get()); // Generation does not wait for the checks
+        generation.complete("email");
+        assertFalse(result.isDone());
+        slowCheck.complete(GuardrailResult.pass());
+        assertEquals("email", result.join());
+    }
+
+    @Test
+    void testTripwireCancelsGenerationAndOtherGuardrails() {
+        CompletableFuture<GuardrailResult> tripped = new CompletableFuture<>();
+        CompletableFuture<GuardrailResult> pending = new CompletableFuture<>();
+        CompletableFuture<String> generation = new CompletableFuture<>();
+        Agent agent = agentWith((context, a, message) -> tripped, (context, a, message) -> pending);
+
+        CompletableFuture<String> result = InputGuardrails.guard(agent, "Call now!!!", () -> generation);
+        tripped.complete(GuardrailResult.block(Map.of("safety_check", "spam")));
+
+        CompletionException failure = assertThrows(CompletionException.class, result::join);
+        InputGuardrailTripwireException tripwire = (InputGuardrailTripwireException) failure.getCause();
+        assertEquals("Sales Agent", tripwire.getAgentName());
+        assertEquals(Map.of("safety_check", "spam"), tripwire.getResult().getOutputInfo());
+        assertTrue(generation.isCancelled());
+        assertTrue(pending.isCancelled());
+    }
+
+    @Test
+    void testFailingGuardrailDoesNotBlock() {
+        Agent agent = agentWith(
+                (context, a, message) -> CompletableFuture.failedFuture(new IllegalStateException("checker down")),
+                (context, a, message) -> { throw new IllegalStateException("bad guardrail"); });
+
+        CompletableFuture<String> result = InputGuardrails.guard(agent, "Write an email",
+                () -> CompletableFuture.completedFuture("email"));
+
+        assertEquals("email", result.join());
+    }
+
+    @Test
+    void testAgentsWithoutGuardrailsGetTheGenerationDirectly() {
+        CompletableFuture<String> generation = new CompletableFuture<>();
+
+        assertSame(generation, InputGuardrails.guard(agentWith(), "Write an email", () -> generation));
+    }
+
+    private static Agent agentWith(GuardrailFunction... guardrails) {
+        return Agent.builder().name("Sales Agent").model("gpt-4o-mini").inputGuardrails(List.of(guardrails)).build();
+    }
+
+    @Test
+    void testTripwireCancelsTheUnderlyingCallsOfOtherGuardrailsAndGeneration() {
+        CompletableFuture<String> checkerCall = new CompletableFuture<>();
+        CompletableFuture<String> generationCall = new CompletableFuture<>();
+        Agent agent = agentWith(
+                (context, a, message) -> CompletableFuture.completedFuture(GuardrailResult.block(Map.of())),
+                (context, a, message) -> {
+                    // A guardrail that maps its LLM call's answer, forwarding cancellation as required
+                    CompletableFuture<GuardrailResult> verdict = checkerCall.thenApply(answer -> GuardrailResult.pass());
+                    Utils.propagateCancellation(verdict, checkerCall);
+                    return verdict;
+                });
+
+        CompletableFuture<String> result = InputGuardrails.guard(agent, "Call now!!!", () -> {
+            CompletableFuture<String> answer = generationCall.thenApply(String::trim);
+            Utils.propagateCancellation(answer, generationCall);
+            return answer;
+        });
+
+        assertThrows(CompletionException.class, result::join);
+        assertTrue(checkerCall.isCancelled());
+        assertTrue(generationCall.isCancelled());
+    }
+
+    @Test
+    void testCancellingTheRunCancelsChecksAndGeneration() {
+        CompletableFuture<GuardrailResult> pending = new CompletableFuture<>();
+        CompletableFuture<String> generation = new CompletableFuture<>();
+
+        InputGuardrails.guard(agentWith((context, a, message) -> pending), "Write an email", () -> generation)
+                .cancel(true);
+
+        assertTrue(pending.isCancelled());
+        assertTrue(generation.isCancelled());
+    }
+
+    @Test
+    void testCheckWithoutGuardrailsPassesAtOnce() {
+        assertTrue(InputGuardrails.check(agentWith(), "Write an email").isDone());
+        assertFalse(InputGuardrails.check(agentWith(), "Write an email").isCompletedExceptionally());
+    }
+}
@@ -0,0 +1,61 @@
+package com.complai.coldsales.agents.base.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for repairing truncated and malformed JSON answers.
+ */
+class JsonRepairTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void testCompleteJsonIsKept() throws Exception {
+        String json = "{\"a\": \"x, y\", \"b\": [1, 2.5, true], \"c\": {\"d\": null}}";
+
+        assertEquals(MAPPER.readTree(json), MAPPER.readTree(JsonRepair.repair(json)));
+    }
+
+    @Test
+    void testTruncatedStringValueIsClosed() throws Exception {
+        JsonNode repaired = MAPPER.readTree(JsonRepair.repair("{\"overview\": \"Acme builds rock"));
+
+        assertEquals("Acme builds rock", repaired.get("overview").asText());
+    }
+
+    @Test
+    void testTrailingPartialFieldIsDropped() throws Exception {
+        assertEquals(MAPPER.readTree("{\"a\":\"x\"}"), MAPPER.readTree(JsonRepair.repair("{\"a\": \"x\", \"b\": tr")));
+        assertEquals(MAPPER.readTree("{\"a\":\"x\"}"), MAPPER.readTree(JsonRepair.repair("{\"a\": \"x\", \"b\": 12")));
+        assertEquals(MAPPER.readTree("{\"a\":\"x\"}"), MAPPER.readTree(JsonRepair.repair("{\"a\": \"x\", \"b\"")));
+        assertEquals(MAPPER.readTree("{\"a\":\"x\"}"), MAPPER.readTree(JsonRepair.repair("{\"a\": \"x\", \"ke")));
+    }
+
+    @Test
+    void testOpenArraysAndObjectsAreClosed() throws Exception {
+        JsonNode repaired = MAPPER.readTree(JsonRepair.repair(
+                "{\"points\": [\"audits\", \"hiring\"], \"hooks\": [\"Series B\", \"New C"));
+
+        assertEquals(2, repaired.get("points").size());
+        assertEquals("New C", repaired.get("hooks").get(1).asText());
+    }
+
+    @Test
+    void testFencesTrailingCommasAndRawNewlinesAreTolerated() throws Exception {
+        JsonNode repaired = MAPPER.readTree(JsonRepair.repair(
+                "```json\n{\"body\": \"Hi Dana,\nthanks\", \"tags\": [\"a\",],}\n```"));
+
+        assertEquals("Hi Dana,\nthanks", repaired.get("body").asText());
+        assertEquals(1, repaired.get("tags").size());
+    }
+
+    @Test
+    void testTextWithoutObjectIsNotRepaired() {
+        assertNull(JsonRepair.repair("I could not find information about this company."));
+        assertNull(JsonRepair.repair(null));
+    }
+}
@@ -0,0 +1,113 @@
+package com.complai.coldsales.agents.base.client;
+
+import com.complai.coldsales.models.guardrails.CompositeGuardrailCheck;
+import com.complai.coldsales.models.guardrails.ContentSafetyCheck;
+import com.complai.coldsales.models.structured.EmailAnalysis;
+import com.complai.coldsales.models.structured.EmailSubject;
+import com.complai.coldsales.models.structured.ProspectResearch;
+import com.complai.coldsales.models.structured.SalesEmail;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for strict JSON schema generation from output classes.
+ */
+class JsonSchemaGeneratorTest {
+
+    private final JsonSchemaGenerator generator = new JsonSchemaGenerator();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testPropertiesUseJsonPropertyNamesAndAreAllRequired() {
+        Map<String, Object> schema = generator.schemaFor(SalesEmail.class);
+        Map<String, Object> properties = (Map<String, Object>) schema.get("properties");
+
+        assertEquals("object", schema.get("type"));
+        assertEquals(false, schema.get("additionalProperties"));
+        assertEquals(List.of("subject", "body", "tone", "call_to_action", "personalization_notes",
+                "expected_response_rate"), List.copyOf(properties.keySet()));
+        assertEquals(List.copyOf(properties.keySet()), schema.get("required"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFieldTypesAreMapped() {
+        Map<String, Object> analysis = (Map<String, Object>) generator.schemaFor(EmailAnalysis.class).get("properties");
+        Map<String, Object> subject = (Map<String, Object>) generator.schemaFor(EmailSubject.class).get("properties");
+        Map<String, Object> safety = (Map<String, Object>) generator.schemaFor(ContentSafetyCheck.class).get("properties");
+
+        assertEquals(Map.of("type", "integer"), analysis.get("effectiveness_score"));
+        assertEquals(Map.of("type", "boolean"), analysis.get("has_call_to_action"));
+        assertEquals(Map.of("type", "number"), safety.get("confidence"));
+        assertEquals(Map.of("type", "array", "items", Map.of("type", "string")), subject.get("alternative_subjects"));
+    }
+
+    @Test
+    void testSchemaIsBuiltOncePerClass() {
+        assertSame(generator.schemaFor(ProspectResearch.class), generator.schemaFor(ProspectResearch.class));
+        assertSame(generator.schemaJsonFor(ProspectResearch.class), generator.schemaJsonFor(ProspectResearch.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testNestedObjectsAndBoxedFields() throws Exception {
+        Map<String, Object> schema = generator.schemaFor(Outer.class);
+        Map<String, Object> properties = (Map<String, Object>) schema.get("properties");
+        Map<String, Object> inner = (Map<String, Object>) properties.get("inner");
+
+        assertEquals(Map.of("type", List.of("integer", "null")), properties.get("score"));
+        assertEquals(false, inner.get("additionalProperties"));
+        assertEquals(List.of("label"), inner.get("required"));
+        // Serialized form is plain JSON a provider can read
+        assertEquals(schema, new ObjectMapper().readValue(generator.schemaJsonFor(Outer.class), Map.class));
+    }
+
+    @Test
+    void testMaxOutputTokensScaleWithSchema() {
+        int check = generator.maxOutputTokens(ContentSafetyCheck.class);
+        int email = generator.maxOutputTokens(SalesEmail.class);
+        int research = generator.maxOutputTokens(ProspectResearch.class);
+
+        assertTrue(check < email, "short guardrail verdicts reserve less than a full email");
+        assertTrue(email < research);
+        assertTrue(check >= 256 && research <= 4096);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCompositeGuardrailNestsTheThreeChecks() {
+        Map<String, Object> composite = generator.schemaFor(CompositeGuardrailCheck.class);
+        Map<String, Object> properties = (Map<String, Object>) composite.get("properties");
+
+        assertEquals(List.of("content_safety", "business_context", "personal_data"), composite.get("required"));
+        assertEquals(generator.schemaFor(ContentSafetyCheck.class), properties.get("content_safety"));
+        assertEquals(false, composite.get("additionalProperties"));
+    }
+
+    @Test
+    void testFreeFormFieldsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> generator.schemaFor(FreeForm.class));
+    }
+
+    static class Outer {
+        @JsonProperty("score")
+        Integer score;
+        @JsonProperty("inner")
+        Inner inner;
+    }
+
+    static class Inner {
+        @JsonProperty("label")
+        String label;
+    }
+
+    static class FreeForm {
+        Map<String, Object> attributes;
+    }
+}
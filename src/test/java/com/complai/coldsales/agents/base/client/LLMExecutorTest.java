@@ -0,0 +1,224 @@
+package com.complai.coldsales.agents.base.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the dedicated LLM execution engine.
+ */
+class LLMExecutorTest {
+
+    @Test
+    void testVirtualThreadsRunOffCommonPool() {
+        try (LLMExecutor executor = LLMExecutor.virtualThreads()) {
+            boolean virtual = executor.supply(() -> Thread.currentThread().isVirtual()).join();
+
+            assertTrue(virtual);
+            assertEquals(LLMExecutor.Mode.VIRTUAL, executor.getMode());
+        }
+    }
+
+    @Test
+    void testGaugesTrackActiveAndQueuedCalls() throws InterruptedException {
+        try (LLMExecutor executor = LLMExecutor.fixedPool(1)) {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+
+            CompletableFuture<String> first = executor.supply(() -> {
+                started.countDown();
+                awaitQuietly(release);
+                return "first";
+            });
+            CompletableFuture<String> second = executor.supply(() -> "second");
+
+            assertTrue(started.await(2, TimeUnit.SECONDS));
+            assertEquals(1, executor.getActiveCalls());
+            assertEquals(1, executor.getQueueDepth());
+
+            release.countDown();
+            assertEquals("first", first.join());
+            assertEquals("second", second.join());
+            assertEquals(0, executor.getActiveCalls());
+            assertEquals(0, executor.getQueueDepth());
+        }
+    }
+
+    @Test
+    void testCancelWhileQueuedReleasesQueueSlot() throws InterruptedException {
+        try (LLMExecutor executor = LLMExecutor.fixedPool(1)) {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            executor.supply(() -> {
+                started.countDown();
+                awaitQuietly(release);
+                return null;
+            });
+            assertTrue(started.await(2, TimeUnit.SECONDS));
+
+            CompletableFuture<String> queued = executor.supply(() -> "never");
+            assertEquals(1, executor.getQueueDepth());
+
+            queued.cancel(true);
+            assertEquals(0, executor.getQueueDepth());
+            release.countDown();
+        }
+    }
+
+    @Test
+    void testNestedBlockingWorkDoesNotDeadlockTheFullPool() {
+        try (LLMExecutor executor = LLMExecutor.fixedPool(2)) {
+            // Every pool thread runs a parent that blocks on nested children, like the tool loop
+            LLMExecutor nested = executor.forNestedWork();
+            List<CompletableFuture<Integer>> parents = List.of(
+                    executor.supply(() -> sumOfChildren(nested)),
+                    executor.supply(() -> sumOfChildren(nested)),
+                    executor.supply(() -> sumOfChildren(nested)));
+
+            for (CompletableFuture<Integer> parent : parents) {
+                assertEquals(3, (int) parent.orTimeout(5, TimeUnit.SECONDS).join());
+            }
+            assertEquals(0, executor.getActiveCalls());
+            assertEquals(0, executor.getQueueDepth());
+        }
+    }
+
+    @Test
+    void testTopLevelCallsStayOnThePool() {
+        try (LLMExecutor executor = LLMExecutor.fixedPool(1)) {
+            boolean virtual = executor.supply(() -> Thread.currentThread().isVirtual()).join();
+            boolean nestedVirtual = executor.supply(() ->
+                    executor.forNestedWork().supply(() -> Thread.currentThread().isVirtual()).join()).join();
+
+            assertFalse(virtual);
+            assertTrue(nestedVirtual);
+        }
+    }
+
+    @Test
+    void testNestedWorkSkipsThePoolWhicheverThreadSubmitsIt() throws InterruptedException {
+        ExecutorService service = Executors.newSingleThreadExecutor(); // Like a scraper executor
+        try (LLMExecutor executor = LLMExecutor.fixedPool(1)) {
+            CountDownLatch parentStarted = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            CompletableFuture<Boolean> parent = executor.supply(() -> {
+                parentStarted.countDown();
+                // The child is submitted from a continuation on another executor, not from this thread
+                return CompletableFuture.supplyAsync(() -> "augmented", service)
+                        .thenCompose(prompt -> executor.forNestedWork().supply(() -> {
+                            awaitQuietly(release);
+                            return Thread.currentThread().isVirtual();
+                        }))
+                        .join();
+            });
+            assertTrue(parentStarted.await(2, TimeUnit.SECONDS));
+            awaitGauge(executor, 2); // Parent and child share the engine's gauges
+
+            release.countDown();
+            assertTrue(parent.orTimeout(5, TimeUnit.SECONDS).join());
+            assertEquals(0, executor.getActiveCalls());
+        } finally {
+            service.shutdownNow();
+        }
+    }
+
+    @Test
+    void testTrackedWorkSettlesWhenACancelledTaskReallyEnds() throws InterruptedException {
+        try (LLMExecutor executor = LLMExecutor.fixedPool(1)) {
+            LLMExecutor tracked = executor.forTrackedWork();
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch finish = new CountDownLatch(1);
+            CompletableFuture<String> call = tracked.supply(() -> {
+                started.countDown();
+                awaitUninterruptibly(finish); // Like a provider call that ignores the interrupt for a while
+                return "late";
+            });
+            CompletableFuture<Void> settled = tracked.getWork().settledAfter(call);
+            assertTrue(started.await(2, TimeUnit.SECONDS));
+
+            call.cancel(true);
+            assertTrue(call.isDone());
+            assertFalse(settled.isDone(), "the cancelled task is still running");
+
+            finish.countDown();
+            settled.orTimeout(2, TimeUnit.SECONDS).join();
+        }
+    }
+
+    @Test
+    void testTrackedWorkInsideTrackedWorkCountsForBoth() {
+        try (LLMExecutor executor = LLMExecutor.virtualThreads()) {
+            LLMExecutor outer = executor.forTrackedWork();
+            LLMExecutor inner = outer.forTrackedWork();
+            CountDownLatch finish = new CountDownLatch(1);
+            CompletableFuture<String> innerCall = inner.supply(() -> {
+                awaitUninterruptibly(finish);
+                return "inner";
+            });
+            CompletableFuture<Void> outerSettled = outer.getWork().settledAfter(CompletableFuture.completedFuture(null));
+
+            assertFalse(outerSettled.isDone(), "the inner tool's call is part of the outer tool's work");
+            finish.countDown();
+            assertEquals("inner", innerCall.join());
+            outerSettled.orTimeout(2, TimeUnit.SECONDS).join();
+        }
+    }
+
+    @Test
+    void testVirtualModeIsItsOwnNestedEngine() {
+        try (LLMExecutor executor = LLMExecutor.virtualThreads()) {
+            assertSame(executor, executor.forNestedWork());
+        }
+    }
+
+    @Test
+    void testModeFromString() {
+        assertEquals(LLMExecutor.Mode.VIRTUAL, LLMExecutor.Mode.fromString(null));
+        assertEquals(LLMExecutor.Mode.VIRTUAL, LLMExecutor.Mode.fromString("virtual"));
+        assertEquals(LLMExecutor.Mode.POOL, LLMExecutor.Mode.fromString("pool"));
+    }
+
+    private static int sumOfChildren(LLMExecutor executor) {
+        List<CompletableFuture<Integer>> children = List.of(
+                executor.supply(() -> 1), executor.supply(() -> 1), executor.supply(() -> 1));
+        return children.stream().mapToInt(CompletableFuture::join).sum();
+    }
+
+    private static void awaitGauge(LLMExecutor executor, int activeCalls) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (executor.getActiveCalls() != activeCalls && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(activeCalls, executor.getActiveCalls());
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await(5, TimeUnit.SECONDS);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.complai.coldsales.agents.base.client;
+
+import com.complai.coldsales.models.structured.EmailAnalysis;
+import com.complai.coldsales.models.structured.SalesEmail;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the content-addressed LLM response cache.
+ */
+class LLMResponseCacheTest {
+
+    @Test
+    void testKeyDependsOnEveryComponent() {
+        String base = LLMResponseCache.keyOf("gpt-4o-mini", "instr", SalesEmail.class, "t=0.7", "prompt");
+
+        assertEquals(base, LLMResponseCache.keyOf("gpt-4o-mini", "instr", SalesEmail.class, "t=0.7", "prompt"));
+        assertNotEquals(base, LLMResponseCache.keyOf("gpt-4o", "instr", SalesEmail.class, "t=0.7", "prompt"));
+        assertNotEquals(base, LLMResponseCache.keyOf("gpt-4o-mini", "other", SalesEmail.class, "t=0.7", "prompt"));
+        assertNotEquals(base, LLMResponseCache.keyOf("gpt-4o-mini", "instr", EmailAnalysis.class, "t=0.7", "prompt"));
+        assertNotEquals(base, LLMResponseCache.keyOf("gpt-4o-mini", "instr", SalesEmail.class, "t=0.0", "prompt"));
+        assertNotEquals(base, LLMResponseCache.keyOf("gpt-4o-mini", "instr", SalesEmail.class, "t=0.7", "prompt2"));
+    }
+
+    @Test
+    void testHitAndMissAreCounted() {
+        LLMResponseCache cache = new LLMResponseCache(10, Duration.ofMinutes(5));
+
+        assertTrue(cache.get("k").isEmpty());
+        cache.put("k", "{\"body\":\"hi\"}", "gpt-4o-mini");
+        assertEquals("{\"body\":\"hi\"}", cache.get("k").orElseThrow().getRawOutput());
+
+        LLMResponseCache.Stats stats = cache.getStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(0.5, stats.getHitRate());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryIsEvicted() {
+        LLMResponseCache cache = new LLMResponseCache(2, null);
+        cache.put("a", "A", "m");
+        cache.put("b", "B", "m");
+        cache.get("a"); // "b" becomes least recently used
+        cache.put("c", "C", "m");
+
+        assertTrue(cache.get("a").isPresent());
+        assertTrue(cache.get("b").isEmpty());
+        assertTrue(cache.get("c").isPresent());
+        assertEquals(1, cache.getStats().getEvictions());
+    }
+
+    @Test
+    void testEntriesExpireAfterTtl() {
+        AtomicLong now = new AtomicLong(0);
+        LLMResponseCache cache = new LLMResponseCache(10, Duration.ofSeconds(60), now::get);
+        cache.put("k", "value", "m");
+
+        now.set(Duration.ofSeconds(61).toNanos());
+
+        assertTrue(cache.get("k").isEmpty());
+        assertEquals(1, cache.getStats().getExpirations());
+        assertEquals(0, cache.getStats().getSize());
+    }
+}
@@ -0,0 +1,181 @@
+package com.complai.coldsales.agents.base.client;
+
+import com.complai.coldsales.agents.base.result.LLMResult;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for streamed completions: listeners, partial fields, inline aborts and the stream view.
+ */
+class LLMStreamTest {
+
+    @Test
+    void testLateListenersReplayWhatArrived() {
+        LLMStream stream = new LLMStream("writer", false);
+        stream.emit("Hello ");
+        List<String> tokens = new ArrayList<>();
+        stream.onToken(tokens::add);
+        stream.emit("world");
+
+        assertEquals(List.of("Hello ", "world"), tokens);
+        assertEquals("Hello world", stream.getText());
+        assertTrue(stream.getFirstTokenNanos() > 0);
+    }
+
+    @Test
+    void testFieldsAreReportedAsSoonAsTheyComplete() {
+        LLMStream stream = new LLMStream("analyzer", true);
+        List<String> fields = new ArrayList<>();
+        stream.onField((field, value) -> fields.add(field + "=" + value));
+
+        stream.emit("{\"subject\": \"Quick ques");
+        assertTrue(fields.isEmpty());
+        stream.emit("tion\", \"score\": 7, \"nested\": {\"skip\": 1}, \"tags\": [\"a\", ");
+        assertEquals(List.of("subject=Quick question", "score=7", "tags=a"), fields);
+        stream.emit("\"b\"], \"body\": null}");
+        assertEquals(List.of("subject=Quick question", "score=7", "tags=a", "tags=b", "body=null"), fields);
+    }
+
+    @Test
+    void testMalformedJsonStopsFieldReportingQuietly() {
+        LLMStream stream = new LLMStream("analyzer", true);
+        List<String> fields = new ArrayList<>();
+        stream.onField((field, value) -> fields.add(field));
+
+        stream.emit("{\"a\": 1, oops \"b\": 2}");
+        assertEquals(List.of("a"), fields);
+        assertEquals("{\"a\": 1, oops \"b\": 2}", stream.getText());
+    }
+
+    @Test
+    void testInlineCheckAbortsAndStopsEmission() {
+        LLMStream stream = new LLMStream("converter", false);
+        stream.abortIf(text -> text.contains("{{"), "unfilled placeholder");
+        stream.emit("<p>Hi {{");
+        stream.emit("name}}</p>");
+
+        assertTrue(stream.isAborted());
+        assertEquals("<p>Hi {{", stream.getText());
+        ExecutionException error = assertThrows(ExecutionException.class, () -> stream.result().get());
+        assertTrue(error.getCause() instanceof LLMStream.StreamAbortedException);
+        assertTrue(error.getCause().getMessage().contains("unfilled placeholder"));
+    }
+
+    @Test
+    void testInputStreamFollowsGeneration() throws Exception {
+        LLMStream stream = new LLMStream("converter", false);
+        CompletableFuture<String> read = CompletableFuture.supplyAsync(() -> {
+            try (InputStream in = stream.asInputStream()) {
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        stream.emit("<p>Grüße, ");
+        Thread.sleep(20);
+        assertFalse(read.isDone());
+        stream.emit("Anna</p>");
+        stream.complete(new LLMResult("<p>Grüße, Anna</p>"));
+
+        assertEquals("<p>Grüße, Anna</p>", read.get(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testInputStreamFailsWhenAborted() throws Exception {
+        LLMStream stream = new LLMStream("converter", false);
+        InputStream in = stream.asInputStream();
+        stream.emit("plain text");
+        stream.abort("not HTML");
+
+        IOException error = assertThrows(IOException.class, in::readAllBytes);
+        assertTrue(error.getMessage().contains("not HTML"));
+    }
+
+    @Test
+    void testBlockedReaderFailsWhenGenerationFails() throws Exception {
+        LLMStream stream = new LLMStream("converter", false);
+        stream.emit("<p>Half an em");
+        CompletableFuture<Throwable> read = new CompletableFuture<>();
+        Thread reader = new Thread(() -> {
+            try (InputStream in = stream.asInputStream()) {
+                in.readAllBytes();
+                read.complete(null);
+            } catch (Throwable e) {
+                read.complete(e);
+            }
+        });
+        reader.start();
+        waitUntilBlocked(reader);
+
+        stream.fail(new IllegalStateException("connection reset"));
+
+        Throwable error = read.get(2, TimeUnit.SECONDS);
+        assertTrue(error instanceof IOException, "a failed generation must not read as a clean end of stream");
+        assertTrue(error.getCause() instanceof IllegalStateException);
+    }
+
+    @Test
+    void testInputStreamReadsTextLargerThanItsInitialBuffer() throws Exception {
+        LLMStream stream = new LLMStream("converter", false);
+        String chunk = "<p>" + "x".repeat(700) + "</p>";
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 5; i++) {
+            stream.emit(chunk);
+            expected.append(chunk);
+        }
+        stream.complete(new LLMResult(expected.toString()));
+
+        assertEquals(expected.toString(), new String(stream.asInputStream().readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    private static void waitUntilBlocked(Thread thread) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (thread.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(Thread.State.WAITING, thread.getState());
+    }
+
+    @Test
+    void testGatedStreamEndsOnlyOnceTheGatePasses() throws Exception {
+        LLMStream stream = new LLMStream("converter", false);
+        CompletableFuture<Void> guardrails = new CompletableFuture<>();
+        stream.holdCompletionUntil(guardrails);
+        List<String> tokens = new ArrayList<>();
+        stream.onToken(tokens::add);
+
+        stream.emit("<p>Hi</p>");
+        stream.complete(new LLMResult("<p>Hi</p>"));
+
+        assertEquals(List.of("<p>Hi</p>"), tokens); // Tokens are not held back
+        assertFalse(stream.result().isDone());
+        guardrails.complete(null);
+        assertEquals("<p>Hi</p>", stream.result().get(1, TimeUnit.SECONDS).getFinalOutput());
+        assertEquals("<p>Hi</p>", new String(stream.asInputStream().readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testGatedStreamFailsWhenTheGateTrips() {
+        LLMStream stream = new LLMStream("converter", false);
+        CompletableFuture<Void> guardrails = new CompletableFuture<>();
+        stream.holdCompletionUntil(guardrails);
+        stream.emit("<p>Hi</p>");
+        stream.complete(new LLMResult("<p>Hi</p>"));
+
+        guardrails.completeExceptionally(new IllegalStateException("tripped"));
+        stream.fail(new IllegalStateException("tripped"));
+
+        assertTrue(stream.result().isCompletedExceptionally());
+        assertThrows(IOException.class, () -> stream.asInputStream().readAllBytes());
+    }
+}
@@ -0,0 +1,95 @@
+package com.complai.coldsales.agents.base.client;
+
+import com.complai.coldsales.models.guardrails.BusinessContextCheck;
+import com.complai.coldsales.models.guardrails.CompositeGuardrailCheck;
+import com.complai.coldsales.models.guardrails.ContentSafetyCheck;
+import com.complai.coldsales.models.structured.EmailAnalysis;
+import com.complai.coldsales.models.structured.EmailSubject;
+import com.complai.coldsales.models.structured.SalesEmail;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for structured output validation and cascade stats.
+ */
+class OutputValidatorTest {
+
+    private final OutputValidator validator = OutputValidator.defaults();
+
+    @Test
+    void testValidAnalysisHasNoViolations() {
+        EmailAnalysis analysis = EmailAnalysis.fallback("a short email body");
+
+        assertTrue(validator.violations(analysis).isEmpty());
+    }
+
+    @Test
+    void testOutOfRangeAndUnknownEnumAreReportedByJsonField() {
+        EmailAnalysis analysis = EmailAnalysis.fallback("body");
+        analysis.setEffectivenessScore(42);
+        analysis.setPersonalizationLevel("extreme");
+
+        List<String> violations = validator.violations(analysis);
+
+        assertEquals(2, violations.size());
+        assertTrue(violations.get(0).startsWith("effectiveness_score"));
+        assertTrue(violations.get(1).startsWith("personalization_level"));
+    }
+
+    @Test
+    void testBlankEmailBodyIsRejected() {
+        SalesEmail email = SalesEmail.builder().subject("Hi").body(" ").expectedResponseRate(10).build();
+
+        assertEquals(List.of("body: non-empty email body"), validator.violations(email));
+    }
+
+    @Test
+    void testInvalidFieldsMapEachJsonFieldToItsExpectation() {
+        EmailSubject subject = EmailSubject.fallback("Quick question");
+        subject.setSubjectType("clickbait");
+        subject.setAlternativeSubjects(List.of());
+
+        Map<String, String> invalid = validator.invalidFields(subject);
+
+        assertEquals(List.of("alternative_subjects", "subject_type"), List.copyOf(invalid.keySet()));
+        assertEquals("one of question, benefit, urgency, curiosity, personal", invalid.get("subject_type"));
+        assertTrue(validator.invalidFields(EmailSubject.fallback("Quick question")).isEmpty());
+        assertTrue(validator.invalidFields(null).isEmpty());
+    }
+
+    @Test
+    void testCompositeGuardrailNeedsEveryVerdict() {
+        CompositeGuardrailCheck check = CompositeGuardrailCheck.builder()
+                .contentSafety(ContentSafetyCheck.builder().isSafe(true).confidence(0.9).build())
+                .businessContext(BusinessContextCheck.builder().isSafe(true).confidence(1.5).build())
+                .build();
+
+        assertEquals(List.of("business_context", "personal_data"), List.copyOf(validator.invalidFields(check).keySet()));
+    }
+
+    @Test
+    void testUnknownTypesPass() {
+        assertTrue(validator.violations("plain text").isEmpty());
+        assertTrue(validator.violations(null).isEmpty());
+    }
+
+    @Test
+    void testCascadeStatsTrackEscalationRatePerAgent() {
+        CascadeStats stats = new CascadeStats();
+        stats.record("Email Analyzer", "gpt-4o-mini", 0, true);
+        stats.record("Email Analyzer", "gpt-4o-mini", 0, true);
+        stats.record("Email Analyzer", "gpt-4o", 1, true);
+        stats.record("Email Analyzer", "gpt-4o", 1, false);
+
+        CascadeStats.AgentStats analyzer = stats.snapshot().get("Email Analyzer");
+
+        assertEquals(4, analyzer.getRuns());
+        assertEquals(0.5, analyzer.getEscalationRate());
+        assertEquals(1, analyzer.getInvalidOutputs());
+        assertEquals(Map.of("gpt-4o-mini", 2L, "gpt-4o", 2L), analyzer.getAcceptedByModel());
+    }
+}
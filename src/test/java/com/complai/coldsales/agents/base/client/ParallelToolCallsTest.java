@@ -0,0 +1,165 @@
+package com.complai.coldsales.agents.base.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for parallel tool dispatch: ordering, the parallelism cap, timeouts and slots.
+ */
+class ParallelToolCallsTest {
+
+    private static final ParallelToolCalls.Completion<String, String, String> OUTCOME =
+            (call, value, failure) -> failure == null ? value : call + ":" + failure.getClass().getSimpleName();
+
+    @Test
+    void testOutcomesStayInCallOrderWhenToolsFinishOutOfOrder() {
+        ParallelToolCalls dispatcher = new ParallelToolCalls(4, Duration.ofSeconds(5), Runnable::run);
+        List<String> calls = List.of("a", "b", "c", "d");
+        Map<String, Long> delaysMs = Map.of("a", 120L, "b", 80L, "c", 40L, "d", 0L); // Last call finishes first
+
+        List<String> outcomes = dispatcher.run(calls,
+                call -> ParallelToolCalls.Started.of(CompletableFuture.supplyAsync(() -> call.toUpperCase(),
+                        CompletableFuture.delayedExecutor(delaysMs.get(call), TimeUnit.MILLISECONDS))),
+                OUTCOME);
+
+        assertEquals(List.of("A", "B", "C", "D"), outcomes);
+    }
+
+    @Test
+    void testToolsRunInParallelUpToTheCap() {
+        ParallelToolCalls dispatcher = new ParallelToolCalls(2, Duration.ofSeconds(5), Runnable::run);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        dispatcher.run(List.of("a", "b", "c", "d", "e"), call -> ParallelToolCalls.Started.of(
+                CompletableFuture.supplyAsync(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    sleep(50);
+                    running.decrementAndGet();
+                    return call;
+                })), OUTCOME);
+
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    void testTimedOutToolIsCancelledAndReportedAsTimeout() {
+        ParallelToolCalls dispatcher = new ParallelToolCalls(4, Duration.ofMillis(50), Runnable::run);
+        CompletableFuture<String> hanging = new CompletableFuture<>();
+
+        List<String> outcomes = dispatcher.run(List.of("slow", "fast"),
+                call -> ParallelToolCalls.Started.of(call.equals("slow") ? hanging : CompletableFuture.completedFuture("FAST")),
+                OUTCOME);
+
+        assertEquals(List.of("slow:" + TimeoutException.class.getSimpleName(), "FAST"), outcomes);
+        assertTrue(hanging.isCancelled(), "the timed-out tool should be cancelled, not left running");
+    }
+
+    @Test
+    void testSlotIsHeldUntilTheToolsWorkEnds() {
+        ParallelToolCalls dispatcher = new ParallelToolCalls(1, Duration.ofSeconds(5), Runnable::run);
+        Map<String, Long> started = new ConcurrentHashMap<>();
+        Map<String, Long> finished = new ConcurrentHashMap<>();
+
+        dispatcher.run(List.of("first", "second"), call -> {
+            started.put(call, System.nanoTime());
+            return ParallelToolCalls.Started.of(CompletableFuture.supplyAsync(() -> {
+                sleep(60);
+                finished.put(call, System.nanoTime());
+                return call;
+            }));
+        }, OUTCOME);
+
+        assertTrue(started.get("second") >= finished.get("first"),
+                "with one slot, the second tool must wait for the first to finish");
+    }
+
+    @Test
+    void testTimedOutSlotIsFreedByCancellationSoLaterToolsStillRun() {
+        ParallelToolCalls dispatcher = new ParallelToolCalls(1, Duration.ofMillis(50), Runnable::run);
+
+        List<String> outcomes = dispatcher.run(List.of("hangs", "next"),
+                call -> ParallelToolCalls.Started.of(
+                        call.equals("hangs") ? new CompletableFuture<>() : CompletableFuture.completedFuture("NEXT")),
+                OUTCOME);
+
+        assertEquals("NEXT", outcomes.get(1));
+    }
+
+    @Test
+    void testTimedOutSlotIsHeldUntilTheCancelledWorkSettles() {
+        ParallelToolCalls dispatcher = new ParallelToolCalls(1, Duration.ofMillis(50), Runnable::run);
+        CompletableFuture<Void> workStopped = new CompletableFuture<>();
+        Map<String, Long> started = new ConcurrentHashMap<>();
+        AtomicLong stoppedAt = new AtomicLong();
+
+        List<String> outcomes = dispatcher.run(List.of("hangs", "next"), call -> {
+            started.put(call, System.nanoTime());
+            if (call.equals("next")) {
+                return ParallelToolCalls.Started.of(CompletableFuture.completedFuture("NEXT"));
+            }
+            // The result is cancelled at once on timeout; the work behind it takes a while to stop
+            CompletableFuture<String> result = new CompletableFuture<>();
+            result.whenComplete((value, throwable) -> CompletableFuture.runAsync(() -> {
+                sleep(80);
+                stoppedAt.set(System.nanoTime());
+                workStopped.complete(null);
+            }));
+            return new ParallelToolCalls.Started<>(result, workStopped);
+        }, OUTCOME);
+
+        assertEquals(List.of("hangs:" + TimeoutException.class.getSimpleName(), "NEXT"), outcomes);
+        assertTrue(started.get("next") >= stoppedAt.get(),
+                "the slot must stay taken until the cancelled work has stopped");
+    }
+
+    @Test
+    void testTimeoutsRunOnTheGivenExecutor() {
+        List<String> timeoutThreads = new CopyOnWriteArrayList<>();
+        Executor recording = task -> {
+            timeoutThreads.add(Thread.currentThread().getName());
+            task.run();
+        };
+        ParallelToolCalls dispatcher = new ParallelToolCalls(1, Duration.ofMillis(20), recording);
+
+        dispatcher.run(List.of("hangs"), call -> ParallelToolCalls.Started.of(new CompletableFuture<String>()), OUTCOME);
+
+        assertEquals(1, timeoutThreads.size());
+        assertFalse(timeoutThreads.get(0).startsWith("ForkJoinPool.commonPool"));
+    }
+
+    @Test
+    void testToolThatFailsToStartDoesNotKeepItsSlot() {
+        ParallelToolCalls dispatcher = new ParallelToolCalls(1, Duration.ofSeconds(5), Runnable::run);
+
+        List<String> outcomes = dispatcher.run(List.of("broken", "ok"), call -> {
+            if (call.equals("broken")) {
+                throw new IllegalStateException("no such tool");
+            }
+            return ParallelToolCalls.Started.of(CompletableFuture.completedFuture("OK"));
+        }, OUTCOME);
+
+        assertEquals(List.of("broken:IllegalStateException", "OK"), outcomes);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.complai.coldsales.agents.base.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for provider routing and failover.
+ */
+class ProviderRouterTest {
+
+    private static final LLMProvider OPENAI = LLMProvider.openAI("sk-test", "http://localhost:9999/v1");
+    private static final LLMProvider GROQ = LLMProvider.groq("gsk-test", null);
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void testCandidatesFollowPreferenceAndMapModels() {
+        ProviderRouter router = new ProviderRouter(List.of(OPENAI, GROQ), List.of("openai", "groq"));
+
+        List<ProviderRouter.Route> routes = router.candidates("gpt-4o-mini", List.of("groq", "openai"));
+
+        assertEquals(2, routes.size());
+        assertEquals("groq", routes.get(0).provider().getName());
+        assertEquals("llama-3.1-8b-instant", routes.get(0).model());
+        assertEquals("gpt-4o-mini", routes.get(1).model());
+    }
+
+    @Test
+    void testUnconfiguredPreferenceFallsBackToDefaultOrder() {
+        ProviderRouter router = new ProviderRouter(List.of(OPENAI), null);
+
+        List<ProviderRouter.Route> routes = router.candidates("gpt-4o-mini", List.of("google", "deepseek"));
+
+        assertEquals(1, routes.size());
+        assertEquals("openai", routes.get(0).provider().getName());
+    }
+
+    @Test
+    void testPreferredProviderWinsWhenHealthsAreSimilar() {
+        ProviderRouter router = new ProviderRouter(List.of(OPENAI, GROQ), null);
+        List<ProviderRouter.Route> routes = router.candidates("gpt-4o-mini", null);
+        router.recordSuccess(routes.get(0), 900 * MS);
+        router.recordSuccess(routes.get(1), 800 * MS);
+
+        assertEquals("openai", router.select(routes, route -> true).provider().getName());
+    }
+
+    @Test
+    void testFailingProviderLosesTraffic() {
+        ProviderRouter router = new ProviderRouter(List.of(OPENAI, GROQ), null);
+        List<ProviderRouter.Route> routes = router.candidates("gpt-4o-mini", null);
+        router.recordSuccess(routes.get(1), 1000 * MS);
+        for (int i = 0; i < 5; i++) {
+            router.recordError(routes.get(0), 50 * MS);
+        }
+
+        assertEquals("groq", router.select(routes, route -> true).provider().getName());
+    }
+
+    @Test
+    void testUnhealthyRoutesAreSkipped() {
+        ProviderRouter router = new ProviderRouter(List.of(OPENAI, GROQ), null);
+        List<ProviderRouter.Route> routes = router.candidates("gpt-4o-mini", null);
+
+        assertEquals("groq", router.select(routes, route -> route.provider() == GROQ).provider().getName());
+        assertNull(router.select(routes, route -> false));
+    }
+}
@@ -0,0 +1,159 @@
+package com.complai.coldsales.agents.base.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for hedged requests.
+ */
+class RequestHedgerTest {
+
+    private static final Executor DIRECT = Runnable::run;
+
+    @Test
+    void testNoHedgingUntilEnoughSamples() {
+        RequestHedger hedger = new RequestHedger(50, 0.9, DIRECT);
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<String> result = hedger.execute("subject", () -> {
+            calls.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+
+        assertFalse(result.isDone());
+        assertEquals(1, calls.get());
+        assertEquals(-1, hedger.getThresholdMillis("subject"));
+    }
+
+    @Test
+    void testSlowPrimaryIsHedgedAndLoserCancelled() {
+        RequestHedger hedger = warmedUp(100);
+        CompletableFuture<String> slowPrimary = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<String> result = hedger.execute("subject", () ->
+                calls.getAndIncrement() == 0 ? slowPrimary : CompletableFuture.completedFuture("hedge"));
+
+        assertEquals("hedge", result.orTimeout(5, TimeUnit.SECONDS).join());
+        assertTrue(slowPrimary.isCancelled());
+        assertEquals(1, hedger.getStats().getHedgeWins());
+    }
+
+    @Test
+    void testHedgeBudgetBoundsExtraRequests() throws InterruptedException {
+        RequestHedger hedger = warmedUp(10);
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 10; i++) {
+            hedger.execute("subject", () -> {
+                calls.incrementAndGet();
+                return new CompletableFuture<String>();
+            });
+        }
+        Thread.sleep(100); // Let the hedge timers fire
+
+        RequestHedger.Stats stats = hedger.getStats();
+        assertTrue(stats.getHedges() <= 0.10 * stats.getRequests(), "hedges exceeded budget: " + stats);
+        assertEquals(10 + stats.getHedges(), calls.get());
+    }
+
+    @Test
+    void testFailedPrimaryWaitsForRunningHedge() throws InterruptedException {
+        RequestHedger hedger = warmedUp(100);
+        CompletableFuture<String> primary = new CompletableFuture<>();
+        CompletableFuture<String> hedge = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<String> result = hedger.execute("subject", () -> calls.getAndIncrement() == 0 ? primary : hedge);
+        awaitCalls(calls, 2);
+        primary.completeExceptionally(new IllegalStateException("boom"));
+
+        assertFalse(result.isDone());
+        hedge.complete("ok");
+        assertEquals("ok", result.join());
+    }
+
+    private static void awaitCalls(AtomicInteger calls, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (calls.get() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(expected, calls.get());
+    }
+
+    @Test
+    void testSamplesAreTheReportedProviderLatencyNotTheQueueWait() {
+        RequestHedger hedger = new RequestHedger(50, 0.9, DIRECT);
+        long providerNanos = TimeUnit.MILLISECONDS.toNanos(200);
+
+        for (int i = 0; i < 20; i++) {
+            // Admission took a while, but the provider itself answered in 200 ms
+            hedger.execute("subject", timing -> {
+                sleepQuietly(5);
+                timing.admitted();
+                timing.providerLatency(providerNanos);
+                return CompletableFuture.completedFuture("ok");
+            }).join();
+        }
+
+        assertEquals(200, hedger.getThresholdMillis("subject"));
+    }
+
+    @Test
+    void testHedgeTimerStartsWhenThePrimaryIsAdmitted() throws Exception {
+        RequestHedger hedger = warmedUp(100);
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<RequestHedger.AttemptTiming> primaryTiming = new CompletableFuture<>();
+
+        CompletableFuture<String> result = hedger.execute("subject", timing -> {
+            if (calls.getAndIncrement() == 0) {
+                primaryTiming.complete(timing);
+                return new CompletableFuture<>(); // Slow primary
+            }
+            return CompletableFuture.completedFuture("hedge");
+        });
+
+        sleepQuietly(50); // Far past the threshold, but the primary is still waiting for admission
+        assertEquals(1, calls.get());
+
+        primaryTiming.join().admitted();
+        assertEquals("hedge", result.get(2, TimeUnit.SECONDS));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void testFailedAttemptsAreNotSampledByWallClock() {
+        RequestHedger hedger = new RequestHedger(50, 0.9, DIRECT);
+
+        for (int i = 0; i < 20; i++) {
+            hedger.execute("subject", () -> CompletableFuture.<String>failedFuture(new IllegalStateException("boom")));
+        }
+
+        assertEquals(-1, hedger.getThresholdMillis("subject"));
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Hedger whose "subject" key already has a (near-zero) p90, so hedges fire immediately.
+     */
+    private static RequestHedger warmedUp(double budgetPercent) {
+        RequestHedger hedger = new RequestHedger(budgetPercent, 0.9, DIRECT);
+        for (int i = 0; i < 20; i++) {
+            hedger.recordLatency("subject", 1);
+        }
+        return hedger;
+    }
+}
@@ -0,0 +1,110 @@
+package com.complai.coldsales.agents.base.client;
+
+import com.complai.coldsales.agents.base.core.Agent;
+import com.complai.coldsales.agents.base.core.AgentOptions;
+import com.complai.coldsales.models.structured.SalesEmail;
+import com.openai.models.ChatCompletionCreateParams;
+import com.openai.models.ChatCompletionMessageParam;
+import com.openai.models.ChatCompletionSystemMessageParam;
+import com.openai.models.ChatCompletionUserMessageParam;
+import com.openai.models.ChatModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Per-call cost of building a chat completion request: rebuilt from the agent on every call
+ * (the previous LLMClient path) versus from a compiled request template.
+ *
+ * Run after test-compile with the test classpath, e.g. from an IDE, or:
+ *   java -cp target/test-classes:target/classes:<test classpath> \
+ *       com.complai.coldsales.agents.base.client.RequestTemplateBenchmark
+ * The GC profiler reports gc.alloc.rate.norm, the bytes allocated per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestTemplateBenchmark {
+
+    private static final String PROMPT = "Target: CTO at Acme Corp\n\nRESEARCH INSIGHTS:\n"
+            + "Series B in March, hiring a first security engineer, SOC2 audit planned for Q3.";
+
+    private Agent agent;
+    private ProviderRouter.Route route;
+    private JsonSchemaGenerator schemaGenerator;
+    private RequestTemplateCompiler compiler;
+
+    @Setup
+    public void setUp() {
+        AgentOptions options = AgentOptions.builder()
+                .sharedContext("ComplAI provides a SaaS tool for SOC2 compliance. Write cold sales emails.")
+                .build();
+        agent = new Agent("Professional Sales Agent", "You write professional, serious cold emails.",
+                "gpt-4o-mini", SalesEmail.class, List.of(), List.of(), options);
+        route = new ProviderRouter.Route(LLMProvider.openAI("sk-bench", "http://localhost:9999/v1"), "gpt-4o-mini");
+        schemaGenerator = new JsonSchemaGenerator();
+        compiler = new RequestTemplateCompiler(schemaGenerator, new ToolDefinitionCompiler(), a -> 1024L);
+    }
+
+    @Benchmark
+    public ChatCompletionCreateParams rebuiltPerCall() {
+        ChatCompletionSystemMessageParam shared = systemMessage(agent.getOptions().getSharedContext());
+        ChatCompletionSystemMessageParam instructions = systemMessage(agent.getInstructions());
+        ChatCompletionUserMessageParam prompt = ChatCompletionUserMessageParam.builder()
+                .role(ChatCompletionUserMessageParam.Role.USER)
+                .content(ChatCompletionUserMessageParam.Content.ofTextContent(PROMPT))
+                .build();
+        List<ChatCompletionMessageParam> messages = Stream.<Object>of(shared, instructions, prompt)
+                .map(message -> message instanceof ChatCompletionSystemMessageParam system
+                        ? ChatCompletionMessageParam.ofChatCompletionSystemMessageParam(system)
+                        : ChatCompletionMessageParam.ofChatCompletionUserMessageParam((ChatCompletionUserMessageParam) message))
+                .toList();
+        return ChatCompletionCreateParams.builder()
+                .model(ChatModel.of(route.model()))
+                .maxTokens(1024L)
+                .temperature(agent.getOptions().getTemperature())
+                .topP(1.0)
+                .frequencyPenalty(0.0)
+                .presencePenalty(0.0)
+                .messages(messages)
+                .responseFormat(schemaGenerator.responseFormatFor(agent.getOutputType()))
+                .build();
+    }
+
+    @Benchmark
+    public ChatCompletionCreateParams fromTemplate() {
+        return compiler.templateFor(agent, route).newRequest(PROMPT).build();
+    }
+
+    private static ChatCompletionSystemMessageParam systemMessage(String content) {
+        return ChatCompletionSystemMessageParam.builder()
+                .role(ChatCompletionSystemMessageParam.Role.SYSTEM)
+                .content(ChatCompletionSystemMessageParam.Content.ofTextContent(content))
+                .build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RequestTemplateBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
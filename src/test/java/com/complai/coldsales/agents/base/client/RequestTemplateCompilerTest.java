@@ -0,0 +1,67 @@
+package com.complai.coldsales.agents.base.client;
+
+import com.complai.coldsales.agents.base.core.Agent;
+import com.complai.coldsales.agents.base.core.AgentOptions;
+import com.complai.coldsales.models.structured.SalesEmail;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for per-agent request templates.
+ */
+class RequestTemplateCompilerTest {
+
+    private static final ProviderRouter.Route OPENAI =
+            new ProviderRouter.Route(LLMProvider.openAI("sk-test", "http://localhost:9999/v1"), "gpt-4o-mini");
+    private static final ProviderRouter.Route DEEPSEEK =
+            new ProviderRouter.Route(LLMProvider.deepseek("ds-test", null), "deepseek-chat");
+
+    private RequestTemplateCompiler compiler;
+
+    @BeforeEach
+    void setUp() {
+        compiler = new RequestTemplateCompiler(new JsonSchemaGenerator(), new ToolDefinitionCompiler(), agent -> 500L);
+    }
+
+    @Test
+    void testTemplateIsCompiledOncePerAgentAndRoute() {
+        Agent agent = agent(AgentOptions.defaults());
+
+        RequestTemplate first = compiler.templateFor(agent, OPENAI);
+
+        assertSame(first, compiler.templateFor(agent, OPENAI));
+        assertNotSame(first, compiler.templateFor(agent, DEEPSEEK));
+    }
+
+    @Test
+    void testSharedContextLeadsAndSchemaFollowsItInJsonMode() {
+        Agent agent = agent(AgentOptions.builder().sharedContext("Campaign context").build());
+
+        // Strict json_schema route: shared context, instructions
+        assertEquals(2, compiler.templateFor(agent, OPENAI).getLeadingMessages().size());
+        // JSON mode route: shared context, schema instruction, instructions
+        assertEquals(3, compiler.templateFor(agent, DEEPSEEK).getLeadingMessages().size());
+        assertTrue(compiler.structuredOutputInstruction(agent).contains("\"subject\""));
+    }
+
+    @Test
+    void testTemplateIsRecompiledWhenAgentChanges() {
+        Agent agent = agent(AgentOptions.defaults());
+        RequestTemplate original = compiler.templateFor(agent, OPENAI);
+
+        agent.setInstructions("Write shorter emails.");
+
+        RequestTemplate recompiled = compiler.templateFor(agent, OPENAI);
+        assertNotSame(original, recompiled);
+        assertTrue(recompiled.isCompiledFrom(agent));
+        assertFalse(original.isCompiledFrom(agent));
+    }
+
+    private static Agent agent(AgentOptions options) {
+        return new Agent("Writer", "Write a cold email.", "gpt-4o-mini", SalesEmail.class, List.of(), List.of(), options);
+    }
+}
@@ -0,0 +1,83 @@
+package com.complai.coldsales.agents.base.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for retry classification, backoff and the per-run retry budget.
+ */
+class RetryPolicyTest {
+
+    @Test
+    void testStatusClassification() {
+        assertEquals(RetryPolicy.FailureKind.RETRYABLE, RetryPolicy.classifyStatus(429));
+        assertEquals(RetryPolicy.FailureKind.RETRYABLE, RetryPolicy.classifyStatus(500));
+        assertEquals(RetryPolicy.FailureKind.RETRYABLE, RetryPolicy.classifyStatus(503));
+        assertEquals(RetryPolicy.FailureKind.TERMINAL, RetryPolicy.classifyStatus(400));
+        assertEquals(RetryPolicy.FailureKind.TERMINAL, RetryPolicy.classifyStatus(401));
+        assertEquals(RetryPolicy.FailureKind.TERMINAL, RetryPolicy.classifyStatus(403));
+    }
+
+    @Test
+    void testNetworkFailuresAreRetryableThroughWrappers() {
+        assertEquals(RetryPolicy.FailureKind.RETRYABLE,
+                RetryPolicy.classify(new CompletionException(new SocketTimeoutException("read timed out"))));
+        assertEquals(RetryPolicy.FailureKind.RETRYABLE,
+                RetryPolicy.classify(new RuntimeException(new SocketException("Connection reset"))));
+        assertEquals(RetryPolicy.FailureKind.TERMINAL,
+                RetryPolicy.classify(new IllegalArgumentException("bad input")));
+    }
+
+    @Test
+    void testTerminalFailuresAreNotRetried() {
+        RetryPolicy policy = RetryPolicy.defaults();
+
+        assertTrue(policy.nextDelay(new IllegalStateException("boom"), 1, null, RetryBudget.unlimited()).isEmpty());
+    }
+
+    @Test
+    void testRetriesStopAtMaxAttempts() {
+        RetryPolicy policy = RetryPolicy.withMaxAttempts(3);
+        SocketTimeoutException timeout = new SocketTimeoutException();
+
+        assertTrue(policy.nextDelay(timeout, 2, null, RetryBudget.unlimited()).isPresent());
+        assertTrue(policy.nextDelay(timeout, 3, null, RetryBudget.unlimited()).isEmpty());
+    }
+
+    @Test
+    void testDecorrelatedJitterStaysWithinBounds() {
+        RetryPolicy policy = new RetryPolicy(5, Duration.ofMillis(100), Duration.ofMillis(1000));
+        Duration previous = null;
+        for (int i = 0; i < 50; i++) {
+            Duration delay = policy.decorrelatedJitter(previous);
+            assertTrue(delay.toMillis() >= 100 && delay.toMillis() <= 1000, "delay out of bounds: " + delay);
+            previous = delay;
+        }
+    }
+
+    @Test
+    void testBudgetIsSharedAndExhausts() {
+        RetryPolicy policy = RetryPolicy.defaults();
+        RetryBudget budget = RetryBudget.of(2);
+        SocketTimeoutException timeout = new SocketTimeoutException();
+
+        assertTrue(policy.nextDelay(timeout, 1, null, budget).isPresent());
+        assertTrue(policy.nextDelay(timeout, 1, null, budget).isPresent());
+        assertTrue(policy.nextDelay(timeout, 1, null, budget).isEmpty());
+        assertEquals(2, budget.getRetriesUsed());
+        assertEquals(0, budget.getRemaining());
+    }
+
+    @Test
+    void testRetryAfterParsing() {
+        assertEquals(Duration.ofSeconds(7), RetryPolicy.parseRetryAfter("7").orElseThrow());
+        assertTrue(RetryPolicy.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT").isPresent());
+        assertTrue(RetryPolicy.parseRetryAfter("soon").isEmpty());
+    }
+}
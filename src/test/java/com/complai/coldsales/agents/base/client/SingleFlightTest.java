@@ -0,0 +1,81 @@
+package com.complai.coldsales.agents.base.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for single-flight request coalescing.
+ */
+class SingleFlightTest {
+
+    @Test
+    void testConcurrentDuplicatesShareOneCall() {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> backend = new CompletableFuture<>();
+
+        CompletableFuture<String> first = flight.execute("key", () -> {
+            calls.incrementAndGet();
+            return backend;
+        });
+        CompletableFuture<String> second = flight.execute("key", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("duplicate");
+        });
+        backend.complete("shared");
+
+        assertEquals("shared", first.join());
+        assertEquals("shared", second.join());
+        assertEquals(1, calls.get());
+        assertEquals(1, flight.getCoalescedCount());
+        assertEquals(0, flight.getInFlightCount());
+    }
+
+    @Test
+    void testOneCallerCancellingDoesNotCancelSharedCall() {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CompletableFuture<String> backend = new CompletableFuture<>();
+
+        CompletableFuture<String> first = flight.execute("key", () -> backend);
+        CompletableFuture<String> second = flight.execute("key", () -> backend);
+        first.cancel(true);
+
+        assertFalse(backend.isCancelled());
+        backend.complete("done");
+        assertEquals("done", second.join());
+    }
+
+    @Test
+    void testLastCallerCancellingCancelsSharedCall() {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CompletableFuture<String> backend = new CompletableFuture<>();
+
+        CompletableFuture<String> first = flight.execute("key", () -> backend);
+        CompletableFuture<String> second = flight.execute("key", () -> backend);
+        first.cancel(true);
+        second.cancel(true);
+
+        assertTrue(backend.isCancelled());
+        assertEquals(0, flight.getInFlightCount());
+
+        CompletableFuture<String> fresh = flight.execute("key", () -> CompletableFuture.completedFuture("fresh"));
+        assertEquals("fresh", fresh.join());
+    }
+
+    @Test
+    void testFailureIsDeliveredToAllCallers() {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CompletableFuture<String> backend = new CompletableFuture<>();
+
+        CompletableFuture<String> first = flight.execute("key", () -> backend);
+        CompletableFuture<String> second = flight.execute("key", () -> backend);
+        backend.completeExceptionally(new IllegalStateException("boom"));
+
+        assertTrue(first.isCompletedExceptionally());
+        assertTrue(second.isCompletedExceptionally());
+    }
+}
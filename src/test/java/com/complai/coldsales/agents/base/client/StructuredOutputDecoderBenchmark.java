@@ -0,0 +1,120 @@
+package com.complai.coldsales.agents.base.client;
+
+import com.complai.coldsales.models.structured.EmailAnalysis;
+import com.complai.coldsales.models.structured.ProspectResearch;
+import com.complai.coldsales.models.structured.SalesEmail;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot-path cost of parsing a structured answer: ObjectMapper.readValue plus the reflective
+ * all-nulls check (the previous LLMClient path) versus a precompiled decoder on a Blackbird mapper.
+ *
+ * Run after test-compile with the test classpath, e.g. from an IDE, or:
+ *   java -cp target/test-classes:target/classes:<test classpath> \
+ *       com.complai.coldsales.agents.base.client.StructuredOutputDecoderBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StructuredOutputDecoderBenchmark {
+
+    private static final String SALES_EMAIL = """
+            {"subject":"Cutting Acme's SOC2 prep from months to weeks",
+             "body":"Hi Dana,\\n\\nCongrats on the Series B. Teams at your stage usually hit SOC2 right as \
+            enterprise deals start asking for it, and the evidence collection alone eats a quarter.\\n\\n\
+            ComplAI maps your controls, collects evidence from the tools you already use and flags gaps \
+            before the auditor does. Would a 15-minute demo next week be useful?\\n\\nBest,\\nAlex",
+             "tone":"professional","call_to_action":"Book a 15-minute demo",
+             "personalization_notes":"References the Series B and upcoming enterprise deals",
+             "expected_response_rate":12}""";
+    private static final String EMAIL_ANALYSIS = """
+            {"effectiveness_score":8,"tone":"professional","word_count":74,"has_call_to_action":true,
+             "personalization_level":"high",
+             "improvement_suggestions":"Name a peer company that passed its audit with ComplAI",
+             "strengths":"Timely hook, concrete pain point, short","weaknesses":"No social proof"}""";
+    private static final String PROSPECT_RESEARCH = """
+            {"company_overview":"Acme is a B2B payments platform serving mid-market retailers",
+             "company_size":"200-500","industry":"Fintech",
+             "key_pain_points":["SOC2 Type II required by enterprise prospects","Small security team"],
+             "personalization_opportunities":["Series B announcement","Hiring a first security engineer"],
+             "recommended_approach":"Lead with time-to-audit and the enterprise pipeline it unblocks",
+             "recent_hooks":["Series B in March","New CISO role posted"],"confidence_level":"high"}""";
+
+    @Param({"SalesEmail", "EmailAnalysis", "ProspectResearch"})
+    public String outputType;
+
+    private Class<?> type;
+    private String payload;
+    private ObjectMapper plainMapper;
+    private StructuredOutputDecoders.Decoder decoder;
+
+    @Setup
+    public void setUp() {
+        switch (outputType) {
+            case "SalesEmail" -> { type = SalesEmail.class; payload = SALES_EMAIL; }
+            case "EmailAnalysis" -> { type = EmailAnalysis.class; payload = EMAIL_ANALYSIS; }
+            default -> { type = ProspectResearch.class; payload = PROSPECT_RESEARCH; }
+        }
+        plainMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        ObjectMapper blackbirdMapper = new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                .registerModule(new BlackbirdModule());
+        decoder = new StructuredOutputDecoders(blackbirdMapper).decoderFor(type);
+    }
+
+    @Benchmark
+    public boolean readValueAndReflectiveCheck() throws Exception {
+        return isAllNulls(plainMapper.readValue(payload, type));
+    }
+
+    @Benchmark
+    public boolean precompiledDecoder() throws Exception {
+        return decoder.isEmpty(decoder.read(payload));
+    }
+
+    // The check LLMClient ran on every structured answer before decoders
+    private static boolean isAllNulls(Object obj) throws IllegalAccessException {
+        if (obj == null) {
+            return true;
+        }
+        for (Field field : obj.getClass().getDeclaredFields()) {
+            field.setAccessible(true);
+            Object value = field.get(obj);
+            if (value != null && !(value instanceof List<?> list && list.isEmpty())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(StructuredOutputDecoderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
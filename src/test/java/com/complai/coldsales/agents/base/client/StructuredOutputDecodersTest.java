@@ -0,0 +1,53 @@
+package com.complai.coldsales.agents.base.client;
+
+import com.complai.coldsales.models.structured.EmailAnalysis;
+import com.complai.coldsales.models.structured.ProspectResearch;
+import com.complai.coldsales.models.structured.SalesEmail;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for per-class structured output decoders.
+ */
+class StructuredOutputDecodersTest {
+
+    private final StructuredOutputDecoders decoders = new StructuredOutputDecoders(
+            new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false));
+
+    @Test
+    void testDecoderIsBuiltOncePerClass() {
+        assertSame(decoders.decoderFor(SalesEmail.class), decoders.decoderFor(SalesEmail.class));
+    }
+
+    @Test
+    void testReadsIntoOutputClass() throws Exception {
+        Object output = decoders.decoderFor(ProspectResearch.class).read(
+                "{\"company_overview\":\"Acme builds rockets\",\"key_pain_points\":[\"audits\"],\"extra\":1}");
+
+        assertTrue(output instanceof ProspectResearch);
+        ProspectResearch research = (ProspectResearch) output;
+        assertEquals("Acme builds rockets", research.getCompanyOverview());
+        assertEquals(List.of("audits"), research.getKeyPainPoints());
+    }
+
+    @Test
+    void testNullFieldsAndEmptyListsAreEmpty() throws Exception {
+        StructuredOutputDecoders.Decoder decoder = decoders.decoderFor(ProspectResearch.class);
+
+        assertTrue(decoder.isEmpty(decoder.read("{\"company_overview\":null,\"key_pain_points\":[]}")));
+        assertTrue(decoder.isEmpty(null));
+        assertFalse(decoder.isEmpty(decoder.read("{\"recent_hooks\":[\"Series B\"]}")));
+    }
+
+    @Test
+    void testClassesWithPrimitiveFieldsAreNeverEmpty() throws Exception {
+        StructuredOutputDecoders.Decoder decoder = decoders.decoderFor(EmailAnalysis.class);
+
+        assertFalse(decoder.isEmpty(decoder.read("{}")));
+    }
+}
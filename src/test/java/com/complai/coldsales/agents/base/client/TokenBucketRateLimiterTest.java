@@ -0,0 +1,110 @@
+package com.complai.coldsales.agents.base.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the per-model RPM/TPM token-bucket limiter.
+ */
+class TokenBucketRateLimiterTest {
+
+    @Test
+    void testRequestsQueueOnceBucketIsEmpty() {
+        AtomicLong clock = new AtomicLong();
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(60, 0, clock::get);
+
+        for (int i = 0; i < 60; i++) {
+            assertEquals(0, limiter.reserve("gpt-4o-mini", 100));
+        }
+        // 61st request waits for one refill (1 request per second at 60 RPM)
+        assertEquals(TimeUnit.SECONDS.toNanos(1), limiter.reserve("gpt-4o-mini", 100));
+    }
+
+    @Test
+    void testTokenBudgetIsTrackedPerModel() {
+        AtomicLong clock = new AtomicLong();
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(0, 1000, clock::get);
+
+        assertEquals(0, limiter.reserve("gpt-4o-mini", 1000));
+        assertTrue(limiter.reserve("gpt-4o-mini", 500) > 0);
+        assertEquals(0, limiter.reserve("gpt-4o", 1000));
+    }
+
+    @Test
+    void testReconcileRefundsOverEstimates() {
+        AtomicLong clock = new AtomicLong();
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(0, 1000, clock::get);
+
+        assertEquals(0, limiter.reserve("gpt-4o-mini", 1000));
+        limiter.reconcile("gpt-4o-mini", 1000, 200);
+
+        assertEquals(0, limiter.reserve("gpt-4o-mini", 800));
+    }
+
+    @Test
+    void testRefundGivesBackTheReservation() {
+        AtomicLong clock = new AtomicLong();
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(0, 1000, clock::get);
+
+        assertEquals(0, limiter.reserve("gpt-4o-mini", 1000));
+        limiter.refund("gpt-4o-mini", 1000); // The call failed before producing any usage
+
+        assertEquals(0, limiter.reserve("gpt-4o-mini", 1000));
+    }
+
+    @Test
+    void testOversizedEstimatesAreSettledAgainstWhatWasReserved() {
+        AtomicLong clock = new AtomicLong();
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(0, 1000, clock::get);
+
+        // Only a full bucket (1000) is reserved for a 5000-token estimate
+        assertEquals(0, limiter.reserve("gpt-4o-mini", 5000));
+        limiter.reconcile("gpt-4o-mini", 5000, 800);
+        assertEquals(0, limiter.reserve("gpt-4o-mini", 200));
+        assertTrue(limiter.reserve("gpt-4o-mini", 1) > 0, "reconcile must not refund more than was reserved");
+
+        TokenBucketRateLimiter refunded = new TokenBucketRateLimiter(0, 1000, clock::get);
+        assertEquals(0, refunded.reserve("gpt-4o-mini", 1000));
+        assertTrue(refunded.reserve("gpt-4o-mini", 5000) > 0);
+        refunded.refund("gpt-4o-mini", 5000);
+        assertTrue(refunded.reserve("gpt-4o-mini", 1) > 0, "refund must not give back more than was reserved");
+    }
+
+    @Test
+    void testInterruptedWaitGivesBackItsTokens() throws InterruptedException {
+        AtomicLong clock = new AtomicLong();
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(0, 1000, clock::get);
+        assertEquals(0, limiter.reserve("gpt-4o-mini", 1000));
+
+        Thread.currentThread().interrupt(); // Cancelled while queued for tokens
+        assertThrows(InterruptedException.class, () -> limiter.acquire("gpt-4o-mini", 500));
+        Thread.interrupted();
+
+        limiter.refund("gpt-4o-mini", 1000); // The first call's reservation, so the bucket is full again
+        assertEquals(0, limiter.reserve("gpt-4o-mini", 1000));
+    }
+
+    @Test
+    void testBucketsRefillOverTime() {
+        AtomicLong clock = new AtomicLong();
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(0, 600, clock::get);
+
+        assertEquals(0, limiter.reserve("gpt-4o-mini", 600));
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+
+        assertEquals(0, limiter.reserve("gpt-4o-mini", 300));
+    }
+
+    @Test
+    void testDisabledLimiterNeverWaits() throws InterruptedException {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(0, 0);
+
+        assertFalse(limiter.isEnabled());
+        assertEquals(0, limiter.acquire("gpt-4o-mini", 1_000_000));
+        assertEquals(0, limiter.getStats().getAdmitted());
+    }
+}
@@ -0,0 +1,88 @@
+package com.complai.coldsales.agents.base.client;
+
+import com.complai.coldsales.utils.tokenizer.HeuristicTokenizer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for tool-loop context compaction.
+ * Messages are plain strings of the form "role(id):content" so pairing can be checked.
+ */
+class ToolContextCompactorTest {
+
+    private static final String PAGE = "scraped page text ".repeat(400); // ~1800 tokens
+
+    private final List<String> messages = new ArrayList<>(List.of("system:instructions", "user:prompt"));
+
+    private void assistant(ToolContextCompactor<String> compactor, int iteration, String text, String callId) {
+        messages.add("assistant(" + callId + "):" + text);
+        compactor.recordAssistant(messages.size() - 1, iteration, text, content -> "assistant(" + callId + "):" + content);
+    }
+
+    private void toolResult(ToolContextCompactor<String> compactor, int iteration, String tool, String callId, String output) {
+        messages.add("tool(" + callId + "):" + output);
+        compactor.recordToolResult(messages.size() - 1, iteration, tool, output, content -> "tool(" + callId + "):" + content);
+    }
+
+    @Test
+    void testLatestTurnIsNeverCompacted() {
+        ToolContextCompactor<String> compactor = new ToolContextCompactor<>(new HeuristicTokenizer("cl100k_base"), 500);
+        assistant(compactor, 0, "Let me look at the website.", "a");
+        toolResult(compactor, 0, "analyze_company_website", "a", PAGE);
+
+        assertEquals(0, compactor.compact(messages, 0));
+        assertEquals("tool(a):" + PAGE, messages.get(3));
+    }
+
+    @Test
+    void testOlderResultsAreCutToBudgetKeepingToolCallIds() {
+        ToolContextCompactor<String> compactor = new ToolContextCompactor<>(new HeuristicTokenizer("cl100k_base"), 2000);
+        assistant(compactor, 0, "Let me look at the website.", "a");
+        toolResult(compactor, 0, "analyze_company_website", "a", PAGE);
+        assistant(compactor, 1, "", "b");
+        toolResult(compactor, 1, "search_news", "b", PAGE);
+
+        int saved = compactor.compact(messages, 2);
+
+        assertTrue(saved > 1500);
+        assertEquals(6, messages.size(), "messages are rewritten, never removed");
+        assertEquals("assistant(a):", messages.get(2), "earlier assistant text is dropped");
+        assertTrue(messages.get(3).startsWith("tool(a):scraped page text"));
+        assertTrue(messages.get(3).contains("[compacted:"));
+        assertEquals("tool(b):" + PAGE, messages.get(5), "newest result still fits the budget");
+        assertTrue(compactor.toolResultTokens() <= 2000);
+    }
+
+    @Test
+    void testRepeatedResultsAreReplacedByReference() {
+        ToolContextCompactor<String> compactor = new ToolContextCompactor<>(new HeuristicTokenizer("cl100k_base"), 100_000);
+        assistant(compactor, 0, "", "a");
+        toolResult(compactor, 0, "search_news", "a", "No recent news found.");
+        assistant(compactor, 1, "", "b");
+        toolResult(compactor, 1, "search_news", "b", "No recent news found.");
+
+        compactor.compact(messages, 2);
+
+        assertEquals("tool(a):[Same result as a later search_news call]", messages.get(3));
+        assertEquals("tool(b):No recent news found.", messages.get(5));
+    }
+
+    @Test
+    void testResultsAreOmittedWhenHeadsStillExceedBudget() {
+        ToolContextCompactor<String> compactor = new ToolContextCompactor<>(new HeuristicTokenizer("cl100k_base"), 250);
+        assistant(compactor, 0, "", "a");
+        toolResult(compactor, 0, "analyze_company_website", "a", PAGE);
+        assistant(compactor, 1, "", "b");
+        toolResult(compactor, 1, "search_news", "b", PAGE + "news");
+
+        compactor.compact(messages, 2);
+
+        assertEquals("tool(a):[analyze_company_website result omitted to fit context]", messages.get(3));
+        assertTrue(messages.get(5).contains("[compacted:"));
+        assertEquals(0, compactor.compact(messages, 2), "compaction is idempotent");
+    }
+}
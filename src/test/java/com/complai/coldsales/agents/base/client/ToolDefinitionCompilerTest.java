@@ -0,0 +1,103 @@
+package com.complai.coldsales.agents.base.client;
+
+import com.complai.coldsales.agents.base.core.Agent;
+import com.complai.coldsales.agents.base.tools.AgentTool;
+import com.openai.models.ChatCompletionTool;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for compiling and reusing tool definitions per agent.
+ */
+class ToolDefinitionCompilerTest {
+
+    private static final Agent RESEARCHER = Agent.builder().name("Researcher").model("gpt-4o-mini").build();
+    private static final Agent WRITER = Agent.builder().name("Writer").model("gpt-4o-mini").build();
+
+    @Test
+    void testDefinitionsAreCompiledOnceAndReused() {
+        ToolDefinitionCompiler compiler = new ToolDefinitionCompiler();
+        Agent agent = managerWith(tool("research"), tool("write"));
+
+        List<ChatCompletionTool> first = compiler.toolsFor(agent);
+        List<ChatCompletionTool> second = compiler.toolsFor(agent);
+
+        assertSame(first, second);
+        assertEquals(List.of("research", "write"), names(first));
+    }
+
+    @Test
+    void testEqualAgentsAreCompiledSeparately() {
+        ToolDefinitionCompiler compiler = new ToolDefinitionCompiler();
+        Agent agent = managerWith(tool("research"));
+        Agent twin = managerWith(tool("research"));
+        assertEquals(agent, twin); // Deep @Data equality, but a different instance
+
+        List<ChatCompletionTool> agentTools = compiler.toolsFor(agent);
+        List<ChatCompletionTool> twinTools = compiler.toolsFor(twin);
+
+        assertNotSame(agentTools, twinTools);
+        assertSame(agentTools, compiler.toolsFor(agent));
+        assertSame(twinTools, compiler.toolsFor(twin));
+    }
+
+    @Test
+    void testReplacingAnAgentsToolsRecompilesOnlyThatAgent() {
+        ToolDefinitionCompiler compiler = new ToolDefinitionCompiler();
+        Agent agent = managerWith(tool("research"));
+        Agent twin = managerWith(tool("research"));
+        List<ChatCompletionTool> twinTools = compiler.toolsFor(twin);
+        compiler.toolsFor(agent);
+
+        agent.setTools(List.of(tool("research"), tool("write")));
+
+        assertEquals(List.of("research", "write"), names(compiler.toolsFor(agent)));
+        assertSame(twinTools, compiler.toolsFor(twin));
+    }
+
+    @Test
+    void testAgentsWithDifferentToolsGetTheirOwnDefinitions() {
+        ToolDefinitionCompiler compiler = new ToolDefinitionCompiler();
+        Agent researchOnly = managerWith(tool("research"));
+        Agent fullManager = managerWith(tool("research"), tool("write"), tool("review"));
+
+        assertEquals(List.of("research"), names(compiler.toolsFor(researchOnly)));
+        assertEquals(List.of("research", "write", "review"), names(compiler.toolsFor(fullManager)));
+        assertEquals("Runs research", compiler.toolsFor(researchOnly).get(0).function().description().orElseThrow());
+    }
+
+    @Test
+    void testAllToolsShareOnePromptParametersSchema() {
+        ToolDefinitionCompiler compiler = new ToolDefinitionCompiler();
+        List<ChatCompletionTool> first = compiler.toolsFor(managerWith(tool("research"), tool("write")));
+        List<ChatCompletionTool> second = compiler.toolsFor(managerWith(tool("review")));
+
+        Object shared = first.get(0).function().parameters().orElseThrow();
+        assertSame(shared, first.get(1).function().parameters().orElseThrow());
+        assertSame(shared, second.get(0).function().parameters().orElseThrow());
+    }
+
+    @Test
+    void testAgentWithoutToolsCompilesToEmptyList() {
+        ToolDefinitionCompiler compiler = new ToolDefinitionCompiler();
+        Agent agent = Agent.builder().name("Solo").model("gpt-4o-mini").tools(null).build();
+
+        assertTrue(compiler.toolsFor(agent).isEmpty());
+    }
+
+    private static Agent managerWith(AgentTool... tools) {
+        return Agent.builder().name("Sales Manager").model("gpt-4o-mini").tools(new ArrayList<>(List.of(tools))).build();
+    }
+
+    private static AgentTool tool(String name) {
+        return new AgentTool(name, "Runs " + name, name.equals("write") ? WRITER : RESEARCHER);
+    }
+
+    private static List<String> names(List<ChatCompletionTool> definitions) {
+        return definitions.stream().map(definition -> definition.function().name()).toList();
+    }
+}
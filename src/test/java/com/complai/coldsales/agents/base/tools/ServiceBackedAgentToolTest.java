@@ -0,0 +1,157 @@
+package com.complai.coldsales.agents.base.tools;
+
+import com.complai.coldsales.agents.base.client.LLMClient;
+import com.complai.coldsales.agents.base.client.LLMExecutor;
+import com.complai.coldsales.agents.base.client.LLMProvider;
+import com.complai.coldsales.agents.base.core.Agent;
+import com.complai.coldsales.agents.base.result.LLMResult;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tool-loop tests for service-backed tools, against a local OpenAI-compatible stand-in server.
+ */
+class ServiceBackedAgentToolTest {
+
+    private static final int TOOLS_PER_MANAGER = 4;
+
+    @Test
+    void testServiceBackedToolsFinishWhileTheirManagersHoldEveryPoolThread() throws Exception {
+        ExecutorService scraper = Executors.newSingleThreadExecutor(); // Like the ServicesRegistry executors
+        try (StandInServer server = new StandInServer();
+             LLMClient client = LLMClient.builder()
+                     .defaultModel("gpt-4o-mini")
+                     .providers(List.of(LLMProvider.openAI("test-key", server.baseUrl())))
+                     .executor(LLMExecutor.fixedPool(2))
+                     .maxParallelToolCalls(TOOLS_PER_MANAGER)
+                     .toolTimeout(Duration.ofSeconds(5))
+                     .maxAttempts(1)
+                     .cacheByDefault(false)
+                     .build()) {
+
+            // Two managers fill the pool, then block on tools that reach the LLM from the scraper thread
+            List<CompletableFuture<LLMResult>> runs = List.of(
+                    client.run(manager("Manager A", scraper), "Research Acme"),
+                    client.run(manager("Manager B", scraper), "Research Initech"));
+
+            for (CompletableFuture<LLMResult> run : runs) {
+                LLMResult result = run.get(10, TimeUnit.SECONDS);
+                assertEquals("done", result.getFinalOutput());
+                assertEquals(TOOLS_PER_MANAGER, result.getToolCallsMade(), "no tool should time out");
+            }
+            assertEquals(2 * TOOLS_PER_MANAGER, server.toolAgentCalls.get());
+        } finally {
+            scraper.shutdownNow();
+        }
+    }
+
+    private static Agent manager(String name, ExecutorService scraper) {
+        List<AgentTool> tools = new ArrayList<>();
+        for (int i = 0; i < TOOLS_PER_MANAGER; i++) {
+            Agent researcher = Agent.builder().name("Researcher " + i).instructions("Research")
+                    .model("gpt-4o-mini").build();
+            tools.add(new ServiceBackedAgentTool("research_" + i, "Research step " + i, researcher,
+                    () -> "Stand-in scraper") {
+                @Override
+                protected CompletableFuture<String> buildAugmentedPrompt(String originalPrompt) {
+                    return CompletableFuture.supplyAsync(() -> originalPrompt + "\nScraped: ok", scraper);
+                }
+            });
+        }
+        return Agent.builder().name(name).instructions("Use every tool, then answer").model("gpt-4o-mini")
+                .tools(tools).build();
+    }
+
+    /**
+     * Chat completions stand-in. A manager (a request with tools) first calls every tool, then
+     * answers "done" once the tool results are in; tool agents answer right away.
+     */
+    private static final class StandInServer implements AutoCloseable {
+        private static final ObjectMapper MAPPER = new ObjectMapper();
+
+        private final HttpServer server;
+        private final AtomicInteger toolAgentCalls = new AtomicInteger();
+
+        StandInServer() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.setExecutor(Executors.newCachedThreadPool());
+            server.createContext("/v1/chat/completions", this::handleCompletion);
+            server.start();
+        }
+
+        String baseUrl() {
+            return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1";
+        }
+
+        private void handleCompletion(HttpExchange exchange) throws IOException {
+            JsonNode request = MAPPER.readTree(exchange.getRequestBody());
+            Map<String, Object> message = new HashMap<>();
+            message.put("role", "assistant");
+            message.put("refusal", null);
+            String finishReason = "stop";
+            if (!request.path("tools").isArray()) {
+                toolAgentCalls.incrementAndGet();
+                message.put("content", "researched");
+            } else if (hasToolResults(request)) {
+                message.put("content", "done");
+            } else {
+                List<Map<String, Object>> toolCalls = new ArrayList<>();
+                for (int i = 0; i < TOOLS_PER_MANAGER; i++) {
+                    toolCalls.add(Map.of("id", "call_" + i, "type", "function",
+                            "function", Map.of("name", "research_" + i, "arguments", "{\"prompt\":\"Acme\"}")));
+                }
+                message.put("content", null);
+                message.put("tool_calls", toolCalls);
+                finishReason = "tool_calls";
+            }
+            Map<String, Object> choice = new HashMap<>();
+            choice.put("index", 0);
+            choice.put("finish_reason", finishReason);
+            choice.put("logprobs", null);
+            choice.put("message", message);
+            byte[] response = MAPPER.writeValueAsBytes(Map.of(
+                    "id", "chatcmpl-test",
+                    "object", "chat.completion",
+                    "created", 1,
+                    "model", request.path("model").asText(),
+                    "choices", List.of(choice),
+                    "usage", Map.of("prompt_tokens", 50, "completion_tokens", 10, "total_tokens", 60)));
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        }
+
+        private static boolean hasToolResults(JsonNode request) {
+            for (JsonNode message : request.path("messages")) {
+                if ("tool".equals(message.path("role").asText())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void close() {
+            server.stop(0);
+        }
+    }
+}
@@ -77,6 +77,20 @@ class SalesAgentsTest {
         assertEquals(settings.getModel(), agent.getModel());
     }
     
+    @Test
+    void testSalesAgentsShareCampaignContext() {
+        Agent professional = new StructuredProfessionalSalesAgent(settings.getModel(), java.util.List.of()).getAgent();
+        Agent engaging = new StructuredEngagingSalesAgent(settings.getModel(), java.util.List.of()).getAgent();
+        Agent busy = new StructuredBusySalesAgent(settings.getModel(), java.util.List.of()).getAgent();
+        
+        String context = professional.getOptions().getSharedContext();
+        assertNotNull(context);
+        assertTrue(context.contains("ComplAI"));
+        assertEquals(context, engaging.getOptions().getSharedContext());
+        assertEquals(context, busy.getOptions().getSharedContext());
+        assertFalse(professional.getInstructions().contains("ComplAI is a company")); // Only in the shared prefix
+    }
+    
     @Test
     void testSalesAgentsWithGuardrails() {
         com.complai.coldsales.agents.base.GuardrailFunction guardrail = (context, agent, message) -> 
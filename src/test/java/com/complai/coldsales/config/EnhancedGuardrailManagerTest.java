@@ -0,0 +1,71 @@
+package com.complai.coldsales.config;
+
+import com.complai.coldsales.agents.base.guardrails.GuardrailResult;
+import com.complai.coldsales.models.guardrails.BusinessContextCheck;
+import com.complai.coldsales.models.guardrails.CompositeGuardrailCheck;
+import com.complai.coldsales.models.guardrails.ContentSafetyCheck;
+import com.complai.coldsales.models.guardrails.PersonalDataCheck;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for guardrail modes and composite verdicts.
+ */
+class EnhancedGuardrailManagerTest {
+
+    // The verdict logic never calls the model
+    private final EnhancedGuardrailManager manager =
+            new EnhancedGuardrailManager(null, "gpt-4o-mini", EnhancedGuardrailManager.Mode.COMPOSITE);
+
+    @Test
+    void testCleanCompositeVerdictsPass() {
+        GuardrailResult result = manager.compositeResult(CompositeGuardrailCheck.builder()
+                .contentSafety(ContentSafetyCheck.builder().isSafe(true).confidence(0.9).policyViolations(List.of()).build())
+                .businessContext(BusinessContextCheck.builder().isSafe(true).confidence(0.9).complianceIssues(List.of()).build())
+                .personalData(PersonalDataCheck.builder().isSafe(true).confidence(0.9).build())
+                .build());
+
+        assertFalse(result.isTripwireTriggered());
+        assertFalse(result.getOutputInfo().containsKey("missing_verdicts"));
+    }
+
+    @Test
+    void testMissingVerdictsBlockAndAreReported() {
+        GuardrailResult result = manager.compositeResult(CompositeGuardrailCheck.builder()
+                .contentSafety(ContentSafetyCheck.builder().isSafe(true).confidence(0.9).build())
+                .build());
+
+        assertTrue(result.isTripwireTriggered());
+        assertEquals(List.of("business_context", "personal_data"), result.getOutputInfo().get("missing_verdicts"));
+        assertFalse(result.getOutputInfo().containsKey("data_check"));
+    }
+
+    @Test
+    void testTrippedVerdictBlocks() {
+        GuardrailResult result = manager.compositeResult(CompositeGuardrailCheck.builder()
+                .contentSafety(ContentSafetyCheck.builder().isSafe(true).confidence(0.9).build())
+                .businessContext(BusinessContextCheck.builder().mentionsCompetitors(true).confidence(0.9).build())
+                .personalData(PersonalDataCheck.builder().isSafe(true).confidence(0.9).build())
+                .build());
+
+        assertTrue(result.isTripwireTriggered());
+    }
+
+    @Test
+    void testUnparsedAnswerFallsBackToKeywordChecks() {
+        assertFalse(manager.compositeResult("Error calling OpenAI API for Guardrail Checker: timeout").isTripwireTriggered());
+        assertTrue(manager.compositeResult("mentions a competitor").isTripwireTriggered());
+    }
+
+    @Test
+    void testModeFromSetting() {
+        assertEquals(EnhancedGuardrailManager.Mode.SEPARATE, EnhancedGuardrailManager.Mode.fromSetting(" Separate "));
+        assertEquals(EnhancedGuardrailManager.Mode.COMPOSITE, EnhancedGuardrailManager.Mode.fromSetting(null));
+        assertEquals(1, manager.getSalesGuardrails().size());
+        assertEquals(3, new EnhancedGuardrailManager(null, null, EnhancedGuardrailManager.Mode.SEPARATE)
+                .getSalesGuardrails().size());
+    }
+}
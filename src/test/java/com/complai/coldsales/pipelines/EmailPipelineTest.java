@@ -3,23 +3,49 @@ package com.complai.coldsales.pipelines;
 import com.complai.coldsales.TestUtils;
 import com.complai.coldsales.agents.base.core.Agent;
 import com.complai.coldsales.agents.base.client.LLMClient;
+import com.complai.coldsales.agents.base.client.LLMProvider;
+import com.complai.coldsales.agents.base.client.LLMStream;
+import com.complai.coldsales.agents.base.result.LLMResult;
 import com.complai.coldsales.agents.email.StructuredEmailAnalyzerAgent;
 import com.complai.coldsales.agents.email.StructuredSubjectWriterAgent;
 import com.complai.coldsales.agents.sales.*;
 import com.complai.coldsales.agents.email.HTMLConverterAgent;
 import com.complai.coldsales.config.Settings;
 import com.complai.coldsales.models.pipeline.email.EmailPipelineResult;
+import com.complai.coldsales.models.structured.EmailAnalysis;
+import com.complai.coldsales.models.structured.EmailSubject;
+import com.complai.coldsales.models.structured.SalesEmail;
 import com.complai.coldsales.services.EmailService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
 
 /**
  * Unit tests for EmailPipeline.
+ *
+ * Pipeline behaviour is tested against a mocked LLMClient; candidate generation is tested
+ * against a local OpenAI-compatible stand-in server, with and without n > 1 support.
  */
 class EmailPipelineTest {
     
@@ -57,7 +83,128 @@ class EmailPipelineTest {
         
         assertNotNull(pipeline);
     }
+
+    @Test
+    void testEmailPipelineCreationWithVariantsPerTone() {
+        EmailPipeline pipeline = new EmailPipeline(
+                llmClient, professionalAgent, engagingAgent, busyAgent, emailAnalyzer,
+                subjectWriter, htmlConverter, emailService, 3
+        );
+
+        assertNotNull(pipeline);
+    }
     
+    @Test
+    void testEachToneAgentIsAskedForVariantsPerToneCandidates() {
+        LLMClient client = stubbedClient(Map.of());
+        EmailService sender = stubbedEmailService();
+
+        newPipeline(client, sender, 3).run("Write to the CTO of Acme").join();
+
+        verify(client).runCandidates(professionalAgent, "Write to the CTO of Acme", 3);
+        verify(client).runCandidates(engagingAgent, "Write to the CTO of Acme", 3);
+        verify(client).runCandidates(busyAgent, "Write to the CTO of Acme", 3);
+        verify(client, times(9)).run(eq(emailAnalyzer), anyString()); // Every variant is analyzed
+    }
+
+    @Test
+    void testBestVariantIsSelectedAcrossAllTones() {
+        // The second engaging variant scores highest; every other variant is average
+        LLMClient client = stubbedClient(Map.of("engaging-1", analysis(9, "high")));
+        EmailService sender = stubbedEmailService();
+
+        EmailPipelineResult result = newPipeline(client, sender, 3).run("Write to the CTO of Acme").join();
+
+        assertEquals("success", result.getStatus());
+        assertEquals("engaging-1", result.getSelectedEmail().getBody());
+        assertEquals(9, result.getAnalysis().getEffectivenessScore());
+        assertEquals("Subject for engaging-1", result.getSubjectOptions().getPrimary());
+        verify(client).run(subjectWriter, "engaging-1");
+        verify(client).runStreaming(htmlConverter, "engaging-1");
+        verify(sender).sendHtmlEmail(any(InputStream.class), eq("Subject for engaging-1"));
+    }
+
+    @Test
+    void testUnparsedCandidatesFallBackToUsableEmails() {
+        LLMClient client = stubbedClient(Map.of());
+        LLMResult unparsed = LLMResult.builder()
+                .finalOutput("plain text email")
+                .candidateOutputs(List.of("plain text email", "another plain email"))
+                .build();
+        when(client.runCandidates(eq(busyAgent), anyString(), anyInt()))
+                .thenReturn(CompletableFuture.completedFuture(unparsed));
+
+        newPipeline(client, stubbedEmailService(), 3).run("Write to the CTO of Acme").join();
+
+        verify(client).run(emailAnalyzer, "plain text email");
+        verify(client).run(emailAnalyzer, "another plain email");
+        verify(client, times(8)).run(eq(emailAnalyzer), anyString());
+    }
+
+    @Test
+    void testCandidatesShareOneRequestWhenProviderReturnsSeveralChoices() throws Exception {
+        try (StandInServer server = new StandInServer();
+             LLMClient client = server.client(LLMProvider.openAI("test-key", server.baseUrl()))) {
+
+            LLMResult result = client.runCandidates(professionalAgent, "Write to the CTO of Acme", 3)
+                    .get(10, TimeUnit.SECONDS);
+
+            assertEquals(List.of(3), server.requestedChoices);
+            assertEquals(List.of("variant-1-0", "variant-1-1", "variant-1-2"), bodies(result));
+        }
+    }
+
+    @Test
+    void testCandidatesAreSplitIntoSeparateCallsWhenProviderRejectsChoices() throws Exception {
+        try (StandInServer server = new StandInServer();
+             LLMClient client = server.client(LLMProvider.builder()
+                     .name(LLMProvider.DEEPSEEK)
+                     .baseUrl(server.baseUrl())
+                     .apiKey("test-key")
+                     .model("deepseek-chat")
+                     .jsonSchemaSupported(false)
+                     .multipleChoicesSupported(false)
+                     .build())) {
+
+            LLMResult result = client.runCandidates(professionalAgent, "Write to the CTO of Acme", 3)
+                    .get(10, TimeUnit.SECONDS);
+
+            assertEquals(List.of(1, 1, 1), server.requestedChoices);
+            assertEquals(3, result.getCandidateOutputs().size());
+            assertTrue(result.getCandidateOutputs().stream().allMatch(SalesEmail.class::isInstance));
+            assertEquals(3, bodies(result).stream().distinct().count());
+        }
+    }
+
+    @Test
+    void testCandidatesAreToppedUpAfterFailingOverToProviderWithoutChoices() throws Exception {
+        try (StandInServer failing = new StandInServer(true);
+             StandInServer fallback = new StandInServer(false);
+             LLMClient client = LLMClient.builder()
+                     .defaultModel("gpt-4o-mini")
+                     .providers(List.of(
+                             LLMProvider.openAI("test-key", failing.baseUrl()),
+                             LLMProvider.builder()
+                                     .name(LLMProvider.DEEPSEEK)
+                                     .baseUrl(fallback.baseUrl())
+                                     .apiKey("test-key")
+                                     .model("deepseek-chat")
+                                     .jsonSchemaSupported(false)
+                                     .multipleChoicesSupported(false)
+                                     .build()))
+                     .maxAttempts(6)
+                     .build()) {
+
+            LLMResult result = client.runCandidates(professionalAgent, "Write to the CTO of Acme", 3)
+                    .get(20, TimeUnit.SECONDS);
+
+            assertTrue(failing.requestedChoices.stream().allMatch(n -> n == 3), "the preferred route was asked for all three");
+            assertEquals(List.of(1, 1, 1), fallback.requestedChoices);
+            assertEquals(3, result.getCandidateOutputs().size());
+            assertEquals("deepseek-chat", result.getModel());
+        }
+    }
+
     @Test
     @org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable(named = "OPENAI_API_KEY", matches = ".+")
     void testEmailPipelineRun() throws ExecutionException, InterruptedException {
@@ -75,5 +222,149 @@ class EmailPipelineTest {
         assertNotNull(result.getAnalysis());
         assertNotNull(result.getSubjectOptions());
     }
-}
 
+    private EmailPipeline newPipeline(LLMClient client, EmailService sender, int variantsPerTone) {
+        return new EmailPipeline(client, professionalAgent, engagingAgent, busyAgent, emailAnalyzer,
+                subjectWriter, htmlConverter, sender, variantsPerTone);
+    }
+
+    /**
+     * Mocked client: each tone agent returns as many variants as asked for, bodied "<tone>-<i>";
+     * the analyzer scores each body from the given map (average otherwise).
+     */
+    private LLMClient stubbedClient(Map<String, EmailAnalysis> analyses) {
+        LLMClient client = mock(LLMClient.class);
+        for (Map.Entry<Agent, String> tone : Map.of(
+                professionalAgent, "professional", engagingAgent, "engaging", busyAgent, "busy").entrySet()) {
+            when(client.runCandidates(eq(tone.getKey()), anyString(), anyInt())).thenAnswer(invocation -> {
+                List<Object> variants = new ArrayList<>();
+                for (int i = 0; i < invocation.<Integer>getArgument(2); i++) {
+                    variants.add(SalesEmail.builder().subject("Hi").body(tone.getValue() + "-" + i)
+                            .tone(tone.getValue()).expectedResponseRate(5).build());
+                }
+                return CompletableFuture.completedFuture(
+                        LLMResult.builder().finalOutput(variants.get(0)).candidateOutputs(variants).build());
+            });
+        }
+        when(client.run(eq(emailAnalyzer), anyString())).thenAnswer(invocation -> CompletableFuture.completedFuture(
+                LLMResult.builder()
+                        .finalOutput(analyses.getOrDefault(invocation.<String>getArgument(1), analysis(5, "medium")))
+                        .build()));
+        when(client.run(eq(subjectWriter), anyString())).thenAnswer(invocation -> CompletableFuture.completedFuture(
+                LLMResult.builder().finalOutput(EmailSubject.builder()
+                        .primarySubject("Subject for " + invocation.getArgument(1))
+                        .alternativeSubjects(List.of("Alternative"))
+                        .subjectType("benefit")
+                        .predictedOpenRate(40)
+                        .build()).build()));
+        LLMStream html = mock(LLMStream.class);
+        when(html.abortIf(any(), anyString())).thenReturn(html);
+        when(html.asInputStream()).thenAnswer(invocation ->
+                new ByteArrayInputStream("<p>Hello</p>".getBytes(StandardCharsets.UTF_8)));
+        when(client.runStreaming(eq(htmlConverter), anyString())).thenReturn(html);
+        when(client.getExecutor()).thenReturn(ForkJoinPool.commonPool());
+        return client;
+    }
+
+    private EmailService stubbedEmailService() {
+        EmailService sender = mock(EmailService.class);
+        when(sender.sendHtmlEmail(any(InputStream.class), anyString())).thenReturn(Map.of("status", "success"));
+        return sender;
+    }
+
+    private static EmailAnalysis analysis(int effectiveness, String personalization) {
+        return EmailAnalysis.builder()
+                .effectivenessScore(effectiveness)
+                .personalizationLevel(personalization)
+                .hasCallToAction(true)
+                .strengths("Clear")
+                .improvementSuggestions("None")
+                .build();
+    }
+
+    private static List<String> bodies(LLMResult result) {
+        return result.getCandidateOutputs().stream().map(output -> ((SalesEmail) output).getBody()).toList();
+    }
+
+    /**
+     * OpenAI-compatible chat completions stand-in. Answers with as many choices as the request's
+     * n, each a sales email bodied "variant-<request>-<choice>", and records every n it was sent.
+     * A failing stand-in records the n and answers 500.
+     */
+    private static final class StandInServer implements AutoCloseable {
+        private static final ObjectMapper MAPPER = new ObjectMapper();
+
+        private final HttpServer server;
+        private final List<Integer> requestedChoices = new CopyOnWriteArrayList<>();
+        private final boolean failing;
+
+        StandInServer() throws IOException {
+            this(false);
+        }
+
+        StandInServer(boolean failing) throws IOException {
+            this.failing = failing;
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/v1/chat/completions", this::handleCompletion);
+            server.start();
+        }
+
+        String baseUrl() {
+            return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1";
+        }
+
+        LLMClient client(LLMProvider provider) {
+            return LLMClient.builder().defaultModel("gpt-4o-mini").providers(List.of(provider)).maxAttempts(1).build();
+        }
+
+        private void handleCompletion(HttpExchange exchange) throws IOException {
+            JsonNode request = MAPPER.readTree(exchange.getRequestBody());
+            int choices = request.path("n").asInt(1);
+            requestedChoices.add(choices);
+            int requestNumber = requestedChoices.size();
+            if (failing) {
+                exchange.sendResponseHeaders(500, -1);
+                exchange.close();
+                return;
+            }
+
+            List<Map<String, Object>> choiceNodes = new ArrayList<>();
+            for (int i = 0; i < choices; i++) {
+                String email = MAPPER.writeValueAsString(Map.of(
+                        "subject", "Audit prep in days",
+                        "body", "variant-" + requestNumber + "-" + i,
+                        "tone", "professional",
+                        "call_to_action", "Book a call",
+                        "personalization_notes", "CTO",
+                        "expected_response_rate", 5));
+                Map<String, Object> message = new java.util.HashMap<>();
+                message.put("role", "assistant");
+                message.put("content", email);
+                message.put("refusal", null);
+                Map<String, Object> choice = new java.util.HashMap<>();
+                choice.put("index", i);
+                choice.put("finish_reason", "stop");
+                choice.put("logprobs", null);
+                choice.put("message", message);
+                choiceNodes.add(choice);
+            }
+            byte[] response = MAPPER.writeValueAsBytes(Map.of(
+                    "id", "chatcmpl-" + requestNumber,
+                    "object", "chat.completion",
+                    "created", 1,
+                    "model", request.path("model").asText(),
+                    "choices", choiceNodes,
+                    "usage", Map.of("prompt_tokens", 50, "completion_tokens", 40 * choices,
+                            "total_tokens", 50 + 40 * choices)));
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        }
+
+        @Override
+        public void close() {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.complai.coldsales.utils;
+
+import com.complai.coldsales.utils.tokenizer.HeuristicTokenizer;
+import com.complai.coldsales.utils.tokenizer.Tokenizer;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ToolPromptBuilder's token-budgeted prompt assembly.
+ */
+class ToolPromptBuilderTest {
+
+    private final Tokenizer tokenizer = new HeuristicTokenizer("cl100k_base");
+    private final String pageText = "word ".repeat(2000);
+
+    @Test
+    void testServiceDataIsTrimmedToBudget() {
+        String prompt = ToolPromptBuilder.from("Research Acme for the CTO")
+                .withTokenBudget(tokenizer, 200)
+                .wrapServiceData(CompletableFuture.completedFuture(pageText), Function.identity(), "website data")
+                .join();
+
+        assertTrue(prompt.startsWith("Analyze this website data:"));
+        assertTrue(prompt.contains("[truncated to fit token budget]"));
+        assertTrue(tokenizer.count(prompt) <= 200);
+    }
+
+    @Test
+    void testCustomInstructionIsKeptWhenTrimming() {
+        String prompt = ToolPromptBuilder.from("Research Acme for the CTO")
+                .withExtractedCompanyName()
+                .withTokenBudget(tokenizer, 100)
+                .wrapServiceDataWithCustomInstruction(CompletableFuture.completedFuture(pageText),
+                        Function.identity(), "News about {companyName}:\n\n{data}\n\nSummarize the above.")
+                .join();
+
+        assertTrue(prompt.startsWith("News about Acme:"));
+        assertTrue(prompt.endsWith("Summarize the above."));
+        assertTrue(tokenizer.count(prompt) <= 100);
+    }
+
+    @Test
+    void testNoBudgetKeepsDataIntact() {
+        String prompt = ToolPromptBuilder.from("Acme")
+                .wrapServiceData(CompletableFuture.completedFuture(pageText), Function.identity(), "website data")
+                .join();
+
+        assertTrue(prompt.endsWith(pageText));
+    }
+}
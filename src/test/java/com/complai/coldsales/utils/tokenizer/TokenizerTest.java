@@ -0,0 +1,115 @@
+package com.complai.coldsales.utils.tokenizer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the local BPE tokenizer, its heuristic fallback and model-to-encoding mapping.
+ */
+class TokenizerTest {
+
+    private static final List<String> MERGES = List.of("he", "ll", "llo", "wo", "or");
+
+    private static Map<String, Integer> ranks() {
+        Map<String, Integer> ranks = new HashMap<>();
+        for (int b = 0; b < 256; b++) {
+            ranks.put(String.valueOf((char) b), b);
+        }
+        for (String merge : MERGES) {
+            ranks.put(merge, ranks.size()); // 256, 257, ...
+        }
+        return ranks;
+    }
+
+    private final BpeTokenizer tokenizer = new BpeTokenizer(Tokenizers.CL100K_BASE, ranks(),
+            Tokenizers.patternFor(Tokenizers.CL100K_BASE));
+
+    @Test
+    void testLowestRankPairsMergeFirst() {
+        // "he" (256) merges before "ll" (257), then "llo" (258) absorbs the trailing "o"
+        assertEquals(List.of(256, 258), tokenizer.encode("hello"));
+    }
+
+    @Test
+    void testTextIsPreSplitIntoPieces() {
+        // " world" is its own piece: ' ', "wo" is preferred over "or", then r, l, d
+        assertEquals(List.of(256, 258, 32, 259, 114, 108, 100), tokenizer.encode("hello world"));
+        assertEquals(7, tokenizer.count("hello world"));
+        assertEquals(7, tokenizer.count("hello world")); // Served from the piece cache
+    }
+
+    @Test
+    void testMultiByteCharactersCountPerByteWithoutMerges() {
+        assertEquals(2, tokenizer.count("é"));
+    }
+
+    @Test
+    void testTruncateCutsAtPieceBoundary() {
+        assertEquals("hello", tokenizer.truncate("hello world", 3));
+        assertEquals("hello world", tokenizer.truncate("hello world", 7));
+        assertEquals("", tokenizer.truncate("hello world", 1));
+    }
+
+    private static ByteArrayInputStream rankFile() {
+        StringBuilder file = new StringBuilder();
+        ranks().forEach((token, rank) -> file
+                .append(Base64.getEncoder().encodeToString(token.getBytes(StandardCharsets.ISO_8859_1)))
+                .append(' ').append(rank).append('\n'));
+        return new ByteArrayInputStream(file.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void testLoadsTiktokenRankFile() throws Exception {
+        BpeTokenizer loaded = BpeTokenizer.load(Tokenizers.CL100K_BASE, rankFile(),
+                Tokenizers.patternFor(Tokenizers.CL100K_BASE));
+
+        assertEquals(tokenizer.encode("hello world"), loaded.encode("hello world"));
+    }
+
+    @Test
+    void testRankFileGivesExactBpeCountsForTheEncoding() {
+        Tokenizer loaded = Tokenizers.load(Tokenizers.O200K_BASE, rankFile());
+
+        assertTrue(loaded instanceof BpeTokenizer, "a readable rank file should give BPE counts, not estimates");
+        assertEquals(Tokenizers.O200K_BASE, loaded.getEncoding());
+        assertEquals(7, loaded.count("hello world"));
+        assertEquals(List.of(256, 258, 32, 259, 114, 108, 100), ((BpeTokenizer) loaded).encode("hello world"));
+    }
+
+    @Test
+    void testUnreadableRankFileFallsBackToHeuristic() {
+        Tokenizer empty = Tokenizers.load(Tokenizers.CL100K_BASE, new ByteArrayInputStream(new byte[0]));
+        Tokenizer corrupt = Tokenizers.load(Tokenizers.CL100K_BASE,
+                new ByteArrayInputStream("not-base64! 1\n".getBytes(StandardCharsets.US_ASCII)));
+
+        assertTrue(empty instanceof HeuristicTokenizer);
+        assertTrue(corrupt instanceof HeuristicTokenizer);
+        assertEquals(3, corrupt.count("twelve chars"));
+    }
+
+    @Test
+    void testHeuristicFallback() {
+        HeuristicTokenizer heuristic = new HeuristicTokenizer(Tokenizers.O200K_BASE);
+
+        assertEquals(0, heuristic.count(""));
+        assertEquals(3, heuristic.count("twelve chars"));
+        assertEquals("twelve", heuristic.truncate("twelve chars and more", 2));
+    }
+
+    @Test
+    void testModelsMapToTheirEncoding() {
+        assertEquals(Tokenizers.O200K_BASE, Tokenizers.encodingForModel("gpt-4o-mini"));
+        assertEquals(Tokenizers.O200K_BASE, Tokenizers.encodingForModel("o3-mini"));
+        assertEquals(Tokenizers.CL100K_BASE, Tokenizers.encodingForModel("gpt-4-turbo"));
+        assertEquals(Tokenizers.CL100K_BASE, Tokenizers.encodingForModel("gemini-2.0-flash"));
+        assertSame(Tokenizers.forModel("gpt-4o"), Tokenizers.forModel("gpt-4o-mini"));
+    }
+}